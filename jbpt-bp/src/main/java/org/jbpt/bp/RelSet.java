@@ -39,6 +39,14 @@ public class RelSet<M,N extends IEntity> implements IEntityModel<N> {
 	 */
 	protected RelSetType[][] matrix;
 	
+	/**
+	 * Flag that is <code>false</code> if the relations were derived from 
+	 * a partial analysis of the model, e.g., from an unfolding whose 
+	 * construction was cancelled. Such relations are not guaranteed 
+	 * to be correct.
+	 */
+	protected boolean complete = true;
+	
 	/**
 	 * Returns the reverse relation for a relation, if defined. A reverse
 	 * relation is defined solely for the order relations.
@@ -105,6 +113,14 @@ public class RelSet<M,N extends IEntity> implements IEntityModel<N> {
 	public void setLookAhead(int lookAhead) {
 		this.lookAhead = lookAhead;
 	}
+	
+	public boolean isComplete() {
+		return this.complete;
+	}
+	
+	public void setComplete(boolean complete) {
+		this.complete = complete;
+	}
 
 	/**
 	 * Returns a short string representation for a behavioural relation.
@@ -9,6 +9,7 @@ import org.jbpt.bp.RelSetType;
 import org.jbpt.petri.NetSystem;
 import org.jbpt.petri.Node;
 import org.jbpt.petri.Transition;
+import org.jbpt.petri.monitoring.CancellationToken;
 import org.jbpt.petri.unfolding.CompletePrefixUnfolding;
 import org.jbpt.petri.unfolding.CompletePrefixUnfoldingSetup;
 import org.jbpt.petri.unfolding.OccurrenceNet;
@@ -62,8 +63,12 @@ public class BPCreatorUnfolding extends AbstractRelSetCreator implements RelSetC
 
 	protected boolean[][] transitiveCausalityMatrixUnfolding; 
 	protected List<Transition> nodesForTransitiveCausalityMatrixUnfolding;
+	
+	// token to cancel the derivation, null if the derivation cannot be cancelled
+	protected CancellationToken token;
 
 	protected void clear() {
+		this.token = null;
 		this.unfolding = null;
 		this.occurrenceNet = null;
 		this.transitiveCausalityMatrixUnfolding = null;
@@ -80,15 +85,34 @@ public class BPCreatorUnfolding extends AbstractRelSetCreator implements RelSetC
 	@Override
 	public BehaviouralProfile<NetSystem, Node> deriveRelationSet(NetSystem pn,
 			Collection<Node> nodes) {
+		return deriveRelationSet(pn, nodes, null);
+	}
+	
+	/**
+	 * Derives the behavioural profile for the given transitions, unless 
+	 * the given token is cancelled or its deadline passes while unfolding 
+	 * the net system. In the latter case, the profile is derived from 
+	 * the prefix constructed so far and is flagged as not complete 
+	 * (see {@link BehaviouralProfile#isComplete()}).
+	 * 
+	 * @param pn the net system
+	 * @param nodes the transitions to derive the profile for
+	 * @param token the cancellation token, or <code>null</code> if derivation cannot be cancelled
+	 * @return the behavioural profile
+	 */
+	public BehaviouralProfile<NetSystem, Node> deriveRelationSet(NetSystem pn,
+			Collection<Node> nodes, CancellationToken token) {
 				
 		// clear internal data structures
 		clear();
+		this.token = token;
 		
 		/*
 		 * Derive unfolding
 		 */
 		CompletePrefixUnfoldingSetup setup = new CompletePrefixUnfoldingSetup();
 		setup.ADEQUATE_ORDER = AdequateOrderType.ESPARZA_FOR_ARBITRARY_SYSTEMS;
+		setup.CANCELLATION = token;
 		
 		this.unfolding = new CompletePrefixUnfolding(pn,setup);
 		this.occurrenceNet = (OccurrenceNet) this.unfolding.getOccurrenceNet();
@@ -100,6 +124,7 @@ public class BPCreatorUnfolding extends AbstractRelSetCreator implements RelSetC
 
 		
 		BehaviouralProfile<NetSystem, Node> profile = new BehaviouralProfile<NetSystem, Node>(pn,nodes);
+		profile.setComplete(!this.unfolding.isCancelled());
 		RelSetType[][] matrix = profile.getMatrix();
 		
 		for (Node t : nodes)
@@ -108,6 +133,8 @@ public class BPCreatorUnfolding extends AbstractRelSetCreator implements RelSetC
 					this.transitionsForWeakOrderMatrix.add((Transition)t);
 		
 		this.deriveWeakOrderRelation();
+		if (this.isCancelled())
+			profile.setComplete(false);
 
 		for(Node t1 : profile.getEntities()) {
 			int index1 = profile.getEntities().indexOf(t1);
@@ -135,11 +162,17 @@ public class BPCreatorUnfolding extends AbstractRelSetCreator implements RelSetC
 		return profile;
 	}
 		
+	protected boolean isCancelled() {
+		return this.token != null && this.token.isCancelled();
+	}
+		
 	protected void deriveWeakOrderRelation() {
 		
 		weakOrderMatrixForTransitions = new boolean[this.transitionsForWeakOrderMatrix.size()][this.transitionsForWeakOrderMatrix.size()];
 		
 		for (Transition e1 : this.occurrenceNet.getTransitions()) {
+			if (this.isCancelled())
+				return;
 			for (Transition e2 : this.occurrenceNet.getTransitions()) {
 				if (this.occurrenceNet.getOrderingRelation(e1,e2).equals(OrderingRelationType.CAUSAL)
 						|| (!e1.equals(e2) && this.occurrenceNet.getOrderingRelation(e1,e2).equals(OrderingRelationType.CONCURRENT))) {
@@ -14,6 +14,7 @@ import org.jbpt.petri.NetSystem;
 import org.jbpt.petri.Node;
 import org.jbpt.petri.Place;
 import org.jbpt.petri.Transition;
+import org.jbpt.petri.monitoring.CancellationToken;
 import org.jbpt.petri.unfolding.CompletePrefixUnfolding;
 import org.jbpt.petri.unfolding.CompletePrefixUnfoldingSetup;
 import org.jbpt.petri.unfolding.OccurrenceNet;
@@ -54,6 +55,9 @@ public class CBPCreatorUnfolding extends AbstractRelSetCreator implements
 
 	protected boolean[][] transitiveCausalityMatrixUnfolding; 
 	protected List<Transition> nodesForTransitiveCausalityMatrixUnfolding;
+	
+	// token to cancel the derivation, null if the derivation cannot be cancelled
+	protected CancellationToken token;
 
 	public CausalBehaviouralProfile<NetSystem, Node> deriveCausalBehaviouralProfile(NetSystem pn) {
 		return deriveCausalBehaviouralProfile(pn, new ArrayList<Node>(pn.getTransitions()));
@@ -61,6 +65,7 @@ public class CBPCreatorUnfolding extends AbstractRelSetCreator implements
 
 	protected void clear() {
 
+		this.token = null;
 		this.unfolding = null;
 		this.occurrenceNet = null; 
 		
@@ -77,12 +82,17 @@ public class CBPCreatorUnfolding extends AbstractRelSetCreator implements
 	}
 
 	protected CausalBehaviouralProfile<NetSystem, Node> deriveCooccurrence(CausalBehaviouralProfile<NetSystem, Node> profile) {
+		return deriveCooccurrence(profile, null);
+	}
+	
+	protected CausalBehaviouralProfile<NetSystem, Node> deriveCooccurrence(CausalBehaviouralProfile<NetSystem, Node> profile, CancellationToken token) {
 		
 		NetSystem pn = profile.getModel();
 		
 		boolean[][] cooccurrenceMatrix = profile.getCooccurrenceMatrix();
 
 		clear();
+		this.token = token;
 		
 		/*
 		 * We need to augment the Petri net before we unfold it to get the co-occurrence
@@ -109,6 +119,7 @@ public class CBPCreatorUnfolding extends AbstractRelSetCreator implements
 		CompletePrefixUnfoldingSetup setup = new CompletePrefixUnfoldingSetup();
 		setup.ADEQUATE_ORDER = AdequateOrderType.ESPARZA_FOR_ARBITRARY_SYSTEMS;
 		setup.MAX_BOUND = 2;
+		setup.CANCELLATION = token;
 		
 		this.unfolding = new CompletePrefixUnfolding(this.augmentedNet,setup);
 		this.occurrenceNet = (OccurrenceNet) this.unfolding.getOccurrenceNet();
@@ -126,6 +137,10 @@ public class CBPCreatorUnfolding extends AbstractRelSetCreator implements
 		this.deriveCutOfLocalConfContainsAugmentedPlaceForTransition();
 
 		for(Node t1 : profile.getEntities()) {
+			if (this.isCancelled()) {
+				profile.setComplete(false);
+				break;
+			}
 			int index1 = profile.getEntities().indexOf(t1);
 			for(Node t2 : profile.getEntities()) {
 				int index2 = profile.getEntities().indexOf(t2);
@@ -166,11 +181,30 @@ public class CBPCreatorUnfolding extends AbstractRelSetCreator implements
 	@Override
 	public CausalBehaviouralProfile<NetSystem, Node> deriveCausalBehaviouralProfile(NetSystem pn,
 			Collection<Node> nodes) {
+		return deriveCausalBehaviouralProfile(pn, nodes, null);
+	}
+	
+	/**
+	 * Derives the causal behavioural profile for the given transitions, 
+	 * unless the given token is cancelled or its deadline passes while 
+	 * unfolding the net system. In the latter case, the profile is derived 
+	 * from the prefixes constructed so far and is flagged as not complete 
+	 * (see {@link CausalBehaviouralProfile#isComplete()}).
+	 * 
+	 * @param pn the net system
+	 * @param nodes the transitions to derive the profile for
+	 * @param token the cancellation token, or <code>null</code> if derivation cannot be cancelled
+	 * @return the causal behavioural profile
+	 */
+	public CausalBehaviouralProfile<NetSystem, Node> deriveCausalBehaviouralProfile(NetSystem pn,
+			Collection<Node> nodes, CancellationToken token) {
 		
 		CausalBehaviouralProfile<NetSystem, Node> profile = new CausalBehaviouralProfile<NetSystem, Node>(pn,nodes);
-		profile.setMatrix(BPCreatorUnfolding.getInstance().deriveRelationSet(pn, nodes).getMatrix());
+		BehaviouralProfile<NetSystem, Node> bp = BPCreatorUnfolding.getInstance().deriveRelationSet(pn, nodes, token);
+		profile.setMatrix(bp.getMatrix());
+		profile.setComplete(bp.isComplete());
 		
-		return deriveCooccurrence(profile);
+		return deriveCooccurrence(profile, token);
 
 	}
  		
@@ -233,12 +267,18 @@ public class CBPCreatorUnfolding extends AbstractRelSetCreator implements
 		}
 	}
 		
+	protected boolean isCancelled() {
+		return this.token != null && this.token.isCancelled();
+	}
+		
 	protected void deriveEventContinuation() {
 		
 		this.transitionsForEventContinutationMatrix.addAll(this.occurrenceNet.getTransitions());
 		this.eventContinuationMatrix = new boolean[this.transitionsForEventContinutationMatrix.size()][this.transitionsForEventContinutationMatrix.size()];
 
 		for (Transition e1 : this.transitionsForEventContinutationMatrix) {
+			if (this.isCancelled())
+				return;
 			for (Transition e2 : this.transitionsForEventContinutationMatrix) {
 				if (this.occurrenceNet.getOrderingRelation(e1,e2).equals(OrderingRelationType.CAUSAL) 
 						|| (!e1.equals(e2) && this.occurrenceNet.getOrderingRelation(e1,e2).equals(OrderingRelationType.CONCURRENT))) {
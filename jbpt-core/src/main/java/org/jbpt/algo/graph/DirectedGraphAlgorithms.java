@@ -45,8 +45,8 @@ public class DirectedGraphAlgorithms<E extends IDirectedEdge<V>,V extends IVerte
 		Iterator<V> i = g.getVertices().iterator();
 		while (i.hasNext()) {
 			V v = i.next();
-			int in = g.getIncomingEdges(v).size();
-			int out = g.getOutgoingEdges(v).size();
+			int in = g.getIncomingEdgesView(v).size();
+			int out = g.getOutgoingEdgesView(v).size();
 			if (in==0 || out==0) result.add(v);
 		}
 		
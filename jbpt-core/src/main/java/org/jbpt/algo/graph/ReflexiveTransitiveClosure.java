@@ -15,7 +15,7 @@ public class ReflexiveTransitiveClosure<E extends IDirectedEdge<V>,V extends IVe
 		super.calculateMatrix();
 		
 		for (int i=0; i<this.verticesAsList.size(); i++) {
-			this.matrix[i][i] = true;
+			this.matrix[i][i >>> 6] |= 1L << i;
 		}
 	}
 }
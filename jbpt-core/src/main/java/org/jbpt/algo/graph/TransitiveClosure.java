@@ -1,46 +1,148 @@
 package org.jbpt.algo.graph;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.jbpt.graph.abs.IDirectedEdge;
 import org.jbpt.graph.abs.IDirectedGraph;
 import org.jbpt.hypergraph.abs.IVertex;
 
-
+/**
+ * Transitive closure of a directed graph.<br/><br/>
+ *
+ * Strongly connected components of the graph are computed first (Tarjan's algorithm).
+ * Components are discovered in reverse topological order of the condensed graph, hence the set of vertices reachable from
+ * a component is the union of its direct successors and the sets of vertices reachable from them.
+ * These sets are stored as bitsets (long[] rows) that are shared by all vertices of a component.
+ * The running time is O(|V|+|E|*|V|/64).
+ */
 public class TransitiveClosure<E extends IDirectedEdge<V>,V extends IVertex> {
 
 	protected IDirectedGraph<E, V> g;
 	protected List<V> verticesAsList;
-	protected boolean[][] matrix;
+	// index of every vertex in verticesAsList
+	protected Map<V,Integer> indexes;
+	// row i is the bitset of vertices reachable from vertex i; vertices of a strongly connected component share a row
+	protected long[][] matrix;
 	
 	
 	public TransitiveClosure(IDirectedGraph<E, V> g) {
 		this.g = g;
 		this.matrix = null;
 		this.verticesAsList = new ArrayList<V>(this.g.getVertices());
+		this.indexes = new HashMap<V,Integer>();
+		for (int i = 0; i < this.verticesAsList.size(); i++)
+			this.indexes.put(this.verticesAsList.get(i), i);
 	}
 
 	protected void calculateMatrix() {
-		matrix = new boolean[this.verticesAsList.size()][this.verticesAsList.size()];
+		int n = this.verticesAsList.size();
+		int words = (n + 63) >>> 6;
+		matrix = new long[n][];
 		
 		/*
-		 * Init matrix with edges
+		 * Successors of vertices in compressed sparse row format
 		 */
-		for (E e: this.g.getEdges()) {
-			int source = this.verticesAsList.indexOf(e.getSource());
-			int target = this.verticesAsList.indexOf(e.getTarget());
-			matrix[source][target] = true;
-		}
-		
+		Collection<E> edges = this.g.getEdges();
+		int[] start = new int[n+1];
+		for (E e: edges)
+			start[this.indexes.get(e.getSource())+1]++;
+		for (int i = 0; i < n; i++)
+			start[i+1] += start[i];
+		int[] succ = new int[start[n]];
+		int[] next = new int[n];
+		System.arraycopy(start, 0, next, 0, n);
+		for (E e: edges)
+			succ[next[this.indexes.get(e.getSource())]++] = this.indexes.get(e.getTarget());
+
 		/*
-		 * Compute the transitive closure
+		 * Iterative Tarjan's algorithm; rows are computed as soon as a component is discovered
 		 */
-		for (int i = 0; i < matrix.length; i++) 
-			for (int j = 0; j < matrix.length; j++) 
-				if (matrix[j][i])
-					for (int k = 0; k < matrix.length; k++)
-						matrix[j][k] = matrix[j][k] | matrix[i][k];
+		int[] order = new int[n];
+		int[] low = new int[n];
+		int[] component = new int[n];
+		int[] stack = new int[n];
+		int[] call = new int[n];
+		int[] pos = new int[n];
+		List<long[]> rows = new ArrayList<long[]>();
+		for (int i = 0; i < n; i++) {
+			order[i] = -1;
+			component[i] = -1;
+		}
+		
+		int counter = 0;
+		int sp = 0;
+		for (int r = 0; r < n; r++) {
+			if (order[r] >= 0) continue;
+
+			int cp = 0;
+			order[r] = low[r] = counter++;
+			stack[sp++] = r;
+			call[cp] = r;
+			pos[cp++] = start[r];
+
+			while (cp > 0) {
+				int v = call[cp-1];
+				if (pos[cp-1] < start[v+1]) {
+					int w = succ[pos[cp-1]++];
+					if (order[w] < 0) {
+						order[w] = low[w] = counter++;
+						stack[sp++] = w;
+						call[cp] = w;
+						pos[cp++] = start[w];
+					}
+					else if (component[w] < 0 && order[w] < low[v])
+						low[v] = order[w];
+					continue;
+				}
+
+				cp--;
+				if (cp > 0 && low[v] < low[call[cp-1]])
+					low[call[cp-1]] = low[v];
+				if (low[v] != order[v]) continue;
+
+				// vertices stack[first..sp-1] form a strongly connected component
+				int c = rows.size();
+				int first = sp;
+				do component[stack[--first]] = c; while (stack[first] != v);
+
+				long[] row = new long[words];
+				boolean cyclic = false;
+				for (int k = first; k < sp; k++) {
+					int u = stack[k];
+					for (int j = start[u]; j < start[u+1]; j++) {
+						int w = succ[j];
+						if (component[w] == c) {
+							cyclic = true;
+							continue;
+						}
+						row[w >>> 6] |= 1L << w;
+						long[] reachable = rows.get(component[w]);
+						for (int l = 0; l < words; l++)
+							row[l] |= reachable[l];
+					}
+				}
+				for (int k = first; k < sp; k++) {
+					if (cyclic) row[stack[k] >>> 6] |= 1L << stack[k];
+					matrix[stack[k]] = row;
+				}
+				rows.add(row);
+				sp = first;
+			}
+		}
+	}
+
+	/**
+	 * Check if there is an entry in the matrix
+	 * @param i Index of a vertex
+	 * @param j Index of a vertex
+	 * @return <code>true</code> if vertex j is reachable from vertex i, <code>false</code> otherwise
+	 */
+	protected boolean isSet(int i, int j) {
+		return (matrix[i][j >>> 6] & (1L << j)) != 0;
 	}
 	
 	/**
@@ -52,9 +154,10 @@ public class TransitiveClosure<E extends IDirectedEdge<V>,V extends IVertex> {
 	public boolean hasPath(V v1, V v2) {
 		if (matrix == null)
 			calculateMatrix();
-		int i = this.verticesAsList.indexOf(v1);
-		int j = this.verticesAsList.indexOf(v2);
-		return matrix[i][j];
+		Integer i = this.indexes.get(v1);
+		Integer j = this.indexes.get(v2);
+		if (i == null || j == null) return false;
+		return isSet(i,j);
 	}
 	
 	/**
@@ -65,8 +168,9 @@ public class TransitiveClosure<E extends IDirectedEdge<V>,V extends IVertex> {
 	public boolean isInLoop(V v) {
 		if (matrix == null)
 			calculateMatrix();
-		int index = this.verticesAsList.indexOf(v);
-		return matrix[index][index];
+		Integer index = this.indexes.get(v);
+		if (index == null) return false;
+		return isSet(index,index);
 	}
 	
 	@Override
@@ -88,7 +192,7 @@ public class TransitiveClosure<E extends IDirectedEdge<V>,V extends IVertex> {
 		for (int i=0; i<verticesAsList.size(); i++) {
 			result += String.format("%-4d", i);
 			for (int j=0; j<verticesAsList.size(); j++) {
-				result += String.format("%-4s",(matrix[i][j] ? "+" : "-"));
+				result += String.format("%-4s",(isSet(i,j) ? "+" : "-"));
 			}
 			result += String.format("%-4d", i);
 			result += "\n";
@@ -102,5 +206,3 @@ public class TransitiveClosure<E extends IDirectedEdge<V>,V extends IVertex> {
 	}
 
 }
-
-
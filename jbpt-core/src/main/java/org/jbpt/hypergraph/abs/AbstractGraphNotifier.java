@@ -1,8 +1,10 @@
 package org.jbpt.hypergraph.abs;
 
+import java.util.AbstractCollection;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
@@ -17,14 +19,53 @@ import java.util.Set;
  */
 public abstract class AbstractGraphNotifier<E extends IHyperEdge<V>, V extends IVertex> extends GObject {
 
-	protected Map<V,Set<E>> vertices = new Hashtable<V, Set<E>>();
-	protected Map<E,Set<V>> edges = new Hashtable<E, Set<V>>();
+	/**
+	 * Read-only view of directed edges of a vertex in one direction; the view looks up the index on every access, 
+	 * hence it reflects all later updates of edges of the vertex
+	 */
+	private class AdjacencyView extends AbstractCollection<E> {
+		private Map<V,Set<E>> index;
+		private V v;
+		
+		private AdjacencyView(Map<V,Set<E>> index, V v) {
+			this.index = index;
+			this.v = v;
+		}
+		
+		private Set<E> edges() {
+			Set<E> es = this.index.get(this.v);
+			return es == null ? Collections.<E>emptySet() : es;
+		}
+		
+		@Override
+		public Iterator<E> iterator() {
+			return Collections.unmodifiableSet(this.edges()).iterator();
+		}
+		
+		@Override
+		public int size() {
+			return this.edges().size();
+		}
+		
+		@Override
+		public boolean contains(Object o) {
+			return this.edges().contains(o);
+		}
+	}
+	
+	protected Map<V,Set<E>> vertices = new HashMap<V, Set<E>>();
+	protected Map<E,Set<V>> edges = new HashMap<E, Set<V>>();
+	
+	// directed edges that have a vertex as a target/source
+	protected Map<V,Set<E>> incoming = new HashMap<V, Set<E>>();
+	protected Map<V,Set<E>> outgoing = new HashMap<V, Set<E>>();
 	
 	/**
 	 * Index vertex in the edge
 	 * @param e Edge
 	 * @param v Vertex
 	 */
+	@SuppressWarnings("unchecked")
 	protected void addIndex(E e, V v) {
 		if (e == null || v == null) return;
 		if (!this.edges.containsKey(e))
@@ -36,6 +77,50 @@ public abstract class AbstractGraphNotifier<E extends IHyperEdge<V>, V extends I
 			this.vertices.put(v,new HashSet<E>());
 			
 		this.vertices.get(v).add((E) e);
+		
+		// edges index vertices before and after they are recorded as sources or targets, the latter call gets direction right
+		if (e instanceof IDirectedHyperEdge) {
+			IDirectedHyperEdge<V> de = (IDirectedHyperEdge<V>) e;
+			if (de.hasTarget(v)) this.addAdjacency(this.incoming, v, e);
+			if (de.hasSource(v)) this.addAdjacency(this.outgoing, v, e);
+		}
+	}
+	
+	private void addAdjacency(Map<V,Set<E>> index, V v, E e) {
+		Set<E> es = index.get(v);
+		if (es == null) {
+			es = new HashSet<E>();
+			index.put(v, es);
+		}
+		
+		es.add(e);
+	}
+	
+	private void removeAdjacency(Map<V,Set<E>> index, V v, E e) {
+		Set<E> es = index.get(v);
+		if (es == null) return;
+		
+		es.remove(e);
+		if (es.isEmpty())
+			index.remove(v);
+	}
+	
+	/**
+	 * Get read-only view of directed edges that have a given vertex as a target
+	 * @param v Vertex
+	 * @return Incoming edges of the given vertex; the view reflects later updates of edges of the vertex
+	 */
+	protected Collection<E> getIncomingIndex(V v) {
+		return new AdjacencyView(this.incoming, v);
+	}
+	
+	/**
+	 * Get read-only view of directed edges that have a given vertex as a source
+	 * @param v Vertex
+	 * @return Outgoing edges of the given vertex; the view reflects later updates of edges of the vertex
+	 */
+	protected Collection<E> getOutgoingIndex(V v) {
+		return new AdjacencyView(this.outgoing, v);
 	}
 	
 	/**
@@ -73,6 +158,9 @@ public abstract class AbstractGraphNotifier<E extends IHyperEdge<V>, V extends I
 			if (this.vertices.get(v).size() == 0)
 				this.vertices.remove(v);
 		}
+		
+		this.removeAdjacency(this.incoming, v, e);
+		this.removeAdjacency(this.outgoing, v, e);
 	}
 	
 	/**
@@ -92,8 +180,10 @@ public abstract class AbstractGraphNotifier<E extends IHyperEdge<V>, V extends I
 	 * Reset private and protected members. Needed for clone routines.
 	 */
 	protected void clearMembers() {
-		this.vertices = new Hashtable<V, Set<E>>();
-		this.edges = new Hashtable<E, Set<V>>();
+		this.vertices = new HashMap<V, Set<E>>();
+		this.edges = new HashMap<E, Set<V>>();
+		this.incoming = new HashMap<V, Set<E>>();
+		this.outgoing = new HashMap<V, Set<E>>();
 	}
 	
 	/*@Override
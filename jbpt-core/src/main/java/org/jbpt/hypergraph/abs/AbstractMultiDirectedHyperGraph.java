@@ -53,17 +53,7 @@ public class AbstractMultiDirectedHyperGraph <E extends IDirectedHyperEdge<V>,V
 	 * @see de.hpi.bpt.hypergraph.abs.IDirectedHyperGraph#getEdgesWithSource(de.hpi.bpt.hypergraph.abs.IVertex)
 	 */
 	public Collection<E> getEdgesWithSource(V v) {
-		Collection<E> result = new ArrayList<E>();
-		
-		Collection<E> es = this.getEdges(v);
-		Iterator<E> i = es.iterator();
-		while (i.hasNext()) {
-			E e = i.next();
-			if (e.hasSource(v))
-				result.add(e);
-		}
-		
-		return result;
+		return new ArrayList<E>(this.getOutgoingIndex(v));
 	}
 
 	/*
@@ -73,10 +63,11 @@ public class AbstractMultiDirectedHyperGraph <E extends IDirectedHyperEdge<V>,V
 	public Collection<E> getEdgesWithSourceAndTarget(V s, V t) {
 		Collection<E> result = new ArrayList<E>();
 		
-		Collection<E> es = this.getEdges(s);
-		Iterator<E> i = es.iterator();
-		while (i.hasNext()) {
-			E e = i.next();
+		Collection<E> es = this.getOutgoingIndex(s);
+		Collection<E> ts = this.getIncomingIndex(t);
+		if (ts.size() < es.size()) es = ts;
+		
+		for (E e : es) {
 			if (e.hasSource(s) && e.hasTarget(t))
 				result.add(e);
 		}
@@ -96,8 +87,7 @@ public class AbstractMultiDirectedHyperGraph <E extends IDirectedHyperEdge<V>,V
 		if (ss != null && ss.size() > 0)
 		{
 			V v = ss.iterator().next();
-			Collection<E> es = this.getEdgesWithSource(v);
-			if (es==null) return result;
+			Collection<E> es = this.getOutgoingIndex(v);
 			Iterator<E> i = es.iterator();
 			while (i.hasNext()) {
 				E e = i.next();
@@ -107,8 +97,7 @@ public class AbstractMultiDirectedHyperGraph <E extends IDirectedHyperEdge<V>,V
 		}
 		else if (ts != null && ts.size() > 0) {
 			V v = ts.iterator().next();
-			Collection<E> es = this.getEdgesWithTarget(v);
-			if (es==null) return result;
+			Collection<E> es = this.getIncomingIndex(v);
 			Iterator<E> i = es.iterator();
 			while (i.hasNext()) {
 				E e = i.next();
@@ -128,7 +117,7 @@ public class AbstractMultiDirectedHyperGraph <E extends IDirectedHyperEdge<V>,V
 		Collection<E> result = new ArrayList<E>();
 		if (vs==null || vs.size()==0) return result;
 		
-		Iterator<E> i = this.getEdges(vs.iterator().next()).iterator();
+		Iterator<E> i = this.getOutgoingIndex(vs.iterator().next()).iterator();
 		while (i.hasNext()) {
 			E e = i.next();
 			if (e.hasSources(vs))
@@ -143,16 +132,7 @@ public class AbstractMultiDirectedHyperGraph <E extends IDirectedHyperEdge<V>,V
 	 * @see de.hpi.bpt.hypergraph.abs.IDirectedHyperGraph#getEdgesWithTarget(de.hpi.bpt.hypergraph.abs.IVertex)
 	 */
 	public Collection<E> getEdgesWithTarget(V v) {
-		Collection<E> result = new ArrayList<E>();
-		
-		Iterator<E> i = this.getEdges(v).iterator();
-		while (i.hasNext()) {
-			E e = i.next();
-			if (e.hasTarget(v))
-				result.add(e);
-		}
-		
-		return result;
+		return new ArrayList<E>(this.getIncomingIndex(v));
 	}
 
 	/*
@@ -163,7 +143,7 @@ public class AbstractMultiDirectedHyperGraph <E extends IDirectedHyperEdge<V>,V
 		if (vs==null || vs.size()==0) return null;
 		Collection<E> result = new ArrayList<E>();
 		
-		Iterator<E> i = this.getEdges(vs.iterator().next()).iterator();
+		Iterator<E> i = this.getIncomingIndex(vs.iterator().next()).iterator();
 		while (i.hasNext()) {
 			E e = i.next();
 			if (e.hasTargets(vs))
@@ -181,12 +161,20 @@ public class AbstractMultiDirectedHyperGraph <E extends IDirectedHyperEdge<V>,V
 		return this.getEdgesWithTarget(v);
 	}
 	
+	/*
+	 * (non-Javadoc)
+	 * @see org.jbpt.hypergraph.abs.IDirectedHyperGraph#getIncomingEdgesView(org.jbpt.hypergraph.abs.IVertex)
+	 */
+	public Collection<E> getIncomingEdgesView(V v) {
+		return this.getIncomingIndex(v);
+	}
+	
 	/*
 	 * (non-Javadoc)
 	 * @see de.hpi.bpt.hypergraph.abs.IDirectedHyperGraph#getFirstIncomingEdge(de.hpi.bpt.hypergraph.abs.IVertex)
 	 */
 	public E getFirstIncomingEdge(V v) {
-		Collection<E> es = this.getIncomingEdges(v);
+		Collection<E> es = this.getIncomingIndex(v);
 		if (es.size() == 0) return null;
 		return es.iterator().next();
 	}
@@ -199,12 +187,20 @@ public class AbstractMultiDirectedHyperGraph <E extends IDirectedHyperEdge<V>,V
 		return this.getEdgesWithSource(v);
 	}
 	
+	/*
+	 * (non-Javadoc)
+	 * @see org.jbpt.hypergraph.abs.IDirectedHyperGraph#getOutgoingEdgesView(org.jbpt.hypergraph.abs.IVertex)
+	 */
+	public Collection<E> getOutgoingEdgesView(V v) {
+		return this.getOutgoingIndex(v);
+	}
+	
 	/*
 	 * (non-Javadoc)
 	 * @see de.hpi.bpt.hypergraph.abs.IDirectedHyperGraph#getFirstOutgoingEdge(de.hpi.bpt.hypergraph.abs.IVertex)
 	 */
 	public E getFirstOutgoingEdge(V v) {
-		Collection<E> es = this.getOutgoingEdges(v);
+		Collection<E> es = this.getOutgoingIndex(v);
 		if (es.size() == 0) return null;
 		return es.iterator().next();
 	}
@@ -213,7 +209,7 @@ public class AbstractMultiDirectedHyperGraph <E extends IDirectedHyperEdge<V>,V
 	public Collection<V> getDirectPredecessors(V v) {
 		Set<V> result = new HashSet<V>();
 		
-		Collection<E> es = this.getIncomingEdges(v);
+		Collection<E> es = this.getIncomingIndex(v);
 		Iterator<E> i = es.iterator();
 		while (i.hasNext())
 			result.addAll(i.next().getSourceVertices());
@@ -251,7 +247,7 @@ public class AbstractMultiDirectedHyperGraph <E extends IDirectedHyperEdge<V>,V
 	public Collection<V> getDirectSuccessors(V v) {
 		Set<V> result = new HashSet<V>();
 		
-		Collection<E> es = this.getOutgoingEdges(v);
+		Collection<E> es = this.getOutgoingIndex(v);
 		Iterator<E> i = es.iterator();
 		while (i.hasNext())
 			result.addAll(i.next().getTargetVertices());
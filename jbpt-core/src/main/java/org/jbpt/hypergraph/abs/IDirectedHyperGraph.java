@@ -122,6 +122,14 @@ public interface IDirectedHyperGraph <E extends IDirectedHyperEdge<V>,V extends
 	 */
 	public Collection<E> getIncomingEdges(V v);
 	
+	/**
+	 * Get read-only view of incoming edges of a given vertex; no collection is copied
+	 * The view reflects later modifications of the graph; use {@link #getIncomingEdges(IVertex)} to modify the graph while iterating
+	 * @param v Vertex
+	 * @return Incoming edges of the given vertex
+	 */
+	public Collection<E> getIncomingEdgesView(V v);
+	
 	/**
 	 * Get first arbitrary incoming edge of a given vertex
 	 * @param v Vertex
@@ -136,6 +144,14 @@ public interface IDirectedHyperGraph <E extends IDirectedHyperEdge<V>,V extends
 	 */
 	public Collection<E> getOutgoingEdges(V v);
 	
+	/**
+	 * Get read-only view of outgoing edges of a given vertex; no collection is copied
+	 * The view reflects later modifications of the graph; use {@link #getOutgoingEdges(IVertex)} to modify the graph while iterating
+	 * @param v Vertex
+	 * @return Outgoing edges of the given vertex
+	 */
+	public Collection<E> getOutgoingEdgesView(V v);
+	
 	/**
 	 * Get first arbitrary outgoing edge of a given vertex
 	 * @param v Vertex
@@ -110,16 +110,16 @@ public class RPST<E extends IDirectedEdge<V>, V extends IVertex> extends Abstrac
 		
 		// copy vertices
 		for (V v : this.diGraph.getVertices()) {
-			if (this.diGraph.getIncomingEdges(v).isEmpty() && this.diGraph.getOutgoingEdges(v).isEmpty())
+			if (this.diGraph.getIncomingEdgesView(v).isEmpty() && this.diGraph.getOutgoingEdgesView(v).isEmpty())
 				continue;
 				
-			if (this.diGraph.getIncomingEdges(v).isEmpty()) 
+			if (this.diGraph.getIncomingEdgesView(v).isEmpty()) 
 				sources.add(v);
 			
-			if (this.diGraph.getOutgoingEdges(v).isEmpty()) 
+			if (this.diGraph.getOutgoingEdgesView(v).isEmpty()) 
 				sinks.add(v);
 			
-			if (this.diGraph.getIncomingEdges(v).size()>1 && this.diGraph.getOutgoingEdges(v).size()>1) 
+			if (this.diGraph.getIncomingEdgesView(v).size()>1 && this.diGraph.getOutgoingEdgesView(v).size()>1) 
 				mixed.add(v);
 			
 			this.ov2nv.put(v,this.normalizedGraph.addVertex(new Vertex(v.getName())));
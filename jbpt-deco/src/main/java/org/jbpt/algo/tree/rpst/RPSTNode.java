@@ -91,8 +91,8 @@ public class RPSTNode<E extends IDirectedEdge<V>, V extends IVertex> extends Ver
 		boolean fflag = true;
 		V vv = null;
 		for (V v : vertices) {
-			if (this.rpst.diGraph.getIncomingEdges(v).isEmpty()) { this.entry = v; csrc++; fflag=false; continue; }
-			if (this.rpst.diGraph.getOutgoingEdges(v).isEmpty()) { this.exit = v; csnk++; fflag= false; continue; }
+			if (this.rpst.diGraph.getIncomingEdgesView(v).isEmpty()) { this.entry = v; csrc++; fflag=false; continue; }
+			if (this.rpst.diGraph.getOutgoingEdgesView(v).isEmpty()) { this.exit = v; csnk++; fflag= false; continue; }
 			if (this.getFragment().containsAll(this.rpst.diGraph.getEdges(v))) continue;
 			
 			if (flag) flag = false; 
@@ -15,6 +15,7 @@ import org.jbpt.petri.INetSystem;
 import org.jbpt.petri.INode;
 import org.jbpt.petri.IPlace;
 import org.jbpt.petri.ITransition;
+import org.jbpt.petri.behavior.StubbornSets;
 
 public class AbstractAutomaton<ST extends IStateTransition<S,F,N,P,T,M>, S extends IState<F,N,P,T,M>, F extends IFlow<N>, N extends INode, P extends IPlace, T extends ITransition, M extends IMarking<F,N,P,T>> 
 		extends AbstractMultiDirectedGraph<ST,S>
@@ -30,6 +31,8 @@ public class AbstractAutomaton<ST extends IStateTransition<S,F,N,P,T,M>, S exten
 	
 	private S startState = null;
 	
+	private boolean reduction = false;
+	
 	@SuppressWarnings("unchecked")
 	@Override
 	public ST addEdge(S s, S t) {
@@ -48,9 +51,39 @@ public class AbstractAutomaton<ST extends IStateTransition<S,F,N,P,T,M>, S exten
 		this.construct(sys, maxSize);
 	}
 	
+	/**
+	 * Constructor of an automaton.
+	 * 
+	 * @param sys Net system.
+	 * @param maxSize Maximal number of states.
+	 * @param partialOrderReduction If <tt>true</tt>, construct a reduced automaton, see {@link #setPartialOrderReduction(boolean)}.
+	 */
+	public AbstractAutomaton(INetSystem<F,N,P,T,M> sys, int maxSize, boolean partialOrderReduction) {
+		this.reduction = partialOrderReduction;
+		this.construct(sys, maxSize);
+	}
+	
 	public AbstractAutomaton() {
 	}
 
+	/**
+	 * Enable or disable partial-order reduction for subsequent constructions of this automaton. With reduction, only the enabled 
+	 * transitions of a stubborn set fire at a state, unless the state has a successor that has been discovered before, see 
+	 * {@link StubbornSets}. The reduced automaton contains all reachable states without outgoing state transitions (deadlocks).
+	 * 
+	 * @param reduction <tt>true</tt> to enable reduction; <tt>false</tt> to disable it.
+	 */
+	public void setPartialOrderReduction(boolean reduction) {
+		this.reduction = reduction;
+	}
+	
+	/**
+	 * Check if partial-order reduction is enabled.
+	 */
+	public boolean isPartialOrderReduction() {
+		return this.reduction;
+	}
+
 	@Override
 	public boolean isComplete() {
 		return this.isComplete;
@@ -95,11 +128,28 @@ public class AbstractAutomaton<ST extends IStateTransition<S,F,N,P,T,M>, S exten
 		
 		m2s.put(this.sys.getMarking(),ini);
 		
+		StubbornSets<F,N,P,T,M> stubbornSets = this.reduction ? new StubbornSets<F,N,P,T,M>(this.sys) : null;
+		
 		while (!queue.isEmpty()) {
 			S v = queue.poll();
 			
 			Set<T> enabled = this.sys.getEnabledTransitionsAtMarking(v.getMarking());
 			
+			if (stubbornSets!=null) {
+				// fire transitions of a stubborn set, or all transitions if one of them leads to a state that has been discovered before
+				Set<T> stubborn = stubbornSets.getStubbornSet(v.getMarking());
+				for (T t : stubborn) {
+					@SuppressWarnings("unchecked")
+					M freshMarking = (M) v.getMarking().clone();
+					freshMarking.fire(t);
+					if (m2s.containsKey(freshMarking)) {
+						stubborn = enabled;
+						break;
+					}
+				}
+				enabled = stubborn;
+			}
+			
 			for (T t : enabled) {
 				@SuppressWarnings("unchecked")
 				M freshMarking = (M) v.getMarking().clone();
@@ -0,0 +1,413 @@
+package org.jbpt.automaton;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.jbpt.automaton.store.StateStore;
+import org.jbpt.petri.CompiledNetSystem;
+import org.jbpt.petri.IFlow;
+import org.jbpt.petri.IMarking;
+import org.jbpt.petri.INetSystem;
+import org.jbpt.petri.INode;
+import org.jbpt.petri.IPlace;
+import org.jbpt.petri.ITransition;
+import org.jbpt.petri.behavior.StubbornSets;
+import org.jbpt.petri.monitoring.CancellationToken;
+
+/**
+ * Automaton that stores the reachability graph of a net system in compact form.<br/><br/>
+ *
+ * States are numbered 0..n-1 in the order of their discovery, state 0 is the start state.
+ * States and state transitions are kept in a {@link StateStore}: markings of states are stored once in a packed array, states are found
+ * by markings via an open-addressed hash table, and state transitions are stored in the compressed sparse row format.
+ * If a storage directory is given, the store lives in memory-mapped files of the directory rather than on the heap, which allows
+ * for reachability graphs that exceed the heap; such an automaton should be closed once it is no longer needed, see {@link #close()}.<br/><br/>
+ *
+ * Queries ({@link #isReachable(IMarking)}, {@link #isReachable(IMarking, IMarking)}) and {@link #toDOT()} work on the compact form.
+ * State and state transition objects get materialized on the first call to {@link #getStates()}, {@link #getStateTransitions()},
+ * {@link #getStartState()}, or {@link #materialize()}; methods of the graph interface refer to the materialized graph.
+ */
+public class AbstractCompactAutomaton<ST extends IStateTransition<S,F,N,P,T,M>, S extends IState<F,N,P,T,M>, F extends IFlow<N>, N extends INode, P extends IPlace, T extends ITransition, M extends IMarking<F,N,P,T>>
+		extends AbstractAutomaton<ST,S,F,N,P,T,M> {
+
+	// int-indexed view of the net system
+	private CompiledNetSystem<F,N,P,T,M> net;
+
+	private boolean isComplete;
+	private boolean cancelled;
+	private CancellationToken token;
+
+	// states and state transitions
+	private StateStore store;
+	// directory of memory-mapped files of the store; null if the store lives on the heap
+	private File directory;
+
+	// materialized states and state transitions
+	private ArrayList<S> materialized;
+	private S startState;
+
+	// work arrays of searches for paths
+	private int[] queue;
+	private BitSet visited = new BitSet();
+
+	public AbstractCompactAutomaton() {
+		super();
+	}
+
+	public AbstractCompactAutomaton(INetSystem<F,N,P,T,M> sys) {
+		this(sys, Integer.MAX_VALUE);
+	}
+
+	public AbstractCompactAutomaton(INetSystem<F,N,P,T,M> sys, int maxSize) {
+		super();
+		this.construct(sys, maxSize);
+	}
+
+	public AbstractCompactAutomaton(INetSystem<F,N,P,T,M> sys, int maxSize, boolean partialOrderReduction) {
+		super();
+		this.setPartialOrderReduction(partialOrderReduction);
+		this.construct(sys, maxSize);
+	}
+
+	/**
+	 * Constructor of an automaton.
+	 *
+	 * @param sys Net system.
+	 * @param maxSize Maximal number of states.
+	 * @param partialOrderReduction If <tt>true</tt>, construct a reduced automaton, see {@link #setPartialOrderReduction(boolean)}.
+	 * @param directory Directory for memory-mapped files of the store, see {@link #setStorageDirectory(File)}.
+	 */
+	public AbstractCompactAutomaton(INetSystem<F,N,P,T,M> sys, int maxSize, boolean partialOrderReduction, File directory) {
+		super();
+		this.setPartialOrderReduction(partialOrderReduction);
+		this.setStorageDirectory(directory);
+		this.construct(sys, maxSize);
+	}
+
+	/**
+	 * Set directory for memory-mapped files of the store of subsequent constructions of this automaton.
+	 *
+	 * @param directory Directory; <tt>null</tt> to keep the store on the heap.
+	 */
+	public void setStorageDirectory(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Set token to cancel subsequent constructions of this automaton; once the token is cancelled or its deadline has passed,
+	 * construction stops and the automaton contains the states discovered so far.
+	 *
+	 * @param token Cancellation token; <tt>null</tt> means that construction cannot be cancelled.
+	 */
+	public void setCancellationToken(CancellationToken token) {
+		this.token = token;
+	}
+
+	/**
+	 * Check if the last construction of this automaton was stopped by the cancellation token.
+	 */
+	public boolean isCancelled() {
+		return this.cancelled;
+	}
+
+	/**
+	 * Get directory for memory-mapped files of the store.
+	 *
+	 * @return Directory; <tt>null</tt> if the store lives on the heap.
+	 */
+	public File getStorageDirectory() {
+		return this.directory;
+	}
+
+	@Override
+	public void construct(INetSystem<F,N,P,T,M> sys, int maxSize) {
+		if (this.materialized!=null) this.removeVertices(new ArrayList<S>(this.getVertices()));
+		this.materialized = null;
+		this.startState = null;
+		this.close();
+
+		this.net = new CompiledNetSystem<F,N,P,T,M>(sys);
+		this.isComplete = false;
+		this.cancelled = false;
+		try {
+			this.store = this.directory==null ? new StateStore(this.net.getNumberOfPlaces()) : new StateStore(this.net.getNumberOfPlaces(), this.directory);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+
+		if (maxSize<=0) return;
+
+		int[] marking = this.net.getInitialMarking();
+		this.store.addState(marking);
+
+		StubbornSets<F,N,P,T,M> stubbornSets = this.isPartialOrderReduction() ? new StubbornSets<F,N,P,T,M>(this.net, null) : null;
+		int[] enabled = new int[this.net.getNumberOfTransitions()];
+		int[] fresh = new int[marking.length];
+		for (int s=0; s<this.store.getNumberOfStates(); s++) {
+			if (this.token!=null && this.token.isCancelled()) {
+				this.cancelled = true;
+				return;
+			}
+
+			this.store.expand(s);
+			this.store.getMarking(s, marking);
+
+			int count = stubbornSets==null ? this.net.getEnabledTransitions(marking, enabled) : this.getTransitionsToFire(stubbornSets, marking, enabled);
+			for (int k=0; k<count; k++) {
+				System.arraycopy(marking, 0, fresh, 0, marking.length);
+				this.net.fire(fresh, enabled[k]);
+
+				int t = this.store.indexOf(fresh);
+				if (t<0) {
+					if (this.store.getNumberOfStates()>=maxSize) return;
+					t = this.store.addState(fresh);
+				}
+
+				this.store.addTransition(enabled[k], t);
+			}
+		}
+
+		this.isComplete = true;
+	}
+
+	/**
+	 * Get transitions of a stubborn set at a marking, or all enabled transitions if one of them leads to a state that has been discovered before.
+	 *
+	 * @return Number of transitions stored in the given array.
+	 */
+	private int getTransitionsToFire(StubbornSets<F,N,P,T,M> stubbornSets, int[] marking, int[] result) {
+		int count = stubbornSets.getStubbornSet(marking, result);
+		int[] fresh = new int[marking.length];
+		for (int k=0; k<count; k++) {
+			System.arraycopy(marking, 0, fresh, 0, marking.length);
+			this.net.fire(fresh, result[k]);
+			if (this.store.indexOf(fresh)>=0) return this.net.getEnabledTransitions(marking, result);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Release the store of this automaton and delete its files; queries on the compact form are not possible afterwards.
+	 */
+	public void close() {
+		this.queue = null;
+		if (this.store==null) return;
+
+		try {
+			this.store.close();
+		}
+		catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		finally {
+			this.store = null;
+		}
+	}
+
+	/**
+	 * Get number of a state with a given marking.
+	 *
+	 * @return Number of the state; -1 if no state has the given marking.
+	 */
+	public int getStateIndex(M marking) {
+		if (marking==null || this.store==null) return -1;
+
+		int[] vector = new int[this.net.getNumberOfPlaces()];
+		for (Map.Entry<P,Integer> entry : marking.entrySet()) {
+			if (entry.getValue()==null || entry.getValue()==0) continue;
+			int p = this.net.getPlaceIndex(entry.getKey());
+			if (p<0) return -1; // tokens at a place of another net
+			vector[p] = entry.getValue();
+		}
+
+		return this.store.indexOf(vector);
+	}
+
+	/**
+	 * Get marking of a state.
+	 *
+	 * @param s Number of a state.
+	 * @return A fresh marking of the net system.
+	 */
+	public M getMarking(int s) {
+		int[] marking = new int[this.net.getNumberOfPlaces()];
+		this.store.getMarking(s, marking);
+
+		return this.net.toMarking(marking);
+	}
+
+	/**
+	 * Check if the marking of a state enables no transition.
+	 *
+	 * @param s Number of a state.
+	 */
+	public boolean isDead(int s) {
+		int[] marking = new int[this.net.getNumberOfPlaces()];
+		this.store.getMarking(s, marking);
+		for (int t=0; t<this.net.getNumberOfTransitions(); t++)
+			if (this.net.isEnabled(marking, t)) return false;
+
+		return true;
+	}
+
+	/**
+	 * Get number of states.
+	 */
+	public int getNumberOfStates() {
+		return this.store==null ? 0 : this.store.getNumberOfStates();
+	}
+
+	/**
+	 * Get number of state transitions.
+	 */
+	public long getNumberOfStateTransitions() {
+		return this.store==null ? 0 : this.store.getNumberOfTransitions();
+	}
+
+	/**
+	 * Get number of bits that store tokens of a place in a packed marking.
+	 */
+	public int getBitsPerPlace() {
+		return this.store.getBitsPerPlace();
+	}
+
+	@Override
+	public boolean isComplete() {
+		return this.isComplete;
+	}
+
+	@Override
+	public boolean isReachable(M marking) {
+		return this.getStateIndex(marking)>=0;
+	}
+
+	/**
+	 * {@inheritDoc}<br/><br/>
+	 * 
+	 * Unlike {@link AbstractAutomaton#isReachable(IMarking, IMarking)}, which searches for a path of at least one state transition, 
+	 * this automaton also accepts the empty sequence of transitions, i.e., every reachable marking is reachable from itself, 
+	 * even a marking that does not lie on a cycle.
+	 */
+	@Override
+	public boolean isReachable(M fromMarking, M toMarking) {
+		int from = this.getStateIndex(fromMarking);
+		if (from<0) return false;
+		int to = this.getStateIndex(toMarking);
+		if (to<0) return false;
+
+		// the empty sequence of transitions leads from a marking to itself
+		if (from==to) return true;
+
+		int states = this.store.getNumberOfStates();
+		if (this.queue==null || this.queue.length<states) this.queue = new int[states];
+		this.visited.clear();
+
+		int head = 0, tail = 0;
+		this.queue[tail++] = from;
+		this.visited.set(from);
+		while (head<tail) {
+			int s = this.queue[head++];
+			for (long k=this.store.getFirstTransition(s); k<this.store.getEndTransition(s); k++) {
+				int t = this.store.getTarget(k);
+				if (t==to) return true;
+				if (this.visited.get(t)) continue;
+				this.visited.set(t);
+				this.queue[tail++] = t;
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public INetSystem<F,N,P,T,M> getNetSystem() {
+		return this.net==null ? null : this.net.getNetSystem();
+	}
+
+	/**
+	 * Materialize states and state transitions of this automaton as objects of the graph.
+	 */
+	public void materialize() {
+		if (this.materialized!=null || this.store==null) return;
+
+		int states = this.store.getNumberOfStates();
+		this.materialized = new ArrayList<S>(states);
+		for (int s=0; s<states; s++) {
+			S state = this.createState(this.getMarking(s));
+			this.addVertex(state);
+			this.materialized.add(state);
+		}
+
+		for (int s=0; s<states; s++) {
+			for (long k=this.store.getFirstTransition(s); k<this.store.getEndTransition(s); k++) {
+				ST st = this.addEdge(this.materialized.get(s), this.materialized.get(this.store.getTarget(k)));
+				st.setTransition(this.net.getTransition(this.store.getTransition(k)));
+			}
+		}
+
+		if (states>0) this.startState = this.materialized.get(0);
+	}
+
+	/**
+	 * Create a state object of a materialized state; subclasses with other types of states must override this method.
+	 *
+	 * @param marking Marking of the state.
+	 * @return A fresh {@link AbstractState}.
+	 */
+	@SuppressWarnings("unchecked")
+	protected S createState(M marking) {
+		return (S) new AbstractState<F,N,P,T,M>(marking);
+	}
+
+	@Override
+	public String toDOT() {
+		StringBuilder result = new StringBuilder("digraph G {\n");
+		result.append("graph [fontname=\"Helvetica\" fontsize=\"10\"];\n");
+		result.append("node [fontname=\"Helvetica\" fontsize=\"10\"];\n");
+
+		int states = this.getNumberOfStates();
+		for (int s=0; s<states; s++) {
+			result.append(String.format("\tstate%d[label=\"\" shape=\"point\" width=\".075\" height=\".075\"];\n", s));
+			result.append(String.format("\tmarking%d[label=\"%s\" shape=\"plaintext\"];\n", s, this.getMarking(s).toMultiSet().toString()));
+		}
+
+		result.append("\n");
+
+		for (int s=0; s<states; s++) {
+			result.append(String.format("\tstate%d->marking%d [style=\"dotted\", arrowhead=\"odot\", arrowsize=\"0\"];\n", s, s));
+		}
+
+		for (int s=0; s<states; s++) {
+			for (long k=this.store.getFirstTransition(s); k<this.store.getEndTransition(s); k++) {
+				result.append(String.format("\tstate%d->state%d [label=\"%s\" fontname=\"Helvetica\" fontsize=\"10\" arrowhead=\"normal\" arrowsize=\".75\" color=\"black\"];\n", s, this.store.getTarget(k), this.net.getTransition(this.store.getTransition(k)).getLabel()));
+			}
+		}
+		result.append("}\n");
+
+		return result.toString();
+	}
+
+	@Override
+	public Set<S> getStates() {
+		this.materialize();
+		return super.getStates();
+	}
+
+	@Override
+	public Set<ST> getStateTransitions() {
+		this.materialize();
+		return super.getStateTransitions();
+	}
+
+	@Override
+	public S getStartState() {
+		this.materialize();
+		return this.startState;
+	}
+}
@@ -20,6 +20,10 @@ public class Automaton extends AbstractAutomaton<StateTransition,State,Flow,Node
 		super(sys, maxSize);
 	}
 
+	public Automaton(INetSystem<Flow,Node,Place,Transition,Marking> sys, int maxSize, boolean partialOrderReduction) {
+		super(sys, maxSize, partialOrderReduction);
+	}
+
 	public Automaton(INetSystem<Flow,Node,Place,Transition,Marking> sys) {
 		super(sys);
 	}
@@ -0,0 +1,46 @@
+package org.jbpt.automaton;
+
+import java.io.File;
+
+import org.jbpt.petri.Flow;
+import org.jbpt.petri.INetSystem;
+import org.jbpt.petri.Marking;
+import org.jbpt.petri.Node;
+import org.jbpt.petri.Place;
+import org.jbpt.petri.Transition;
+
+public class CompactAutomaton extends AbstractCompactAutomaton<StateTransition,State,Flow,Node,Place,Transition,Marking> {
+
+	public CompactAutomaton() {
+		super();
+	}
+
+	public CompactAutomaton(INetSystem<Flow,Node,Place,Transition,Marking> sys, int maxSize) {
+		super(sys, maxSize);
+	}
+
+	public CompactAutomaton(INetSystem<Flow,Node,Place,Transition,Marking> sys, int maxSize, boolean partialOrderReduction) {
+		super(sys, maxSize, partialOrderReduction);
+	}
+
+	public CompactAutomaton(INetSystem<Flow,Node,Place,Transition,Marking> sys, int maxSize, boolean partialOrderReduction, File directory) {
+		super(sys, maxSize, partialOrderReduction, directory);
+	}
+
+	public CompactAutomaton(INetSystem<Flow,Node,Place,Transition,Marking> sys) {
+		super(sys);
+	}
+
+	@Override
+	protected State createState(Marking marking) {
+		return new State(marking);
+	}
+
+	@Override
+	public StateTransition addEdge(State s, State t) {
+		if (s == null || t == null) return null;
+
+		return new StateTransition(this,s,t);
+	}
+
+}
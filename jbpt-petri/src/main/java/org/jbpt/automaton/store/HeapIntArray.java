@@ -0,0 +1,67 @@
+package org.jbpt.automaton.store;
+
+import java.util.Arrays;
+
+/**
+ * Array of ints on the heap; ints are stored in pages, hence the array can store more than 2^31 ints.
+ */
+public class HeapIntArray implements IIntArray {
+
+	protected static final int PAGE_BITS = 20;
+	protected static final int PAGE_SIZE = 1 << PAGE_BITS;
+	protected static final int PAGE_MASK = PAGE_SIZE - 1;
+
+	// pages of ints; all pages but a single first page have PAGE_SIZE ints
+	protected int[][] pages = null;
+
+	protected long size = 0;
+
+	/**
+	 * Constructor of an array.
+	 *
+	 * @param size Initial number of ints.
+	 */
+	public HeapIntArray(long size) {
+		this.pages = new int[][] {new int[0]};
+		this.ensureCapacity(size);
+	}
+
+	@Override
+	public int get(long index) {
+		return this.pages[(int) (index >>> PAGE_BITS)][(int) index & PAGE_MASK];
+	}
+
+	@Override
+	public void set(long index, int value) {
+		this.pages[(int) (index >>> PAGE_BITS)][(int) index & PAGE_MASK] = value;
+	}
+
+	@Override
+	public long size() {
+		return this.size;
+	}
+
+	@Override
+	public void ensureCapacity(long size) {
+		if (size <= this.size) return;
+
+		if (size <= PAGE_SIZE) { // grow the single page
+			this.pages[0] = Arrays.copyOf(this.pages[0], (int) Math.min(PAGE_SIZE, Math.max(size, 2*this.size)));
+			this.size = this.pages[0].length;
+			return;
+		}
+
+		if (this.pages[0].length < PAGE_SIZE) this.pages[0] = Arrays.copyOf(this.pages[0], PAGE_SIZE);
+		int count = (int) ((size + PAGE_SIZE - 1) >>> PAGE_BITS);
+		int old = this.pages.length;
+		this.pages = Arrays.copyOf(this.pages, Math.max(count, old + old/2));
+		for (int i = old; i < this.pages.length; i++) this.pages[i] = new int[PAGE_SIZE];
+		this.size = (long) this.pages.length << PAGE_BITS;
+	}
+
+	@Override
+	public void close() {
+		this.pages = null;
+		this.size = 0;
+	}
+}
@@ -0,0 +1,46 @@
+package org.jbpt.automaton.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Growable array of ints with long indexes.
+ */
+public interface IIntArray extends Closeable {
+
+	/**
+	 * Get value at an index.
+	 *
+	 * @param index Index less than {@link #size()}.
+	 * @return Value at the given index; 0 if no value was set at the index.
+	 */
+	public int get(long index);
+
+	/**
+	 * Set value at an index.
+	 *
+	 * @param index Index less than {@link #size()}.
+	 * @param value Value to set.
+	 */
+	public void set(long index, int value);
+
+	/**
+	 * Get number of ints that this array can store.
+	 */
+	public long size();
+
+	/**
+	 * Grow this array so that it can store at least a given number of ints; values stored so far are kept.
+	 *
+	 * @param size Number of ints.
+	 */
+	public void ensureCapacity(long size);
+
+	/**
+	 * Release resources of this array; the array must not be used afterwards.
+	 *
+	 * @throws IOException if resources of the array cannot be released.
+	 */
+	@Override
+	public void close() throws IOException;
+}
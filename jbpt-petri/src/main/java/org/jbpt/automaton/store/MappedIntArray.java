@@ -0,0 +1,114 @@
+package org.jbpt.automaton.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Array of ints in a memory-mapped file.<br/><br/>
+ *
+ * The file is mapped in segments of 2^26 ints (256 MB); the operating system pages segments in and out, hence the array is not
+ * bounded by the heap. The array grows in place: the same file is mapped again at a larger size.<br/><br/>
+ *
+ * The file is deleted when the array gets closed. Mapped buffers are only released once they get garbage collected, and some platforms,
+ * e.g., Windows, refuse to delete a file that is still mapped; such a file is deleted when the virtual machine exits.
+ */
+public class MappedIntArray implements IIntArray {
+
+	protected static final int SEGMENT_BITS = 26;
+	protected static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+	protected static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+	protected File file = null;
+	protected RandomAccessFile raf = null;
+	protected FileChannel channel = null;
+
+	// mapped segments; all segments but a single first segment have SEGMENT_SIZE ints
+	protected IntBuffer[] segments = null;
+
+	protected long size = 0;
+
+	/**
+	 * Constructor of an array.
+	 *
+	 * @param file File to map; the file gets truncated.
+	 * @param size Initial number of ints.
+	 * @throws IOException if the file cannot be opened.
+	 */
+	public MappedIntArray(File file, long size) throws IOException {
+		if (file==null) throw new IllegalArgumentException("File object expected but was NULL!");
+		this.file = file;
+		this.raf = new RandomAccessFile(file, "rw");
+		this.raf.setLength(0);
+		this.channel = this.raf.getChannel();
+		this.segments = new IntBuffer[] {this.map(0, 0)};
+		this.ensureCapacity(size);
+	}
+
+	private IntBuffer map(long segment, int size) throws IOException {
+		return this.channel.map(FileChannel.MapMode.READ_WRITE, (segment << SEGMENT_BITS) * 4, (long) size * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+	}
+
+	@Override
+	public int get(long index) {
+		return this.segments[(int) (index >>> SEGMENT_BITS)].get((int) index & SEGMENT_MASK);
+	}
+
+	@Override
+	public void set(long index, int value) {
+		this.segments[(int) (index >>> SEGMENT_BITS)].put((int) index & SEGMENT_MASK, value);
+	}
+
+	@Override
+	public long size() {
+		return this.size;
+	}
+
+	@Override
+	public void ensureCapacity(long size) {
+		if (size <= this.size) return;
+
+		try {
+			if (size <= SEGMENT_SIZE) { // grow the single segment
+				this.segments[0] = this.map(0, (int) Math.min(SEGMENT_SIZE, Math.max(size, 2*this.size)));
+				this.size = this.segments[0].capacity();
+				return;
+			}
+
+			if (this.segments[0].capacity() < SEGMENT_SIZE) this.segments[0] = this.map(0, SEGMENT_SIZE);
+			int count = (int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_BITS);
+			int old = this.segments.length;
+			this.segments = Arrays.copyOf(this.segments, Math.max(count, old + old/2));
+			for (int i = old; i < this.segments.length; i++) this.segments[i] = this.map(i, SEGMENT_SIZE);
+			this.size = (long) this.segments.length << SEGMENT_BITS;
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Cannot map file " + this.file + "!", e);
+		}
+	}
+
+	/**
+	 * Unmap the array and delete its file; if the file cannot be deleted yet, it gets deleted when the virtual machine exits.
+	 *
+	 * @throws IOException if the file cannot be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.segments==null) return;
+
+		// drop mapped buffers before deleting the file
+		this.segments = null;
+		this.size = 0;
+		try {
+			this.channel.close();
+		}
+		finally {
+			this.raf.close();
+		}
+		if (!this.file.delete()) this.file.deleteOnExit();
+	}
+}
@@ -0,0 +1,354 @@
+package org.jbpt.automaton.store;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Store of states and state transitions of a reachability graph.<br/><br/>
+ *
+ * States are numbered 0..n-1 in the order they get added. Markings of states are token vectors that are stored once in a packed
+ * array, where every place takes a fixed number of bits; the number of bits per place grows on demand, i.e., it stays at 1 bit for
+ * safe systems. States are found by markings via an open-addressed hash table of state numbers. State transitions are appended to a
+ * sequential log of transition indexes and target states; rows of the log, i.e., transitions that leave a state, are added for states
+ * in ascending order, see {@link #expand(int)}, which yields the compressed sparse row format.<br/><br/>
+ *
+ * The arrays of a store either live on the heap or in memory-mapped files of a directory, see {@link #StateStore(int, File)};
+ * the latter are bounded by the disk rather than by the heap. Arrays grow in place, hence a store keeps one file per array.
+ * A store must be closed to release its files.
+ */
+public class StateStore implements Closeable {
+
+	// directory of memory-mapped files; null if arrays live on the heap
+	protected File directory = null;
+
+	protected int places = 0;
+	protected int bits = 1;
+	protected int words = 0;
+
+	protected int states = 0;
+	protected long transitions = 0;
+	protected int expanded = 0;
+
+	// packed markings: marking of state i is stored at positions i*words..(i+1)*words-1
+	protected IIntArray markings = null;
+	// hash codes of packed markings of states
+	protected IIntArray hashes = null;
+	// open-addressed hash table of state numbers shifted by one, 0 stands for an empty slot
+	protected IIntArray table = null;
+	protected long tableSize = 0;
+
+	// position of the first transition of state i in the log, stored as two ints at positions 2i and 2i+1
+	protected IIntArray offsets = null;
+	// log of state transitions
+	protected IIntArray labels = null;
+	protected IIntArray targets = null;
+
+	// work array of packed markings
+	private int[] packed = null;
+
+	/**
+	 * Constructor of a store on the heap.
+	 *
+	 * @param places Number of places of markings.
+	 */
+	public StateStore(int places) {
+		try {
+			this.initialise(places);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Constructor of a store in memory-mapped files.
+	 *
+	 * @param places Number of places of markings.
+	 * @param directory Directory to create files in; it gets created if it does not exist.
+	 * @throws IOException if the directory or the files cannot be created.
+	 */
+	public StateStore(int places, File directory) throws IOException {
+		if (directory==null) throw new IllegalArgumentException("File object expected but was NULL!");
+		if (!directory.isDirectory() && !directory.mkdirs()) throw new IOException("Cannot create directory " + directory + "!");
+
+		this.directory = directory;
+		this.initialise(places);
+	}
+
+	private void initialise(int places) throws IOException {
+		this.places = places;
+		this.words = this.getNumberOfWords(this.bits);
+		this.packed = new int[this.words];
+		this.markings = this.createArray("markings", 16L*this.words);
+		this.hashes = this.createArray("hashes", 16);
+		this.tableSize = 32;
+		this.table = this.createArray("table", this.tableSize);
+		this.offsets = this.createArray("offsets", 32);
+		this.labels = this.createArray("labels", 16);
+		this.targets = this.createArray("targets", 16);
+	}
+
+	protected IIntArray createArray(String name, long size) throws IOException {
+		if (this.directory==null) return new HeapIntArray(size);
+
+		File file = File.createTempFile("jbpt-" + name + "-", ".bin", this.directory);
+		return new MappedIntArray(file, size);
+	}
+
+	/**
+	 * Add a state with a given marking; the marking must not be stored yet, see {@link #indexOf(int[])}.
+	 *
+	 * @param marking Token vector.
+	 * @return Number of the fresh state.
+	 */
+	public int addState(int[] marking) {
+		if (this.states==Integer.MAX_VALUE) throw new IllegalStateException("Store cannot hold more states!");
+
+		int max = 0;
+		for (int i=0; i<marking.length; i++) max = Math.max(max, marking[i]);
+		if (max>this.getMaxTokens(this.bits)) this.repack(max);
+
+		int s = this.states;
+		this.markings.ensureCapacity((s+1L)*this.words);
+		this.hashes.ensureCapacity(s+1L);
+
+		this.pack(marking, this.packed);
+		for (int i=0; i<this.words; i++) this.markings.set((long) s*this.words+i, this.packed[i]);
+		this.hashes.set(s, this.hash(this.packed));
+		this.states++;
+
+		if (this.states*2L>this.tableSize) this.rehash(this.tableSize*2);
+		else this.insert(s);
+
+		return s;
+	}
+
+	/**
+	 * Get number of a state with a given marking.
+	 *
+	 * @param marking Token vector.
+	 * @return Number of the state; -1 if no state has the given marking.
+	 */
+	public int indexOf(int[] marking) {
+		if (this.states==0) return -1;
+		for (int i=0; i<marking.length; i++)
+			if (marking[i]<0 || marking[i]>this.getMaxTokens(this.bits)) return -1;
+
+		this.pack(marking, this.packed);
+		int h = this.hash(this.packed);
+
+		long mask = this.tableSize-1;
+		for (long i=h & mask; this.table.get(i)!=0; i=(i+1) & mask) {
+			int s = this.table.get(i)-1;
+			if (this.hashes.get(s)==h && this.equals(s)) return s;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Get marking of a state.
+	 *
+	 * @param s Number of a state.
+	 * @param marking Array to store the token vector in; must have as many elements as there are places.
+	 */
+	public void getMarking(int s, int[] marking) {
+		this.unpack(this.markings, s, this.bits, this.words, marking);
+	}
+
+	/**
+	 * Start the row of state transitions of a state; subsequent transitions get added to this row.
+	 * Rows must be started in ascending order of states, skipped states have no state transitions.
+	 *
+	 * @param s Number of a state.
+	 * @throws IllegalArgumentException if the row of the given state or of a greater state has been started already.
+	 */
+	public void expand(int s) {
+		if (s<this.expanded) throw new IllegalArgumentException("State transitions of state " + s + " have been added already!");
+
+		this.offsets.ensureCapacity(2L*(s+1));
+		for (int i=this.expanded; i<=s; i++) {
+			this.offsets.set(2L*i, (int) (this.transitions >>> 32));
+			this.offsets.set(2L*i+1, (int) this.transitions);
+		}
+		this.expanded = s+1;
+	}
+
+	/**
+	 * Add a state transition to the row of the state that has been expanded last, see {@link #expand(int)}.
+	 *
+	 * @param transition Index of a transition.
+	 * @param target Number of the target state.
+	 */
+	public void addTransition(int transition, int target) {
+		this.labels.ensureCapacity(this.transitions+1);
+		this.targets.ensureCapacity(this.transitions+1);
+		this.labels.set(this.transitions, transition);
+		this.targets.set(this.transitions, target);
+		this.transitions++;
+	}
+
+	/**
+	 * Get position of the first state transition of a state in the log.
+	 */
+	public long getFirstTransition(int s) {
+		if (s>=this.expanded) return this.transitions;
+
+		return ((long) this.offsets.get(2L*s) << 32) | (this.offsets.get(2L*s+1) & 0xffffffffL);
+	}
+
+	/**
+	 * Get position after the last state transition of a state in the log.
+	 */
+	public long getEndTransition(int s) {
+		return s+1>=this.expanded ? this.transitions : this.getFirstTransition(s+1);
+	}
+
+	/**
+	 * Get index of the transition of a state transition.
+	 *
+	 * @param k Position of a state transition in the log.
+	 */
+	public int getTransition(long k) {
+		return this.labels.get(k);
+	}
+
+	/**
+	 * Get target state of a state transition.
+	 *
+	 * @param k Position of a state transition in the log.
+	 */
+	public int getTarget(long k) {
+		return this.targets.get(k);
+	}
+
+	public int getNumberOfStates() {
+		return this.states;
+	}
+
+	public long getNumberOfTransitions() {
+		return this.transitions;
+	}
+
+	public int getNumberOfPlaces() {
+		return this.places;
+	}
+
+	/**
+	 * Get number of bits that store tokens of a place in a packed marking.
+	 */
+	public int getBitsPerPlace() {
+		return this.bits;
+	}
+
+	/**
+	 * Check if arrays of this store live in memory-mapped files.
+	 */
+	public boolean isMapped() {
+		return this.directory!=null;
+	}
+
+	/**
+	 * Release arrays of this store and delete its files.
+	 *
+	 * @throws IOException if a file cannot be closed; all other arrays get released nevertheless.
+	 */
+	@Override
+	public void close() throws IOException {
+		IOException exception = null;
+		for (IIntArray array : new IIntArray[] {this.markings, this.hashes, this.table, this.offsets, this.labels, this.targets}) {
+			try {
+				array.close();
+			}
+			catch (IOException e) {
+				if (exception==null) exception = e;
+			}
+		}
+
+		if (exception!=null) throw exception;
+	}
+
+	private boolean equals(int s) {
+		long offset = (long) s*this.words;
+		for (int i=0; i<this.words; i++)
+			if (this.markings.get(offset+i)!=this.packed[i]) return false;
+
+		return true;
+	}
+
+	private void insert(int s) {
+		long mask = this.tableSize-1;
+		long i = this.hashes.get(s) & mask;
+		while (this.table.get(i)!=0) i = (i+1) & mask;
+		this.table.set(i, s+1);
+	}
+
+	private void rehash(long size) {
+		this.table.ensureCapacity(size);
+		for (long i=0; i<size; i++) this.table.set(i, 0);
+		this.tableSize = size;
+		for (int s=0; s<this.states; s++) this.insert(s);
+	}
+
+	/**
+	 * Increase the number of bits per place so that a given number of tokens fits, and repack all stored markings in place.
+	 * Markings are repacked from the last state to the first one; as markings do not get shorter, a repacked marking only overwrites 
+	 * markings that have been repacked already.
+	 */
+	private void repack(int tokens) {
+		int oldBits = this.bits;
+		int oldWords = this.words;
+		while (tokens>this.getMaxTokens(this.bits)) this.bits *= 2;
+		this.words = this.getNumberOfWords(this.bits);
+		this.packed = new int[this.words];
+
+		this.markings.ensureCapacity(Math.max(16L,this.states+1L)*this.words);
+		int[] marking = new int[this.places];
+		for (int s=this.states-1; s>=0; s--) {
+			this.unpack(this.markings, s, oldBits, oldWords, marking);
+			this.pack(marking, this.packed);
+			for (int i=0; i<this.words; i++) this.markings.set((long) s*this.words+i, this.packed[i]);
+			this.hashes.set(s, this.hash(this.packed));
+		}
+
+		this.rehash(this.tableSize);
+	}
+
+	private int getNumberOfWords(int bits) {
+		int perWord = 32/bits;
+		return (this.places+perWord-1)/perWord;
+	}
+
+	private int getMaxTokens(int bits) {
+		return bits==32 ? Integer.MAX_VALUE : (1<<bits)-1;
+	}
+
+	private void pack(int[] marking, int[] packed) {
+		int perWord = 32/this.bits;
+		for (int i=0; i<this.words; i++) packed[i] = 0;
+		for (int p=0; p<marking.length; p++)
+			packed[p/perWord] |= marking[p] << ((p%perWord)*this.bits);
+	}
+
+	private void unpack(IIntArray markings, int s, int bits, int words, int[] marking) {
+		int perWord = 32/bits;
+		int mask = bits==32 ? -1 : (1<<bits)-1;
+		long offset = (long) s*words;
+		for (int i=0, p=0; i<words; i++) {
+			int word = markings.get(offset+i);
+			for (int k=0; k<perWord && p<marking.length; k++, p++)
+				marking[p] = (word >>> (k*bits)) & mask;
+		}
+	}
+
+	private int hash(int[] packed) {
+		int h = 1;
+		for (int i=0; i<this.words; i++) h = 31*h + packed[i];
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+
+		return h;
+	}
+}
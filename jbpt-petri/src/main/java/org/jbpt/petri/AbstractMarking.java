@@ -37,7 +37,7 @@ public abstract class AbstractMarking<F extends IFlow<N>, N extends INode, P ext
 	@Override
 	public Integer put(P p, Integer tokens) {
 		if (p==null) return 0;
-		if (!this.net.getPlaces().contains(p)) throw new IllegalArgumentException("Proposed place is not part of the associated net!");
+		if (!this.net.getPlacesView().contains(p)) throw new IllegalArgumentException("Proposed place is not part of the associated net!");
 		
 		Integer result = null;
 		if (tokens==null) result = super.remove(p);
@@ -46,9 +46,21 @@ public abstract class AbstractMarking<F extends IFlow<N>, N extends INode, P ext
 			else result = super.put(p,tokens);	
 		}
 		
+		if ((result==null) != (tokens==null || tokens<=0))
+			this.markingChanged(p, result==null);
+		
 		return result==null ? 0 : result;
 	}
 	
+	/**
+	 * Inform the net system this marking is associated with that a place got marked or unmarked.
+	 */
+	@SuppressWarnings("unchecked")
+	private void markingChanged(P p, boolean marked) {
+		if (this.net instanceof AbstractNetSystem)
+			((AbstractNetSystem<F,N,P,T,?>) this.net).markingChanged(this, p, marked);
+	}
+	
 	@Override
 	public IPetriNet<F,N,P,T> getPetriNet() {
 		return this.net;
@@ -77,7 +89,7 @@ public abstract class AbstractMarking<F extends IFlow<N>, N extends INode, P ext
 		this.clear();
 		
 		for (P p : places) {
-			if (!this.net.getPlaces().contains(p)) continue;
+			if (!this.net.getPlacesView().contains(p)) continue;
 			
 			Integer tokens = this.get(p);
 			if (tokens==null)
@@ -89,7 +101,9 @@ public abstract class AbstractMarking<F extends IFlow<N>, N extends INode, P ext
 
 	@Override
 	public Integer remove(P place) {
-		return super.remove(place);
+		Integer result = super.remove(place);
+		if (result!=null) this.markingChanged(place, false);
+		return result;
 	}
 
 	@Override
@@ -100,7 +114,15 @@ public abstract class AbstractMarking<F extends IFlow<N>, N extends INode, P ext
 	
 	@Override
 	public void clear() {
+		if (!(this.net instanceof AbstractNetSystem) || super.isEmpty()) {
+			super.clear();
+			return;
+		}
+		
+		Collection<P> places = new ArrayList<P>(super.keySet());
 		super.clear();
+		for (P p : places)
+			this.markingChanged(p, false);
 	}
 	
 	@Override
@@ -114,9 +136,12 @@ public abstract class AbstractMarking<F extends IFlow<N>, N extends INode, P ext
 	 * @param place Place of the associated net.
 	 * @return The number of tokens previously contained in the given place, or <tt>null</tt> there was no token at the given place. 
 	 */
+	@SuppressWarnings("unchecked")
 	@Override
 	public Integer remove(Object place) {
-		return super.remove(place);
+		Integer result = super.remove(place);
+		if (result!=null) this.markingChanged((P) place, false);
+		return result;
 	}
 
 	/**
@@ -189,8 +214,9 @@ public abstract class AbstractMarking<F extends IFlow<N>, N extends INode, P ext
 		
 		result -= this.net.hashCode();
 		
-		for (P p : this.net.getPlaces())
-			result += 17 * p.hashCode() * this.get(p);
+		// unmarked places do not contribute to the hash code
+		for (Map.Entry<P,Integer> entry : this.entrySet())
+			result += 17 * entry.getKey().hashCode() * entry.getValue();
 		
 		return result;
 	}
@@ -218,7 +244,7 @@ public abstract class AbstractMarking<F extends IFlow<N>, N extends INode, P ext
 	
 	@Override
 	public boolean fire(T transition) {
-		if (!this.net.getTransitions().contains(transition)) return false;
+		if (!this.net.getTransitionsView().contains(transition)) return false;
 		
 		for (P p : this.net.getPreset(transition)) {
 			if (this.get(p)==0) return false;
@@ -1,5 +1,6 @@
 package org.jbpt.petri;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -17,6 +18,11 @@ public abstract class AbstractNetSystem<F extends IFlow<N>, N extends INode, P e
 {
 	protected M marking = null;
 	
+	// number of unmarked places in presets of transitions; null if it must be recomputed 
+	protected Map<T,Integer> unmarked = null;
+	// transitions with no unmarked places in presets
+	protected Set<T> enabled = null;
+	
 	@SuppressWarnings("unchecked")
 	public AbstractNetSystem() {
 		super();
@@ -30,6 +36,75 @@ public abstract class AbstractNetSystem<F extends IFlow<N>, N extends INode, P e
 		}
 	}
 	
+	@Override
+	public N addVertex(N v) {
+		N result = super.addVertex(v);
+		if (result!=null) this.unmarked = null;
+		return result;
+	}
+	
+	@Override
+	public N removeVertex(N v) {
+		N result = super.removeVertex(v);
+		if (result!=null) this.unmarked = null;
+		return result;
+	}
+	
+	@Override
+	protected void addIndex(F e, N v) {
+		super.addIndex(e,v);
+		this.unmarked = null;
+	}
+	
+	@Override
+	protected void removeIndex(F e, N v) {
+		super.removeIndex(e,v);
+		this.unmarked = null;
+	}
+	
+	/**
+	 * Compute the enabledness counters for the current marking.<br/><br/>
+	 * 
+	 * The counters are computed on the first firing of a transition and after the structure of the net has changed. 
+	 * Afterwards, they are kept up to date by {@link #markingChanged(IMarking, IPlace, boolean)}.
+	 */
+	protected void initEnabledness() {
+		this.unmarked = new HashMap<T,Integer>();
+		this.enabled = new HashSet<T>();
+		
+		for (T t : this.getTransitionsView()) {
+			int count = 0;
+			for (P p : this.getPreset(t))
+				if (!this.marking.isMarked(p))
+					count++;
+			
+			this.unmarked.put(t,count);
+			if (count==0) this.enabled.add(t);
+		}
+	}
+	
+	/**
+	 * Update the enabledness counters after a place got marked or unmarked.<br/><br/>
+	 * 
+	 * Called by the marking of this net system whenever a place changes between marked and unmarked, 
+	 * e.g., for places in the preset and postset of a fired transition or for places that differ in a loaded marking.
+	 * Only transitions in the postset of the place are visited. Updates of other markings are ignored.
+	 * 
+	 * @param m Marking that got updated.
+	 * @param p Place that got marked or unmarked.
+	 * @param marked <tt>true</tt> if the place got marked; <tt>false</tt> if it got unmarked.
+	 */
+	protected void markingChanged(IMarking<F,N,P,T> m, P p, boolean marked) {
+		if (this.unmarked==null || m!=this.marking) return;
+		
+		for (T t : this.getPostset(p)) {
+			int count = this.unmarked.get(t) + (marked ? -1 : 1);
+			this.unmarked.put(t,count);
+			if (count==0) this.enabled.add(t);
+			else this.enabled.remove(t);
+		}
+	}
+	
 	@Override
 	public N removeNode(N n) {
 		N result = super.removeNode(n);
@@ -83,14 +158,9 @@ public abstract class AbstractNetSystem<F extends IFlow<N>, N extends INode, P e
 
 	@Override
 	public Set<T> getEnabledTransitions() {
-		Set<T> result = new HashSet<T>();
-		
-		for (T t : this.getTransitions()) {
-			if (this.getMarkedPlaces().containsAll(this.getPreset(t)))
-				result.add(t);
-		}
+		if (this.unmarked!=null) return new HashSet<T>(this.enabled);
 		
-		return result;
+		return this.getEnabledTransitionsAtMarking(this.marking);
 	}
 	
 	@Override
@@ -121,7 +191,7 @@ public abstract class AbstractNetSystem<F extends IFlow<N>, N extends INode, P e
 	public Set<T> getEnabledTransitionsAtMarking(M marking) {
 		Set<T> result = new HashSet<T>();
 		
-		for (T t : this.getTransitions()) {
+		for (T t : this.getTransitionsView()) {
 			boolean flag = true;
 			for (P p : this.getPreset(t)) {
 				if (!marking.isMarked(p)) {
@@ -140,7 +210,9 @@ public abstract class AbstractNetSystem<F extends IFlow<N>, N extends INode, P e
 
 	@Override
 	public boolean isEnabled(T t) {
-		if (!this.getTransitions().contains(t)) return false;
+		if (this.unmarked!=null) return this.enabled.contains(t);
+		
+		if (!this.getTransitionsView().contains(t)) return false;
 		
 		for (P p : this.getPreset(t))
 			if (!this.isMarked(p))
@@ -154,8 +226,16 @@ public abstract class AbstractNetSystem<F extends IFlow<N>, N extends INode, P e
 		return this.marking.isMarked(p);
 	}
 
+	/**
+	 * {@inheritDoc}<br/><br/>
+	 * 
+	 * The enabledness counters are updated for transitions in the postsets of places in the preset and postset of the fired transition.
+	 */
 	@Override
 	public boolean fire(T transition) {
+		if (this.unmarked==null) this.initEnabledness();
+		if (!this.enabled.contains(transition)) return false;
+		
 		return this.marking.fire(transition);
 	}
 
@@ -260,7 +340,15 @@ public abstract class AbstractNetSystem<F extends IFlow<N>, N extends INode, P e
 		if (this.marking.equals(newMarking))
 			return;
 		
-		this.marking.clear();
+		// apply the difference only, so that the enabledness counters are updated for changed places
+		Collection<P> unmarkedPlaces = new ArrayList<P>();
+		for (P p : this.marking.keySet())
+			if (!newMarking.isMarked(p))
+				unmarkedPlaces.add(p);
+		
+		for (P p : unmarkedPlaces)
+			this.marking.remove(p);
+		
 		for (Map.Entry<P,Integer> entry : newMarking.entrySet()) {
 			this.marking.put(entry.getKey(),entry.getValue());
 		}
@@ -0,0 +1,402 @@
+package org.jbpt.petri;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Base implementation of a Petri net marking that stores tokens in a packed array indexed by places.<br/><br/>
+ *
+ * Places of the associated net are numbered on demand; the numbering is shared by this marking, its clones, and markings
+ * created via {@link #createMarking(IPetriNet)} for the same net. Hence, equality of such markings is a comparison of arrays.
+ * The hash code is maintained incrementally on every update and is equal to the hash code of an {@link AbstractMarking}
+ * that puts the same tokens at the same places of the same net.<br/><br/>
+ *
+ * Subclasses decide how tokens are packed.
+ */
+public abstract class AbstractPackedMarking<F extends IFlow<N>, N extends INode, P extends IPlace, T extends ITransition>
+	extends AbstractMap<P,Integer>
+	implements IMarking<F,N,P,T>, Cloneable {
+
+	/**
+	 * Numbering of places of a net. Places are only ever appended, hence indexes stay valid for all markings that share the numbering.
+	 */
+	protected static class PlaceIndex<P> {
+		protected List<P> places = new ArrayList<P>();
+		protected Map<P,Integer> p2i = new HashMap<P,Integer>();
+
+		protected PlaceIndex(Collection<P> places) {
+			for (P p : places) this.add(p);
+		}
+
+		protected int add(P p) {
+			Integer i = this.p2i.get(p);
+			if (i!=null) return i;
+			this.p2i.put(p,this.places.size());
+			this.places.add(p);
+			return this.places.size()-1;
+		}
+
+		protected int indexOf(Object p) {
+			Integer i = this.p2i.get(p);
+			return i==null ? -1 : i;
+		}
+
+		protected int size() {
+			return this.places.size();
+		}
+	}
+
+	// associated net
+	protected IPetriNet<F,N,P,T> net = null;
+
+	// numbering of places of the associated net
+	protected PlaceIndex<P> index = null;
+
+	// sum of hash codes of marked places weighted by tokens
+	protected int hash = 0;
+
+	// number of marked places
+	protected int marked = 0;
+
+	public AbstractPackedMarking() {}
+
+	/**
+	 * Construct a marking and associate it with a given net.
+	 *
+	 * @param net A net to associate marking with.
+	 * @throws IllegalArgumentException if a given net is set to <tt>null</tt>.
+	 */
+	public AbstractPackedMarking(IPetriNet<F,N,P,T> net) {
+		if (net==null) throw new IllegalArgumentException("PetriNet object expected but was NULL!");
+		this.setPetriNet(net);
+	}
+
+	/**
+	 * Get number of tokens at a place with a given index.
+	 *
+	 * @param i Index of a place, may exceed the capacity of this marking.
+	 * @return Number of tokens at the place with the given index.
+	 */
+	protected abstract int getTokens(int i);
+
+	/**
+	 * Set number of tokens at a place with a given index.
+	 *
+	 * @param i Index of a place, may exceed the capacity of this marking.
+	 * @param tokens Positive number of tokens or <tt>0</tt>.
+	 * @throws IllegalArgumentException if the given number of tokens cannot be stored.
+	 */
+	protected abstract void setTokens(int i, int tokens) throws IllegalArgumentException;
+
+	/**
+	 * Remove all tokens.
+	 */
+	protected abstract void clearTokens();
+
+	/**
+	 * Check if this marking puts the same tokens as a given marking that shares the numbering of places with this marking.
+	 *
+	 * @param that Marking of the same kind which shares the numbering of places with this marking.
+	 * @return <tt>true</tt> if both markings put the same tokens; otherwise <tt>false</tt>.
+	 */
+	protected abstract boolean equalTokens(AbstractPackedMarking<F,N,P,T> that);
+
+	/**
+	 * Update number of tokens at a place with a given index and maintain hash code and number of marked places.
+	 *
+	 * @return Previous number of tokens at the place.
+	 */
+	protected int update(int i, int tokens) {
+		int old = this.getTokens(i);
+		if (old==tokens) return old;
+
+		this.setTokens(i,tokens);
+		this.hash += 17 * this.index.places.get(i).hashCode() * (tokens-old);
+		if (old==0) this.marked++;
+		else if (tokens==0) this.marked--;
+
+		return old;
+	}
+
+	/**
+	 * Get index of a place of the associated net; places not yet numbered are appended to the numbering.
+	 *
+	 * @return Index of the given place; <tt>-1</tt> if the place is not part of the associated net.
+	 */
+	protected int indexOf(P place) {
+		int i = this.index.indexOf(place);
+		if (i>=0) return i;
+		if (!this.net.getPlacesView().contains(place)) return -1;
+		return this.index.add(place);
+	}
+
+	@Override
+	public Integer put(P p, Integer tokens) {
+		if (p==null) return 0;
+		int i = this.indexOf(p);
+		if (i<0) throw new IllegalArgumentException("Proposed place is not part of the associated net!");
+
+		return this.update(i, (tokens==null || tokens<=0) ? 0 : tokens);
+	}
+
+	@Override
+	public IPetriNet<F,N,P,T> getPetriNet() {
+		return this.net;
+	}
+
+	@Override
+	public boolean isMarked(P place) {
+		int i = this.index.indexOf(place);
+		return i>=0 && this.getTokens(i)>0;
+	}
+
+	@Override
+	public Collection<P> toMultiSet() {
+		Collection<P> result = new ArrayList<P>();
+
+		for (int i=0; i<this.index.size(); i++) {
+			for (int k=0; k<this.getTokens(i); k++) {
+				result.add(this.index.places.get(i));
+			}
+		}
+
+		return result;
+	}
+
+	@Override
+	public void fromMultiSet(Collection<P> places) {
+		this.clear();
+
+		for (P p : places) {
+			int i = this.indexOf(p);
+			if (i<0) continue;
+			this.update(i, this.getTokens(i)+1);
+		}
+	}
+
+	@Override
+	public Integer remove(P place) {
+		return this.remove((Object) place);
+	}
+
+	/**
+	 * Removes all tokens from a given place of the associated net.
+	 *
+	 * @param place Place of the associated net.
+	 * @return The number of tokens previously contained in the given place, or <tt>null</tt> there was no token at the given place.
+	 */
+	@Override
+	public Integer remove(Object place) {
+		int i = this.index.indexOf(place);
+		if (i<0) return null;
+		int old = this.update(i,0);
+		return old==0 ? null : old;
+	}
+
+	@Override
+	public Integer get(P place) {
+		return this.get((Object) place);
+	}
+
+	/**
+	 * Get number of tokens at a place.
+	 *
+	 * @param p Place of the associated net.
+	 * @return Number of tokens at the place.
+	 */
+	@Override
+	public Integer get(Object p) {
+		int i = this.index.indexOf(p);
+		return i<0 ? 0 : this.getTokens(i);
+	}
+
+	@Override
+	public boolean containsKey(Object p) {
+		int i = this.index.indexOf(p);
+		return i>=0 && this.getTokens(i)>0;
+	}
+
+	@Override
+	public void clear() {
+		this.clearTokens();
+		this.hash = 0;
+		this.marked = 0;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.marked==0;
+	}
+
+	/**
+	 * Returns the number of marked places in the associated net.
+	 *
+	 * @return The number of marked places in the associated net.
+	 */
+	@Override
+	public int size() {
+		return this.marked;
+	}
+
+	/**
+	 * Returns set of pairs where every pair specifies a marked place of the associated net and the number of tokens at the place.
+	 *
+	 * @return The set of pairs where every pair specifies a marked place of the associated net and the number of tokens at the place.
+	 */
+	@Override
+	public Set<Map.Entry<P,Integer>> entrySet() {
+		return new AbstractSet<Map.Entry<P,Integer>>() {
+			@Override
+			public Iterator<Map.Entry<P,Integer>> iterator() {
+				return new Iterator<Map.Entry<P,Integer>>() {
+					// index of the next marked place
+					private int next = this.advance(0);
+					// index of the last returned place
+					private int last = -1;
+
+					private int advance(int i) {
+						while (i<index.size() && getTokens(i)==0) i++;
+						return i;
+					}
+
+					@Override
+					public boolean hasNext() {
+						return this.next<index.size();
+					}
+
+					@Override
+					public Map.Entry<P,Integer> next() {
+						if (!this.hasNext()) throw new NoSuchElementException();
+						this.last = this.next;
+						this.next = this.advance(this.next+1);
+						return new SimpleImmutableEntry<P,Integer>(index.places.get(this.last),getTokens(this.last));
+					}
+
+					@Override
+					public void remove() {
+						if (this.last<0) throw new IllegalStateException();
+						update(this.last,0);
+						this.last = -1;
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return marked;
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) return true;
+		if (o == null) return false;
+		if (!(o instanceof IMarking)) return false;
+
+		if (o.getClass()==this.getClass()) {
+			AbstractPackedMarking<F,N,P,T> that = (AbstractPackedMarking<F,N,P,T>) o;
+			if (that.index==this.index)
+				return this.hash==that.hash && this.marked==that.marked && this.equalTokens(that);
+		}
+
+		IMarking<F,N,P,T> that = (IMarking<F,N,P,T>) o;
+		if (this.size()!=that.size()) return false;
+
+		for (int i=0; i<this.index.size(); i++) {
+			int tokens = this.getTokens(i);
+			if (tokens==0) continue;
+			Integer value = that.get(this.index.places.get(i));
+			if (value==null || value!=tokens) return false;
+		}
+
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		return this.hash - this.net.hashCode();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public IMarking<F,N,P,T> createMarking(IPetriNet<F,N,P,T> net) {
+		AbstractPackedMarking<F,N,P,T> m = null;
+		try {
+			m = this.getClass().newInstance();
+			if (net==this.net) {
+				m.net = this.net;
+				m.index = this.index;
+			}
+			else m.setPetriNet(net);
+			return m;
+		} catch (IllegalAccessException exception) {
+			return m;
+		} catch (InstantiationException exception) {
+			return m;
+		}
+	}
+
+	@Override
+	public void setPetriNet(IPetriNet<F,N,P,T> net) {
+		this.clear();
+		this.net = net;
+		this.index = new PlaceIndex<P>(net.getPlaces());
+	}
+
+	@Override
+	public boolean fire(T transition) {
+		if (!this.net.getTransitionsView().contains(transition)) return false;
+
+		Collection<P> preset = this.net.getPreset(transition);
+		int[] pre = new int[preset.size()];
+		int k = 0;
+		for (P p : preset) {
+			pre[k] = this.indexOf(p);
+			if (this.getTokens(pre[k++])==0) return false;
+		}
+
+		for (int i : pre)
+			this.update(i, this.getTokens(i)-1);
+
+		for (P p : this.net.getPostset(transition)) {
+			int i = this.indexOf(p);
+			this.update(i, this.getTokens(i)+1);
+		}
+
+		return true;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public IMarking<F,N,P,T> clone() {
+		try {
+			return (AbstractPackedMarking<F,N,P,T>) super.clone();
+		} catch (CloneNotSupportedException exception) {
+			return null;
+		}
+	}
+
+	@Override
+	public boolean isBounded(int n) {
+		for (int i=0; i<this.index.size(); i++) {
+			if (this.getTokens(i)>n)
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public boolean isSafe() {
+		return this.isBounded(1);
+	}
+}
@@ -2,6 +2,7 @@ package org.jbpt.petri;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -21,11 +22,64 @@ import org.jbpt.graph.abs.AbstractDirectedGraph;
 public abstract class AbstractPetriNet<F extends IFlow<N>, N extends INode, P extends IPlace, T extends ITransition> 
 	extends AbstractDirectedGraph<F,N> implements IPetriNet<F,N,P,T> {
 	
+	// places and transitions of this net, updated together with the vertices of the graph
+	protected Set<P> places = new HashSet<P>();
+	protected Set<T> transitions = new HashSet<T>();
+	
+	// read-only views of places and transitions
+	private Set<P> placesView = Collections.unmodifiableSet(this.places);
+	private Set<T> transitionsView = Collections.unmodifiableSet(this.transitions);
+	
 	/**
 	 * Empty constructor.
 	 */
 	public AbstractPetriNet(){}
 	
+	@SuppressWarnings("unchecked")
+	private void indexNode(N node) {
+		if (node instanceof IPlace) this.places.add((P)node);
+		else if (node instanceof ITransition) this.transitions.add((T)node);
+	}
+	
+	private void unindexNode(N node) {
+		if (node instanceof IPlace) this.places.remove(node);
+		else if (node instanceof ITransition) this.transitions.remove(node);
+	}
+	
+	@Override
+	public N addVertex(N v) {
+		N result = super.addVertex(v);
+		if (result!=null) this.indexNode(result);
+		return result;
+	}
+	
+	@Override
+	public N removeVertex(N v) {
+		N result = super.removeVertex(v);
+		if (result!=null) this.unindexNode(result);
+		return result;
+	}
+	
+	@Override
+	protected void addIndex(F e, N v) {
+		super.addIndex(e,v);
+		// flows add their nodes to the graph
+		if (v!=null) this.indexNode(v);
+	}
+	
+	@Override
+	protected void removeIndex(F e, N v) {
+		super.removeIndex(e,v);
+		if (v!=null && !this.vertices.containsKey(v)) this.unindexNode(v);
+	}
+	
+	@Override
+	protected void clearMembers() {
+		super.clearMembers();
+		this.places.clear();
+		this.transitions.clear();
+	}
+	
 	@SuppressWarnings("unchecked")
 	@Override
 	public F addFlow(P place, T transition) {
@@ -154,28 +208,24 @@ public abstract class AbstractPetriNet<F extends IFlow<N>, N extends INode, P ex
 		return new HashSet<N>(this.getVertices());
 	}
 	
-	@SuppressWarnings("unchecked")
 	@Override
 	public Set<P> getPlaces() {
-		Set<P> result = new HashSet<P>();
-		
-		for (N node : this.getVertices())
-			if (node instanceof IPlace)
-				result.add((P)node);
-		
-		return result;
+		return new HashSet<P>(this.places);
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public Set<T> getTransitions() {
-		Set<T> result = new HashSet<T>();
-		
-		for (N node : this.getVertices())
-			if (node instanceof ITransition)
-				result.add((T)node);
-		
-		return result;
+		return new HashSet<T>(this.transitions);
+	}
+	
+	@Override
+	public Set<P> getPlacesView() {
+		return this.placesView;
+	}
+
+	@Override
+	public Set<T> getTransitionsView() {
+		return this.transitionsView;
 	}
 	
 	@Override
@@ -184,26 +234,25 @@ public abstract class AbstractPetriNet<F extends IFlow<N>, N extends INode, P ex
 		return new HashSet<F>(this.getEdges());
 	}
 	
-	@SuppressWarnings("unchecked")
 	@Override
 	public Set<T> getSilentTransitions() {
 		Set<T> result = new HashSet<T>();
 		
-		for (N node : this.getVertices())
-			if (node instanceof ITransition && node.getLabel().isEmpty())
-				result.add((T)node);	
+		// labels of transitions can change without notice to the net
+		for (T t : this.transitions)
+			if (t.getLabel().isEmpty())
+				result.add(t);	
 		
 		return result;
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public Set<T> getObservableTransitions() {
 		Set<T> result = new HashSet<T>();
 		
-		for (N node : this.getVertices())
-			if (node instanceof ITransition && !node.getLabel().isEmpty())
-				result.add((T)node);	
+		for (T t : this.transitions)
+			if (!t.getLabel().isEmpty())
+				result.add(t);	
 		
 		return result;
 	}
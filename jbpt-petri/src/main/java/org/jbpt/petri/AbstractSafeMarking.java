@@ -0,0 +1,108 @@
+package org.jbpt.petri;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Implementation of a marking of a safe Petri net, i.e., at most one token at every place, as a bit vector indexed by places.
+ * 
+ * @see AbstractPackedMarking
+ */
+public abstract class AbstractSafeMarking<F extends IFlow<N>, N extends INode, P extends IPlace, T extends ITransition> 
+	extends AbstractPackedMarking<F,N,P,T> {
+	
+	// marked places, 64 places per word
+	protected long[] words;
+	
+	public AbstractSafeMarking() {}
+	
+	/**
+	 * Construct a marking and associate it with a given net.
+	 * 
+	 * @param net A net to associate marking with.
+	 * @throws IllegalArgumentException if a given net is set to <tt>null</tt>.
+	 */
+	public AbstractSafeMarking(IPetriNet<F,N,P,T> net) {
+		super(net);
+	}
+	
+	@Override
+	protected int getTokens(int i) {
+		int w = i >>> 6;
+		return (this.words==null || w>=this.words.length) ? 0 : (int) ((this.words[w] >>> i) & 1L);
+	}
+	
+	@Override
+	protected void setTokens(int i, int tokens) {
+		if (tokens>1) throw new IllegalArgumentException("Safe marking can put at most one token at a place!");
+		
+		int w = i >>> 6;
+		if (this.words==null || w>=this.words.length) {
+			if (tokens==0) return;
+			long[] ws = new long[Math.max(w+1,(this.index.size()+63) >>> 6)];
+			if (this.words!=null) System.arraycopy(this.words,0,ws,0,this.words.length);
+			this.words = ws;
+		}
+		
+		if (tokens==0) this.words[w] &= ~(1L << i);
+		else this.words[w] |= 1L << i;
+	}
+	
+	@Override
+	protected void clearTokens() {
+		if (this.words!=null) Arrays.fill(this.words,0L);
+	}
+	
+	@Override
+	protected boolean equalTokens(AbstractPackedMarking<F,N,P,T> that) {
+		long[] ws = ((AbstractSafeMarking<F,N,P,T>) that).words;
+		int n = Math.max(this.words==null ? 0 : this.words.length, ws==null ? 0 : ws.length);
+		for (int w=0; w<n; w++) {
+			long a = (this.words==null || w>=this.words.length) ? 0L : this.words[w];
+			long b = (ws==null || w>=ws.length) ? 0L : ws[w];
+			if (a!=b) return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Fire a transition.
+	 * Transition fires only if it is enabled. 
+	 * 
+	 * @param transition Transition to fire.
+	 * @return <tt>true</tt> if firing took place; otherwise <tt>false</tt>.
+	 * @throws IllegalArgumentException if firing of the transition puts a second token at a place; this marking stays unchanged.
+	 */
+	@Override
+	public boolean fire(T transition) {
+		if (!this.net.getTransitionsView().contains(transition)) return false;
+		
+		Collection<P> preset = this.net.getPreset(transition);
+		for (P p : preset)
+			if (!this.isMarked(p)) return false;
+		
+		for (P p : this.net.getPostset(transition))
+			if (!preset.contains(p) && this.isMarked(p))
+				throw new IllegalArgumentException("Safe marking can put at most one token at a place!");
+		
+		return super.fire(transition);
+	}
+	
+	@Override
+	public IMarking<F,N,P,T> clone() {
+		AbstractSafeMarking<F,N,P,T> clone = (AbstractSafeMarking<F,N,P,T>) super.clone();
+		if (this.words!=null) clone.words = this.words.clone();
+		return clone;
+	}
+	
+	@Override
+	public boolean isBounded(int n) {
+		return n>=1 || this.isEmpty();
+	}
+	
+	@Override
+	public boolean isSafe() {
+		return true;
+	}
+}
@@ -0,0 +1,67 @@
+package org.jbpt.petri;
+
+import java.util.Arrays;
+
+/**
+ * Implementation of a Petri net marking as a vector of tokens, i.e., an int array indexed by places.
+ * 
+ * @see AbstractPackedMarking
+ */
+public abstract class AbstractTokenVectorMarking<F extends IFlow<N>, N extends INode, P extends IPlace, T extends ITransition> 
+	extends AbstractPackedMarking<F,N,P,T> {
+	
+	// tokens at places
+	protected int[] tokens;
+	
+	public AbstractTokenVectorMarking() {}
+	
+	/**
+	 * Construct a marking and associate it with a given net.
+	 * 
+	 * @param net A net to associate marking with.
+	 * @throws IllegalArgumentException if a given net is set to <tt>null</tt>.
+	 */
+	public AbstractTokenVectorMarking(IPetriNet<F,N,P,T> net) {
+		super(net);
+	}
+	
+	@Override
+	protected int getTokens(int i) {
+		return (this.tokens==null || i>=this.tokens.length) ? 0 : this.tokens[i];
+	}
+	
+	@Override
+	protected void setTokens(int i, int tokens) {
+		if (this.tokens==null || i>=this.tokens.length) {
+			if (tokens==0) return;
+			int[] ts = new int[Math.max(i+1,this.index.size())];
+			if (this.tokens!=null) System.arraycopy(this.tokens,0,ts,0,this.tokens.length);
+			this.tokens = ts;
+		}
+		
+		this.tokens[i] = tokens;
+	}
+	
+	@Override
+	protected void clearTokens() {
+		if (this.tokens!=null) Arrays.fill(this.tokens,0);
+	}
+	
+	@Override
+	protected boolean equalTokens(AbstractPackedMarking<F,N,P,T> that) {
+		int[] ts = ((AbstractTokenVectorMarking<F,N,P,T>) that).tokens;
+		int n = Math.max(this.tokens==null ? 0 : this.tokens.length, ts==null ? 0 : ts.length);
+		for (int i=0; i<n; i++)
+			if (this.getTokens(i)!=that.getTokens(i))
+				return false;
+		
+		return true;
+	}
+	
+	@Override
+	public IMarking<F,N,P,T> clone() {
+		AbstractTokenVectorMarking<F,N,P,T> clone = (AbstractTokenVectorMarking<F,N,P,T>) super.clone();
+		if (this.tokens!=null) clone.tokens = this.tokens.clone();
+		return clone;
+	}
+}
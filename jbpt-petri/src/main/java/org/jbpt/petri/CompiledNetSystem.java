@@ -0,0 +1,364 @@
+package org.jbpt.petri;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable, int-indexed view of a net system.<br/><br/>
+ *
+ * Places and transitions of the net system are numbered 0..n-1 and 0..m-1, respectively.
+ * The flow relation is stored in the compressed sparse row format, i.e., as int arrays of place/transition indexes.
+ * Markings are represented as int arrays of tokens indexed by places.
+ * Firing a transition and checking enabledness of a transition at such a marking performs no allocation.<br/><br/>
+ *
+ * Note that the view is a snapshot of the net system at the time of compilation, i.e., later changes of the net system are not reflected in the view.
+ */
+public class CompiledNetSystem<F extends IFlow<N>, N extends INode, P extends IPlace, T extends ITransition, M extends IMarking<F,N,P,T>> {
+
+	// originative net system
+	protected INetSystem<F,N,P,T,M> sys = null;
+
+	// indexes of places and transitions
+	protected List<P> places = null;
+	protected List<T> transitions = null;
+	protected Map<P,Integer> p2i = null;
+	protected Map<T,Integer> t2i = null;
+
+	// presets and postsets of transitions: places of transition i are stored at positions tPre[tPreStart[i]]..tPre[tPreStart[i+1]-1]
+	protected int[] tPreStart = null;
+	protected int[] tPre = null;
+	protected int[] tPostStart = null;
+	protected int[] tPost = null;
+
+	// presets and postsets of places
+	protected int[] pPreStart = null;
+	protected int[] pPre = null;
+	protected int[] pPostStart = null;
+	protected int[] pPost = null;
+
+	// marking of the net system at the time of compilation
+	protected int[] initialMarking = null;
+
+	/**
+	 * Compile a given net system.
+	 *
+	 * @param sys Net system.
+	 * @throws IllegalArgumentException if the given net system is set to <tt>null</tt>.
+	 */
+	public CompiledNetSystem(INetSystem<F,N,P,T,M> sys) {
+		if (sys==null) throw new IllegalArgumentException("NetSystem object expected but was NULL!");
+		this.sys = sys;
+
+		this.places = new ArrayList<P>(sys.getPlaces());
+		this.transitions = new ArrayList<T>(sys.getTransitions());
+		this.p2i = new HashMap<P,Integer>();
+		this.t2i = new HashMap<T,Integer>();
+		for (int i=0; i<this.places.size(); i++) this.p2i.put(this.places.get(i),i);
+		for (int i=0; i<this.transitions.size(); i++) this.t2i.put(this.transitions.get(i),i);
+
+		int n = this.places.size();
+		int m = this.transitions.size();
+
+		this.tPreStart = new int[m+1];
+		this.tPostStart = new int[m+1];
+		List<Collection<P>> pres = new ArrayList<Collection<P>>(m);
+		List<Collection<P>> posts = new ArrayList<Collection<P>>(m);
+		for (int i=0; i<m; i++) {
+			T t = this.transitions.get(i);
+			pres.add(sys.getPreset(t));
+			posts.add(sys.getPostset(t));
+			this.tPreStart[i+1] = this.tPreStart[i] + pres.get(i).size();
+			this.tPostStart[i+1] = this.tPostStart[i] + posts.get(i).size();
+		}
+
+		this.tPre = new int[this.tPreStart[m]];
+		this.tPost = new int[this.tPostStart[m]];
+		int[] pPreSize = new int[n];
+		int[] pPostSize = new int[n];
+		for (int i=0; i<m; i++) {
+			int k = this.tPreStart[i];
+			for (P p : pres.get(i)) {
+				int j = this.p2i.get(p);
+				this.tPre[k++] = j;
+				pPostSize[j]++;
+			}
+			k = this.tPostStart[i];
+			for (P p : posts.get(i)) {
+				int j = this.p2i.get(p);
+				this.tPost[k++] = j;
+				pPreSize[j]++;
+			}
+		}
+
+		this.pPreStart = new int[n+1];
+		this.pPostStart = new int[n+1];
+		for (int j=0; j<n; j++) {
+			this.pPreStart[j+1] = this.pPreStart[j] + pPreSize[j];
+			this.pPostStart[j+1] = this.pPostStart[j] + pPostSize[j];
+		}
+
+		this.pPre = new int[this.pPreStart[n]];
+		this.pPost = new int[this.pPostStart[n]];
+		int[] pPreNext = new int[n];
+		int[] pPostNext = new int[n];
+		for (int i=0; i<m; i++) {
+			for (int k=this.tPreStart[i]; k<this.tPreStart[i+1]; k++) {
+				int j = this.tPre[k];
+				this.pPost[this.pPostStart[j] + pPostNext[j]++] = i;
+			}
+			for (int k=this.tPostStart[i]; k<this.tPostStart[i+1]; k++) {
+				int j = this.tPost[k];
+				this.pPre[this.pPreStart[j] + pPreNext[j]++] = i;
+			}
+		}
+
+		this.initialMarking = this.toTokenVector(sys.getMarking());
+	}
+
+	/**
+	 * Get the originative net system of this view.
+	 *
+	 * @return The originative net system.
+	 */
+	public INetSystem<F,N,P,T,M> getNetSystem() {
+		return this.sys;
+	}
+
+	/**
+	 * Get number of places.
+	 *
+	 * @return Number of places.
+	 */
+	public int getNumberOfPlaces() {
+		return this.places.size();
+	}
+
+	/**
+	 * Get number of transitions.
+	 *
+	 * @return Number of transitions.
+	 */
+	public int getNumberOfTransitions() {
+		return this.transitions.size();
+	}
+
+	/**
+	 * Get place with a given index.
+	 *
+	 * @param index Index of a place.
+	 * @return Place with the given index.
+	 */
+	public P getPlace(int index) {
+		return this.places.get(index);
+	}
+
+	/**
+	 * Get transition with a given index.
+	 *
+	 * @param index Index of a transition.
+	 * @return Transition with the given index.
+	 */
+	public T getTransition(int index) {
+		return this.transitions.get(index);
+	}
+
+	/**
+	 * Get index of a place.
+	 *
+	 * @param place Place of the originative net system.
+	 * @return Index of the given place; <tt>-1</tt> if the place was not part of the net system at the time of compilation.
+	 */
+	public int getPlaceIndex(P place) {
+		Integer i = this.p2i.get(place);
+		return i==null ? -1 : i;
+	}
+
+	/**
+	 * Get index of a transition.
+	 *
+	 * @param transition Transition of the originative net system.
+	 * @return Index of the given transition; <tt>-1</tt> if the transition was not part of the net system at the time of compilation.
+	 */
+	public int getTransitionIndex(T transition) {
+		Integer i = this.t2i.get(transition);
+		return i==null ? -1 : i;
+	}
+
+	/**
+	 * Get size of the preset of a transition.
+	 *
+	 * @param t Index of a transition.
+	 * @return Number of places in the preset of the given transition.
+	 */
+	public int getPresetSize(int t) {
+		return this.tPreStart[t+1] - this.tPreStart[t];
+	}
+
+	/**
+	 * Get a place in the preset of a transition.
+	 *
+	 * @param t Index of a transition.
+	 * @param k Position in the preset, 0 <= k < {@link #getPresetSize(int)}.
+	 * @return Index of the k-th place in the preset of the given transition.
+	 */
+	public int getPresetPlace(int t, int k) {
+		return this.tPre[this.tPreStart[t]+k];
+	}
+
+	/**
+	 * Get size of the postset of a transition.
+	 *
+	 * @param t Index of a transition.
+	 * @return Number of places in the postset of the given transition.
+	 */
+	public int getPostsetSize(int t) {
+		return this.tPostStart[t+1] - this.tPostStart[t];
+	}
+
+	/**
+	 * Get a place in the postset of a transition.
+	 *
+	 * @param t Index of a transition.
+	 * @param k Position in the postset, 0 <= k < {@link #getPostsetSize(int)}.
+	 * @return Index of the k-th place in the postset of the given transition.
+	 */
+	public int getPostsetPlace(int t, int k) {
+		return this.tPost[this.tPostStart[t]+k];
+	}
+
+	/**
+	 * Get number of transitions in the preset of a place.
+	 *
+	 * @param p Index of a place.
+	 * @return Number of transitions in the preset of the given place.
+	 */
+	public int getPlacePresetSize(int p) {
+		return this.pPreStart[p+1] - this.pPreStart[p];
+	}
+
+	/**
+	 * Get a transition in the preset of a place.
+	 *
+	 * @param p Index of a place.
+	 * @param k Position in the preset, 0 <= k < {@link #getPlacePresetSize(int)}.
+	 * @return Index of the k-th transition in the preset of the given place.
+	 */
+	public int getPlacePresetTransition(int p, int k) {
+		return this.pPre[this.pPreStart[p]+k];
+	}
+
+	/**
+	 * Get number of transitions in the postset of a place.
+	 *
+	 * @param p Index of a place.
+	 * @return Number of transitions in the postset of the given place.
+	 */
+	public int getPlacePostsetSize(int p) {
+		return this.pPostStart[p+1] - this.pPostStart[p];
+	}
+
+	/**
+	 * Get a transition in the postset of a place.
+	 *
+	 * @param p Index of a place.
+	 * @param k Position in the postset, 0 <= k < {@link #getPlacePostsetSize(int)}.
+	 * @return Index of the k-th transition in the postset of the given place.
+	 */
+	public int getPlacePostsetTransition(int p, int k) {
+		return this.pPost[this.pPostStart[p]+k];
+	}
+
+	/**
+	 * Get marking of the net system at the time of compilation.
+	 *
+	 * @return A fresh token vector of the initial marking.
+	 */
+	public int[] getInitialMarking() {
+		return this.initialMarking.clone();
+	}
+
+	/**
+	 * Check if a transition is enabled at a marking.
+	 *
+	 * @param marking Token vector.
+	 * @param t Index of a transition.
+	 * @return <tt>true</tt> if the given transition is enabled at the given marking; otherwise <tt>false</tt>.
+	 */
+	public boolean isEnabled(int[] marking, int t) {
+		for (int k=this.tPreStart[t]; k<this.tPreStart[t+1]; k++)
+			if (marking[this.tPre[k]]==0)
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * Get transitions enabled at a marking.
+	 *
+	 * @param marking Token vector.
+	 * @param result Array to store indexes of enabled transitions in; must have at least {@link #getNumberOfTransitions()} elements.
+	 * @return Number of enabled transitions stored in the given array.
+	 */
+	public int getEnabledTransitions(int[] marking, int[] result) {
+		int count = 0;
+		for (int t=0; t<this.transitions.size(); t++)
+			if (this.isEnabled(marking,t))
+				result[count++] = t;
+
+		return count;
+	}
+
+	/**
+	 * Fire a transition at a marking.
+	 * The given marking is updated in place. Transition fires only if it is enabled.
+	 *
+	 * @param marking Token vector.
+	 * @param t Index of a transition.
+	 * @return <tt>true</tt> if firing took place; otherwise <tt>false</tt>.
+	 */
+	public boolean fire(int[] marking, int t) {
+		if (!this.isEnabled(marking,t)) return false;
+
+		for (int k=this.tPreStart[t]; k<this.tPreStart[t+1]; k++)
+			marking[this.tPre[k]]--;
+		for (int k=this.tPostStart[t]; k<this.tPostStart[t+1]; k++)
+			marking[this.tPost[k]]++;
+
+		return true;
+	}
+
+	/**
+	 * Get token vector of a marking of the originative net system.
+	 *
+	 * @param marking Marking of the originative net system.
+	 * @return Token vector of the given marking.
+	 */
+	public int[] toTokenVector(IMarking<F,N,P,T> marking) {
+		int[] result = new int[this.places.size()];
+		for (Map.Entry<P,Integer> entry : marking.entrySet()) {
+			Integer i = this.p2i.get(entry.getKey());
+			if (i!=null) result[i] = entry.getValue();
+		}
+
+		return result;
+	}
+
+	/**
+	 * Get marking of the originative net system that corresponds to a token vector.
+	 *
+	 * @param marking Token vector.
+	 * @return A fresh marking of the originative net system.
+	 */
+	@SuppressWarnings("unchecked")
+	public M toMarking(int[] marking) {
+		M result = (M) this.sys.createMarking();
+		for (int i=0; i<marking.length; i++)
+			if (marking[i]>0)
+				result.put(this.places.get(i),marking[i]);
+
+		return result;
+	}
+}
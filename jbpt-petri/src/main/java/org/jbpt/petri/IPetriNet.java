@@ -164,16 +164,32 @@ public interface IPetriNet<F extends IFlow<N>, N extends INode, P extends IPlace
 	/**
 	 * Get places of this net.
 	 * 
-	 * @return Places of this net.
+	 * @return Places of this net; a new set that can be changed without affecting this net.
 	 */
 	public Set<P> getPlaces();
 
 	/**
 	 * Get transitions of this net.
 	 * 
-	 * @return Transitions of this net.
+	 * @return Transitions of this net; a new set that can be changed without affecting this net.
 	 */
 	public Set<T> getTransitions();
+	
+	/**
+	 * Get places of this net without copying them.
+	 * 
+	 * @return Read-only view of places of this net that reflects later changes of this net. 
+	 * Do not change this net while iterating over the view; use {@link #getPlaces()} instead.
+	 */
+	public Set<P> getPlacesView();
+
+	/**
+	 * Get transitions of this net without copying them.
+	 * 
+	 * @return Read-only view of transitions of this net that reflects later changes of this net. 
+	 * Do not change this net while iterating over the view; use {@link #getTransitions()} instead.
+	 */
+	public Set<T> getTransitionsView();
 
 	/**
 	 * Get flow relation of this net. 
@@ -0,0 +1,12 @@
+package org.jbpt.petri;
+
+public class SafeMarking extends AbstractSafeMarking<Flow,Node,Place,Transition> {
+	
+	public SafeMarking() {
+	}
+	
+	public SafeMarking(IPetriNet<Flow,Node,Place,Transition> net) {
+		super(net);
+	}
+
+}
@@ -0,0 +1,12 @@
+package org.jbpt.petri;
+
+public class TokenVectorMarking extends AbstractTokenVectorMarking<Flow,Node,Place,Transition> {
+	
+	public TokenVectorMarking() {
+	}
+	
+	public TokenVectorMarking(IPetriNet<Flow,Node,Place,Transition> net) {
+		super(net);
+	}
+
+}
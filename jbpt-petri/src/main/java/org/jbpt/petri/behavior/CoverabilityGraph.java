@@ -0,0 +1,445 @@
+package org.jbpt.petri.behavior;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jbpt.petri.CompiledNetSystem;
+import org.jbpt.petri.IFlow;
+import org.jbpt.petri.IMarking;
+import org.jbpt.petri.INetSystem;
+import org.jbpt.petri.INode;
+import org.jbpt.petri.IPlace;
+import org.jbpt.petri.ITransition;
+import org.jbpt.petri.monitoring.CancellationToken;
+import org.jbpt.petri.monitoring.IAnalysisListener;
+
+/**
+ * Coverability graph of a net system that may be unbounded.<br/><br/>
+ *
+ * Nodes of the graph are omega markings, i.e., markings that may put an unbounded number of tokens ({@link #OMEGA}) on places, see {@link OmegaMarking}.
+ * The graph is constructed as a Karp-Miller tree: if a fresh marking covers a marking of one of its ancestors, then every place
+ * where the fresh marking has more tokens gets {@link #OMEGA} tokens (acceleration). Construction terminates on every net system.<br/><br/>
+ *
+ * The tree is pruned: a fresh marking that is covered by a marking of an active node is dropped, and a fresh marking deactivates all
+ * active nodes with markings it strictly covers; deactivated nodes are not expanded any further, but remain ancestors for acceleration.
+ * Once construction completes, the markings of active nodes form the minimal coverability set of the net system: every reachable
+ * marking is covered by one of them, and no two of them cover each other. A place is unbounded if and only if one of these markings
+ * puts {@link #OMEGA} tokens on it. The graph has an edge from a marking via a transition to a marking that covers the successor.<br/><br/>
+ *
+ * Richard M. Karp, Raymond E. Miller: Parallel Program Schemata. Journal of Computer and System Sciences 3(2): 147-195 (1969)
+ */
+public class CoverabilityGraph<F extends IFlow<N>, N extends INode, P extends IPlace, T extends ITransition, M extends IMarking<F,N,P,T>> {
+
+	/**
+	 * Number of tokens that stands for an unbounded number of tokens.
+	 */
+	public static final int OMEGA = Integer.MAX_VALUE;
+
+	// int-indexed view of the net system
+	protected CompiledNetSystem<F,N,P,T,M> net = null;
+
+	// markings and parents of nodes of the tree
+	protected List<int[]> nodes = null;
+	protected int[] parents = null;
+	// number of places with OMEGA tokens of nodes
+	protected int[] omegas = null;
+	// nodes that are not active
+	protected BitSet inactive = null;
+
+	// markings of active nodes
+	protected List<OmegaMarking<P>> markings = null;
+
+	protected boolean isComplete = false;
+	protected boolean cancelled = false;
+
+	protected IAnalysisListener listener = null;
+	protected CancellationToken token = null;
+
+	/**
+	 * Constructor of a coverability graph.
+	 *
+	 * @param sys Net system.
+	 * @throws IllegalArgumentException if the net system is set to <tt>null</tt>.
+	 */
+	public CoverabilityGraph(INetSystem<F,N,P,T,M> sys) {
+		this.net = new CompiledNetSystem<F,N,P,T,M>(sys);
+	}
+
+	/**
+	 * Set listener to report progress of construction to: created nodes, and construction time.
+	 *
+	 * @param listener Listener; <tt>null</tt> means no reporting.
+	 */
+	public void setListener(IAnalysisListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Set token to cancel construction; once the token is cancelled or its deadline has passed, construction stops
+	 * and the graph is incomplete, see {@link #isComplete()}.
+	 *
+	 * @param token Cancellation token; <tt>null</tt> means that construction cannot be cancelled.
+	 */
+	public void setCancellationToken(CancellationToken token) {
+		this.token = token;
+	}
+
+	/**
+	 * Construct the coverability graph.
+	 */
+	public void create() {
+		long start = System.nanoTime();
+
+		this.nodes = new ArrayList<int[]>();
+		this.parents = new int[16];
+		this.omegas = new int[16];
+		this.inactive = new BitSet();
+		this.markings = null;
+		this.isComplete = false;
+		this.cancelled = false;
+
+		int[] stack = new int[16];
+		int top = 0;
+		stack[top++] = this.addNode(this.net.getInitialMarking(), -1);
+
+		int[] enabled = new int[this.net.getNumberOfTransitions()];
+		while (top>0) {
+			if (this.token!=null && this.token.isCancelled()) {
+				this.cancelled = true;
+				return;
+			}
+
+			int n = stack[--top];
+			if (this.inactive.get(n)) continue;
+
+			// stop once a child deactivates the node: successors of the child cover the remaining successors
+			int[] marking = this.nodes.get(n);
+			int count = this.getEnabledTransitions(marking, enabled);
+			for (int k=0; k<count && !this.inactive.get(n); k++) {
+				int[] fresh = this.fire(marking, enabled[k]);
+				this.accelerate(fresh, n);
+				if (this.isCovered(fresh)) continue;
+
+				int m = this.addNode(fresh, n);
+				if (top==stack.length) {
+					int[] grown = new int[stack.length*2];
+					System.arraycopy(stack, 0, grown, 0, top);
+					stack = grown;
+				}
+				stack[top++] = m;
+			}
+		}
+
+		this.isComplete = true;
+		this.markings = new ArrayList<OmegaMarking<P>>();
+		for (int n=0; n<this.nodes.size(); n++)
+			if (!this.inactive.get(n)) this.markings.add(this.toOmegaMarking(this.nodes.get(n)));
+
+		if (this.listener!=null) this.listener.phaseFinished(this, IAnalysisListener.CONSTRUCTION, System.nanoTime()-start);
+	}
+
+	/**
+	 * Add an active node and deactivate all active nodes with markings that the marking of the node strictly covers.
+	 *
+	 * @return Index of the fresh node.
+	 */
+	private int addNode(int[] marking, int parent) {
+		int omegas = this.getNumberOfOmegas(marking);
+		for (int n=this.inactive.nextClearBit(0); n<this.nodes.size(); n=this.inactive.nextClearBit(n+1))
+			if (this.omegas[n]<=omegas && this.covers(marking, this.nodes.get(n))) this.inactive.set(n);
+
+		int n = this.nodes.size();
+		if (n==this.parents.length) {
+			int[] grown = new int[n*2];
+			System.arraycopy(this.parents, 0, grown, 0, n);
+			this.parents = grown;
+			grown = new int[n*2];
+			System.arraycopy(this.omegas, 0, grown, 0, n);
+			this.omegas = grown;
+		}
+		this.nodes.add(marking);
+		this.parents[n] = parent;
+		this.omegas[n] = omegas;
+
+		if (this.listener!=null) this.listener.gaugeUpdated(this, IAnalysisListener.MARKINGS, this.nodes.size());
+
+		return n;
+	}
+
+	/**
+	 * Put {@link #OMEGA} tokens on places where a marking has more tokens than a covered marking of an ancestor.
+	 */
+	private void accelerate(int[] marking, int parent) {
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int a=parent; a>=0; a=this.parents[a]) {
+				int[] ancestor = this.nodes.get(a);
+				if (!this.covers(marking, ancestor)) continue;
+
+				for (int p=0; p<marking.length; p++) {
+					if (marking[p]!=OMEGA && marking[p]>ancestor[p]) {
+						marking[p] = OMEGA;
+						changed = true;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Check if a marking is covered by the marking of an active node.
+	 */
+	private boolean isCovered(int[] marking) {
+		int omegas = this.getNumberOfOmegas(marking);
+		for (int n=this.inactive.nextClearBit(0); n<this.nodes.size(); n=this.inactive.nextClearBit(n+1))
+			if (this.omegas[n]>=omegas && this.covers(this.nodes.get(n), marking)) return true;
+
+		return false;
+	}
+
+	/**
+	 * Check if the first marking has at least as many tokens as the second marking on every place.
+	 */
+	private boolean covers(int[] m1, int[] m2) {
+		for (int p=0; p<m1.length; p++)
+			if (m1[p]<m2[p]) return false;
+
+		return true;
+	}
+
+	private int getNumberOfOmegas(int[] marking) {
+		int result = 0;
+		for (int p=0; p<marking.length; p++)
+			if (marking[p]==OMEGA) result++;
+
+		return result;
+	}
+
+	private int getEnabledTransitions(int[] marking, int[] result) {
+		int count = 0;
+		for (int t=0; t<this.net.getNumberOfTransitions(); t++)
+			if (this.net.isEnabled(marking, t)) result[count++] = t;
+
+		return count;
+	}
+
+	/**
+	 * Fire a transition at an omega marking; places with {@link #OMEGA} tokens keep {@link #OMEGA} tokens.
+	 *
+	 * @return A fresh omega marking.
+	 */
+	private int[] fire(int[] marking, int t) {
+		int[] result = marking.clone();
+		for (int k=0; k<this.net.getPresetSize(t); k++) {
+			int p = this.net.getPresetPlace(t, k);
+			if (result[p]!=OMEGA) result[p]--;
+		}
+		for (int k=0; k<this.net.getPostsetSize(t); k++) {
+			int p = this.net.getPostsetPlace(t, k);
+			if (result[p]!=OMEGA) result[p]++;
+		}
+
+		return result;
+	}
+
+	private OmegaMarking<P> toOmegaMarking(int[] marking) {
+		Map<P,Integer> tokens = new HashMap<P,Integer>();
+		for (int p=0; p<marking.length; p++)
+			if (marking[p]>0) tokens.put(this.net.getPlace(p), marking[p]);
+
+		return new OmegaMarking<P>(tokens);
+	}
+
+	private int[] toTokenVector(OmegaMarking<P> marking) {
+		int[] result = new int[this.net.getNumberOfPlaces()];
+		for (P place : marking.getMarkedPlaces()) {
+			int p = this.net.getPlaceIndex(place);
+			if (p<0) return null;
+			result[p] = marking.get(place);
+		}
+
+		return result;
+	}
+
+	private int[] toTokenVector(M marking) {
+		int[] result = new int[this.net.getNumberOfPlaces()];
+		for (Map.Entry<P,Integer> entry : marking.entrySet()) {
+			if (entry.getValue()==null || entry.getValue()==0) continue;
+			int p = this.net.getPlaceIndex(entry.getKey());
+			if (p<0) return null;
+			result[p] = entry.getValue();
+		}
+
+		return result;
+	}
+
+	/**
+	 * Get indexes of active nodes.
+	 */
+	private List<Integer> getActiveNodes() {
+		if (!this.isComplete) throw new IllegalStateException("Coverability graph must be created first!");
+
+		List<Integer> result = new ArrayList<Integer>();
+		for (int n=this.inactive.nextClearBit(0); n<this.nodes.size(); n=this.inactive.nextClearBit(n+1)) result.add(n);
+
+		return result;
+	}
+
+	/**
+	 * Check if the last construction completed.
+	 *
+	 * @return <tt>true</tt> if the graph has been constructed; <tt>false</tt> if it has not been constructed yet or construction was cancelled.
+	 */
+	public boolean isComplete() {
+		return this.isComplete;
+	}
+
+	/**
+	 * Check if the last construction was stopped by the cancellation token.
+	 */
+	public boolean isCancelled() {
+		return this.cancelled;
+	}
+
+	/**
+	 * Get number of nodes created by the last construction, including deactivated nodes.
+	 */
+	public int getNumberOfNodes() {
+		return this.nodes==null ? 0 : this.nodes.size();
+	}
+
+	/**
+	 * Get the minimal coverability set of the net system.
+	 *
+	 * @return Omega markings of the minimal coverability set.
+	 * @throws IllegalStateException if the graph has not been constructed, see {@link #create()}.
+	 */
+	public Set<OmegaMarking<P>> getMarkings() {
+		this.getActiveNodes();
+		return new HashSet<OmegaMarking<P>>(this.markings);
+	}
+
+	/**
+	 * Get edges of the graph that leave a marking of the minimal coverability set, see {@link #getMarkings()}.
+	 *
+	 * @param marking Omega marking of the minimal coverability set.
+	 * @return Map from transitions enabled at the given marking to markings of the minimal coverability set that cover the successors;
+	 * empty if the given marking is not in the minimal coverability set.
+	 * @throws IllegalStateException if the graph has not been constructed, see {@link #create()}.
+	 */
+	public Map<T,OmegaMarking<P>> getSuccessors(OmegaMarking<P> marking) {
+		List<Integer> active = this.getActiveNodes();
+		Map<T,OmegaMarking<P>> result = new HashMap<T,OmegaMarking<P>>();
+		int[] vector = this.toTokenVector(marking);
+		if (vector==null) return result;
+
+		boolean found = false;
+		for (int n : active) found |= Arrays.equals(vector, this.nodes.get(n));
+		if (!found) return result;
+
+		int[] enabled = new int[this.net.getNumberOfTransitions()];
+		int count = this.getEnabledTransitions(vector, enabled);
+		for (int k=0; k<count; k++) {
+			int[] fresh = this.fire(vector, enabled[k]);
+			for (int i=0; i<active.size(); i++) {
+				if (this.covers(this.nodes.get(active.get(i)), fresh)) {
+					result.put(this.net.getTransition(enabled[k]), this.markings.get(i));
+					break;
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Check if the net system is bounded, i.e., there is a bound on the number of tokens at every place in every reachable marking.
+	 *
+	 * @throws IllegalStateException if the graph has not been constructed, see {@link #create()}.
+	 */
+	public boolean isBounded() {
+		for (int n : this.getActiveNodes())
+			if (this.omegas[n]>0) return false;
+
+		return true;
+	}
+
+	/**
+	 * Get places that can get an unbounded number of tokens.
+	 *
+	 * @throws IllegalStateException if the graph has not been constructed, see {@link #create()}.
+	 */
+	public Set<P> getUnboundedPlaces() {
+		Set<P> result = new HashSet<P>();
+		for (int n : this.getActiveNodes()) {
+			if (this.omegas[n]==0) continue;
+
+			int[] marking = this.nodes.get(n);
+			for (int p=0; p<marking.length; p++)
+				if (marking[p]==OMEGA) result.add(this.net.getPlace(p));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Get the maximal number of tokens at a place in reachable markings.
+	 *
+	 * @param place Place of the net system.
+	 * @return Maximal number of tokens; {@link #OMEGA} if the place is unbounded; 0 if the place is not in the net system.
+	 * @throws IllegalStateException if the graph has not been constructed, see {@link #create()}.
+	 */
+	public int getBound(P place) {
+		List<Integer> active = this.getActiveNodes();
+		int p = this.net.getPlaceIndex(place);
+		if (p<0) return 0;
+
+		int result = 0;
+		for (int n : active) result = Math.max(result, this.nodes.get(n)[p]);
+
+		return result;
+	}
+
+	/**
+	 * Check if a marking is coverable, i.e., some reachable marking has at least as many tokens on every place.
+	 *
+	 * @param marking Marking of the net system.
+	 * @throws IllegalStateException if the graph has not been constructed, see {@link #create()}.
+	 */
+	public boolean isCoverable(M marking) {
+		List<Integer> active = this.getActiveNodes();
+		int[] vector = this.toTokenVector(marking);
+		if (vector==null) return false;
+
+		for (int n : active)
+			if (this.covers(this.nodes.get(n), vector)) return true;
+
+		return false;
+	}
+
+	/**
+	 * Get transitions that are enabled at no reachable marking.
+	 *
+	 * @throws IllegalStateException if the graph has not been constructed, see {@link #create()}.
+	 */
+	public Set<T> getDeadTransitions() {
+		List<Integer> active = this.getActiveNodes();
+		Set<T> result = new HashSet<T>();
+		for (int t=0; t<this.net.getNumberOfTransitions(); t++) {
+			boolean dead = true;
+			for (int i=0; i<active.size() && dead; i++)
+				if (this.net.isEnabled(this.nodes.get(active.get(i)), t)) dead = false;
+
+			if (dead) result.add(this.net.getTransition(t));
+		}
+
+		return result;
+	}
+}
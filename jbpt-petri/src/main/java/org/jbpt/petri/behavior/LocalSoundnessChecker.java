@@ -0,0 +1,312 @@
+package org.jbpt.petri.behavior;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jbpt.petri.CompiledNetSystem;
+import org.jbpt.petri.Flow;
+import org.jbpt.petri.Marking;
+import org.jbpt.petri.NetSystem;
+import org.jbpt.petri.Node;
+import org.jbpt.petri.PetriNet;
+import org.jbpt.petri.Place;
+import org.jbpt.petri.Transition;
+
+/**
+ * Soundness analysis that runs in the current process, i.e., an offline alternative to {@link LolaSoundnessChecker}.<br/><br/>
+ *
+ * The reachability graph of the net system is explored starting from its current marking. A newly discovered marking
+ * that strictly covers one of its predecessors on the exploration path proves that the net system is unbounded;
+ * such markings are not explored any further, which guarantees termination. For bounded net systems, all properties
+ * are derived from the reachability graph. Two structural checks run before the exploration: a transition with an empty
+ * preset is always enabled, hence the net system is unbounded without exploring any marking; in an S-net, every transition
+ * preserves the number of tokens, hence the net system is bounded and no marking is compared with its predecessors.
+ * Soundness properties are only reported for WF-nets with source and sink
+ * places; final markings put one token at a sink place and no other tokens (as the markings sent to LoLA).<br/><br/>
+ *
+ * The analysis neither modifies nor otherwise depends on the state of the net system after compilation, hence
+ * different net systems can be checked concurrently.
+ */
+public class LocalSoundnessChecker {
+
+	/**
+	 * Token vector used as a key of a reachable marking.
+	 */
+	private static class Key {
+		private final int[] tokens;
+		private final int hash;
+
+		private Key(int[] tokens) {
+			this.tokens = tokens;
+			this.hash = Arrays.hashCode(tokens);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) return false;
+			Key that = (Key) o;
+			return this.hash == that.hash && Arrays.equals(this.tokens, that.tokens);
+		}
+	}
+
+	/**
+	 * Check soundness of a given net system.
+	 *
+	 * @param net Net system to check; its current marking is used as the initial marking.
+	 * @return Result of the analysis.
+	 * @throws IllegalArgumentException if the given net system is <tt>null</tt>.
+	 */
+	public static LolaSoundnessCheckerResult analyzeSoundness(NetSystem net) {
+		if (net == null) throw new IllegalArgumentException("NetSystem object expected but was NULL!");
+
+		LolaSoundnessCheckerResult result = new LolaSoundnessCheckerResult();
+
+		/*
+		 * Structural pre-checks
+		 */
+		Set<Place> unbounded = new LinkedHashSet<Place>();
+		for (Transition t : net.getSourceTransitions())
+			unbounded.addAll(net.getPostset(t));
+		if (!unbounded.isEmpty()) {
+			result.setBoundedness(false);
+			result.setUnboundedPlaces(new ArrayList<Place>(unbounded));
+			return result;
+		}
+		boolean sNet = PetriNet.STRUCTURAL_CHECKS.isSNet(net);
+
+		CompiledNetSystem<Flow,Node,Place,Transition,Marking> cns = new CompiledNetSystem<Flow,Node,Place,Transition,Marking>(net);
+		int nt = cns.getNumberOfTransitions();
+
+		/*
+		 * Explore reachable markings; succ.get(s) stores pairs of fired transition and reached state
+		 */
+		Map<Key,Integer> ids = new HashMap<Key,Integer>();
+		List<int[]> markings = new ArrayList<int[]>();
+		List<Integer> parents = new ArrayList<Integer>();
+		List<int[]> succ = new ArrayList<int[]>();
+
+		int[] initial = cns.getInitialMarking();
+		ids.put(new Key(initial), 0);
+		markings.add(initial);
+		parents.add(-1);
+		succ.add(new int[0]);
+
+		Queue<Integer> toVisit = new ArrayDeque<Integer>();
+		toVisit.add(0);
+		int[] enabled = new int[nt];
+		while (!toVisit.isEmpty()) {
+			int s = toVisit.poll();
+			int size = cns.getEnabledTransitions(markings.get(s), enabled);
+			int[] steps = new int[2*size];
+
+			for (int i = 0; i < size; i++) {
+				int[] tokens = markings.get(s).clone();
+				cns.fire(tokens, enabled[i]);
+				Key key = new Key(tokens);
+				Integer d = ids.get(key);
+				if (d == null) {
+					d = markings.size();
+					ids.put(key, d);
+					markings.add(tokens);
+					parents.add(s);
+					succ.add(new int[0]);
+					if (sNet || !pumps(cns, markings, parents, d, unbounded))
+						toVisit.add(d);
+				}
+				steps[2*i] = enabled[i];
+				steps[2*i+1] = d;
+			}
+
+			succ.set(s, steps);
+		}
+
+		if (!unbounded.isEmpty()) {
+			result.setBoundedness(false);
+			result.setUnboundedPlaces(new ArrayList<Place>(unbounded));
+			return result;
+		}
+		result.setBoundedness(true);
+
+		/*
+		 * Dead transitions
+		 */
+		int n = markings.size();
+		boolean[] fired = new boolean[nt];
+		for (int[] steps : succ)
+			for (int k = 0; k < steps.length; k += 2)
+				fired[steps[k]] = true;
+		for (int t = 0; t < nt; t++)
+			if (!fired[t]) result.addDeadTransition(cns.getTransition(t));
+		result.setQuasiLiveness(result.getDeadTransitions().isEmpty());
+
+		/*
+		 * Final markings; soundness properties are only defined for WF-nets
+		 */
+		boolean wfNet = net.getSourcePlaces().size() == 1 && net.getSinkPlaces().size() == 1
+				&& PetriNet.STRUCTURAL_CHECKS.isWorkflowNet(net);
+		boolean[] sink = new boolean[cns.getNumberOfPlaces()];
+		for (Place p : net.getSinkPlaces()) sink[cns.getPlaceIndex(p)] = true;
+
+		boolean[] finals = new boolean[n];
+		boolean properCompletion = true;
+		for (int s = 0; s < n; s++) {
+			int[] tokens = markings.get(s);
+			int total = 0;
+			boolean atSink = false;
+			for (int p = 0; p < tokens.length; p++) {
+				total += tokens[p];
+				if (sink[p] && tokens[p] > 0) atSink = true;
+			}
+			finals[s] = atSink && total == 1;
+			if (atSink && !finals[s]) properCompletion = false;
+		}
+
+		/*
+		 * Predecessors in the reachability graph; final markings lead back to the initial marking (short-circuited net)
+		 */
+		List<List<Integer>> pred = new ArrayList<List<Integer>>(n);
+		for (int s = 0; s < n; s++) pred.add(new ArrayList<Integer>());
+		for (int s = 0; s < n; s++) {
+			int[] steps = succ.get(s);
+			for (int k = 1; k < steps.length; k += 2) pred.get(steps[k]).add(s);
+		}
+
+		// markings from which a final marking is reachable
+		boolean[] completes = backwardReachable(pred, finals);
+		boolean optionToComplete = true;
+		for (int s = 0; s < n; s++) optionToComplete &= completes[s];
+
+		// transitions that occur on a run from the initial marking to a final marking
+		boolean[] covered = new boolean[nt];
+		for (int s = 0; s < n; s++) {
+			int[] steps = succ.get(s);
+			for (int k = 0; k < steps.length; k += 2)
+				if (completes[steps[k+1]]) covered[steps[k]] = true;
+		}
+		for (int t = 0; t < nt; t++)
+			if (!covered[t]) result.addUncoveredTransition(cns.getTransition(t));
+
+		boolean weakSound = wfNet && optionToComplete && properCompletion;
+		result.setTransitioncover(wfNet && result.getUncoveredTransitions().isEmpty());
+		result.setRelaxedSoundness(result.hasTransitioncover());
+		result.setWeakSoundness(weakSound);
+		result.setClassicalSoundness(weakSound && result.hasQuasiLiveness());
+
+		/*
+		 * Liveness: every transition can fire again from every reachable marking
+		 */
+		if (result.hasQuasiLiveness()) {
+			if (wfNet)
+				for (int s = 0; s < n; s++)
+					if (finals[s]) pred.get(0).add(s);
+
+			boolean live = true;
+			boolean[] sources = new boolean[n];
+			for (int t = 0; t < nt && live; t++) {
+				Arrays.fill(sources, false);
+				for (int s = 0; s < n; s++) {
+					int[] steps = succ.get(s);
+					for (int k = 0; k < steps.length; k += 2)
+						if (steps[k] == t) sources[s] = true;
+				}
+				boolean[] reaches = backwardReachable(pred, sources);
+				for (int s = 0; s < n && live; s++) live = reaches[s];
+			}
+			result.setLiveness(live);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Check soundness of given net systems concurrently.
+	 *
+	 * @param nets Net systems to check; their current markings are used as initial markings.
+	 * @param parallelism Number of net systems to check at the same time.
+	 * @return Results of the analysis in the order of the given net systems.
+	 * @throws InterruptedException if interrupted while waiting for results.
+	 * @throws ExecutionException if the analysis of some net system failed.
+	 */
+	public static List<LolaSoundnessCheckerResult> analyzeSoundness(List<NetSystem> nets, int parallelism) throws InterruptedException, ExecutionException {
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+		try {
+			List<Future<LolaSoundnessCheckerResult>> futures = new ArrayList<Future<LolaSoundnessCheckerResult>>();
+			for (final NetSystem net : nets) {
+				futures.add(executor.submit(new Callable<LolaSoundnessCheckerResult>() {
+					@Override
+					public LolaSoundnessCheckerResult call() {
+						return analyzeSoundness(net);
+					}
+				}));
+			}
+
+			List<LolaSoundnessCheckerResult> result = new ArrayList<LolaSoundnessCheckerResult>();
+			for (Future<LolaSoundnessCheckerResult> future : futures)
+				result.add(future.get());
+
+			return result;
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Check if a newly discovered marking strictly covers a marking on the path that led to it.
+	 * Places at which the covering marking puts more tokens are unbounded and get recorded.
+	 */
+	private static boolean pumps(CompiledNetSystem<Flow,Node,Place,Transition,Marking> cns, List<int[]> markings, List<Integer> parents, int s, Set<Place> unbounded) {
+		int[] tokens = markings.get(s);
+		for (int a = parents.get(s); a >= 0; a = parents.get(a)) {
+			int[] ancestor = markings.get(a);
+			boolean covers = true;
+			for (int p = 0; p < tokens.length && covers; p++)
+				covers = tokens[p] >= ancestor[p];
+			if (!covers) continue;
+
+			for (int p = 0; p < tokens.length; p++)
+				if (tokens[p] > ancestor[p])
+					unbounded.add(cns.getPlace(p));
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * @return For every state, <tt>true</tt> if one of the given target states is reachable from it; otherwise <tt>false</tt>.
+	 */
+	private static boolean[] backwardReachable(List<List<Integer>> pred, boolean[] targets) {
+		boolean[] result = targets.clone();
+		Queue<Integer> queue = new ArrayDeque<Integer>();
+		for (int s = 0; s < targets.length; s++)
+			if (targets[s]) queue.add(s);
+
+		while (!queue.isEmpty()) {
+			for (int p : pred.get(queue.poll())) {
+				if (result[p]) continue;
+				result[p] = true;
+				queue.add(p);
+			}
+		}
+
+		return result;
+	}
+}
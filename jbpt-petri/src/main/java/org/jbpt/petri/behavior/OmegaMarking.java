@@ -0,0 +1,79 @@
+package org.jbpt.petri.behavior;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.jbpt.petri.IPlace;
+
+/**
+ * Omega marking, i.e., a marking that may put an unbounded number of tokens on places, see {@link CoverabilityGraph}.<br/><br/>
+ *
+ * Omega markings are immutable; places with an unbounded number of tokens carry {@link CoverabilityGraph#OMEGA} tokens.
+ */
+public class OmegaMarking<P extends IPlace> {
+
+	// places with tokens
+	private Map<P,Integer> tokens = null;
+
+	/**
+	 * Constructor of an omega marking.
+	 *
+	 * @param tokens Map from places to numbers of tokens; places that are not in the map carry no tokens.
+	 */
+	protected OmegaMarking(Map<P,Integer> tokens) {
+		this.tokens = new HashMap<P,Integer>();
+		for (Map.Entry<P,Integer> entry : tokens.entrySet())
+			if (entry.getValue()!=null && entry.getValue()>0) this.tokens.put(entry.getKey(), entry.getValue());
+	}
+
+	/**
+	 * Get number of tokens at a place.
+	 *
+	 * @param place Place.
+	 * @return Number of tokens; {@link CoverabilityGraph#OMEGA} if the number of tokens is unbounded.
+	 */
+	public int get(P place) {
+		Integer result = this.tokens.get(place);
+		return result==null ? 0 : result;
+	}
+
+	/**
+	 * Check if a place carries an unbounded number of tokens.
+	 */
+	public boolean isOmega(P place) {
+		return this.get(place)==CoverabilityGraph.OMEGA;
+	}
+
+	/**
+	 * Get places with tokens.
+	 */
+	public Set<P> getMarkedPlaces() {
+		return Collections.unmodifiableSet(this.tokens.keySet());
+	}
+
+	@Override
+	public int hashCode() {
+		return this.tokens.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) return true;
+		if (!(obj instanceof OmegaMarking)) return false;
+
+		return this.tokens.equals(((OmegaMarking<?>) obj).tokens);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("[");
+		for (Map.Entry<P,Integer> entry : this.tokens.entrySet()) {
+			if (result.length()>1) result.append(", ");
+			result.append(entry.getKey().getLabel()).append(':').append(entry.getValue()==CoverabilityGraph.OMEGA ? "w" : entry.getValue().toString());
+		}
+
+		return result.append(']').toString();
+	}
+}
@@ -0,0 +1,483 @@
+package org.jbpt.petri.behavior;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jbpt.petri.CompiledNetSystem;
+import org.jbpt.petri.IFlow;
+import org.jbpt.petri.IMarking;
+import org.jbpt.petri.INetSystem;
+import org.jbpt.petri.INode;
+import org.jbpt.petri.IPlace;
+import org.jbpt.petri.ITransition;
+
+/**
+ * State space of a net system that is explored by several threads.<br/><br/>
+ *
+ * The net system is compiled into a {@link CompiledNetSystem}; markings are stored as token vectors.
+ * The state space is explored level by level: markings of the current level are split among the workers of a {@link ForkJoinPool},
+ * newly discovered markings are collected in a concurrent set and form the next level.
+ * The explored net system is neither modified nor accessed during exploration.<br/><br/>
+ *
+ * Given a projection set, the state space also yields the steps over the projection set like {@link ProjectedStateSpace}, 
+ * i.e., pairs of transitions of the projection set that can fire one after the other with only transitions outside of the 
+ * projection set in between. Steps are derived from the explored markings once exploration is over.<br/><br/>
+ *
+ * With partial-order reduction, see {@link #setPartialOrderReduction(boolean)}, every worker computes stubborn sets on its own 
+ * {@link StubbornSets} instance.
+ */
+public class ParallelStateSpace<F extends IFlow<N>, N extends INode, P extends IPlace, T extends ITransition, M extends IMarking<F, N, P, T>> {
+
+	/**
+	 * Markings of a level that are handled by one worker without further splitting.
+	 */
+	protected static final int BATCH_SIZE = 64;
+
+	/**
+	 * Marking of the state space.
+	 */
+	protected static class State {
+		// token vector
+		protected final int[] tokens;
+		// hash code of the token vector
+		protected final int hash;
+		// fired transitions and the reached states; written once by the worker that expands this state
+		protected int[] transitions = null;
+		protected State[] successors = null;
+
+		protected State(int[] tokens) {
+			this.tokens = tokens;
+			this.hash = Arrays.hashCode(tokens);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (!(o instanceof State)) return false;
+			State that = (State) o;
+			return this.hash == that.hash && Arrays.equals(this.tokens, that.tokens);
+		}
+	}
+
+	protected INetSystem<F,N,P,T,M> netSystem = null;
+
+	protected int parallelism = 1;
+
+	protected Set<T> projectionSet = new HashSet<T>();
+
+	protected boolean reduction = false;	// partial-order reduction
+
+	protected CompiledNetSystem<F,N,P,T,M> cns = null;
+
+	// discovered states
+	protected ConcurrentMap<State,State> states = null;
+	// number of discovered states, used to respect the limit on the number of markings
+	protected AtomicInteger count = null;
+	// steps over the projection set
+	protected Map<T,Set<T>> steps = null;
+	// stubborn sets of worker threads; null if no reduction
+	protected ThreadLocal<StubbornSets<F,N,P,T,M>> stubbornSets = null;
+
+	public ParallelStateSpace(INetSystem<F, N, P, T, M> netSystem) {
+		this(netSystem, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Construct state space of a net system.
+	 *
+	 * @param netSystem Net system.
+	 * @param parallelism Number of worker threads to use for exploration.
+	 * @throws IllegalArgumentException if the net system is <tt>null</tt> or parallelism is not positive.
+	 */
+	public ParallelStateSpace(INetSystem<F, N, P, T, M> netSystem, int parallelism) {
+		super();
+		if (netSystem == null) throw new IllegalArgumentException("NetSystem object expected but was NULL!");
+		if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be positive!");
+		this.netSystem = netSystem;
+		this.parallelism = parallelism;
+		this.clear();
+	}
+
+	/**
+	 * Set transitions to compute steps over in subsequent constructions of this state space.
+	 *
+	 * @param projectionSet Transitions of the net system.
+	 * @throws IllegalArgumentException if the projection set is <tt>null</tt>.
+	 */
+	public void setProjectionSet(Set<T> projectionSet) {
+		if (projectionSet == null) throw new IllegalArgumentException("Set object expected but was NULL!");
+		this.projectionSet = new HashSet<T>(projectionSet);
+	}
+
+	/**
+	 * Get transitions to compute steps over.
+	 */
+	public Set<T> getProjectionSet() {
+		return new HashSet<T>(this.projectionSet);
+	}
+
+	/**
+	 * Enable or disable partial-order reduction of subsequent constructions of this state space. With reduction, only the enabled 
+	 * transitions of a stubborn set fire at a marking, unless one of them leads to a marking that has been discovered before, 
+	 * see {@link StubbornSets}. The reduced state space preserves all reachable dead markings. Transitions of the projection set 
+	 * are visible, hence the reduced state space yields the same steps over the projection set.
+	 *
+	 * @param reduction <tt>true</tt> to enable reduction; <tt>false</tt> to disable it.
+	 */
+	public void setPartialOrderReduction(boolean reduction) {
+		this.reduction = reduction;
+	}
+
+	/**
+	 * Check if partial-order reduction is enabled.
+	 */
+	public boolean isPartialOrderReduction() {
+		return this.reduction;
+	}
+
+	public void create() {
+		this.createUpToNumberOfMarkings(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Explore the state space until all reachable markings are discovered or the given number of markings is reached.
+	 * The initial marking is always part of the state space. Exploration starts from the current marking of the net system.
+	 *
+	 * @param numberOfMarkings Maximal number of markings to discover.
+	 */
+	public void createUpToNumberOfMarkings(final int numberOfMarkings) {
+		this.clear();
+		this.cns = new CompiledNetSystem<F,N,P,T,M>(this.netSystem);
+
+		State initial = new State(this.cns.getInitialMarking());
+		this.states.put(initial, initial);
+		this.count.set(1);
+
+		if (this.reduction) {
+			this.stubbornSets = new ThreadLocal<StubbornSets<F,N,P,T,M>>() {
+				@Override
+				protected StubbornSets<F,N,P,T,M> initialValue() {
+					return new StubbornSets<F,N,P,T,M>(cns, projectionSet);
+				}
+			};
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+		try {
+			List<State> level = new ArrayList<State>();
+			level.add(initial);
+
+			while (!level.isEmpty()) {
+				ConcurrentLinkedQueue<State> next = new ConcurrentLinkedQueue<State>();
+				pool.invoke(new Expansion(level, 0, level.size(), numberOfMarkings, next));
+				level = new ArrayList<State>(next);
+			}
+		}
+		finally {
+			pool.shutdown();
+			this.stubbornSets = null;
+		}
+
+		this.computeSteps();
+	}
+
+	/**
+	 * Compute steps over the projection set from the explored markings. For every marking, the transitions of the projection set
+	 * that can fire after transitions outside of the projection set are propagated backwards along the latter until a fixpoint is reached.
+	 */
+	protected void computeSteps() {
+		if (this.projectionSet.isEmpty()) return;
+
+		boolean[] visible = new boolean[this.cns.getNumberOfTransitions()];
+		for (int t = 0; t < visible.length; t++)
+			visible[t] = this.projectionSet.contains(this.cns.getTransition(t));
+
+		// transitions of the projection set that can fire at a marking, possibly after transitions outside of the projection set
+		Map<State,BitSet> next = new HashMap<State,BitSet>();
+		Map<State,List<State>> invisiblePredecessors = new HashMap<State,List<State>>();
+		for (State s : this.states.keySet()) {
+			BitSet ts = new BitSet(visible.length);
+			for (int i = 0; s.successors != null && i < s.successors.length; i++) {
+				if (visible[s.transitions[i]]) {
+					ts.set(s.transitions[i]);
+					continue;
+				}
+
+				List<State> ps = invisiblePredecessors.get(s.successors[i]);
+				if (ps == null) {
+					ps = new ArrayList<State>();
+					invisiblePredecessors.put(s.successors[i], ps);
+				}
+				ps.add(s);
+			}
+			next.put(s, ts);
+		}
+
+		Deque<State> work = new ArrayDeque<State>(this.states.keySet());
+		while (!work.isEmpty()) {
+			State s = work.poll();
+			List<State> ps = invisiblePredecessors.get(s);
+			if (ps == null) continue;
+
+			for (State p : ps) {
+				BitSet missing = (BitSet) next.get(s).clone();
+				missing.andNot(next.get(p));
+				if (missing.isEmpty()) continue;
+				next.get(p).or(missing);
+				work.add(p);
+			}
+		}
+
+		BitSet[] steps = new BitSet[visible.length];
+		for (State s : this.states.keySet()) {
+			for (int i = 0; s.successors != null && i < s.successors.length; i++) {
+				if (!visible[s.transitions[i]]) continue;
+				if (steps[s.transitions[i]] == null) steps[s.transitions[i]] = new BitSet(visible.length);
+				steps[s.transitions[i]].or(next.get(s.successors[i]));
+			}
+		}
+
+		for (int t1 = 0; t1 < visible.length; t1++) {
+			if (!visible[t1]) continue;
+			Set<T> ts = new HashSet<T>();
+			for (int t2 = steps[t1] == null ? -1 : steps[t1].nextSetBit(0); t2 >= 0; t2 = steps[t1].nextSetBit(t2 + 1))
+				ts.add(this.cns.getTransition(t2));
+			this.steps.put(this.cns.getTransition(t1), ts);
+		}
+	}
+
+	/**
+	 * Expansion of a range of states of a level.
+	 */
+	protected class Expansion extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final List<State> level;
+		private final int from;
+		private final int to;
+		private final int limit;
+		private final ConcurrentLinkedQueue<State> next;
+
+		protected Expansion(List<State> level, int from, int to, int limit, ConcurrentLinkedQueue<State> next) {
+			this.level = level;
+			this.from = from;
+			this.to = to;
+			this.limit = limit;
+			this.next = next;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from > BATCH_SIZE) {
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(new Expansion(this.level, this.from, middle, this.limit, this.next),
+						new Expansion(this.level, middle, this.to, this.limit, this.next));
+				return;
+			}
+
+			int[] enabled = new int[cns.getNumberOfTransitions()];
+			for (int i = this.from; i < this.to; i++)
+				this.expand(this.level.get(i), enabled);
+		}
+
+		private void expand(State s, int[] enabled) {
+			int size = cns.getEnabledTransitions(s.tokens, enabled);
+			if (stubbornSets != null) size = this.reduce(s, enabled, size);
+			int[] transitions = new int[size];
+			State[] successors = new State[size];
+			int k = 0;
+
+			for (int i = 0; i < size; i++) {
+				int[] tokens = s.tokens.clone();
+				cns.fire(tokens, enabled[i]);
+				State ns = this.discover(new State(tokens));
+				if (ns == null) continue;
+				transitions[k] = enabled[i];
+				successors[k++] = ns;
+			}
+
+			if (k < size) {
+				transitions = Arrays.copyOf(transitions, k);
+				successors = Arrays.copyOf(successors, k);
+			}
+			s.successors = successors;
+			s.transitions = transitions;
+		}
+
+		/**
+		 * Restrict enabled transitions of a state to the enabled transitions of a stubborn set, unless one of them leads to a marking
+		 * that has been discovered before. As states are explored level by level, every cycle contains a transition to a state of
+		 * the same or an earlier level, which has been discovered before.
+		 *
+		 * @return Number of transitions to fire, stored at the beginning of the given array of enabled transitions.
+		 */
+		private int reduce(State s, int[] enabled, int size) {
+			int[] stubborn = new int[enabled.length];
+			int count = stubbornSets.get().getStubbornSet(s.tokens, stubborn);
+			for (int i = 0; i < count; i++) {
+				int[] tokens = s.tokens.clone();
+				cns.fire(tokens, stubborn[i]);
+				if (states.containsKey(new State(tokens))) return size;
+			}
+
+			System.arraycopy(stubborn, 0, enabled, 0, count);
+			return count;
+		}
+
+		/**
+		 * @return The stored state equal to the given one; <tt>null</tt> if the state is new but the limit is reached.
+		 */
+		private State discover(State s) {
+			State old = states.get(s);
+			if (old != null) return old;
+
+			if (count.incrementAndGet() > this.limit) {
+				count.decrementAndGet();
+				return states.get(s);
+			}
+
+			old = states.putIfAbsent(s, s);
+			if (old != null) {
+				count.decrementAndGet();
+				return old;
+			}
+
+			this.next.add(s);
+			return s;
+		}
+	}
+
+	public void clear() {
+		this.cns = null;
+		this.states = new ConcurrentHashMap<State,State>();
+		this.count = new AtomicInteger();
+		this.steps = new HashMap<T,Set<T>>();
+	}
+
+	/**
+	 * Get steps over the projection set.
+	 *
+	 * @return Map from transitions of the projection set to transitions of the projection set that can directly follow them.
+	 */
+	public Map<T,Set<T>> getSteps() {
+		Map<T,Set<T>> result = new HashMap<T,Set<T>>();
+		for (Map.Entry<T,Set<T>> entry : this.steps.entrySet())
+			result.put(entry.getKey(), new HashSet<T>(entry.getValue()));
+
+		return result;
+	}
+
+	/**
+	 * Check if one transition of the projection set can directly follow another one.
+	 *
+	 * @throws IllegalArgumentException if a transition is not in the projection set.
+	 */
+	public boolean isStep(T t1, T t2) {
+		if (!this.projectionSet.contains(t1) || !this.projectionSet.contains(t2))
+			throw new IllegalArgumentException("Transitions have not been in projection set.");
+
+		Set<T> ts = this.steps.get(t1);
+		return ts != null && ts.contains(t2);
+	}
+
+	/**
+	 * Get discovered markings.
+	 *
+	 * @return Fresh markings of the net system, one per discovered state.
+	 */
+	public Set<M> getMarkings() {
+		Set<M> result = new HashSet<M>();
+		for (State s : this.states.keySet())
+			result.add(this.cns.toMarking(s.tokens));
+
+		return result;
+	}
+
+	/**
+	 * Get state transitions, i.e., for every marking, the markings reached by firing transitions.
+	 *
+	 * @return Map from markings to maps from transitions to reached markings.
+	 */
+	public Map<M, Map<T, M>> getStateTransitions() {
+		Map<State,M> markings = new HashMap<State,M>();
+		for (State s : this.states.keySet())
+			markings.put(s, this.cns.toMarking(s.tokens));
+
+		Map<M, Map<T, M>> result = new HashMap<M, Map<T, M>>();
+		for (State s : this.states.keySet()) {
+			if (s.successors == null || s.successors.length == 0) continue;
+			Map<T, M> steps = new HashMap<T, M>();
+			for (int i = 0; i < s.successors.length; i++)
+				steps.put(this.cns.getTransition(s.transitions[i]), markings.get(s.successors[i]));
+			result.put(markings.get(s), steps);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Get number of state transitions.
+	 *
+	 * @return Number of state transitions.
+	 */
+	public int getNumberOfStateTransitions() {
+		int result = 0;
+		for (State s : this.states.keySet())
+			if (s.successors != null)
+				result += s.successors.length;
+
+		return result;
+	}
+
+	public String toDOT() {
+		String result = "digraph G {\n";
+		result += "graph [fontname=\"Helvetica\" fontsize=10 nodesep=0.35 ranksep=\"0.25 equally\"];\n";
+		result += "node [fontname=\"Helvetica\" fontsize=10 fixedsize style=filled fillcolor=white penwidth=\"2\"];\n";
+		result += "edge [fontname=\"Helvetica\" fontsize=10 arrowhead=normal color=black];\n";
+		result += "\n";
+		result += "node [shape=circle];\n";
+
+		Map<State,Integer> ids = new HashMap<State,Integer>();
+		for (State s : this.states.keySet()) {
+			result += String.format("\tn%s[label=\"%s\" width=\".3\" height=\".3\"];\n", ids.size(), this.cns.toMarking(s.tokens).toString());
+			ids.put(s, ids.size());
+		}
+
+		result += "\n";
+
+		result += "\n";
+		for (State s : this.states.keySet()) {
+			if (s.successors == null) continue;
+			for (int i = 0; i < s.successors.length; i++) {
+				result += String.format("\tn%s->n%s [label=\"%s\"];\n", ids.get(s), ids.get(s.successors[i]), this.cns.getTransition(s.transitions[i]).getLabel());
+			}
+		}
+		result += "}\n";
+
+		return result;
+	}
+
+	public int getNumberOfMarkings() {
+		return this.states.size();
+	}
+
+}
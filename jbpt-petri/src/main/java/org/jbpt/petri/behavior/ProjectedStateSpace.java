@@ -27,6 +27,9 @@ public class ProjectedStateSpace<F extends IFlow<N>, N extends INode, P extends
 	protected boolean[][] stepMatrix = null;
 	
 	protected Map<T,Integer> projectionSetForStepMatrix = null;
+	
+	protected StubbornSets<F,N,P,T,M> stubbornSets = null;	// partial-order reduction; null if no reduction
+	protected Map<M,Set<T>> fired = null;					// transitions that fire at markings under reduction
 
 	public ProjectedStateSpace(INetSystem<F, N, P, T, M> netSystem, Set<T> projectionSet) {
 		super();
@@ -62,6 +65,25 @@ public class ProjectedStateSpace<F extends IFlow<N>, N extends INode, P extends
 	public void create() {
 		this.createUpToNumberOfMarkings(Integer.MAX_VALUE);
 	}
+	
+	/**
+	 * Enable or disable partial-order reduction of state space construction. With reduction, only the enabled transitions of a 
+	 * stubborn set fire at a marking, unless the marking has a successor that has been discovered before, see {@link StubbornSets}. 
+	 * Transitions of the projection set are visible, hence the reduced state space yields the same steps over the projection set.
+	 * 
+	 * @param reduction <tt>true</tt> to enable reduction; <tt>false</tt> to disable it.
+	 */
+	public void setPartialOrderReduction(boolean reduction) {
+		this.stubbornSets = reduction ? new StubbornSets<F,N,P,T,M>(this.netSystem, this.projectionSetForStepMatrix.keySet()) : null;
+		this.fired = new HashMap<M,Set<T>>();
+	}
+	
+	/**
+	 * Check if partial-order reduction is enabled.
+	 */
+	public boolean isPartialOrderReduction() {
+		return this.stubbornSets!=null;
+	}
 
 	public void createUpToNumberOfMarkings(int numberOfMarkings) {
 		
@@ -79,7 +101,7 @@ public class ProjectedStateSpace<F extends IFlow<N>, N extends INode, P extends
 		for (T t : this.netSystem.getTransitions()) 
 			this.vTxM.put(t, new HashSet<M>());
 
-		for (T t : iEnabled) {
+		for (T t : this.getTransitionsToFire(iM)) {
 			M nM = fireTransition(iM, iEnabled, t);
 			addToVisit(t,nM);
 		}
@@ -96,7 +118,7 @@ public class ProjectedStateSpace<F extends IFlow<N>, N extends INode, P extends
 			txM.get(t).remove(m);
 			vTxM.get(t).add(m);
 
-			for (T te : this.enabled.get(m)) {
+			for (T te : this.getTransitionsToFire(m)) {
 
 				M nM = fireTransition(m, 
 						this.enabled.get(m), te);
@@ -121,6 +143,30 @@ public class ProjectedStateSpace<F extends IFlow<N>, N extends INode, P extends
 		this.netSystem.loadMarking(iM);
 	}
 	
+	/**
+	 * Get transitions to fire at a marking: all enabled transitions or, with partial-order reduction, the enabled transitions 
+	 * of a stubborn set if none of them leads to a marking that has been discovered before.
+	 */
+	protected Set<T> getTransitionsToFire(M m) {
+		if (this.stubbornSets==null) return this.enabled.get(m);
+		
+		Set<T> ts = this.fired.get(m);
+		if (ts==null) {
+			ts = this.stubbornSets.getStubbornSet(m);
+			for (T t : ts) {
+				this.netSystem.loadMarking(m);
+				this.netSystem.fire(t);
+				if (this.enabled.containsKey(this.netSystem.getMarking())) {
+					ts = this.enabled.get(m);
+					break;
+				}
+			}
+			this.fired.put(m, ts);
+		}
+		
+		return ts;
+	}
+	
 	protected void addToVisit(T t, M m) {
 		if (!this.txM.containsKey(t))
 			this.txM.put(t, new HashSet<M>());
@@ -1,5 +1,6 @@
 package org.jbpt.petri.behavior;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -8,12 +9,17 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import org.jbpt.automaton.AbstractCompactAutomaton;
+import org.jbpt.automaton.AbstractState;
+import org.jbpt.automaton.AbstractStateTransition;
 import org.jbpt.petri.IFlow;
 import org.jbpt.petri.IMarking;
 import org.jbpt.petri.INetSystem;
 import org.jbpt.petri.INode;
 import org.jbpt.petri.IPlace;
 import org.jbpt.petri.ITransition;
+import org.jbpt.petri.monitoring.CancellationToken;
+import org.jbpt.petri.monitoring.IAnalysisListener;
 
 public class SimpleStateSpace<F extends IFlow<N>, N extends INode, P extends IPlace, T extends ITransition, M extends IMarking<F, N, P, T>> {
 
@@ -24,19 +30,117 @@ public class SimpleStateSpace<F extends IFlow<N>, N extends INode, P extends IPl
 	
 	protected Map<M, Map<T, M>> stateTransitions = null;
 	
+	protected IAnalysisListener listener = null;
+	
+	protected CancellationToken token = null;
+	protected boolean cancelled = false;
+	
+	protected StubbornSets<F,N,P,T,M> stubbornSets = null;	// partial-order reduction; null if no reduction
+	protected Set<M> reduced = null;						// markings at which only transitions of a stubborn set fire
+	
+	protected File directory = null;									// directory of a disk-backed store; null if markings are kept in maps
+	protected AbstractCompactAutomaton<?,?,F,N,P,T,M> automaton = null;	// state space in the disk-backed store
+	
 	public SimpleStateSpace(INetSystem<F, N, P, T, M> netSystem) {
 		super();
 		this.netSystem = netSystem;
 		this.enabled = new HashMap<M, Set<T>>();
 		this.toVisit = new HashMap<M, Set<T>>();
 		this.stateTransitions = new HashMap<M, Map<T, M>>();
+		this.reduced = new HashSet<M>();
 	}
 	
 	public void create() {
 		this.createUpToNumberOfMarkings(Integer.MAX_VALUE);
 	}
 
+	/**
+	 * Set listener to report progress of state space construction to: discovered markings and state transitions, and construction time.
+	 * 
+	 * @param listener Listener; <tt>null</tt> means no reporting.
+	 */
+	public void setListener(IAnalysisListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Set token to cancel state space construction; once the token is cancelled or its deadline has passed, construction stops 
+	 * and the state space contains the markings discovered so far.
+	 * 
+	 * @param token Cancellation token; <tt>null</tt> means that construction cannot be cancelled.
+	 */
+	public void setCancellationToken(CancellationToken token) {
+		this.token = token;
+	}
+	
+	/**
+	 * Check if the last construction of this state space was stopped by the cancellation token, i.e., the state space is partial.
+	 * 
+	 * @return <tt>true</tt> if construction was cancelled; otherwise <tt>false</tt>.
+	 */
+	public boolean isCancelled() {
+		return this.cancelled;
+	}
+	
+	/**
+	 * Enable or disable partial-order reduction of state space construction. With reduction, only the enabled transitions of a 
+	 * stubborn set fire at a marking, unless the marking has a successor that has been discovered before, see {@link StubbornSets}. 
+	 * The reduced state space contains all reachable dead markings, see {@link #getDeadMarkings()}.
+	 * 
+	 * @param reduction <tt>true</tt> to enable reduction; <tt>false</tt> to disable it.
+	 */
+	public void setPartialOrderReduction(boolean reduction) {
+		this.stubbornSets = reduction ? new StubbornSets<F,N,P,T,M>(this.netSystem) : null;
+	}
+	
+	/**
+	 * Check if partial-order reduction is enabled.
+	 */
+	public boolean isPartialOrderReduction() {
+		return this.stubbornSets!=null;
+	}
+	
+	/**
+	 * Set directory for a disk-backed store of the state space. With a directory, the state space is constructed breadth-first as an 
+	 * automaton whose packed markings, hash table, and state transitions live in memory-mapped files of the directory, see 
+	 * {@link AbstractCompactAutomaton}; hence the state space is bounded by the disk rather than by the heap. Every construction 
+	 * starts from the initial marking. Call {@link #clear()} to delete the files.
+	 * 
+	 * @param directory Directory; <tt>null</tt> to keep markings in maps on the heap.
+	 */
+	public void setStorageDirectory(File directory) {
+		this.directory = directory;
+	}
+	
+	/**
+	 * Get directory for a disk-backed store of the state space.
+	 * 
+	 * @return Directory; <tt>null</tt> if markings are kept in maps on the heap.
+	 */
+	public File getStorageDirectory() {
+		return this.directory;
+	}
+
 	public void createUpToNumberOfMarkings(int numberOfMarkings) {
+		long start = System.nanoTime();
+		this.cancelled = false;
+		
+		if (this.directory!=null) {
+			if (this.automaton!=null) this.automaton.close();
+			this.automaton = new AbstractCompactAutomaton<AbstractStateTransition<AbstractState<F,N,P,T,M>,F,N,P,T,M>,AbstractState<F,N,P,T,M>,F,N,P,T,M>();
+			this.automaton.setPartialOrderReduction(this.stubbornSets!=null);
+			this.automaton.setStorageDirectory(this.directory);
+			this.automaton.setCancellationToken(this.token);
+			this.automaton.construct(this.netSystem, numberOfMarkings);
+			this.cancelled = this.automaton.isCancelled();
+			
+			if (this.listener!=null) {
+				this.listener.counterIncremented(this, IAnalysisListener.STATE_TRANSITIONS, this.automaton.getNumberOfStateTransitions());
+				this.listener.gaugeUpdated(this, IAnalysisListener.MARKINGS, this.getNumberOfMarkings());
+				this.listener.phaseFinished(this, IAnalysisListener.CONSTRUCTION, System.nanoTime()-start);
+			}
+			return;
+		}
 		
 		/*
 		 * Clone initial marking for storing it as part of the SimpleStateSpace and for 
@@ -46,9 +150,20 @@ public class SimpleStateSpace<F extends IFlow<N>, N extends INode, P extends IPl
 		M iM = (M) this.netSystem.getMarking().clone();
 		
 		this.enabled.put(iM, this.netSystem.getEnabledTransitions());
-		this.toVisit.put(iM, this.netSystem.getEnabledTransitions());
+		if (this.stubbornSets==null)
+			this.toVisit.put(iM, this.netSystem.getEnabledTransitions());
+		else if (!this.stateTransitions.containsKey(iM)) {
+			this.toVisit.put(iM, this.stubbornSets.getStubbornSet(iM));
+			this.reduced.add(iM);
+		}
 		
 		while (!this.toVisit.isEmpty() && this.getNumberOfMarkings() < numberOfMarkings) {
+			// stop if cancelled
+			if (this.token!=null && this.token.isCancelled()) {
+				this.cancelled = true;
+				break;
+			}
+			
 			// select marking
 			M m = this.toVisit.keySet().iterator().next();
 			
@@ -67,6 +182,7 @@ public class SimpleStateSpace<F extends IFlow<N>, N extends INode, P extends IPl
 			this.toVisit.get(m).remove(t);
 			@SuppressWarnings("unchecked")
 			M nM = (M) this.netSystem.getMarking().clone(); 
+			boolean known = this.enabled.containsKey(nM);
 			
 			// record transition
 			if (!this.stateTransitions.containsKey(m))
@@ -80,6 +196,28 @@ public class SimpleStateSpace<F extends IFlow<N>, N extends INode, P extends IPl
 			Set<T> nEnabled = this.netSystem.getEnabledTransitions(this.enabled.get(m), t);
 			this.enabled.put(nM, nEnabled);
 			
+			if (this.listener!=null) {
+				this.listener.counterIncremented(this, IAnalysisListener.STATE_TRANSITIONS, 1);
+				this.listener.gaugeUpdated(this, IAnalysisListener.MARKINGS, this.getNumberOfMarkings());
+			}
+			
+			if (this.stubbornSets!=null) {
+				if (!known) {
+					// fire transitions of a stubborn set at a fresh marking
+					Set<T> stubborn = this.stubbornSets.getStubbornSet(nM);
+					this.reduced.add(nM);
+					if (!stubborn.isEmpty())
+						this.toVisit.put(nM, stubborn);
+				}
+				else if (this.reduced.remove(m)) {
+					// fire all transitions at a marking with a successor that has been discovered before, so that no cycle ignores a transition
+					Set<T> stillToCheck = new HashSet<T>(this.enabled.get(m));
+					stillToCheck.removeAll(this.stateTransitions.get(m).keySet());
+					this.toVisit.get(m).addAll(stillToCheck);
+				}
+				continue;
+			}
+			
 			// check whether transitions have to be checked
 			Set<T> stillToCheck = new HashSet<T>(nEnabled);
 			if (this.stateTransitions.containsKey(nM))
@@ -94,15 +232,22 @@ public class SimpleStateSpace<F extends IFlow<N>, N extends INode, P extends IPl
 		 * Reset initial marking 
 		 */
 		this.netSystem.loadMarking(iM);
+		
+		if (this.listener!=null) this.listener.phaseFinished(this, IAnalysisListener.CONSTRUCTION, System.nanoTime()-start);
 	}
 
 	public void clear() {
 		this.enabled = new HashMap<M, Set<T>>();
 		this.toVisit = new HashMap<M, Set<T>>();
 		this.stateTransitions = new HashMap<M, Map<T, M>>();
+		this.reduced = new HashSet<M>();
+		if (this.automaton!=null) this.automaton.close();
+		this.automaton = null;
 	}
 	
 	public String toDOT() {
+		if (this.automaton!=null) return this.automaton.toDOT();
+		
 		String result = "digraph G {\n";
 		result += "graph [fontname=\"Helvetica\" fontsize=10 nodesep=0.35 ranksep=\"0.25 equally\"];\n";
 		result += "node [fontname=\"Helvetica\" fontsize=10 fixedsize style=filled fillcolor=white penwidth=\"2\"];\n";
@@ -130,7 +275,29 @@ public class SimpleStateSpace<F extends IFlow<N>, N extends INode, P extends IPl
 	}
 	
 	public int getNumberOfMarkings() {
+		if (this.automaton!=null) return this.automaton.getNumberOfStates();
+		
 		return this.enabled.keySet().size();
 	}
+	
+	/**
+	 * Get markings of this state space that enable no transition.
+	 * 
+	 * @return Set of dead markings.
+	 */
+	public Set<M> getDeadMarkings() {
+		Set<M> result = new HashSet<M>();
+		if (this.automaton!=null) {
+			for (int s = 0; s < this.automaton.getNumberOfStates(); s++)
+				if (this.automaton.isDead(s)) result.add(this.automaton.getMarking(s));
+			
+			return result;
+		}
+		
+		for (Entry<M,Set<T>> entry : this.enabled.entrySet())
+			if (entry.getValue().isEmpty()) result.add(entry.getKey());
+		
+		return result;
+	}
 
 }
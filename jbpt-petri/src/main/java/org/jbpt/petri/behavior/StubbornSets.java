@@ -0,0 +1,206 @@
+package org.jbpt.petri.behavior;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.jbpt.petri.CompiledNetSystem;
+import org.jbpt.petri.IFlow;
+import org.jbpt.petri.IMarking;
+import org.jbpt.petri.INetSystem;
+import org.jbpt.petri.INode;
+import org.jbpt.petri.IPlace;
+import org.jbpt.petri.ITransition;
+
+/**
+ * Stubborn sets for partial-order reduction of state spaces of net systems.<br/><br/>
+ *
+ * A stubborn set at a marking is closed under the following rules: if it contains an enabled transition, it contains all transitions
+ * that consume from a place in the preset of the transition; if it contains a disabled transition, it contains all transitions that
+ * produce to an unmarked place (scapegoat) in the preset of the transition; and if it contains an enabled visible transition, it contains
+ * all visible transitions. A state space that fires at every marking only the enabled transitions of a non-empty stubborn set preserves
+ * all reachable deadlocks. If, in addition, every cycle of the reduced state space contains a marking where all enabled transitions fire,
+ * the reduced state space preserves all sequences of visible transitions.<br/><br/>
+ *
+ * Out of the stubborn sets generated by single enabled transitions, the set with the fewest enabled transitions is chosen.<br/><br/>
+ *
+ * Antti Valmari: Stubborn Sets for Reduced State Space Generation. Applications and Theory of Petri Nets 1989: 491-515
+ */
+public class StubbornSets<F extends IFlow<N>, N extends INode, P extends IPlace, T extends ITransition, M extends IMarking<F,N,P,T>> {
+
+	// int-indexed view of the net system
+	protected CompiledNetSystem<F,N,P,T,M> net = null;
+
+	// indexes of visible transitions
+	protected boolean[] visible = null;
+	protected int[] visibleTransitions = null;
+
+	// work arrays of the closure
+	private boolean[] stubborn = null;
+	private int[] stack = null;
+	private int[] enabled = null;
+
+	/**
+	 * Constructor of stubborn sets that preserve deadlocks.
+	 *
+	 * @param sys Net system.
+	 */
+	public StubbornSets(INetSystem<F,N,P,T,M> sys) {
+		this(sys, null);
+	}
+
+	/**
+	 * Constructor of stubborn sets that preserve deadlocks and sequences of visible transitions.
+	 *
+	 * @param sys Net system.
+	 * @param visible Visible transitions; <tt>null</tt> if no transition is visible.
+	 * @throws IllegalArgumentException if the given net system is set to <tt>null</tt>.
+	 */
+	public StubbornSets(INetSystem<F,N,P,T,M> sys, Collection<T> visible) {
+		this(new CompiledNetSystem<F,N,P,T,M>(sys), visible);
+	}
+
+	/**
+	 * Constructor of stubborn sets that preserve deadlocks and sequences of visible transitions.
+	 *
+	 * @param net Compiled net system that token vectors refer to.
+	 * @param visible Visible transitions; <tt>null</tt> if no transition is visible.
+	 * @throws IllegalArgumentException if the given compiled net system is set to <tt>null</tt>.
+	 */
+	public StubbornSets(CompiledNetSystem<F,N,P,T,M> net, Collection<T> visible) {
+		if (net==null) throw new IllegalArgumentException("CompiledNetSystem object expected but was NULL!");
+		this.net = net;
+
+		int n = this.net.getNumberOfTransitions();
+		this.visible = new boolean[n];
+		int count = 0;
+		if (visible!=null) {
+			for (T t : visible) {
+				int i = this.net.getTransitionIndex(t);
+				if (i>=0 && !this.visible[i]) {
+					this.visible[i] = true;
+					count++;
+				}
+			}
+		}
+		this.visibleTransitions = new int[count];
+		for (int i=0, k=0; i<n; i++)
+			if (this.visible[i]) this.visibleTransitions[k++] = i;
+
+		this.stubborn = new boolean[n];
+		this.stack = new int[n];
+		this.enabled = new int[n];
+	}
+
+	/**
+	 * Get enabled transitions of a stubborn set at a marking.
+	 *
+	 * @param marking Marking of the net system.
+	 * @return Enabled transitions of a stubborn set; empty if no transition is enabled at the given marking.
+	 */
+	public Set<T> getStubbornSet(M marking) {
+		int[] result = new int[this.net.getNumberOfTransitions()];
+		int count = this.getStubbornSet(this.net.toTokenVector(marking), result);
+
+		Set<T> ts = new HashSet<T>();
+		for (int i=0; i<count; i++) ts.add(this.net.getTransition(result[i]));
+
+		return ts;
+	}
+
+	/**
+	 * Get enabled transitions of a stubborn set at a marking.
+	 *
+	 * @param marking Token vector of a marking of the compiled net system, see {@link #getCompiledNetSystem()}.
+	 * @param result Array to store indexes of transitions in; must have at least as many elements as there are transitions.
+	 * @return Number of transitions stored in the given array.
+	 */
+	public int getStubbornSet(int[] marking, int[] result) {
+		int count = this.net.getEnabledTransitions(marking, this.enabled);
+		int best = -1;
+		int bestSize = Integer.MAX_VALUE;
+		for (int k=0; k<count && bestSize>1; k++) {
+			int size = this.close(marking, this.enabled[k], count);
+			if (size<bestSize) {
+				best = this.enabled[k];
+				bestSize = size;
+			}
+		}
+		if (best<0) return 0;
+
+		this.close(marking, best, count);
+		int size = 0;
+		for (int k=0; k<count; k++)
+			if (this.stubborn[this.enabled[k]]) result[size++] = this.enabled[k];
+
+		return size;
+	}
+
+	/**
+	 * Compute the stubborn set generated by an enabled transition.
+	 *
+	 * @return Number of enabled transitions in the stubborn set.
+	 */
+	private int close(int[] marking, int seed, int enabledCount) {
+		for (int i=0; i<this.stubborn.length; i++) this.stubborn[i] = false;
+
+		int top = 0;
+		this.stubborn[seed] = true;
+		this.stack[top++] = seed;
+		boolean visibleAdded = false;
+
+		while (top>0) {
+			int t = this.stack[--top];
+
+			if (this.net.isEnabled(marking, t)) {
+				for (int i=0; i<this.net.getPresetSize(t); i++) {
+					int p = this.net.getPresetPlace(t, i);
+					for (int j=0; j<this.net.getPlacePostsetSize(p); j++) {
+						int u = this.net.getPlacePostsetTransition(p, j);
+						if (this.stubborn[u]) continue;
+						this.stubborn[u] = true;
+						this.stack[top++] = u;
+					}
+				}
+
+				if (this.visible[t] && !visibleAdded) {
+					visibleAdded = true;
+					for (int u : this.visibleTransitions) {
+						if (this.stubborn[u]) continue;
+						this.stubborn[u] = true;
+						this.stack[top++] = u;
+					}
+				}
+			}
+			else {
+				// scapegoat: unmarked place of the preset with the fewest producers
+				int scapegoat = -1;
+				for (int i=0; i<this.net.getPresetSize(t); i++) {
+					int p = this.net.getPresetPlace(t, i);
+					if (marking[p]>0) continue;
+					if (scapegoat<0 || this.net.getPlacePresetSize(p)<this.net.getPlacePresetSize(scapegoat)) scapegoat = p;
+				}
+
+				for (int j=0; j<this.net.getPlacePresetSize(scapegoat); j++) {
+					int u = this.net.getPlacePresetTransition(scapegoat, j);
+					if (this.stubborn[u]) continue;
+					this.stubborn[u] = true;
+					this.stack[top++] = u;
+				}
+			}
+		}
+
+		int size = 0;
+		for (int k=0; k<enabledCount; k++)
+			if (this.stubborn[this.enabled[k]]) size++;
+
+		return size;
+	}
+
+	/**
+	 * Get the compiled net system that token vectors refer to.
+	 */
+	public CompiledNetSystem<F,N,P,T,M> getCompiledNetSystem() {
+		return this.net;
+	}
+}
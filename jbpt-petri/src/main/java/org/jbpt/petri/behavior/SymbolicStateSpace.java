@@ -0,0 +1,363 @@
+package org.jbpt.petri.behavior;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jbpt.petri.CompiledNetSystem;
+import org.jbpt.petri.IFlow;
+import org.jbpt.petri.IMarking;
+import org.jbpt.petri.INetSystem;
+import org.jbpt.petri.INode;
+import org.jbpt.petri.IPlace;
+import org.jbpt.petri.ITransition;
+import org.jbpt.petri.behavior.bdd.BDD;
+import org.jbpt.petri.monitoring.CancellationToken;
+import org.jbpt.petri.monitoring.IAnalysisListener;
+
+/**
+ * Symbolic state space of a safe net system.<br/><br/>
+ *
+ * Markings of a safe net system are sets of marked places; the set of reachable markings is represented by a binary decision diagram
+ * (BDD) with one variable per place, see {@link BDD}. Variables are ordered by a depth-first traversal of the net that starts at the
+ * initially marked places, so that places of a sequential branch of the net are next to each other in the order. The reachable set is the fixpoint of
+ * images of single transitions: the image of a set of markings under a transition restricts the set to markings that enable the
+ * transition, abstracts from the places of the preset and the postset of the transition, and marks the postset.<br/><br/>
+ *
+ * If a transition can put a second token on a place, the net system is not safe; construction stops and {@link #isSafe()} returns <tt>false</tt>.
+ * Queries about reachable markings require a complete state space, see {@link #isComplete()}.
+ */
+public class SymbolicStateSpace<F extends IFlow<N>, N extends INode, P extends IPlace, T extends ITransition, M extends IMarking<F,N,P,T>> {
+
+	// int-indexed view of the net system
+	protected CompiledNetSystem<F,N,P,T,M> net = null;
+
+	protected BDD bdd = null;
+
+	// variables of places and places of variables
+	protected int[] p2v = null;
+	protected int[] v2p = null;
+
+	// BDDs of transitions: enabling condition, places to abstract from, and effect on places
+	protected int[] enabling = null;
+	protected int[] support = null;
+	protected int[] effect = null;
+	// markings that enable transitions and mark places of their postsets that are not in their presets
+	protected int[] contact = null;
+
+	// BDDs of the initial marking and of reachable markings
+	protected int initial = BDD.FALSE;
+	protected int reachable = BDD.FALSE;
+
+	protected boolean isSafe = true;
+	protected boolean isComplete = false;
+
+	protected IAnalysisListener listener = null;
+	protected CancellationToken token = null;
+
+	/**
+	 * Constructor of a symbolic state space.
+	 *
+	 * @param sys Safe net system.
+	 * @throws IllegalArgumentException if the net system is set to <tt>null</tt> or its marking puts more than one token on a place.
+	 */
+	public SymbolicStateSpace(INetSystem<F,N,P,T,M> sys) {
+		this.net = new CompiledNetSystem<F,N,P,T,M>(sys);
+
+		int[] marking = this.net.getInitialMarking();
+		for (int p=0; p<marking.length; p++)
+			if (marking[p]>1) throw new IllegalArgumentException("Net system must be safe!");
+
+		this.orderVariables();
+		this.bdd = new BDD(this.net.getNumberOfPlaces());
+
+		int n = this.net.getNumberOfTransitions();
+		this.enabling = new int[n];
+		this.support = new int[n];
+		this.effect = new int[n];
+		this.contact = new int[n];
+		for (int t=0; t<n; t++) {
+			Set<Integer> pre = new HashSet<Integer>();
+			Set<Integer> post = new HashSet<Integer>();
+			for (int k=0; k<this.net.getPresetSize(t); k++) pre.add(this.net.getPresetPlace(t, k));
+			for (int k=0; k<this.net.getPostsetSize(t); k++) post.add(this.net.getPostsetPlace(t, k));
+
+			Set<Integer> places = new HashSet<Integer>(pre);
+			places.addAll(post);
+			this.enabling[t] = this.bdd.cube(this.toVariables(pre));
+			this.support[t] = this.bdd.cube(this.toVariables(places));
+
+			int e = BDD.TRUE;
+			int c = BDD.FALSE;
+			for (int p : places) {
+				int v = this.p2v[p];
+				if (post.contains(p)) e = this.bdd.and(e, this.bdd.ithVar(v));
+				else e = this.bdd.and(e, this.bdd.nithVar(v));
+				if (post.contains(p) && !pre.contains(p)) c = this.bdd.or(c, this.bdd.ithVar(v));
+			}
+			this.effect[t] = e;
+			this.contact[t] = this.bdd.and(this.enabling[t], c);
+		}
+
+		this.initial = BDD.TRUE;
+		for (int p=0; p<marking.length; p++)
+			this.initial = this.bdd.and(this.initial, marking[p]==1 ? this.bdd.ithVar(this.p2v[p]) : this.bdd.nithVar(this.p2v[p]));
+		this.reachable = this.initial;
+	}
+
+	/**
+	 * Order variables by a depth-first traversal of the net from initially marked places, then from remaining places.
+	 */
+	private void orderVariables() {
+		int n = this.net.getNumberOfPlaces();
+		this.p2v = new int[n];
+		this.v2p = new int[n];
+		boolean[] visited = new boolean[n];
+		boolean[] fired = new boolean[this.net.getNumberOfTransitions()];
+		int[] marking = this.net.getInitialMarking();
+
+		// a place can be pushed once per transition of its preset
+		int size = 0;
+		for (int t=0; t<fired.length; t++) size += this.net.getPostsetSize(t);
+		int[] stack = new int[size+1];
+
+		int count = 0;
+		for (int round=0; round<2; round++) {
+			for (int start=0; start<n; start++) {
+				if (visited[start] || (round==0 && marking[start]==0)) continue;
+
+				int top = 0;
+				stack[top++] = start;
+				while (top>0) {
+					int p = stack[--top];
+					if (visited[p]) continue;
+					visited[p] = true;
+					this.v2p[count++] = p;
+
+					for (int j=this.net.getPlacePostsetSize(p)-1; j>=0; j--) {
+						int t = this.net.getPlacePostsetTransition(p, j);
+						if (fired[t]) continue;
+						fired[t] = true;
+						for (int k=this.net.getPostsetSize(t)-1; k>=0; k--) {
+							int q = this.net.getPostsetPlace(t, k);
+							if (!visited[q]) stack[top++] = q;
+						}
+					}
+				}
+			}
+		}
+
+		for (int v=0; v<n; v++) this.p2v[this.v2p[v]] = v;
+	}
+
+	private int[] toVariables(Set<Integer> places) {
+		int[] result = new int[places.size()];
+		int i = 0;
+		for (int p : places) result[i++] = this.p2v[p];
+
+		return result;
+	}
+
+	/**
+	 * Set listener to report progress of construction to: the number of reachable markings after every iteration, and construction time.
+	 *
+	 * @param listener Listener; <tt>null</tt> means no reporting.
+	 */
+	public void setListener(IAnalysisListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Set token to cancel construction; once the token is cancelled or its deadline has passed, construction stops
+	 * and the state space remains incomplete.
+	 *
+	 * @param token Cancellation token; <tt>null</tt> means that construction cannot be cancelled.
+	 */
+	public void setCancellationToken(CancellationToken token) {
+		this.token = token;
+	}
+
+	/**
+	 * Compute the set of reachable markings.
+	 */
+	public void create() {
+		long start = System.nanoTime();
+
+		boolean changed = !this.isComplete;
+		while (changed && this.isSafe) {
+			changed = false;
+			for (int t=0; t<this.enabling.length; t++) {
+				if (this.token!=null && this.token.isCancelled()) return;
+
+				int image = this.bdd.andExists(this.reachable, this.enabling[t], this.support[t]);
+				if (image==BDD.FALSE) continue;
+				if (this.bdd.and(this.reachable, this.contact[t])!=BDD.FALSE) {
+					this.isSafe = false;
+					break;
+				}
+
+				int next = this.bdd.or(this.reachable, this.bdd.and(image, this.effect[t]));
+				if (next!=this.reachable) {
+					this.reachable = next;
+					changed = true;
+				}
+			}
+
+			if (this.listener!=null) this.listener.gaugeUpdated(this, IAnalysisListener.MARKINGS, this.bdd.satCount(this.reachable).min(BigInteger.valueOf(Long.MAX_VALUE)).longValue());
+		}
+
+		this.isComplete = this.isSafe;
+		if (this.listener!=null) this.listener.phaseFinished(this, IAnalysisListener.CONSTRUCTION, System.nanoTime()-start);
+	}
+
+	/**
+	 * Check if construction reached the fixpoint, i.e., the state space contains all reachable markings.
+	 */
+	public boolean isComplete() {
+		return this.isComplete;
+	}
+
+	/**
+	 * Check if the net system is safe.
+	 *
+	 * @return <tt>false</tt> if construction found a reachable marking at which a transition puts a second token on a place; otherwise <tt>true</tt>.
+	 */
+	public boolean isSafe() {
+		return this.isSafe;
+	}
+
+	private void checkComplete() {
+		if (!this.isComplete) throw new IllegalStateException("State space must be created first and the net system must be safe!");
+	}
+
+	/**
+	 * Get number of reachable markings.
+	 *
+	 * @throws IllegalStateException if the state space is not complete, see {@link #isComplete()}.
+	 */
+	public BigInteger getNumberOfMarkings() {
+		this.checkComplete();
+		return this.bdd.satCount(this.reachable);
+	}
+
+	/**
+	 * Check if a marking is reachable.
+	 *
+	 * @param marking Marking of the net system.
+	 * @return <tt>true</tt> if the given marking is in the state space; otherwise <tt>false</tt>.
+	 * @throws IllegalStateException if the state space is not complete, see {@link #isComplete()}.
+	 */
+	public boolean isReachable(M marking) {
+		this.checkComplete();
+		boolean[] assignment = new boolean[this.net.getNumberOfPlaces()];
+		for (Map.Entry<P,Integer> entry : marking.entrySet()) {
+			if (entry.getValue()==null || entry.getValue()==0) continue;
+			int p = this.net.getPlaceIndex(entry.getKey());
+			if (p<0 || entry.getValue()>1) return false;
+			assignment[this.p2v[p]] = true;
+		}
+
+		return this.bdd.evaluate(this.reachable, assignment);
+	}
+
+	/**
+	 * Get transitions that are enabled at no reachable marking.
+	 *
+	 * @throws IllegalStateException if the state space is not complete, see {@link #isComplete()}.
+	 */
+	public Set<T> getDeadTransitions() {
+		this.checkComplete();
+		Set<T> result = new HashSet<T>();
+		for (int t=0; t<this.enabling.length; t++)
+			if (this.bdd.and(this.reachable, this.enabling[t])==BDD.FALSE)
+				result.add(this.net.getTransition(t));
+
+		return result;
+	}
+
+	/**
+	 * Get BDD of reachable markings that enable no transition.
+	 */
+	protected int getDeadlockBDD() {
+		int result = this.reachable;
+		for (int t=0; t<this.enabling.length; t++)
+			result = this.bdd.and(result, this.bdd.not(this.enabling[t]));
+
+		return result;
+	}
+
+	/**
+	 * Get number of reachable markings that enable no transition.
+	 *
+	 * @throws IllegalStateException if the state space is not complete, see {@link #isComplete()}.
+	 */
+	public BigInteger getNumberOfDeadlocks() {
+		this.checkComplete();
+		return this.bdd.satCount(this.getDeadlockBDD());
+	}
+
+	/**
+	 * Get reachable markings that enable no transition.
+	 *
+	 * @return Set of markings; note that the set gets enumerated, see {@link #getNumberOfDeadlocks()}.
+	 * @throws IllegalStateException if the state space is not complete, see {@link #isComplete()}.
+	 */
+	public Set<M> getDeadlocks() {
+		this.checkComplete();
+		return this.getMarkings(this.getDeadlockBDD());
+	}
+
+	/**
+	 * Get reachable markings.
+	 *
+	 * @return Set of markings; note that the set gets enumerated, see {@link #getNumberOfMarkings()}.
+	 * @throws IllegalStateException if the state space is not complete, see {@link #isComplete()}.
+	 */
+	public Set<M> getMarkings() {
+		this.checkComplete();
+		return this.getMarkings(this.reachable);
+	}
+
+	private Set<M> getMarkings(int f) {
+		Set<M> result = new HashSet<M>();
+		for (int[] path : this.bdd.allSat(f)) {
+			List<Integer> free = new ArrayList<Integer>();
+			for (int v=0; v<path.length; v++)
+				if (path[v]<0) free.add(v);
+
+			int[] marking = new int[path.length];
+			for (long bits=0; bits < (1L << free.size()); bits++) {
+				for (int v=0; v<path.length; v++) marking[this.v2p[v]] = Math.max(0, path[v]);
+				for (int i=0; i<free.size(); i++)
+					marking[this.v2p[free.get(i)]] = (int) ((bits >>> i) & 1);
+				result.add(this.net.toMarking(marking));
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Get the BDD manager of this state space.
+	 */
+	public BDD getBDD() {
+		return this.bdd;
+	}
+
+	/**
+	 * Get BDD of markings discovered so far, i.e., of reachable markings if the state space is complete; variable i of the BDD stands for place {@link #getPlace(int)}.
+	 */
+	public int getReachableBDD() {
+		return this.reachable;
+	}
+
+	/**
+	 * Get place of a variable.
+	 */
+	public P getPlace(int variable) {
+		return this.net.getPlace(this.v2p[variable]);
+	}
+}
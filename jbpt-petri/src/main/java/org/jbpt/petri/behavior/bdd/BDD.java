@@ -0,0 +1,399 @@
+package org.jbpt.petri.behavior.bdd;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reduced ordered binary decision diagrams (BDDs).<br/><br/>
+ *
+ * An instance of this class manages BDDs over a fixed number of variables 0..n-1, where variable i precedes variable i+1 in the order.
+ * BDDs are referred to by ints: {@link #FALSE} and {@link #TRUE} are the terminals, all other ints are numbers of inner nodes.
+ * Nodes are unique, i.e., two BDDs represent the same function iff they are referred to by the same int. Results of operations are
+ * kept in a lossy cache. Nodes are never freed; a manager should be dropped once the BDDs it manages are no longer needed.<br/><br/>
+ *
+ * Randal E. Bryant: Graph-Based Algorithms for Boolean Function Manipulation. IEEE Transactions on Computers 35(8):677-691 (1986)
+ */
+public class BDD {
+
+	public static final int FALSE = 0;
+	public static final int TRUE  = 1;
+
+	// operations of the cache
+	private static final int AND		= 0;
+	private static final int OR			= 1;
+	private static final int NOT		= 2;
+	private static final int EXISTS		= 3;
+	private static final int AND_EXISTS	= 4;
+
+	protected int variables = 0;
+
+	// nodes: variable, low (variable set to false), and high (variable set to true) successors
+	protected int[] var = null;
+	protected int[] low = null;
+	protected int[] high = null;
+	protected int nodes = 0;
+
+	// unique table: buckets of chains of nodes
+	protected int[] buckets = null;
+	protected int[] next = null;
+
+	// cache of results of operations
+	protected int[] cacheOp = null;
+	protected int[] cacheA = null;
+	protected int[] cacheB = null;
+	protected int[] cacheC = null;
+	protected int[] cacheResult = null;
+
+	/**
+	 * Constructor of a manager of BDDs.
+	 *
+	 * @param variables Number of variables.
+	 * @throws IllegalArgumentException if the given number of variables is negative.
+	 */
+	public BDD(int variables) {
+		if (variables<0) throw new IllegalArgumentException("Number of variables must not be negative!");
+		this.variables = variables;
+
+		int size = 1 << 10;
+		this.var = new int[size];
+		this.low = new int[size];
+		this.high = new int[size];
+		this.next = new int[size];
+		this.buckets = new int[size];
+		Arrays.fill(this.buckets, -1);
+
+		// terminals are placed below all variables
+		this.var[FALSE] = variables;
+		this.var[TRUE] = variables;
+		this.nodes = 2;
+
+		this.resizeCache(1 << 12);
+	}
+
+	public int getNumberOfVariables() {
+		return this.variables;
+	}
+
+	/**
+	 * Get number of nodes of this manager, including the terminals.
+	 */
+	public int getNumberOfNodes() {
+		return this.nodes;
+	}
+
+	/**
+	 * Get variable of the root of a BDD; the number of variables for terminals.
+	 */
+	public int getVariable(int f) {
+		return this.var[f];
+	}
+
+	public int getLow(int f) {
+		return this.low[f];
+	}
+
+	public int getHigh(int f) {
+		return this.high[f];
+	}
+
+	/**
+	 * Get BDD of a variable.
+	 */
+	public int ithVar(int v) {
+		this.checkVariable(v);
+		return this.mk(v, FALSE, TRUE);
+	}
+
+	/**
+	 * Get BDD of the negation of a variable.
+	 */
+	public int nithVar(int v) {
+		this.checkVariable(v);
+		return this.mk(v, TRUE, FALSE);
+	}
+
+	/**
+	 * Get BDD of the conjunction of variables.
+	 *
+	 * @param vs Variables.
+	 * @return Cube of the given variables.
+	 */
+	public int cube(int[] vs) {
+		int[] sorted = vs.clone();
+		Arrays.sort(sorted);
+		int result = TRUE;
+		for (int i=sorted.length-1; i>=0; i--) {
+			this.checkVariable(sorted[i]);
+			if (i<sorted.length-1 && sorted[i]==sorted[i+1]) continue;
+			result = this.mk(sorted[i], FALSE, result);
+		}
+
+		return result;
+	}
+
+	private void checkVariable(int v) {
+		if (v<0 || v>=this.variables) throw new IllegalArgumentException("Variable " + v + " does not exist!");
+	}
+
+	/**
+	 * Get node with a given variable and successors.
+	 */
+	protected int mk(int v, int l, int h) {
+		if (l==h) return l;
+
+		int b = this.hash(v, l, h) & (this.buckets.length-1);
+		for (int n=this.buckets[b]; n>=0; n=this.next[n])
+			if (this.var[n]==v && this.low[n]==l && this.high[n]==h) return n;
+
+		if (this.nodes==this.var.length) {
+			this.grow();
+			b = this.hash(v, l, h) & (this.buckets.length-1);
+		}
+
+		int n = this.nodes++;
+		this.var[n] = v;
+		this.low[n] = l;
+		this.high[n] = h;
+		this.next[n] = this.buckets[b];
+		this.buckets[b] = n;
+
+		return n;
+	}
+
+	private int hash(int a, int b, int c) {
+		int h = a*0x9e3779b1 + b*0x85ebca6b + c*0xc2b2ae35;
+		return h ^ (h >>> 15);
+	}
+
+	private void grow() {
+		int size = this.var.length*2;
+		this.var = Arrays.copyOf(this.var, size);
+		this.low = Arrays.copyOf(this.low, size);
+		this.high = Arrays.copyOf(this.high, size);
+		this.next = Arrays.copyOf(this.next, size);
+
+		this.buckets = new int[size];
+		Arrays.fill(this.buckets, -1);
+		for (int n=2; n<this.nodes; n++) {
+			int b = this.hash(this.var[n], this.low[n], this.high[n]) & (size-1);
+			this.next[n] = this.buckets[b];
+			this.buckets[b] = n;
+		}
+
+		if (this.cacheOp.length<size) this.resizeCache(size);
+	}
+
+	private void resizeCache(int size) {
+		this.cacheOp = new int[size];
+		Arrays.fill(this.cacheOp, -1);
+		this.cacheA = new int[size];
+		this.cacheB = new int[size];
+		this.cacheC = new int[size];
+		this.cacheResult = new int[size];
+	}
+
+	private int cacheIndex(int op, int a, int b, int c) {
+		return (this.hash(a, b, c) + op) & (this.cacheOp.length-1);
+	}
+
+	private int lookup(int op, int a, int b, int c) {
+		int i = this.cacheIndex(op, a, b, c);
+		if (this.cacheOp[i]==op && this.cacheA[i]==a && this.cacheB[i]==b && this.cacheC[i]==c) return this.cacheResult[i];
+
+		return -1;
+	}
+
+	private int store(int op, int a, int b, int c, int result) {
+		int i = this.cacheIndex(op, a, b, c);
+		this.cacheOp[i] = op;
+		this.cacheA[i] = a;
+		this.cacheB[i] = b;
+		this.cacheC[i] = c;
+		this.cacheResult[i] = result;
+
+		return result;
+	}
+
+	/**
+	 * Get conjunction of two BDDs.
+	 */
+	public int and(int f, int g) {
+		if (f==FALSE || g==FALSE) return FALSE;
+		if (f==TRUE) return g;
+		if (g==TRUE || f==g) return f;
+		if (f>g) { int t = f; f = g; g = t; }
+
+		int result = this.lookup(AND, f, g, 0);
+		if (result>=0) return result;
+
+		int v = Math.min(this.var[f], this.var[g]);
+		int l = this.and(this.var[f]==v ? this.low[f] : f, this.var[g]==v ? this.low[g] : g);
+		int h = this.and(this.var[f]==v ? this.high[f] : f, this.var[g]==v ? this.high[g] : g);
+
+		return this.store(AND, f, g, 0, this.mk(v, l, h));
+	}
+
+	/**
+	 * Get disjunction of two BDDs.
+	 */
+	public int or(int f, int g) {
+		if (f==TRUE || g==TRUE) return TRUE;
+		if (f==FALSE) return g;
+		if (g==FALSE || f==g) return f;
+		if (f>g) { int t = f; f = g; g = t; }
+
+		int result = this.lookup(OR, f, g, 0);
+		if (result>=0) return result;
+
+		int v = Math.min(this.var[f], this.var[g]);
+		int l = this.or(this.var[f]==v ? this.low[f] : f, this.var[g]==v ? this.low[g] : g);
+		int h = this.or(this.var[f]==v ? this.high[f] : f, this.var[g]==v ? this.high[g] : g);
+
+		return this.store(OR, f, g, 0, this.mk(v, l, h));
+	}
+
+	/**
+	 * Get negation of a BDD.
+	 */
+	public int not(int f) {
+		if (f==FALSE) return TRUE;
+		if (f==TRUE) return FALSE;
+
+		int result = this.lookup(NOT, f, 0, 0);
+		if (result>=0) return result;
+
+		return this.store(NOT, f, 0, 0, this.mk(this.var[f], this.not(this.low[f]), this.not(this.high[f])));
+	}
+
+	/**
+	 * Existentially quantify variables of a BDD.
+	 *
+	 * @param f BDD.
+	 * @param cube Cube of variables to quantify, see {@link #cube(int[])}.
+	 */
+	public int exists(int f, int cube) {
+		if (f==FALSE || f==TRUE || cube==TRUE) return f;
+		while (cube!=TRUE && this.var[cube]<this.var[f]) cube = this.high[cube];
+		if (cube==TRUE) return f;
+
+		int result = this.lookup(EXISTS, f, cube, 0);
+		if (result>=0) return result;
+
+		int v = this.var[f];
+		if (this.var[cube]==v) {
+			int l = this.exists(this.low[f], this.high[cube]);
+			result = l==TRUE ? TRUE : this.or(l, this.exists(this.high[f], this.high[cube]));
+		}
+		else
+			result = this.mk(v, this.exists(this.low[f], cube), this.exists(this.high[f], cube));
+
+		return this.store(EXISTS, f, cube, 0, result);
+	}
+
+	/**
+	 * Existentially quantify variables of the conjunction of two BDDs, without constructing the conjunction (relational product).
+	 *
+	 * @param f BDD.
+	 * @param g BDD.
+	 * @param cube Cube of variables to quantify, see {@link #cube(int[])}.
+	 */
+	public int andExists(int f, int g, int cube) {
+		if (f==FALSE || g==FALSE) return FALSE;
+		if (f==TRUE && g==TRUE) return TRUE;
+		if (f==TRUE) return this.exists(g, cube);
+		if (g==TRUE || f==g) return this.exists(f, cube);
+		if (f>g) { int t = f; f = g; g = t; }
+
+		int v = Math.min(this.var[f], this.var[g]);
+		while (cube!=TRUE && this.var[cube]<v) cube = this.high[cube];
+		if (cube==TRUE) return this.and(f, g);
+
+		int result = this.lookup(AND_EXISTS, f, g, cube);
+		if (result>=0) return result;
+
+		int f0 = this.var[f]==v ? this.low[f] : f;
+		int f1 = this.var[f]==v ? this.high[f] : f;
+		int g0 = this.var[g]==v ? this.low[g] : g;
+		int g1 = this.var[g]==v ? this.high[g] : g;
+
+		if (this.var[cube]==v) {
+			int l = this.andExists(f0, g0, this.high[cube]);
+			result = l==TRUE ? TRUE : this.or(l, this.andExists(f1, g1, this.high[cube]));
+		}
+		else
+			result = this.mk(v, this.andExists(f0, g0, cube), this.andExists(f1, g1, cube));
+
+		return this.store(AND_EXISTS, f, g, cube, result);
+	}
+
+	/**
+	 * Evaluate a BDD under an assignment of variables.
+	 *
+	 * @param f BDD.
+	 * @param assignment Values of variables.
+	 * @return Value of the BDD.
+	 */
+	public boolean evaluate(int f, boolean[] assignment) {
+		while (f!=FALSE && f!=TRUE)
+			f = assignment[this.var[f]] ? this.high[f] : this.low[f];
+
+		return f==TRUE;
+	}
+
+	/**
+	 * Get number of assignments of all variables that satisfy a BDD.
+	 */
+	public BigInteger satCount(int f) {
+		return this.satCount(f, new HashMap<Integer,BigInteger>()).shiftLeft(this.var[f]);
+	}
+
+	private BigInteger satCount(int f, Map<Integer,BigInteger> counts) {
+		if (f==FALSE) return BigInteger.ZERO;
+		if (f==TRUE) return BigInteger.ONE;
+
+		BigInteger result = counts.get(f);
+		if (result!=null) return result;
+
+		int l = this.low[f];
+		int h = this.high[f];
+		result = this.satCount(l, counts).shiftLeft(this.var[l]-this.var[f]-1)
+				.add(this.satCount(h, counts).shiftLeft(this.var[h]-this.var[f]-1));
+		counts.put(f, result);
+
+		return result;
+	}
+
+	/**
+	 * Get satisfying paths of a BDD.
+	 *
+	 * @param f BDD.
+	 * @return List of partial assignments; an assignment holds 1, 0, or -1 for every variable, where -1 stands for an arbitrary value.
+	 */
+	public List<int[]> allSat(int f) {
+		List<int[]> result = new ArrayList<int[]>();
+		int[] path = new int[this.variables];
+		Arrays.fill(path, -1);
+		this.allSat(f, path, result);
+
+		return result;
+	}
+
+	private void allSat(int f, int[] path, List<int[]> result) {
+		if (f==FALSE) return;
+		if (f==TRUE) {
+			result.add(path.clone());
+			return;
+		}
+
+		int v = this.var[f];
+		path[v] = 0;
+		this.allSat(this.low[f], path, result);
+		path[v] = 1;
+		this.allSat(this.high[f], path, result);
+		path[v] = -1;
+	}
+}
@@ -0,0 +1,183 @@
+package org.jbpt.petri.monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * Listener that aggregates metrics reported by behavioural analyses and exposes them via JMX.<br/><br/>
+ *
+ * Every counter and gauge is exposed as a read-only attribute of the same name. For every phase, attributes '&lt;phase&gt;Count' and
+ * '&lt;phase&gt;Nanos' give the number of times the phase was finished and the total time spent in the phase.
+ * Metrics of all analyses that report to the same instance are aggregated; the instance can be shared by analyses running in different threads.
+ */
+public class AnalysisMetrics implements IAnalysisListener, DynamicMBean {
+
+	// counters, gauges, and phase statistics by attribute names
+	private ConcurrentMap<String,AtomicLong> counters = new ConcurrentHashMap<String,AtomicLong>();
+	private ConcurrentMap<String,AtomicLong> gauges = new ConcurrentHashMap<String,AtomicLong>();
+
+	// name under which this instance is registered with the platform MBean server
+	private ObjectName name = null;
+
+	@Override
+	public void phaseFinished(Object source, String phase, long nanos) {
+		this.get(this.counters, phase + "Count").incrementAndGet();
+		this.get(this.counters, phase + "Nanos").addAndGet(nanos);
+	}
+
+	@Override
+	public void counterIncremented(Object source, String counter, long delta) {
+		this.get(this.counters, counter).addAndGet(delta);
+	}
+
+	@Override
+	public void gaugeUpdated(Object source, String gauge, long value) {
+		this.get(this.gauges, gauge).set(value);
+	}
+
+	private AtomicLong get(ConcurrentMap<String,AtomicLong> map, String name) {
+		AtomicLong result = map.get(name);
+		if (result == null) {
+			AtomicLong fresh = new AtomicLong();
+			result = map.putIfAbsent(name, fresh);
+			if (result == null) result = fresh;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Get current value of a metric.
+	 *
+	 * @param name Name of a counter or a gauge, or a phase name followed by 'Count' or 'Nanos'.
+	 * @return Value of the metric; 0 if the metric was not reported yet.
+	 */
+	public long getValue(String name) {
+		AtomicLong result = this.counters.get(name);
+		if (result == null) result = this.gauges.get(name);
+
+		return result == null ? 0 : result.get();
+	}
+
+	/**
+	 * Get current values of all metrics.
+	 *
+	 * @return Map from names of metrics to their values ordered by names.
+	 */
+	public Map<String,Long> getValues() {
+		Map<String,Long> result = new TreeMap<String,Long>();
+		for (Map.Entry<String,AtomicLong> entry : this.counters.entrySet())
+			result.put(entry.getKey(), entry.getValue().get());
+		for (Map.Entry<String,AtomicLong> entry : this.gauges.entrySet())
+			result.put(entry.getKey(), entry.getValue().get());
+
+		return result;
+	}
+
+	/**
+	 * Reset all metrics.
+	 */
+	public void reset() {
+		this.counters.clear();
+		this.gauges.clear();
+	}
+
+	/**
+	 * Register this instance with the platform MBean server.
+	 *
+	 * @param name Object name to register this instance under, e.g., "org.jbpt:type=AnalysisMetrics,name=unfolding".
+	 * @throws JMException if the name is malformed or already registered.
+	 */
+	public void register(String name) throws JMException {
+		ObjectName objectName = new ObjectName(name);
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		this.name = objectName;
+	}
+
+	/**
+	 * Unregister this instance from the platform MBean server; does nothing if this instance is not registered.
+	 *
+	 * @throws JMException if unregistering fails.
+	 */
+	public void unregister() throws JMException {
+		if (this.name == null) return;
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		if (server.isRegistered(this.name)) server.unregisterMBean(this.name);
+		this.name = null;
+	}
+
+	@Override
+	public Object getAttribute(String attribute) throws AttributeNotFoundException {
+		AtomicLong result = this.counters.get(attribute);
+		if (result == null) result = this.gauges.get(attribute);
+		if (result == null) throw new AttributeNotFoundException(attribute);
+
+		return result.get();
+	}
+
+	@Override
+	public AttributeList getAttributes(String[] attributes) {
+		AttributeList result = new AttributeList();
+		for (String attribute : attributes) {
+			try {
+				result.add(new Attribute(attribute, this.getAttribute(attribute)));
+			} catch (AttributeNotFoundException e) {
+				// skip unknown attributes as specified by DynamicMBean
+			}
+		}
+
+		return result;
+	}
+
+	@Override
+	public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+		throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+	}
+
+	@Override
+	public AttributeList setAttributes(AttributeList attributes) {
+		return new AttributeList();
+	}
+
+	@Override
+	public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+		if ("reset".equals(actionName)) {
+			this.reset();
+			return null;
+		}
+
+		throw new ReflectionException(new NoSuchMethodException(actionName));
+	}
+
+	@Override
+	public MBeanInfo getMBeanInfo() {
+		List<MBeanAttributeInfo> attributes = new ArrayList<MBeanAttributeInfo>();
+		for (String name : this.getValues().keySet())
+			attributes.add(new MBeanAttributeInfo(name, "long", name, true, false, false));
+
+		MBeanOperationInfo reset = new MBeanOperationInfo("reset", "Reset all metrics", new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION);
+
+		return new MBeanInfo(this.getClass().getName(), "Metrics of behavioural analyses",
+				attributes.toArray(new MBeanAttributeInfo[attributes.size()]), null, new MBeanOperationInfo[] {reset}, null);
+	}
+}
@@ -0,0 +1,69 @@
+package org.jbpt.petri.monitoring;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token to request cooperative cancellation of a behavioural analysis.<br/><br/>
+ *
+ * An analysis checks the token in its main loop and stops at the next check after the token was cancelled or its deadline
+ * has passed; the analysis then returns a partial result that is flagged as cancelled. The token can be cancelled by any thread
+ * and shared by several analyses, e.g., to cap the overall latency of analysing a model.
+ */
+public class CancellationToken {
+
+	private volatile boolean cancelled = false;	// cancellation was requested
+	private final long deadline;					// deadline in terms of System.nanoTime()
+	private final boolean hasDeadline;				// is there a deadline
+
+	/**
+	 * Constructor of a cancellation token without deadline.
+	 */
+	public CancellationToken() {
+		this.deadline = 0;
+		this.hasDeadline = false;
+	}
+
+	/**
+	 * Constructor of a cancellation token with a deadline.
+	 *
+	 * @param timeout Time from now until the deadline.
+	 * @param unit Unit of the timeout.
+	 */
+	public CancellationToken(long timeout, TimeUnit unit) {
+		if (unit==null) throw new IllegalArgumentException("TimeUnit object expected but was NULL!");
+
+		this.deadline = System.nanoTime() + unit.toNanos(timeout);
+		this.hasDeadline = true;
+	}
+
+	/**
+	 * Request cancellation of analyses that use this token.
+	 */
+	public void cancel() {
+		this.cancelled = true;
+	}
+
+	/**
+	 * Check if analyses that use this token must stop.
+	 *
+	 * @return <tt>true</tt> if this token was cancelled or its deadline has passed; otherwise <tt>false</tt>.
+	 */
+	public boolean isCancelled() {
+		if (this.cancelled) return true;
+		if (this.hasDeadline && System.nanoTime() - this.deadline >= 0) this.cancelled = true;
+
+		return this.cancelled;
+	}
+
+	/**
+	 * Get time remaining until the deadline of this token.
+	 *
+	 * @param unit Unit of the result.
+	 * @return Remaining time (0 if the deadline has passed); {@link Long#MAX_VALUE} if this token has no deadline.
+	 */
+	public long getRemainingTime(TimeUnit unit) {
+		if (!this.hasDeadline) return Long.MAX_VALUE;
+
+		return unit.convert(Math.max(0, this.deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+	}
+}
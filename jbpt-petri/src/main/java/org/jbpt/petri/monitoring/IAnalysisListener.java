@@ -0,0 +1,103 @@
+package org.jbpt.petri.monitoring;
+
+/**
+ * Interface to a listener that observes the progress of a behavioural analysis, e.g., construction of a complete prefix unfolding,
+ * a representative untangling, or a state space.<br/><br/>
+ *
+ * An analysis reports the time spent in each of its phases and updates counters and gauges; names of phases, counters, and gauges
+ * are given by constants of this interface. Listeners are called by the thread that performs the analysis and must return quickly.
+ */
+public interface IAnalysisListener {
+
+	/**
+	 * Phase: construction of a complete prefix unfolding, a representative untangling, or a state space.
+	 */
+	public static final String CONSTRUCTION = "Construction";
+
+	/**
+	 * Phase: appending an event to a complete prefix unfolding.
+	 */
+	public static final String APPEND_EVENT = "AppendEvent";
+
+	/**
+	 * Phase: checking if an event of a complete prefix unfolding is a cutoff event.
+	 */
+	public static final String CUTOFF_CHECK = "CutoffCheck";
+
+	/**
+	 * Phase: computing possible extensions of a complete prefix unfolding after appending an event.
+	 */
+	public static final String POSSIBLE_EXTENSIONS_UPDATE = "PossibleExtensionsUpdate";
+
+	/**
+	 * Phase: constructing maximal significant runs of a representative untangling.
+	 */
+	public static final String RUNS_CONSTRUCTION = "RunsConstruction";
+
+	/**
+	 * Phase: constructing processes from runs of a representative untangling.
+	 */
+	public static final String PROCESSES_CONSTRUCTION = "ProcessesConstruction";
+
+	/**
+	 * Counter: events appended to a complete prefix unfolding.
+	 */
+	public static final String EVENTS = "Events";
+
+	/**
+	 * Counter: cutoff events found in a complete prefix unfolding.
+	 */
+	public static final String CUTOFF_EVENTS = "CutoffEvents";
+
+	/**
+	 * Counter: enumerations of co-sets that enable a transition, one per candidate transition.
+	 */
+	public static final String COSET_ENUMERATIONS = "CoSetEnumerations";
+
+	/**
+	 * Gauge: number of possible extensions that are not yet appended to a complete prefix unfolding.
+	 */
+	public static final String POSSIBLE_EXTENSIONS = "PossibleExtensions";
+
+	/**
+	 * Counter: significant runs visited when constructing a representative untangling.
+	 */
+	public static final String SIGNIFICANT_RUNS = "SignificantRuns";
+
+	/**
+	 * Gauge: number of markings discovered in a state space.
+	 */
+	public static final String MARKINGS = "Markings";
+
+	/**
+	 * Counter: state transitions discovered in a state space.
+	 */
+	public static final String STATE_TRANSITIONS = "StateTransitions";
+
+	/**
+	 * Called when an analysis finished a phase.
+	 *
+	 * @param source Analysis.
+	 * @param phase Name of the phase.
+	 * @param nanos Time spent in the phase (in nanoseconds).
+	 */
+	public void phaseFinished(Object source, String phase, long nanos);
+
+	/**
+	 * Called when an analysis increments a counter.
+	 *
+	 * @param source Analysis.
+	 * @param counter Name of the counter.
+	 * @param delta Increment of the counter.
+	 */
+	public void counterIncremented(Object source, String counter, long delta);
+
+	/**
+	 * Called when an analysis updates a gauge.
+	 *
+	 * @param source Analysis.
+	 * @param gauge Name of the gauge.
+	 * @param value New value of the gauge.
+	 */
+	public void gaugeUpdated(Object source, String gauge, long value);
+}
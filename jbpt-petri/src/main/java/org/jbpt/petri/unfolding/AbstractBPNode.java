@@ -11,6 +11,19 @@ import org.jbpt.petri.INode;
 public abstract class AbstractBPNode<N extends INode> extends Vertex implements IBPNode<N> {
 	protected int ID = 0;
 	
+	// index of this node in the branching process it was appended to
+	protected int index = -1;
+	
+	@Override
+	public int getIndex() {
+		return this.index;
+	}
+	
+	@Override
+	public void setIndex(int index) {
+		this.index = index;
+	}
+	
 	@Override
 	public String getLabel() {
 		return this.getName();
@@ -1,6 +1,7 @@
 package org.jbpt.petri.unfolding;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -37,8 +38,15 @@ public abstract class AbstractBranchingProcess<BPN extends IBPNode<N>, C extends
 	
 	// causality: maps node of unfolding to a set of preceding nodes
 	protected Map<BPN,Set<BPN>> ca = null;
-	// concurrency: maps node of unfolding to a set of concurrent nodes
-	protected Map<BPN,Set<BPN>> co = null;
+	// causality of nodes set by setNodes is not yet indexed
+	private boolean causalityPending = false;
+	// concurrency: maps index of condition to a set of indexes of concurrent conditions
+	protected List<BitSet> co = null;
+	
+	// indexes of conditions: maps index of condition to condition, maps place to indexes of conditions, indexes of conditions without input events
+	protected List<C> i2c = null;
+	protected Map<P,BitSet> p2cs = null;
+	private BitSet minCs = null;
 	
 	// indexes for conflict and concurrency relations 
 	private Map<BPN,Set<BPN>> EX    = null;
@@ -60,7 +68,11 @@ public abstract class AbstractBranchingProcess<BPN extends IBPNode<N>, C extends
 		this.conds	= new HashSet<C>();
 		this.iniBP	= this.createCut();
 		this.ca		= new HashMap<BPN,Set<BPN>>();
-		this.co		= new HashMap<BPN,Set<BPN>>();
+		this.causalityPending = false;
+		this.co		= new ArrayList<BitSet>();
+		this.i2c	= new ArrayList<C>();
+		this.p2cs	= new HashMap<P,BitSet>();
+		this.minCs	= new BitSet();
 		this.EX		= new HashMap<BPN,Set<BPN>>();
 		this.notEX	= new HashMap<BPN,Set<BPN>>();
 		this.CO		= new HashMap<BPN,Set<BPN>>();
@@ -84,11 +96,22 @@ public abstract class AbstractBranchingProcess<BPN extends IBPNode<N>, C extends
 
 	@Override
 	public Set<C> getConditions(P place) {
+		return this.getConditions(this.p2cs.get(place));
+	}
+	
+	/**
+	 * Get conditions of this branching process with the given indexes.
+	 * 
+	 * @param indexes Indexes of conditions.
+	 * @return Set of conditions with the given indexes.
+	 */
+	protected Set<C> getConditions(BitSet indexes) {
 		Set<C> result = new HashSet<C>();
-		for (C c : this.conds) {
-			if (c.getPlace().equals(place))
-				result.add(c);
-		}
+		if (indexes==null) return result;
+		
+		for (int i = indexes.nextSetBit(0); i >= 0; i = indexes.nextSetBit(i+1))
+			result.add(this.i2c.get(i));
+		
 		return result;
 	}
 
@@ -114,6 +137,7 @@ public abstract class AbstractBranchingProcess<BPN extends IBPNode<N>, C extends
 
 	@Override
 	public boolean areCausal(BPN n1, BPN n2) {
+		this.indexCausality();
 		if (this.ca.get(n2)==null) {
 			if (n2 instanceof AbstractEvent) {
 				@SuppressWarnings("unchecked")
@@ -143,8 +167,19 @@ public abstract class AbstractBranchingProcess<BPN extends IBPNode<N>, C extends
 		return this.areCausal(n2,n1);
 	}
 
+	@SuppressWarnings("unchecked")
 	@Override
 	public boolean areConcurrent(BPN n1, BPN n2) {
+		// concurrency of conditions is indexed
+		if (n1.isCondition() && this.isIndexed((C)n1)) {
+			if (n2.isCondition() && this.isIndexed((C)n2))
+				return this.co.get(n1.getIndex()).get(n2.getIndex());
+			if (n2.isEvent() && this.isIndexed((E)n2))
+				return this.isConcurrent((C)n1,(E)n2);
+		}
+		if (n2.isCondition() && n1.isEvent() && this.isIndexed((C)n2) && this.isIndexed((E)n1))
+			return this.isConcurrent((C)n2,(E)n1);
+		
 		Set<BPN> co = this.CO.get(n1);
 		if (co!=null)
 			if (co.contains(n2)) return true;
@@ -166,6 +201,7 @@ public abstract class AbstractBranchingProcess<BPN extends IBPNode<N>, C extends
 	@SuppressWarnings("unchecked")
 	@Override
 	public boolean areInConflict(BPN n1, BPN n2) {
+		this.indexCausality();
 		Set<BPN> ex = this.EX.get(n1);
 		if (ex!=null)
 			if (ex.contains(n2)) return true;
@@ -248,8 +284,109 @@ public abstract class AbstractBranchingProcess<BPN extends IBPNode<N>, C extends
 	
 	@Override
 	public boolean appendCondition(C condition) {
+		BitSet co = null;
+		E e = condition.getPreEvent();
+		if (e==null)
+			co = (BitSet) this.minCs.clone();
+		else {
+			co = this.getConcurrentConditionIndexes(e);
+			if (e.getPostConditions()!=null) {
+				for (C c : e.getPostConditions())
+					if (this.isIndexed(c))
+						co.set(c.getIndex());
+			}
+		}
+		
+		return this.appendCondition(condition,co);
+	}
+	
+	/**
+	 * Append condition to this branching process.
+	 * 
+	 * @param condition Condition to append.
+	 * @param co Indexes of conditions of this branching process that are concurrent with the given condition (the set is owned by this branching process after the call).
+	 * @return <tt>true</tt> if condition was appended.
+	 */
+	protected boolean appendCondition(C condition, BitSet co) {
+		this.indexCausality();
 		this.conds.add(condition);
 		this.updateCausalityCondition(condition);
+		this.updateConcurrencyCondition(condition,co);
+		
+		return true;
+	}
+	
+	private void updateConcurrencyCondition(C c, BitSet co) {
+		int index = this.i2c.size();
+		c.setIndex(index);
+		this.i2c.add(c);
+		this.co.add(co);
+		
+		for (int i = co.nextSetBit(0); i >= 0; i = co.nextSetBit(i+1))
+			this.co.get(i).set(index);
+		
+		BitSet cs = this.p2cs.get(c.getPlace());
+		if (cs==null) {
+			cs = new BitSet();
+			this.p2cs.put(c.getPlace(),cs);
+		}
+		cs.set(index);
+		
+		if (c.getPreEvent()==null)
+			this.minCs.set(index);
+	}
+	
+	/**
+	 * Get indexes of conditions of this branching process that are concurrent with a given event.
+	 * The event does not need to be part of this branching process, but its preconditions must be.  
+	 * 
+	 * @param e Event.
+	 * @return Indexes of conditions that are concurrent with the given event (a fresh set).
+	 */
+	@SuppressWarnings("unchecked")
+	protected BitSet getConcurrentConditionIndexes(E e) {
+		BitSet result = null;
+		for (C c : e.getPreConditions()) {
+			if (result==null)
+				result = (BitSet) this.co.get(c.getIndex()).clone();
+			else
+				result.and(this.co.get(c.getIndex()));
+		}
+		
+		if (result==null) { // event without preconditions
+			result = new BitSet();
+			for (C c : this.i2c)
+				if (!this.areCausal((BPN)e,(BPN)c))
+					result.set(c.getIndex());
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Check if a condition is concurrent with an event, i.e., the condition is concurrent with every precondition of the event.
+	 */
+	@SuppressWarnings("unchecked")
+	private boolean isConcurrent(C c, E e) {
+		if (e.getPreConditions().isEmpty())
+			return !this.areCausal((BPN)e,(BPN)c) && !this.areCausal((BPN)c,(BPN)e);
+		
+		for (C cc : e.getPreConditions())
+			if (!this.co.get(cc.getIndex()).get(c.getIndex()))
+				return false;
+		
+		return true;
+	}
+	
+	private boolean isIndexed(C c) {
+		int index = c.getIndex();
+		return index >= 0 && index < this.i2c.size() && this.i2c.get(index)==c;
+	}
+	
+	private boolean isIndexed(E e) {
+		if (e.getPreConditions()==null) return false;
+		for (C c : e.getPreConditions())
+			if (!this.isIndexed(c)) return false;
 		
 		return true;
 	}
@@ -269,8 +406,11 @@ public abstract class AbstractBranchingProcess<BPN extends IBPNode<N>, C extends
 	@SuppressWarnings("unchecked")
 	@Override
 	public boolean appendEvent(E event) {
+		this.indexCausality();
+		event.setIndex(this.log.size());
 		this.events.add(event);		
 		this.updateCausalityEvent(event);
+		BitSet co = this.getConcurrentConditionIndexes(event);
 		
 		// add conditions that correspond to post-places of transition that corresponds to new event
 		ICoSet<BPN,C,E,F,N,P,T,M> postConditions = null;
@@ -285,7 +425,8 @@ public abstract class AbstractBranchingProcess<BPN extends IBPNode<N>, C extends
 		for (P s : this.sys.getPostset(event.getTransition())) {
 			C c = this.createCondition(s,event);
 			postConditions.add(c);
-			this.appendCondition(c);
+			this.appendCondition(c,(BitSet) co.clone());
+			co.set(c.getIndex());
 		}
 		event.setPostConditions(postConditions);
 
@@ -293,6 +434,64 @@ public abstract class AbstractBranchingProcess<BPN extends IBPNode<N>, C extends
 		return true;
 	}
 	
+	/**
+	 * Replace nodes of this branching process by the given conditions and events, e.g., when loading a stored branching process.
+	 * Indexes and relations of nodes are set without appending events, i.e., concurrency of conditions is taken from the given sets;
+	 * causality of nodes gets indexed on first request.
+	 * 
+	 * @param conditions Conditions in the order of their indexes; pre-events of conditions must be set.
+	 * @param co Indexes of concurrent conditions for every condition (the sets are owned by this branching process after the call).
+	 * @param events Events in the order of appending; preconditions and postconditions of events must be set and refer to the given conditions.
+	 */
+	protected void setNodes(List<C> conditions, List<BitSet> co, List<E> events) {
+		this.initialize();
+		
+		for (int i=0; i<conditions.size(); i++) {
+			C c = conditions.get(i);
+			c.setIndex(i);
+			this.i2c.add(c);
+			this.co.add(co.get(i));
+			this.conds.add(c);
+			
+			BitSet cs = this.p2cs.get(c.getPlace());
+			if (cs==null) {
+				cs = new BitSet();
+				this.p2cs.put(c.getPlace(),cs);
+			}
+			cs.set(i);
+			
+			if (c.getPreEvent()==null) {
+				this.minCs.set(i);
+				this.iniBP.add(c);
+			}
+		}
+		
+		for (int i=0; i<events.size(); i++) {
+			E e = events.get(i);
+			e.setIndex(i);
+			this.log.add(e);
+			this.events.add(e);
+		}
+		
+		this.causalityPending = true;
+	}
+	
+	/**
+	 * Index causality of nodes set by {@link #setNodes(List, List, List)} if it is not yet indexed.
+	 */
+	protected void indexCausality() {
+		if (!this.causalityPending) return;
+		this.causalityPending = false;
+		
+		for (C c : this.iniBP)
+			this.updateCausalityCondition(c);
+		for (E e : this.log) {
+			this.updateCausalityEvent(e);
+			for (C c : e.getPostConditions())
+				this.updateCausalityCondition(c);
+		}
+	}
+	
 	@Override
 	public boolean appendTransition(T transition) {
 		ICoSet<BPN,C,E,F,N,P,T,M> preset = this.createCoSet();
@@ -391,6 +590,7 @@ public abstract class AbstractBranchingProcess<BPN extends IBPNode<N>, C extends
 
 	@Override
 	public Set<BPN> getCausalPredecessors(BPN node) {
+		this.indexCausality();
 		return this.ca.get(node);
 	}
 
@@ -414,15 +614,12 @@ public abstract class AbstractBranchingProcess<BPN extends IBPNode<N>, C extends
 		this.initialize();
 	}
 	
-	@SuppressWarnings("unchecked")
 	@Override
 	public boolean isSafe() {
-		for (C c1 : this.conds) {
-			for (C c2 : this.conds) {
-				if (c1.equals(c2)) continue;
-				if (c1.getPlace().equals(c2.getPlace()) && this.areConcurrent((BPN)c1,(BPN)c2))
+		for (BitSet cs : this.p2cs.values()) {
+			for (int i = cs.nextSetBit(0); i >= 0; i = cs.nextSetBit(i+1))
+				if (this.co.get(i).intersects(cs))
 					return false;
-			}	
 		}
 		return true;
 	}
@@ -1,12 +1,28 @@
 package org.jbpt.petri.unfolding;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import org.jbpt.petri.IFlow;
 import org.jbpt.petri.IMarking;
@@ -14,6 +30,9 @@ import org.jbpt.petri.INetSystem;
 import org.jbpt.petri.INode;
 import org.jbpt.petri.IPlace;
 import org.jbpt.petri.ITransition;
+import org.jbpt.petri.monitoring.CancellationToken;
+import org.jbpt.petri.monitoring.IAnalysisListener;
+import org.jbpt.petri.unfolding.order.CanonicalEsparzaAdequateOrder;
 import org.jbpt.petri.unfolding.order.EsparzaAdequateOrderForArbitrarySystems;
 import org.jbpt.petri.unfolding.order.EsparzaAdequateTotalOrderForSafeSystems;
 import org.jbpt.petri.unfolding.order.IAdequateOrder;
@@ -34,15 +53,31 @@ public class AbstractCompletePrefixUnfolding<BPN extends IBPNode<N>, C extends I
 				extends AbstractBranchingProcess<BPN,C,E,F,N,P,T,M>
 				implements ICompletePrefixUnfolding<BPN,C,E,F,N,P,T,M> 
 {
+	// first integer of a checkpoint
+	private static final int CHECKPOINT_MAGIC = 0x6A627032;
+	// encoding of node identifiers in checkpoints
+	private static final Charset CHECKPOINT_CHARSET = Charset.forName("UTF-8");
 
 	// setup to use when constructing this complete prefix unfolding
 	protected CompletePrefixUnfoldingSetup setup = null;
 	// map of cutoff events to corresponding events
 	protected Map<E,E> cutoff2corr = new HashMap<E,E>();
-	// set of possible extensions updates
-	private Set<E> UPE = null;
+	// map of markings to events (in the order of appending) whose local configurations reach the marking
+	protected Map<M,List<E>> marking2events = new HashMap<M,List<E>>();
+	// pool of worker threads used to compute possible extensions (null if computed sequentially)
+	protected ForkJoinPool pool = null;
+	// possible extensions that are not yet appended to this complete prefix unfolding
+	protected IPossibleExtensions<BPN,C,E,F,N,P,T,M> pe = null;
+	// possible extensions restored from a checkpoint that are not yet ordered (null if construction was resumed)
+	private List<E> restored = null;
+	// do not append more than maxEvents events (initially MAX_EVENTS of the setup)
+	protected int maxEvents = Integer.MAX_VALUE;
+	// construction was stopped by the cancellation token of the setup
+	protected boolean cancelled = false;
 	// total order used to construct this complete prefix unfolding
 	protected List<T> totalOrderTs = null;
+	// positions of transitions in the total order
+	protected Map<T,Integer> totalOrderPositions = new HashMap<T,Integer>();
 	// adequate order used to construct this complete prefix unfolding
 	protected IAdequateOrder<BPN,C,E,F,N,P,T,M> ADEQUATE_ORDER = null;
 
@@ -69,15 +104,82 @@ public class AbstractCompletePrefixUnfolding<BPN extends IBPNode<N>, C extends I
 	public AbstractCompletePrefixUnfolding(INetSystem<F,N,P,T,M> sys, CompletePrefixUnfoldingSetup setup) {
 		super(sys);
 		
+		if (!this.initialise(setup)) return;
+		
+		// construct unfolding
+		this.construct();
+	}
+	
+	/**
+	 * Constructor that restores a complete prefix unfolding from a checkpoint instead of constructing it.<br/><br/>
+	 * 
+	 * The restored unfolding contains the events, conditions, and cutoff events stored in the checkpoint and
+	 * keeps the stored possible extensions; use {@link #resume(int)} to continue its construction.<br/><br/>
+	 * 
+	 * Nodes, their concurrency relation, and corresponding events of cutoff events are taken from the checkpoint, i.e., events
+	 * are not appended again and no cutoff events are checked. Local configurations of events are computed on request. 
+	 * Markings reached by events are indexed and stored possible extensions are ordered once construction is resumed.
+	 *  
+	 * @param sys Net system the checkpoint was created for; nodes are identified by their identifiers.
+	 * @param setup Setup to use when resuming construction; must specify the adequate order used to create the checkpoint.
+	 * @param checkpoint Stream to read the checkpoint from, see {@link #checkpoint(OutputStream)}; the stream is read to its end but not closed.
+	 * @throws IOException if the checkpoint cannot be read or does not fit the net system or the setup.
+	 */
+	public AbstractCompletePrefixUnfolding(INetSystem<F,N,P,T,M> sys, CompletePrefixUnfoldingSetup setup, InputStream checkpoint) throws IOException {
+		super(sys);
+		
+		if (!this.initialise(setup)) return;
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] chunk = new byte[8192];
+		for (int n = checkpoint.read(chunk); n >= 0; n = checkpoint.read(chunk))
+			bytes.write(chunk, 0, n);
+		
+		this.restore(ByteBuffer.wrap(bytes.toByteArray()));
+	}
+	
+	/**
+	 * Constructor that restores a complete prefix unfolding from a checkpoint file, which gets mapped into memory.
+	 *  
+	 * @param sys Net system the checkpoint was created for; nodes are identified by their identifiers.
+	 * @param setup Setup to use when resuming construction; must specify the adequate order used to create the checkpoint.
+	 * @param checkpoint File to read the checkpoint from, see {@link #checkpoint(OutputStream)}.
+	 * @throws IOException if the checkpoint cannot be read or does not fit the net system or the setup.
+	 * @see #AbstractCompletePrefixUnfolding(INetSystem, CompletePrefixUnfoldingSetup, InputStream)
+	 */
+	public AbstractCompletePrefixUnfolding(INetSystem<F,N,P,T,M> sys, CompletePrefixUnfoldingSetup setup, File checkpoint) throws IOException {
+		super(sys);
+		
+		if (!this.initialise(setup)) return;
+		
+		RandomAccessFile file = new RandomAccessFile(checkpoint, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			this.restore(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+		finally {
+			file.close();
+		}
+	}
+	
+	/**
+	 * Initialise construction of this complete prefix unfolding.
+	 * 
+	 * @return <tt>true</tt> if there is an initial branching process to extend; otherwise <tt>false</tt>.
+	 */
+	protected boolean initialise(CompletePrefixUnfoldingSetup setup) {
 		// net system must be different from null
-		if (this.sys==null) return;
+		if (this.sys==null) return false;
 		// initial branching process must not be empty
 		this.constructInitialBranchingProcess();
-		if (this.iniBP.isEmpty()) return;
+		if (this.iniBP.isEmpty()) return false;
 		
 		// initialise
 		this.totalOrderTs = new ArrayList<T>(sys.getTransitions());
-		this.setup = setup;		
+		for (int i=0; i<this.totalOrderTs.size(); i++)
+			this.totalOrderPositions.put(this.totalOrderTs.get(i), i);
+		this.setup = setup;
+		this.maxEvents = setup.MAX_EVENTS;
 		
 		switch (this.setup.ADEQUATE_ORDER) {
 			case ESPARZA_FOR_ARBITRARY_SYSTEMS:
@@ -92,32 +194,370 @@ public class AbstractCompletePrefixUnfolding<BPN extends IBPNode<N>, C extends I
 			case UNFOLDING:
 				this.ADEQUATE_ORDER = new UnfoldingAdequateOrder<BPN, C, E, F, N, P, T, M>();
 				break;
+			case ESPARZA_CANONICAL:
+				this.ADEQUATE_ORDER = new CanonicalEsparzaAdequateOrder<BPN, C, E, F, N, P, T, M>();
+				break;
 			default:
 				this.ADEQUATE_ORDER = new EsparzaAdequateTotalOrderForSafeSystems<BPN, C, E, F, N, P, T, M>();
 				break;
 		}
 		
-		// construct unfolding
-		if (this.setup.SAFE_OPTIMIZATION)
-			this.constructSafe();
-		else
-			this.constructSafe();
+		return true;
+	}
+	
+	/**
+	 * Construct this complete prefix unfolding until no possible extensions remain or the number of events reaches the budget. 
+	 */
+	protected void construct() {
+		long start = System.nanoTime();
+		if (this.setup.PARALLELISM > 1)
+			this.pool = new ForkJoinPool(this.setup.PARALLELISM);
+		try {
+			if (this.setup.SAFE_OPTIMIZATION)
+				this.constructSafe();
+			else
+				this.constructSafe();
+		}
+		finally {
+			if (this.pool!=null) {
+				this.pool.shutdown();
+				this.pool = null;
+			}
+			if (this.setup.LISTENER!=null) this.reportPhase(IAnalysisListener.CONSTRUCTION, start);
+		}
+	}
+	
+	/**
+	 * Report time spent in a phase to the listener of this complete prefix unfolding.
+	 * 
+	 * @param phase Name of the phase.
+	 * @param start Time when the phase started (in nanoseconds).
+	 * @return Time when the phase finished (in nanoseconds).
+	 */
+	private long reportPhase(String phase, long start) {
+		long now = System.nanoTime();
+		this.setup.LISTENER.phaseFinished(this, phase, now-start);
+		return now;
 	}
 	
 	protected void constructSafe() {
-		IPossibleExtensions<BPN,C,E,F,N,P,T,M> pe = getInitialPossibleExtensions();	// get possible extensions of the initial branching process
+		if (this.pe==null)												// get possible extensions of the initial or restored branching process
+			this.pe = this.restored==null ? getInitialPossibleExtensions() : this.getRestoredPossibleExtensions();
+		IPossibleExtensions<BPN,C,E,F,N,P,T,M> pe = this.pe;
+		IAnalysisListener listener = this.setup.LISTENER;				// phases are only timed if there is a listener
+		CancellationToken token = this.setup.CANCELLATION;
+		long time = listener==null ? 0 : System.nanoTime();
+		this.cancelled = false;
 		while (!pe.isEmpty()) { 										// while extensions exist
-			if (this.events.size() >= this.setup.MAX_EVENTS) return;	// track number of events in unfolding
+			if (this.events.size() >= this.maxEvents) return;			// track number of events in unfolding (possible extensions are kept)
+			if (token!=null && token.isCancelled()) {					// stop if cancelled (possible extensions are kept)
+				this.cancelled = true;
+				return;
+			}
 			E e = pe.getMinimal();										// event to use for extending unfolding			
 			pe.remove(e);												// remove 'e' from the set of possible extensions
 			
 			if (!this.appendEvent(e)) return;							// add event 'e' to unfolding
+			if (listener!=null) {
+				time = this.reportPhase(IAnalysisListener.APPEND_EVENT, time);
+				listener.counterIncremented(this, IAnalysisListener.EVENTS, 1);
+			}
 			E corr = this.checkCutoffA(e);								// check if 'e' is a cutoff event
-			if (corr!=null) 											
+			if (listener!=null) time = this.reportPhase(IAnalysisListener.CUTOFF_CHECK, time);
+			if (corr!=null) {
 				this.addCutoff(e,corr);									// record cutoff
-			else
+				if (listener!=null) listener.counterIncremented(this, IAnalysisListener.CUTOFF_EVENTS, 1);
+			}
+			else {
 				pe.addAll(this.updatePossibleExtensions(e));			// update the set of possible extensions
+				if (listener!=null) time = this.reportPhase(IAnalysisListener.POSSIBLE_EXTENSIONS_UPDATE, time);
+			}
+			if (listener!=null) listener.gaugeUpdated(this, IAnalysisListener.POSSIBLE_EXTENSIONS, pe.size());
+		}
+	}
+	
+	/**
+	 * Check if construction of this complete prefix unfolding is finished, i.e., no possible extensions remain.
+	 * 
+	 * @return <tt>true</tt> if this is a complete prefix unfolding; <tt>false</tt> if construction was paused because the budget of events was reached
+	 * or because it was cancelled. 
+	 */
+	public boolean isComplete() {
+		if (this.pe==null) return this.restored==null || this.restored.isEmpty();
+		return this.pe.isEmpty();
+	}
+	
+	/**
+	 * Check if construction of this complete prefix unfolding was stopped by the cancellation token of the setup ({@link CompletePrefixUnfoldingSetup#CANCELLATION}).
+	 * A cancelled unfolding is a prefix of the complete prefix unfolding; its construction can be continued using {@link #resume(int)} 
+	 * once the setup holds a token that is not cancelled.
+	 * 
+	 * @return <tt>true</tt> if construction was cancelled; otherwise <tt>false</tt>.
+	 */
+	public boolean isCancelled() {
+		return this.cancelled;
+	}
+	
+	/**
+	 * Continue construction of this complete prefix unfolding with a new budget of events.
+	 * The result is the same as if the unfolding was constructed with the new budget from the start.
+	 * 
+	 * @param maxEvents Do not append more than maxEvents events (in total) to this complete prefix unfolding.
+	 */
+	public void resume(int maxEvents) {
+		if (this.setup==null) return;
+		
+		this.maxEvents = maxEvents;
+		this.construct();
+	}
+	
+	/**
+	 * Write this (possibly partial) complete prefix unfolding, including the remaining possible extensions, in a compact binary format.<br/><br/>
+	 * 
+	 * The format serves to checkpoint construction as well as to persist complete prefix unfoldings. It consists of:<br/>
+	 * - identifiers of nodes of the originative net system that occur in the unfolding,<br/>
+	 * - places of conditions in the order of appending, starting with conditions of the initial branching process,<br/>
+	 * - for every condition, the indexes of concurrent conditions as words of a bitset, see {@link BitSet#toLongArray()},<br/>
+	 * - events in the order of appending, each given by its transition, arrays of pre- and postconditions, and its corresponding event (-1 if it is not a cutoff event),<br/>
+	 * - possible extensions, each given by its transition and an array of preconditions.<br/>
+	 * Nodes, conditions, and events are referenced by their positions. Numbers are written as big-endian 4-byte integers, words as 8-byte integers;
+	 * identifiers are written as UTF-8 bytes preceded by their length.<br/><br/>
+	 * 
+	 * Use {@link #AbstractCompletePrefixUnfolding(INetSystem, CompletePrefixUnfoldingSetup, File)} or 
+	 * {@link #AbstractCompletePrefixUnfolding(INetSystem, CompletePrefixUnfoldingSetup, InputStream)} to restore the unfolding.
+	 * 
+	 * @param out Stream to write to, e.g., a {@link java.io.FileOutputStream}; the stream is flushed but not closed.
+	 * @throws IOException if writing to the stream fails.
+	 */
+	public void checkpoint(OutputStream out) throws IOException {
+		if (this.setup==null) throw new IOException("Complete prefix unfolding without events cannot be checkpointed.");
+		
+		// identifiers of nodes
+		Map<INode,Integer> nodes = new HashMap<INode,Integer>();
+		List<String> ids = new ArrayList<String>();
+		int[] places = new int[this.i2c.size()];
+		for (int i=0; i<places.length; i++)
+			places[i] = this.getNodeIndex(nodes, ids, this.i2c.get(i).getPlace());
+		List<E> pes = this.pe!=null ? new ArrayList<E>(this.pe) : (this.restored!=null ? new ArrayList<E>(this.restored) : new ArrayList<E>());
+		List<E> es = new ArrayList<E>(this.log);
+		es.addAll(pes);
+		int[] transitions = new int[es.size()];
+		for (int i=0; i<transitions.length; i++)
+			transitions[i] = this.getNodeIndex(nodes, ids, es.get(i).getTransition());
+		
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+		data.writeInt(CHECKPOINT_MAGIC);
+		data.writeInt(this.setup.ADEQUATE_ORDER.ordinal());
+		
+		data.writeInt(ids.size());
+		for (String id : ids) {
+			byte[] bytes = id.getBytes(CHECKPOINT_CHARSET);
+			data.writeInt(bytes.length);
+			data.write(bytes);
+		}
+		
+		data.writeInt(places.length);
+		data.writeInt(this.iniBP.size());
+		for (int p : places)
+			data.writeInt(p);
+		for (int i=0; i<places.length; i++) {
+			long[] words = this.co.get(i).toLongArray();
+			data.writeInt(words.length);
+			for (long word : words)
+				data.writeLong(word);
+		}
+		
+		data.writeInt(this.log.size());
+		for (int i=0; i<this.log.size(); i++) {
+			E e = this.log.get(i);
+			data.writeInt(transitions[i]);
+			this.writeConditions(data, e.getPreConditions());
+			this.writeConditions(data, e.getPostConditions());
+			E corr = this.cutoff2corr.get(e);
+			data.writeInt(corr==null ? -1 : corr.getIndex());
+		}
+		
+		data.writeInt(pes.size());
+		for (int i=0; i<pes.size(); i++) {
+			data.writeInt(transitions[this.log.size()+i]);
+			this.writeConditions(data, pes.get(i).getPreConditions());
+		}
+		
+		data.flush();
+	}
+	
+	private int getNodeIndex(Map<INode,Integer> nodes, List<String> ids, INode node) {
+		Integer result = nodes.get(node);
+		if (result==null) {
+			result = ids.size();
+			nodes.put(node, result);
+			ids.add(node.getId());
 		}
+		
+		return result;
+	}
+	
+	private void writeConditions(DataOutputStream data, ICoSet<BPN,C,E,F,N,P,T,M> cs) throws IOException {
+		int[] indexes = new int[cs.size()];
+		int i = 0;
+		for (C c : cs) indexes[i++] = c.getIndex();
+		Arrays.sort(indexes);
+		
+		data.writeInt(indexes.length);
+		for (int index : indexes)
+			data.writeInt(index);
+	}
+	
+	/**
+	 * Restore unfolding written by {@link #checkpoint(OutputStream)}; nodes are created from the stored data without appending events, 
+	 * searching for possible extensions, or checking cutoff events. Stored nodes must fit the net system; stored concurrency relations and 
+	 * corresponding events are taken as they are.
+	 */
+	@SuppressWarnings("unchecked")
+	private void restore(ByteBuffer buffer) throws IOException {
+		try {
+			if (buffer.getInt()!=CHECKPOINT_MAGIC) throw new IOException("Data does not contain a checkpoint of a complete prefix unfolding.");
+			if (buffer.getInt()!=this.setup.ADEQUATE_ORDER.ordinal()) throw new IOException("Checkpoint was created with a different adequate order.");
+			
+			// nodes
+			Map<String,INode> id2n = new HashMap<String,INode>();
+			for (P p : this.sys.getPlaces()) id2n.put(p.getId(), p);
+			for (T t : this.sys.getTransitions()) id2n.put(t.getId(), t);
+			INode[] nodes = new INode[this.readSize(buffer, 4)];
+			for (int i=0; i<nodes.length; i++) {
+				byte[] bytes = new byte[this.readSize(buffer, 1)];
+				buffer.get(bytes);
+				nodes[i] = id2n.get(new String(bytes, CHECKPOINT_CHARSET));
+				if (nodes[i]==null) throw new IOException("Checkpoint refers to a node that is not in the net system.");
+			}
+			
+			// places and concurrency relation of conditions
+			P[] places = (P[]) new IPlace[this.readSize(buffer, 4)];
+			if (buffer.getInt()!=this.iniBP.size() || places.length<this.iniBP.size()) throw new IOException("Checkpoint does not fit the initial marking.");
+			for (int i=0; i<places.length; i++) {
+				INode p = nodes[this.readIndex(buffer, nodes.length)];
+				if (!this.sys.getPlacesView().contains(p)) throw new IOException("Checkpoint is corrupt.");
+				places[i] = (P) p;
+			}
+			List<BitSet> co = new ArrayList<BitSet>(places.length);
+			for (int i=0; i<places.length; i++) {
+				long[] words = new long[this.readSize(buffer, 8)];
+				for (int j=0; j<words.length; j++)
+					words[j] = buffer.getLong();
+				BitSet cs = BitSet.valueOf(words);
+				if (cs.length()>places.length) throw new IOException("Checkpoint is corrupt.");
+				co.add(cs);
+			}
+			
+			// conditions of the initial branching process
+			List<C> conditions = new ArrayList<C>(places.length);
+			List<C> cs = new ArrayList<C>(this.iniBP);
+			for (int i=0; i<this.iniBP.size(); i++)
+				conditions.add(this.removeCondition(cs, places[i]));
+			
+			// events and their postconditions
+			List<E> log = new ArrayList<E>();
+			Map<E,E> cutoff2corr = new HashMap<E,E>();
+			int size = this.readSize(buffer, 4);
+			for (int i=0; i<size; i++) {
+				E e = this.readEvent(buffer, nodes, conditions);
+				
+				List<P> ps = new ArrayList<P>(this.sys.getPostset(e.getTransition()));
+				ICoSet<BPN,C,E,F,N,P,T,M> post = this.createCoSet();
+				int n = buffer.getInt();
+				if (n!=ps.size()) throw new IOException("Checkpoint does not fit the net system.");
+				for (int j=0; j<n; j++) {
+					int index = this.readIndex(buffer, places.length);
+					if (index!=conditions.size()) throw new IOException("Checkpoint is corrupt.");
+					if (!ps.remove(places[index])) throw new IOException("Checkpoint does not fit the net system.");
+					C c = this.createCondition(places[index], e);
+					post.add(c);
+					conditions.add(c);
+				}
+				e.setPostConditions(post);
+				log.add(e);
+				
+				int corr = buffer.getInt();
+				if (corr>=0) cutoff2corr.put(e, log.get(this.readIndex(corr, i)));
+			}
+			if (conditions.size()!=places.length) throw new IOException("Checkpoint is corrupt.");
+			
+			// possible extensions
+			List<E> pes = new ArrayList<E>();
+			size = this.readSize(buffer, 4);
+			for (int i=0; i<size; i++)
+				pes.add(this.readEvent(buffer, nodes, conditions));
+			
+			this.setNodes(conditions, co, log);
+			this.cutoff2corr.putAll(cutoff2corr);
+			this.restored = pes;
+		}
+		catch (BufferUnderflowException e) {
+			throw new IOException("Checkpoint is truncated.");
+		}
+	}
+	
+	/**
+	 * Index causality of nodes and markings reached by events, and order possible extensions restored from a checkpoint, see {@link #restore(ByteBuffer)}.
+	 */
+	private IPossibleExtensions<BPN,C,E,F,N,P,T,M> getRestoredPossibleExtensions() {
+		this.indexCausality();
+		for (E e : this.log)
+			this.indexMarking(e);
+		
+		IPossibleExtensions<BPN,C,E,F,N,P,T,M> result = new AbstractHeapPossibleExtensions<BPN,C,E,F,N,P,T,M>(this.ADEQUATE_ORDER,this.totalOrderTs);
+		for (E e : this.restored)
+			result.add(e);
+		this.restored = null;
+		
+		return result;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private E readEvent(ByteBuffer buffer, INode[] nodes, List<C> conditions) throws IOException {
+		INode t = nodes[this.readIndex(buffer, nodes.length)];
+		if (!this.sys.getTransitionsView().contains(t)) throw new IOException("Checkpoint is corrupt.");
+		
+		List<P> ps = new ArrayList<P>(this.sys.getPreset((T) t));
+		ICoSet<BPN,C,E,F,N,P,T,M> preset = this.createCoSet();
+		int size = buffer.getInt();
+		if (size!=ps.size()) throw new IOException("Checkpoint does not fit the net system.");
+		for (int i=0; i<size; i++) {
+			C c = conditions.get(this.readIndex(buffer, conditions.size()));
+			if (!ps.remove(c.getPlace()) || !preset.add(c)) throw new IOException("Checkpoint does not fit the net system.");
+		}
+		
+		return this.createEvent((T) t, preset);
+	}
+	
+	/**
+	 * Read number of elements that are stored next, each using at least the given number of bytes.
+	 */
+	private int readSize(ByteBuffer buffer, int bytes) throws IOException {
+		int size = buffer.getInt();
+		if (size<0) throw new IOException("Checkpoint is corrupt.");
+		if (size>buffer.remaining()/bytes) throw new IOException("Checkpoint is truncated.");
+		return size;
+	}
+	
+	private int readIndex(ByteBuffer buffer, int bound) throws IOException {
+		return this.readIndex(buffer.getInt(), bound);
+	}
+	
+	private int readIndex(int index, int bound) throws IOException {
+		if (index<0 || index>=bound) throw new IOException("Checkpoint is corrupt.");
+		return index;
+	}
+	
+	/**
+	 * Remove and return a condition from the given list that corresponds to the given place.
+	 */
+	private C removeCondition(List<C> cs, P place) throws IOException {
+		for (int i=0; i<cs.size(); i++)
+			if (cs.get(i).getPlace().equals(place))
+				return cs.remove(i);
+		
+		throw new IOException("Checkpoint does not fit the net system.");
 	}
 	
 	// map a condition to a set of cuts that contain the condition
@@ -179,7 +619,7 @@ public class AbstractCompletePrefixUnfolding<BPN extends IBPNode<N>, C extends I
 	}*/
 	
 	protected IPossibleExtensions<BPN,C,E,F,N,P,T,M> getInitialPossibleExtensions() {
-		IPossibleExtensions<BPN,C,E,F,N,P,T,M> result = new AbstractPossibleExtensions<BPN,C,E,F,N,P,T,M>(this.ADEQUATE_ORDER);
+		IPossibleExtensions<BPN,C,E,F,N,P,T,M> result = new AbstractHeapPossibleExtensions<BPN,C,E,F,N,P,T,M>(this.ADEQUATE_ORDER,this.totalOrderTs);
 		
 		for (T t : this.sys.getTransitions()) {
 			ICoSet<BPN,C,E,F,N,P,T,M> coset = this.containsPlaces(this.getInitialCut(),this.sys.getPreset(t));
@@ -193,7 +633,7 @@ public class AbstractCompletePrefixUnfolding<BPN extends IBPNode<N>, C extends I
 	}
 
 	private Set<E> updatePossibleExtensions(E e) {
-		this.UPE = new HashSet<E>();
+		Set<E> UPE = new HashSet<E>();
 		
 		T u = e.getTransition();
 		Set<T> upp = new HashSet<T>(this.sys.getPostsetTransitions(this.sys.getPostset(u)));
@@ -201,40 +641,101 @@ public class AbstractCompletePrefixUnfolding<BPN extends IBPNode<N>, C extends I
 		pu.removeAll(this.sys.getPostset(u));
 		upp.removeAll(this.sys.getPostsetTransitions(pu));
 		
-		for (T t : upp) {
+		BitSet co = this.getConcurrentConditionIndexes(e);
+		List<T> ts = new ArrayList<T>(upp);
+		List<ICoSet<BPN,C,E,F,N,P,T,M>> presets = new ArrayList<ICoSet<BPN,C,E,F,N,P,T,M>>();
+		for (T t : ts) {
 			ICoSet<BPN,C,E,F,N,P,T,M> preset = this.createCoSet();
 			for (C b : e.getPostConditions()) {
 				if (this.sys.getPreset(t).contains(b.getPlace()))
 				preset.add(b);
-			}			
-			Set<C> C = this.getConcurrentConditions(e);
-			this.cover(C,t,preset);
+			}
+			presets.add(preset);
+		}
+		if (this.setup.LISTENER!=null) this.setup.LISTENER.counterIncremented(this, IAnalysisListener.COSET_ENUMERATIONS, ts.size());
+		
+		if (this.pool==null || ts.size()<2) {
+			for (int i=0; i<ts.size(); i++) {
+				List<ICoSet<BPN,C,E,F,N,P,T,M>> cosets = new ArrayList<ICoSet<BPN,C,E,F,N,P,T,M>>();
+				this.cover(co,ts.get(i),presets.get(i),cosets);
+				for (ICoSet<BPN,C,E,F,N,P,T,M> coset : cosets)
+					UPE.add(this.createEvent(ts.get(i),coset));
+			}
+		}
+		else {
+			// enumerate co-sets concurrently, but create events in the order of the sequential computation
+			List<CoSetEnumeration> tasks = new ArrayList<CoSetEnumeration>();
+			for (int i=0; i<ts.size(); i++) {
+				CoSetEnumeration task = new CoSetEnumeration(co,ts.get(i),presets.get(i));
+				tasks.add(task);
+				if (i>0) this.pool.execute(task);
+			}
+			tasks.get(0).invoke();
+			
+			for (int i=0; i<ts.size(); i++) {
+				for (ICoSet<BPN,C,E,F,N,P,T,M> coset : tasks.get(i).join())
+					UPE.add(this.createEvent(ts.get(i),coset));
+			}
 		}
 		
-		return this.UPE;
+		return UPE;
+	}
+	
+	/**
+	 * Enumeration of co-sets that correspond to the preset of a transition.
+	 * Only reads this branching process, which does not change while possible extensions get computed.
+	 */
+	protected class CoSetEnumeration extends RecursiveTask<List<ICoSet<BPN,C,E,F,N,P,T,M>>> {
+		private static final long serialVersionUID = 1L;
+		
+		private final BitSet CC;
+		private final T t;
+		private final ICoSet<BPN,C,E,F,N,P,T,M> preset;
+		
+		protected CoSetEnumeration(BitSet CC, T t, ICoSet<BPN,C,E,F,N,P,T,M> preset) {
+			this.CC = CC;
+			this.t = t;
+			this.preset = preset;
+		}
+
+		@Override
+		protected List<ICoSet<BPN,C,E,F,N,P,T,M>> compute() {
+			List<ICoSet<BPN,C,E,F,N,P,T,M>> result = new ArrayList<ICoSet<BPN,C,E,F,N,P,T,M>>();
+			cover(this.CC,this.t,this.preset,result);
+			return result;
+		}
 	}
 
-	@SuppressWarnings("unchecked")
-	private void cover(Set<C> CC, T t, ICoSet<BPN,C,E,F,N,P,T,M> preset) {
+	/**
+	 * Extend a given preset of transition 't' with conditions from 'CC' to co-sets that correspond to the preset of 't'.
+	 * 
+	 * @param CC Indexes of conditions that are concurrent with all conditions in the given preset.
+	 * @param t Transition.
+	 * @param preset Co-set of conditions.
+	 * @param result List to add co-sets that correspond to the preset of 't' to (in the order of enumeration).
+	 */
+	private void cover(BitSet CC, T t, ICoSet<BPN,C,E,F,N,P,T,M> preset, List<ICoSet<BPN,C,E,F,N,P,T,M>> result) {
 		if (this.sys.getPreset(t).size()==preset.size()) {
-			this.UPE.add(this.createEvent(t, preset));
+			result.add(preset);
 		}
 		else {
 			Set<P> pre = new HashSet<P>(this.sys.getPreset(t));
 			pre.removeAll(this.getPlaces(preset));
 			P p = pre.iterator().next();
 			
-			for (C d : CC) {
-				if (d.getPlace().equals(p)) {
-					Set<C> C2 = new HashSet<C>();
-					for (C dd : CC)
-						if (this.areConcurrent((BPN)d,(BPN)dd))
-							C2.add(dd);
-					ICoSet<BPN,C,E,F,N,P,T,M> preset2 = this.createCoSet();
-					preset2.addAll(preset);
-					preset2.add(d);
-					this.cover(C2,t,preset2);
-				}
+			BitSet ds = this.p2cs.get(p);
+			if (ds==null) return;
+			ds = (BitSet) ds.clone();
+			ds.and(CC);
+			
+			for (int i = ds.nextSetBit(0); i >= 0; i = ds.nextSetBit(i+1)) {
+				C d = this.i2c.get(i);
+				BitSet C2 = (BitSet) CC.clone();
+				C2.and(this.co.get(i));
+				ICoSet<BPN,C,E,F,N,P,T,M> preset2 = this.createCoSet();
+				preset2.addAll(preset);
+				preset2.add(d);
+				this.cover(C2,t,preset2,result);
 			}
 		}
 	}
@@ -248,18 +749,6 @@ public class AbstractCompletePrefixUnfolding<BPN extends IBPNode<N>, C extends I
 		return result;
 	}
 
-	@SuppressWarnings("unchecked")
-	private Set<C> getConcurrentConditions(E e) {
-		Set<C> result = new HashSet<C>();
-
-		for (C c : this.getConditions()) {
-			if (this.areConcurrent((BPN)e,(BPN)c))
-				result.add(c);
-		}
-		
-		return result;
-	}
-	
 	protected ICoSet<BPN,C,E,F,N,P,T,M> containsPlaces(ICoSet<BPN,C,E,F,N,P,T,M> coset, Collection<P> places) {
 		ICoSet<BPN,C,E,F,N,P,T,M> result = this.createCoSet();
 		
@@ -278,13 +767,48 @@ public class AbstractCompletePrefixUnfolding<BPN extends IBPNode<N>, C extends I
 		return result;
 	}
 	
+	@Override
+	public boolean appendEvent(E event) {
+		if (!super.appendEvent(event)) return false;
+		
+		this.indexMarking(event);
+		return true;
+	}
+	
+	/**
+	 * Index event by the final marking of its local configuration.
+	 * 
+	 * @param event Event of this unfolding.
+	 */
+	protected void indexMarking(E event) {
+		M marking = event.getLocalConfiguration().getMarking();
+		
+		List<E> es = this.marking2events.get(marking);
+		if (es==null) {
+			es = new ArrayList<E>();
+			this.marking2events.put(marking,es);
+		}
+		
+		es.add(event);
+	}
+	
+	/**
+	 * Check if a given event is a cutoff event. 
+	 * Only events whose local configurations reach the same marking as the local configuration of the given event are considered as corresponding events.
+	 * 
+	 * @param cutoff Event of this unfolding.
+	 * @return Corresponding event if the given event is a cutoff event; otherwise <tt>null</tt>.
+	 */
 	protected E checkCutoffA(E cutoff) {
 		ILocalConfiguration<BPN,C,E,F,N,P,T,M> lce = cutoff.getLocalConfiguration();
 		
-		for (E f : this.getEvents()) {
+		List<E> candidates = this.marking2events.get(lce.getMarking());
+		if (candidates==null) return null;
+		
+		for (E f : candidates) {
 			if (f.equals(cutoff)) continue;
 			ILocalConfiguration<BPN,C,E,F,N,P,T,M> lcf = f.getLocalConfiguration();
-			if (lce.getMarking().equals(lcf.getMarking()) && this.ADEQUATE_ORDER.isSmaller(lcf, lce))
+			if (this.ADEQUATE_ORDER.isSmaller(lcf, lce))
 				return this.checkCutoffB(cutoff,f); // check cutoff extended conditions
 		}
 		
@@ -319,6 +843,12 @@ public class AbstractCompletePrefixUnfolding<BPN extends IBPNode<N>, C extends I
 		return this.totalOrderTs;
 	}
 	
+	@Override
+	public int getPositionInTotalOrder(T transition) {
+		Integer result = this.totalOrderPositions.get(transition);
+		return result==null ? -1 : result;
+	}
+	
 	@Override
 	public IOccurrenceNet<BPN,C,E,F,N,P,T,M> getOccurrenceNet() {		
 		try {
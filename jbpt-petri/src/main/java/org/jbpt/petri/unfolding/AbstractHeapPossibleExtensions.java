@@ -0,0 +1,283 @@
+package org.jbpt.petri.unfolding;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.jbpt.petri.IFlow;
+import org.jbpt.petri.IMarking;
+import org.jbpt.petri.INode;
+import org.jbpt.petri.IPlace;
+import org.jbpt.petri.ITransition;
+import org.jbpt.petri.unfolding.order.IAdequateOrder;
+import org.jbpt.petri.unfolding.order.IKeyedAdequateOrder;
+
+/**
+ * Set of possible extensions that avoids comparing local configurations whenever possible.<br/><br/>
+ *
+ * If the adequate order is an {@link IKeyedAdequateOrder}, the key of every possible extension is computed once on insertion
+ * and the possible extensions are kept in a binary heap ordered by keys; local configurations are only compared if keys are equal
+ * and the order is total. Possible extensions with equal keys are otherwise retrieved in the order of insertion.<br/><br/>
+ *
+ * For other adequate orders, the set maintains the possible extensions that are minimal w.r.t. the order, while every other
+ * possible extension is recorded with a smaller possible extension that dominates it. A possible extension is compared with
+ * the minimal ones on insertion and is reconsidered only once the possible extension that dominates it gets removed.
+ */
+public class AbstractHeapPossibleExtensions<BPN extends IBPNode<N>, C extends ICondition<BPN,C,E,F,N,P,T,M>, E extends IEvent<BPN,C,E,F,N,P,T,M>, F extends IFlow<N>, N extends INode, P extends IPlace, T extends ITransition, M extends IMarking<F,N,P,T>>
+	extends AbstractSet<E>
+	implements IPossibleExtensions<BPN,C,E,F,N,P,T,M>
+{
+	/**
+	 * Possible extension with cached data.
+	 */
+	protected class Entry {
+		protected E event = null;
+		// key of the local configuration of the event (keyed orders only)
+		protected int[] key = null;
+		// insertion number
+		protected long seq = 0;
+		// position in the heap (keyed orders only)
+		protected int pos = -1;
+		// smaller possible extension and dominated possible extensions (other orders only)
+		protected Entry dominator = null;
+		protected List<Entry> dominated = null;
+	}
+
+	protected IAdequateOrder<BPN,C,E,F,N,P,T,M> order = null;
+	protected IKeyedAdequateOrder<BPN,C,E,F,N,P,T,M> keyedOrder = null;
+
+	// positions of transitions in the total order of transitions
+	protected Map<T,Integer> totalOrder = null;
+
+	// possible extensions
+	protected Map<E,Entry> entries = new HashMap<E,Entry>();
+	// number of insertions
+	protected long seq = 0;
+
+	// binary heap of possible extensions (keyed orders only)
+	protected List<Entry> heap = new ArrayList<Entry>();
+	// possible extensions that are minimal w.r.t. the adequate order (other orders only)
+	protected Set<Entry> minimal = new LinkedHashSet<Entry>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param order Adequate order to use for retrieving minimal possible extensions.
+	 * @param totalOrderTs Total order of transitions used to construct the unfolding.
+	 */
+	public AbstractHeapPossibleExtensions(IAdequateOrder<BPN,C,E,F,N,P,T,M> order, List<T> totalOrderTs) {
+		this.order = order;
+		if (order instanceof IKeyedAdequateOrder)
+			this.keyedOrder = (IKeyedAdequateOrder<BPN,C,E,F,N,P,T,M>) order;
+
+		this.totalOrder = new HashMap<T,Integer>();
+		for (int i = 0; i < totalOrderTs.size(); i++)
+			this.totalOrder.put(totalOrderTs.get(i), i);
+	}
+
+	@Override
+	public E getMinimal() {
+		if (this.entries.isEmpty()) throw new NoSuchElementException();
+
+		if (this.keyedOrder != null)
+			return this.heap.get(0).event;
+
+		return this.minimal.iterator().next().event;
+	}
+
+	@Override
+	public boolean add(E e) {
+		if (this.entries.containsKey(e)) return false;
+
+		Entry entry = new Entry();
+		entry.event = e;
+		entry.seq = this.seq++;
+		this.entries.put(e, entry);
+
+		if (this.keyedOrder != null) {
+			entry.key = this.keyedOrder.getKey(e.getLocalConfiguration(), this.totalOrder);
+			entry.pos = this.heap.size();
+			this.heap.add(entry);
+			this.siftUp(entry.pos);
+		}
+		else
+			this.insert(entry);
+
+		return true;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		Entry entry = this.entries.remove(o);
+		if (entry == null) return false;
+
+		if (this.keyedOrder != null) {
+			int pos = entry.pos;
+			Entry last = this.heap.remove(this.heap.size()-1);
+			if (last != entry) {
+				this.set(pos, last);
+				this.siftDown(pos);
+				this.siftUp(last.pos);
+			}
+		}
+		else {
+			if (entry.dominator == null)
+				this.minimal.remove(entry);
+			else
+				entry.dominator.dominated.remove(entry);
+
+			if (entry.dominated != null)
+				for (Entry d : entry.dominated)
+					this.insert(d);
+		}
+
+		return true;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return this.entries.containsKey(o);
+	}
+
+	@Override
+	public int size() {
+		return this.entries.size();
+	}
+
+	@Override
+	public void clear() {
+		this.entries.clear();
+		this.heap.clear();
+		this.minimal.clear();
+	}
+
+	/**
+	 * Iterate over possible extensions in the order of insertion.
+	 * For keyed adequate orders, inserting the possible extensions in this order into an empty set yields a set that retrieves them in the same order.
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		List<Entry> es = new ArrayList<Entry>(this.entries.values());
+		Collections.sort(es, new Comparator<Entry>() {
+			@Override
+			public int compare(Entry e1, Entry e2) {
+				return e1.seq < e2.seq ? -1 : (e1.seq > e2.seq ? 1 : 0);
+			}
+		});
+		List<E> events = new ArrayList<E>(es.size());
+		for (Entry entry : es) events.add(entry.event);
+		final Iterator<E> i = events.iterator();
+
+		return new Iterator<E>() {
+			private E last = null;
+
+			@Override
+			public boolean hasNext() {
+				return i.hasNext();
+			}
+
+			@Override
+			public E next() {
+				this.last = i.next();
+				return this.last;
+			}
+
+			@Override
+			public void remove() {
+				if (this.last == null) throw new IllegalStateException();
+				AbstractHeapPossibleExtensions.this.remove(this.last);
+				this.last = null;
+			}
+		};
+	}
+
+	/**
+	 * Compare two possible extensions (keyed orders only).
+	 */
+	protected int compare(Entry e1, Entry e2) {
+		int n = Math.min(e1.key.length, e2.key.length);
+		for (int i = 0; i < n; i++) {
+			if (e1.key[i] < e2.key[i]) return -1;
+			if (e1.key[i] > e2.key[i]) return 1;
+		}
+		if (e1.key.length != e2.key.length)
+			return e1.key.length < e2.key.length ? -1 : 1;
+
+		if (this.order.isTotal()) {
+			if (this.order.isSmaller(e1.event.getLocalConfiguration(), e2.event.getLocalConfiguration())) return -1;
+			if (this.order.isSmaller(e2.event.getLocalConfiguration(), e1.event.getLocalConfiguration())) return 1;
+		}
+
+		return e1.seq < e2.seq ? -1 : (e1.seq > e2.seq ? 1 : 0);
+	}
+
+	private void set(int pos, Entry entry) {
+		this.heap.set(pos, entry);
+		entry.pos = pos;
+	}
+
+	private void siftUp(int pos) {
+		Entry entry = this.heap.get(pos);
+		while (pos > 0) {
+			int parent = (pos-1) >>> 1;
+			Entry p = this.heap.get(parent);
+			if (this.compare(entry, p) >= 0) break;
+			this.set(pos, p);
+			pos = parent;
+		}
+		this.set(pos, entry);
+	}
+
+	private void siftDown(int pos) {
+		Entry entry = this.heap.get(pos);
+		int size = this.heap.size();
+		while (true) {
+			int child = 2*pos+1;
+			if (child >= size) break;
+			if (child+1 < size && this.compare(this.heap.get(child+1), this.heap.get(child)) < 0) child++;
+			Entry c = this.heap.get(child);
+			if (this.compare(c, entry) >= 0) break;
+			this.set(pos, c);
+			pos = child;
+		}
+		this.set(pos, entry);
+	}
+
+	/**
+	 * Insert a possible extension into the set of minimal possible extensions or record it as dominated (other orders only).
+	 */
+	private void insert(Entry entry) {
+		entry.dominator = null;
+		ILocalConfiguration<BPN,C,E,F,N,P,T,M> lc = entry.event.getLocalConfiguration();
+
+		for (Entry m : this.minimal) {
+			if (this.order.isSmaller(m.event.getLocalConfiguration(), lc)) {
+				entry.dominator = m;
+				if (m.dominated == null) m.dominated = new ArrayList<Entry>();
+				m.dominated.add(entry);
+				return;
+			}
+		}
+
+		Iterator<Entry> i = this.minimal.iterator();
+		while (i.hasNext()) {
+			Entry m = i.next();
+			if (this.order.isSmaller(lc, m.event.getLocalConfiguration())) {
+				i.remove();
+				m.dominator = entry;
+				if (entry.dominated == null) entry.dominated = new ArrayList<Entry>();
+				entry.dominated.add(m);
+			}
+		}
+
+		this.minimal.add(entry);
+	}
+}
@@ -1,11 +1,14 @@
 package org.jbpt.petri.unfolding;
 
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import org.jbpt.petri.IFlow;
@@ -15,14 +18,24 @@ import org.jbpt.petri.IPlace;
 import org.jbpt.petri.ITransition;
 import org.jbpt.petri.Marking;
 
-
+/**
+ * Local configuration of an event.<br/><br/>
+ *
+ * Events that causally precede the event are stored as a set of their indexes in the log of the complete prefix unfolding,
+ * i.e., the local configuration is the union of the local configurations of events that produce preconditions of the event,
+ * plus the event itself. Foata depth is derived from local configurations of these events when constructing the local configuration;
+ * the Parikh vector and the canonical key are computed once on request. Local configurations cannot be modified.
+ */
 public class AbstractLocalConfiguration<BPN extends IBPNode<N>, C extends ICondition<BPN,C,E,F,N,P,T,M>, E extends IEvent<BPN,C,E,F,N,P,T,M>, F extends IFlow<N>, N extends INode, P extends IPlace, T extends ITransition, M extends IMarking<F,N,P,T>>
-		extends HashSet<E> 
+		extends AbstractSet<E>
 		implements ILocalConfiguration<BPN,C,E,F,N,P,T,M>
 {
-	private static final long serialVersionUID = 1L;
-	
 	private E e = null;							// event
+	private BitSet past = null;					// indexes of events that causally precede the event
+	private int size = 0;						// number of events
+	private int depth = 0;						// number of sets in Foata normal form
+	private int[] parikh = null;				// Parikh vector
+	private int[] key = null;					// canonical key
 	private ICut<BPN,C,E,F,N,P,T,M> cut = null;	// cut
 	private M marking = null;					// marking of cut
 	private List<T> vec = null;					// quasi Parikh vector
@@ -72,31 +85,56 @@ public class AbstractLocalConfiguration<BPN extends IBPNode<N>, C extends ICondi
 		return this.marking;
 	}
 	
-	class ParikhComparator implements Comparator<T> {
-		
-		private List<T> totalOrderTs = null;
-		
-		public ParikhComparator(List<T> totalOrderTs) {
-			this.totalOrderTs = totalOrderTs;
+	@Override
+	public int[] getParikhVector() {
+		if (this.parikh == null) {
+			int[] parikh = new int[this.CPU.getTotalOrderOfTransitions().size()];
+			for (E e : this) parikh[this.CPU.getPositionInTotalOrder(e.getTransition())]++;
+			this.parikh = parikh;
 		}
 		
-		@Override
-		public int compare(T t1, T t2) {
-			int i1 = this.totalOrderTs.indexOf(t1);
-			int i2 = this.totalOrderTs.indexOf(t2);
-			if (i1<i2) return -1;
-			if (i1>i2) return 1;
-			
-			return 0;
+		return this.parikh;
+	}
+	
+	@Override
+	public int[] getCanonicalKey() {
+		if (this.key == null) {
+			// positions of transitions of events, and positions within sets of the Foata normal form
+			int[] ps = new int[this.size];
+			long[] fs = new long[this.size];
+			int k = 0;
+			for (E e : this) {
+				ps[k] = this.CPU.getPositionInTotalOrder(e.getTransition());
+				fs[k] = ((long) e.getLocalConfiguration().getFoataDepth() << 32) | ps[k];
+				k++;
+			}
+			Arrays.sort(ps);
+			Arrays.sort(fs);
+
+			int[] key = new int[1 + 2*this.size + this.depth];
+			key[0] = this.size;
+			System.arraycopy(ps, 0, key, 1, this.size);
+			int i = this.size+1;
+			for (k = 0; k < this.size; k++) {
+				if (k > 0 && (fs[k] >>> 32) != (fs[k-1] >>> 32)) key[i++] = 0;
+				key[i++] = (int) fs[k] + 1;
+			}
+			key[i] = 0;
+			this.key = key;
 		}
+		
+		return this.key;
 	}
 	
 	@Override
 	public List<T> getQuasiParikhVector() {
 		if (this.vec == null) {
-			this.vec = new ArrayList<T>();
-			for (E e : this) this.vec.add(e.getTransition());
-			Collections.sort(this.vec, new ParikhComparator(this.CPU.getTotalOrderOfTransitions()));
+			List<T> ts = this.CPU.getTotalOrderOfTransitions();
+			int[] parikh = this.getParikhVector();
+			this.vec = new ArrayList<T>(this.size);
+			for (int i = 0; i < parikh.length; i++)
+				for (int j = 0; j < parikh[i]; j++)
+					this.vec.add(ts.get(i));
 		}
 		
 		return this.vec;
@@ -105,48 +143,40 @@ public class AbstractLocalConfiguration<BPN extends IBPNode<N>, C extends ICondi
 	// TODO cache this
 	@Override
 	public List<T> getQuasiParikhVector(Collection<E> es) {
-		List<T> result = new ArrayList<T>();
-		for (E e : es) result.add(e.getTransition());
-		Collections.sort(result, new ParikhComparator(this.CPU.getTotalOrderOfTransitions()));
+		List<T> ts = this.CPU.getTotalOrderOfTransitions();
+		int[] positions = new int[es.size()];
+		int i = 0;
+		for (E e : es) positions[i++] = this.CPU.getPositionInTotalOrder(e.getTransition());
+		Arrays.sort(positions);
+
+		List<T> result = new ArrayList<T>(positions.length);
+		for (int position : positions) result.add(ts.get(position));
 		return result;
 	}	
 	
 	@Override
 	public List<Set<E>> getFoataNormalForm() {
 		if (this.foata == null) {
-			this.foata = new ArrayList<Set<E>>();
-			Collection<E> lc = new ArrayList<E>(this);
-			while (lc.size()>0) {
-				Set<E> min = this.getMin(lc);
-				this.foata.add(min);
-				lc.removeAll(min);
-			}
+			// the set of an event is given by the Foata depth of its local configuration
+			List<Set<E>> foata = new ArrayList<Set<E>>(this.depth);
+			for (int i = 0; i < this.depth; i++) foata.add(new HashSet<E>());
+			for (E e : this)
+				foata.get(e.getLocalConfiguration().getFoataDepth()-1).add(e);
+			this.foata = foata;
 		}
 		
 		return this.foata;
 	}
 	
-	@SuppressWarnings("unchecked")
-	private Set<E> getMin(Collection<E> lc) {
-		Set<E> result = new HashSet<E>();
-		for (E e1 : lc) {
-			boolean flag = true;
-			for (E e2 : lc) {
-				if (this.CPU.areCausal((BPN)e2,(BPN)e1)) {
-					flag = false;
-					break;
-				}
-			}
-			
-			if (flag) result.add(e1);
-		}
-		return result;
+	@Override
+	public int getFoataDepth() {
+		return this.depth;
 	}
 
 	@Override
 	public Integer compareTransitions(T t1, T t2) {
-		int i1 = this.CPU.getTotalOrderOfTransitions().indexOf(t1);
-		int i2 = this.CPU.getTotalOrderOfTransitions().indexOf(t2);
+		int i1 = this.CPU.getPositionInTotalOrder(t1);
+		int i2 = this.CPU.getPositionInTotalOrder(t2);
 		if (i1<0 || i2<0) return null;
 		
 		if (i1<i2) return -1;
@@ -165,16 +195,83 @@ public class AbstractLocalConfiguration<BPN extends IBPNode<N>, C extends ICondi
 		this.CPU = cpu;
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public void construct() {
-		this.add(this.e);
+		this.past = new BitSet();
+		this.depth = 0;
+		this.parikh = null;
+		this.key = null;
+		this.cut = null;
+		this.marking = null;
+		this.vec = null;
+		this.foata = null;
 		
 		for (C c : this.e.getPreConditions()) {
-			for (BPN n : this.CPU.getCausalPredecessors((BPN)c)) {
-				if (n.isEvent())
-					this.add((E)n);
-			}
+			E pre = c.getPreEvent();
+			if (pre==null) continue;
+
+			ILocalConfiguration<BPN,C,E,F,N,P,T,M> lc = pre.getLocalConfiguration();
+			if (lc instanceof AbstractLocalConfiguration)
+				this.past.or(((AbstractLocalConfiguration<BPN,C,E,F,N,P,T,M>) lc).past);
+			else
+				for (E e : lc) this.past.set(e.getIndex());
+			this.past.set(pre.getIndex());
+
+			if (lc.getFoataDepth() > this.depth) this.depth = lc.getFoataDepth();
 		}
+
+		this.depth++;
+		this.size = this.past.cardinality() + 1;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (o == this.e) return true;
+		if (!(o instanceof IEvent)) return false;
+
+		int index = ((IEvent<?,?,?,?,?,?,?,?>) o).getIndex();
+		if (index < 0 || !this.past.get(index)) return false;
+
+		return this.CPU.getLog().get(index) == o;
+	}
+
+	/**
+	 * Iterate over events that causally precede the event in the order of appending, followed by the event.
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		final List<E> log = this.CPU.getLog();
+
+		return new Iterator<E>() {
+			private int next = past.nextSetBit(0);
+			private boolean last = true;
+
+			@Override
+			public boolean hasNext() {
+				return this.next >= 0 || this.last;
+			}
+
+			@Override
+			public E next() {
+				if (this.next >= 0) {
+					E result = log.get(this.next);
+					this.next = past.nextSetBit(this.next+1);
+					return result;
+				}
+				if (!this.last) throw new NoSuchElementException();
+				this.last = false;
+				return e;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
 	}
 }
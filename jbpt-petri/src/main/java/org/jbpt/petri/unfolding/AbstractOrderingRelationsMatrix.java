@@ -0,0 +1,368 @@
+package org.jbpt.petri.unfolding;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jbpt.petri.IFlow;
+import org.jbpt.petri.IMarking;
+import org.jbpt.petri.INode;
+import org.jbpt.petri.IPlace;
+import org.jbpt.petri.ITransition;
+
+/**
+ * Abstract implementation of the ordering relations of events of a branching process stored as bitset rows.<br/><br/>
+ *
+ * Describes the same relations as the ordering relations graph ({@link AbstractOrderingRelationsGraph}), i.e., an event precedes
+ * another event if the latter is reachable from the former in the occurrence net, where every healthy cutoff event leads to events
+ * that consume postconditions of its corresponding event; events that are in conflict in the branching process and do not reach
+ * each other precede each other. Rows are indexed by positions of events in the log of the branching process, which is
+ * a topological order of the occurrence net:
+ * <ul>
+ * <li>causal successors of an event are propagated from its direct successors in reverse topological order,</li>
+ * <li>conflicts of an event are propagated from its direct predecessors in topological order,</li>
+ * <li>successors via cutoff events are added by a fixpoint iteration over rows.</li>
+ * </ul>
+ * Rows of events of the same depth (resp. all rows of an iteration) are independent and get filled by row blocks on a
+ * {@link ForkJoinPool} if parallelism is requested. Concurrency is the complement of the stored relations.
+ */
+public abstract class AbstractOrderingRelationsMatrix<BPN extends IBPNode<N>, C extends ICondition<BPN,C,E,F,N,P,T,M>, E extends IEvent<BPN,C,E,F,N,P,T,M>, F extends IFlow<N>, N extends INode, P extends IPlace, T extends ITransition, M extends IMarking<F,N,P,T>>
+		implements IOrderingRelationsDescriptor<E,N>,
+			IOrderingRelationsGraph<BPN,C,E,F,N,P,T,M>
+{
+	/**
+	 * Rows that are filled by one worker without further splitting.
+	 */
+	protected static final int BLOCK_SIZE = 64;
+
+	// kinds of rows filled by row blocks
+	private static final int FUTURE		= 0;
+	private static final int CONFLICT	= 1;
+	private static final int REACH		= 2;
+
+	protected IBranchingProcess<BPN,C,E,F,N,P,T,M> bp = null;
+
+	protected int parallelism = 1;
+
+	protected ForkJoinPool pool = null;
+
+	// events in the order of the log, indexes of events that are not silent
+	protected List<E> log = null;
+	protected BitSet visible = null;
+
+	// direct successors of events, events in direct conflict with events (sharing a precondition), targets of healthy cutoff events
+	private int[][] succ = null;
+	private int[][] dc = null;
+	private int[][] back = null;
+
+	// rows: causal successors in the branching process, events reachable in the occurrence net, events in conflict
+	private BitSet[] future = null;
+	private BitSet[] reach = null;
+	private BitSet[] next = null;
+	protected BitSet[] conflict = null;
+
+	private AtomicBoolean changed = null;
+
+	protected AbstractOrderingRelationsMatrix() {}
+
+	public AbstractOrderingRelationsMatrix(IBranchingProcess<BPN,C,E,F,N,P,T,M> bp) {
+		this(bp,1);
+	}
+
+	/**
+	 * Constructor of the ordering relations of events of a branching process.
+	 *
+	 * @param bp Branching process.
+	 * @param parallelism Number of worker threads to fill rows; values smaller than 2 mean sequential computation.
+	 */
+	public AbstractOrderingRelationsMatrix(IBranchingProcess<BPN,C,E,F,N,P,T,M> bp, int parallelism) {
+		if (bp==null) throw new IllegalArgumentException("IBranchingProcess object expected but was NULL!");
+
+		this.bp = bp;
+		this.parallelism = parallelism;
+
+		if (this.parallelism > 1)
+			this.pool = new ForkJoinPool(this.parallelism);
+		try {
+			this.construct();
+		}
+		finally {
+			if (this.pool!=null) {
+				this.pool.shutdown();
+				this.pool = null;
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void construct() {
+		this.log = new ArrayList<E>(this.bp.getLog());
+		int n = this.log.size();
+
+		this.visible = new BitSet(n);
+		for (int i = 0; i < n; i++)
+			if (!this.log.get(i).getTransition().isSilent())
+				this.visible.set(i);
+
+		// events that consume conditions, depths of events
+		List<List<Integer>> c2es = new ArrayList<List<Integer>>();
+		int[] depth = new int[n];
+		int levels = 0;
+		for (int i = 0; i < n; i++) {
+			for (C c : this.log.get(i).getPreConditions()) {
+				while (c2es.size() <= c.getIndex()) c2es.add(null);
+				if (c2es.get(c.getIndex())==null) c2es.set(c.getIndex(), new ArrayList<Integer>());
+				c2es.get(c.getIndex()).add(i);
+
+				if (c.getPreEvent()!=null)
+					depth[i] = Math.max(depth[i], depth[c.getPreEvent().getIndex()]+1);
+			}
+			levels = Math.max(levels, depth[i]+1);
+		}
+
+		this.succ = new int[n][];
+		this.dc = new int[n][];
+		this.back = new int[n][];
+		for (int i = 0; i < n; i++) {
+			E e = this.log.get(i);
+			this.succ[i] = this.getConsumers(e.getPostConditions(), c2es, -1);
+			this.dc[i] = this.getConsumers(e.getPreConditions(), c2es, i);
+		}
+
+		boolean cyclic = false;
+		if (this.bp instanceof ICompletePrefixUnfolding) {
+			ICompletePrefixUnfolding<BPN,C,E,F,N,P,T,M> cpu = (ICompletePrefixUnfolding<BPN,C,E,F,N,P,T,M>) this.bp;
+			for (E e : cpu.getCutoffEvents()) {
+				if (!cpu.isHealthyCutoffEvent(e)) continue;
+				this.back[e.getIndex()] = this.getConsumers(cpu.getCorrespondingEvent(e).getPostConditions(), c2es, -1);
+				cyclic |= this.back[e.getIndex()].length > 0;
+			}
+		}
+
+		// rows of events of the same depth are independent
+		int[] count = new int[levels];
+		for (int i = 0; i < n; i++) count[depth[i]]++;
+		int[][] level = new int[levels][];
+		for (int l = 0; l < levels; l++) level[l] = new int[count[l]];
+		for (int i = n-1; i >= 0; i--) level[depth[i]][--count[depth[i]]] = i;
+
+		this.future = new BitSet[n];
+		for (int l = levels-1; l >= 0; l--)
+			this.fill(FUTURE, level[l]);
+
+		this.conflict = new BitSet[n];
+		for (int l = 0; l < levels; l++)
+			this.fill(CONFLICT, level[l]);
+
+		this.reach = this.future;
+		if (cyclic) {
+			int[] all = new int[n];
+			for (int i = 0; i < n; i++) all[i] = i;
+
+			this.changed = new AtomicBoolean(true);
+			while (this.changed.get()) {
+				this.changed.set(false);
+				this.next = new BitSet[n];
+				this.fill(REACH, all);
+				this.reach = this.next;
+			}
+			this.next = null;
+			this.changed = null;
+		}
+		this.future = null;
+
+		this.succ = null;
+		this.dc = null;
+		this.back = null;
+	}
+
+	/**
+	 * Get indexes of events that consume given conditions.
+	 *
+	 * @param cs Conditions.
+	 * @param c2es Indexes of events that consume conditions (indexed by conditions).
+	 * @param skip Index of an event to skip.
+	 * @return Array of distinct indexes of events.
+	 */
+	private int[] getConsumers(Set<C> cs, List<List<Integer>> c2es, int skip) {
+		BitSet result = new BitSet();
+		for (C c : cs) {
+			if (c.getIndex() >= c2es.size() || c2es.get(c.getIndex())==null) continue;
+			for (Integer i : c2es.get(c.getIndex()))
+				result.set(i);
+		}
+		if (skip >= 0) result.clear(skip);
+
+		int[] is = new int[result.cardinality()];
+		for (int i = result.nextSetBit(0), k = 0; i >= 0; i = result.nextSetBit(i+1)) is[k++] = i;
+		return is;
+	}
+
+	/**
+	 * Fill given rows; rows get split into blocks of {@link #BLOCK_SIZE} rows if a pool of workers is available.
+	 */
+	private void fill(int kind, int[] rows) {
+		if (this.pool==null || rows.length <= BLOCK_SIZE) {
+			for (int i : rows) this.fillRow(kind,i);
+		}
+		else
+			this.pool.invoke(new RowBlock(kind,rows,0,rows.length));
+	}
+
+	private void fillRow(int kind, int i) {
+		BitSet row;
+		switch (kind) {
+			case FUTURE: // successors of direct successors (that are deeper than the event)
+				row = new BitSet();
+				for (int s : this.succ[i]) {
+					row.set(s);
+					row.or(this.future[s]);
+				}
+				this.future[i] = row;
+				break;
+			case CONFLICT: // conflicts of direct predecessors (that are shallower than the event), successors of direct conflicts
+				row = new BitSet();
+				for (C c : this.log.get(i).getPreConditions())
+					if (c.getPreEvent()!=null)
+						row.or(this.conflict[c.getPreEvent().getIndex()]);
+				for (int d : this.dc[i]) {
+					row.set(d);
+					row.or(this.future[d]);
+				}
+				this.conflict[i] = row;
+				break;
+			case REACH: // events reachable via healthy cutoff events that are reachable from the event
+				row = (BitSet) this.reach[i].clone();
+				BitSet from = (BitSet) this.reach[i].clone();
+				from.set(i);
+				for (int c = from.nextSetBit(0); c >= 0; c = from.nextSetBit(c+1)) {
+					if (this.back[c]==null) continue;
+					for (int t : this.back[c]) {
+						row.set(t);
+						row.or(this.reach[t]);
+					}
+				}
+				if (!row.equals(this.reach[i])) this.changed.set(true);
+				this.next[i] = row;
+				break;
+		}
+	}
+
+	/**
+	 * Block of rows filled by one worker or split in two.
+	 */
+	protected class RowBlock extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int kind;
+		private final int[] rows;
+		private final int from;
+		private final int to;
+
+		protected RowBlock(int kind, int[] rows, int from, int to) {
+			this.kind = kind;
+			this.rows = rows;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from <= BLOCK_SIZE) {
+				for (int k = this.from; k < this.to; k++)
+					fillRow(this.kind,this.rows[k]);
+			}
+			else {
+				int mid = (this.from + this.to) >>> 1;
+				invokeAll(new RowBlock(this.kind,this.rows,this.from,mid), new RowBlock(this.kind,this.rows,mid,this.to));
+			}
+		}
+	}
+
+	/**
+	 * Get index of an event that is not silent.
+	 *
+	 * @return Index of the event in the log; -1 if the event is silent or not an event of the branching process.
+	 */
+	private int getIndex(E e) {
+		if (e==null) return -1;
+		int i = e.getIndex();
+		if (i < 0 || i >= this.log.size() || !this.log.get(i).equals(e) || !this.visible.get(i)) return -1;
+		return i;
+	}
+
+	/**
+	 * Check if an event precedes another event, i.e., there is an edge between the events in the ordering relations graph.
+	 */
+	private boolean precedes(int i, int j) {
+		if (i < 0 || j < 0 || i == j) return false;
+
+		return this.reach[i].get(j) || (this.conflict[i].get(j) && !this.reach[j].get(i));
+	}
+
+	@Override
+	public OrderingRelationType getOrderingRelation(E n1, E n2) {
+		int i = this.getIndex(n1);
+		int j = this.getIndex(n2);
+
+		if (this.precedes(i,j)) {
+			if (this.precedes(j,i)) {
+				return OrderingRelationType.CONFLICT;
+			}
+			return OrderingRelationType.CAUSAL;
+		}
+		else {
+			if (this.precedes(j,i)) {
+				return OrderingRelationType.INVERSE_CAUSAL;
+			}
+			return OrderingRelationType.CONCURRENT;
+		}
+	}
+
+	@Override
+	public boolean areCausal(E n1, E n2) {
+		return this.getOrderingRelation(n1,n2)==OrderingRelationType.CAUSAL;
+	}
+
+	@Override
+	public boolean areInverseCausal(E n1, E n2) {
+		return this.getOrderingRelation(n1,n2)==OrderingRelationType.INVERSE_CAUSAL;
+	}
+
+	@Override
+	public boolean areConcurrent(E n1, E n2) {
+		return this.getOrderingRelation(n1,n2)==OrderingRelationType.CONCURRENT;
+	}
+
+	@Override
+	public boolean areInConflict(E n1, E n2) {
+		return this.getOrderingRelation(n1,n2)==OrderingRelationType.CONFLICT;
+	}
+
+	/**
+	 * Get events that are not silent.
+	 *
+	 * @return Set of events; unlike the ordering relations graph, it includes events that are concurrent to all other events.
+	 */
+	@Override
+	public Set<E> getEvents() {
+		Set<E> result = new HashSet<E>();
+		for (int i = this.visible.nextSetBit(0); i >= 0; i = this.visible.nextSetBit(i+1))
+			result.add(this.log.get(i));
+		return result;
+	}
+
+	/**
+	 * Get parallelism used to fill rows.
+	 *
+	 * @return Number of worker threads.
+	 */
+	public int getParallelism() {
+		return this.parallelism;
+	}
+}
@@ -1,5 +1,8 @@
 package org.jbpt.petri.unfolding;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -30,6 +33,14 @@ public abstract class AbstractProperCompletePrefixUnfolding<BPN extends IBPNode<
 		super(sys);
 	}
 
+	public AbstractProperCompletePrefixUnfolding(INetSystem<F,N,P,T,M> sys, CompletePrefixUnfoldingSetup setup, InputStream checkpoint) throws IOException {
+		super(sys, setup, checkpoint);
+	}
+
+	public AbstractProperCompletePrefixUnfolding(INetSystem<F,N,P,T,M> sys, CompletePrefixUnfoldingSetup setup, File checkpoint) throws IOException {
+		super(sys, setup, checkpoint);
+	}
+
 	/**
 	 * Check healthy property
 	 */
@@ -1,5 +1,9 @@
 package org.jbpt.petri.unfolding;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
 import org.jbpt.petri.Flow;
 import org.jbpt.petri.INetSystem;
 import org.jbpt.petri.Marking;
@@ -26,4 +30,12 @@ public class CompletePrefixUnfolding extends
 		super(sys, setup);
 	}
 	
+	public CompletePrefixUnfolding(INetSystem<Flow,Node,Place,Transition,Marking> sys, CompletePrefixUnfoldingSetup setup, InputStream checkpoint) throws IOException {
+		super(sys, setup, checkpoint);
+	}
+	
+	public CompletePrefixUnfolding(INetSystem<Flow,Node,Place,Transition,Marking> sys, CompletePrefixUnfoldingSetup setup, File checkpoint) throws IOException {
+		super(sys, setup, checkpoint);
+	}
+	
 }
@@ -1,5 +1,7 @@
 package org.jbpt.petri.unfolding;
 
+import org.jbpt.petri.monitoring.CancellationToken;
+import org.jbpt.petri.monitoring.IAnalysisListener;
 import org.jbpt.petri.unfolding.order.AdequateOrderType;
 
 /**
@@ -32,4 +34,24 @@ public class CompletePrefixUnfoldingSetup {
 	 * @assumption The originative system is safe.
 	 */
 	public boolean SAFE_OPTIMIZATION = true;
+	
+	/**
+	 * Compute possible extensions using PARALLELISM worker threads; values smaller than 2 mean sequential computation.
+	 * 
+	 * Co-sets that enable transitions are enumerated concurrently for different transitions, while possible extensions
+	 * are created and collected in the same order as in the sequential computation, i.e., the constructed branching process does not change.
+	 */
+	public int PARALLELISM = 1;
+	
+	/**
+	 * Report progress of the construction to LISTENER: time per phase, appended events, cutoff events, 
+	 * enumerations of co-sets, and the number of pending possible extensions; <tt>null</tt> means no reporting.
+	 */
+	public IAnalysisListener LISTENER = null;
+	
+	/**
+	 * Stop construction once CANCELLATION is cancelled or its deadline has passed; the result is then a prefix of the complete prefix unfolding 
+	 * which is flagged as cancelled. <tt>null</tt> means that construction cannot be cancelled.
+	 */
+	public CancellationToken CANCELLATION = null;
 }
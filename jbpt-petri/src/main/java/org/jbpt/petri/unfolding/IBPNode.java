@@ -30,4 +30,19 @@ public interface IBPNode<N extends INode> extends IVertex {
 	 * @return <tt>true</tt> if this node is condition; otherwise <tt>false</tt>.
 	 */
 	public boolean isCondition();
-}
\ No newline at end of file
+	
+	/**
+	 * Get index of this node in the branching process this node was appended to.
+	 * Conditions and events are indexed separately with consecutive numbers starting from <tt>0</tt>.
+	 * 
+	 * @return Index of this node; <tt>-1</tt> if this node was not appended to a branching process.
+	 */
+	public int getIndex();
+	
+	/**
+	 * Set index of this node in a branching process.
+	 * 
+	 * @param index Index of this node.
+	 */
+	public void setIndex(int index);
+}
@@ -47,6 +47,14 @@ public interface ICompletePrefixUnfolding<BPN extends IBPNode<N>, C extends ICon
 	 */
 	public List<T> getTotalOrderOfTransitions();
 	
+	/**
+	 * Get position of a transition in the total order of transitions used to construct this complete prefix unfolding.
+	 * 
+	 * @param transition Transition of the originative system.
+	 * @return Position of 'transition' in the total order of transitions; <tt>-1</tt> if 'transition' is not in the total order.
+	 */
+	public int getPositionInTotalOrder(T transition);
+	
 	public boolean isHealthyCutoffEvent(E event);
 	
 	public boolean isProper();
@@ -19,11 +19,36 @@ public interface ILocalConfiguration<BPN extends IBPNode<N>, C extends IConditio
 
 	public List<T> getQuasiParikhVector();
 
+	/**
+	 * Get Parikh vector of this local configuration.
+	 * 
+	 * @return Numbers of occurrences of transitions in this local configuration, indexed by positions of transitions in the total order of transitions.
+	 */
+	public int[] getParikhVector();
+
 	// TODO cache this
 	public List<T> getQuasiParikhVector(Collection<E> events);
 
 	public List<Set<E>> getFoataNormalForm();
 
+	/**
+	 * Get Foata depth of this local configuration, i.e., the number of sets in its Foata normal form.
+	 * 
+	 * @return Length of the longest chain of causally related events in this local configuration.
+	 */
+	public int getFoataDepth();
+
+	/**
+	 * Get canonical key of this local configuration, which encodes its size, its quasi Parikh vector, and the quasi Parikh vectors
+	 * of the sets of its Foata normal form.<br/><br/>
+	 * 
+	 * The key consists of the size, the positions of transitions of events in ascending order, and, for every set of the Foata normal form, 
+	 * the positions of transitions of its events in ascending order (shifted by one) followed by 0. Positions refer to the total order of transitions.
+	 * 
+	 * @return Key of this local configuration; the key must not be modified.
+	 */
+	public int[] getCanonicalKey();
+
 	public Integer compareTransitions(T transition1, T transition2);
 	
 	public void setEvent(E e);
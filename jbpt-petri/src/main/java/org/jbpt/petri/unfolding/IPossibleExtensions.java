@@ -1,6 +1,6 @@
 package org.jbpt.petri.unfolding;
 
-import java.util.SortedSet;
+import java.util.Set;
 
 import org.jbpt.petri.IFlow;
 import org.jbpt.petri.IMarking;
@@ -9,7 +9,13 @@ import org.jbpt.petri.IPlace;
 import org.jbpt.petri.ITransition;
 
 public interface IPossibleExtensions<BPN extends IBPNode<N>, C extends ICondition<BPN,C,E,F,N,P,T,M>, E extends IEvent<BPN,C,E,F,N,P,T,M>, F extends IFlow<N>, N extends INode, P extends IPlace, T extends ITransition, M extends IMarking<F,N,P,T>> 
-	extends SortedSet<E> 
+	extends Set<E> 
 {	
+	/**
+	 * Get a possible extension that is minimal w.r.t. the adequate order.
+	 * 
+	 * @return A minimal possible extension.
+	 * @throws NoSuchElementException if there are no possible extensions.
+	 */
 	public E getMinimal();
 }
@@ -0,0 +1,27 @@
+package org.jbpt.petri.unfolding;
+
+import org.jbpt.petri.Flow;
+import org.jbpt.petri.Marking;
+import org.jbpt.petri.Node;
+import org.jbpt.petri.Place;
+import org.jbpt.petri.Transition;
+
+/**
+ * Implementation of the ordering relations of events of a branching process stored as bitset rows.
+ */
+public class OrderingRelationsMatrix extends
+		AbstractOrderingRelationsMatrix<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking> {
+
+	protected OrderingRelationsMatrix() {
+		super();
+	}
+
+	public OrderingRelationsMatrix(IBranchingProcess<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking> bp) {
+		super(bp);
+	}
+
+	public OrderingRelationsMatrix(IBranchingProcess<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking> bp, int parallelism) {
+		super(bp,parallelism);
+	}
+
+}
@@ -1,5 +1,9 @@
 package org.jbpt.petri.unfolding;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
 import org.jbpt.petri.Flow;
 import org.jbpt.petri.INetSystem;
 import org.jbpt.petri.Marking;
@@ -25,4 +29,16 @@ public class ProperCompletePrefixUnfolding
 		super(sys);
 	}
 
+	public ProperCompletePrefixUnfolding(
+			INetSystem<Flow, Node, Place, Transition, Marking> sys,
+			CompletePrefixUnfoldingSetup setup, InputStream checkpoint) throws IOException {
+		super(sys, setup, checkpoint);
+	}
+
+	public ProperCompletePrefixUnfolding(
+			INetSystem<Flow, Node, Place, Transition, Marking> sys,
+			CompletePrefixUnfoldingSetup setup, File checkpoint) throws IOException {
+		super(sys, setup, checkpoint);
+	}
+
 }
@@ -1,101 +1,209 @@
 package org.jbpt.petri.unfolding;
 
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
+import org.jbpt.algo.graph.DirectedGraphAlgorithms;
+import org.jbpt.petri.Flow;
+import org.jbpt.petri.Marking;
+import org.jbpt.petri.NetSystem;
+import org.jbpt.petri.Node;
+import org.jbpt.petri.PetriNet;
+import org.jbpt.petri.Place;
+import org.jbpt.petri.Transition;
+import org.jbpt.petri.unfolding.order.AdequateOrderType;
 
 /**
- * Unfolding for soundness checks
- * 
- * Proof of concept - must be improved
- * 
+ * Unfolding for soundness checks of acyclic free-choice workflow nets.<br/><br/>
+ *
+ * A net is sound iff its unfolding has neither locally unsafe conditions nor local deadlock conditions.
+ * In early-exit mode, unsafe conditions and dead markings of local configurations are checked as events get appended;
+ * construction stops at the first witness of unsoundness, which is returned by {@link #getWitness()}. Local deadlocks that only
+ * show in markings of non-local configurations are found once the unfolding is complete.
+ *
  * @author Artem Polyvyanyy
  */
-public class SoundUnfolding extends AbstractProperCompletePrefixUnfolding {
-	
-	/*private Set<Condition> unsafe	= null;
-	private Set<Condition> deadlock	= null;
-	
+public class SoundUnfolding extends AbstractProperCompletePrefixUnfolding<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking> {
+
 	protected static DirectedGraphAlgorithms<Flow,Node> dga = new DirectedGraphAlgorithms<Flow,Node>();
-	
+
+	private Set<Condition> unsafe	= null;
+	private Set<Condition> deadlock	= null;
+
+	private boolean earlyExit		= false;	// stop construction at the first witness of unsoundness
+	private Set<Event> witness		= null;		// configuration that witnesses unsoundness
+
 	protected SoundUnfolding() {}
 
 	public SoundUnfolding(NetSystem sys) {
+		this(sys, false);
+	}
+
+	/**
+	 * Constructor of an unfolding for soundness checks.
+	 *
+	 * @param sys Acyclic free-choice workflow net system.
+	 * @param earlyExit If <tt>true</tt>, stop construction at the first witness of unsoundness; otherwise construct the complete unfolding.
+	 */
+	public SoundUnfolding(NetSystem sys, boolean earlyExit) {
+		super();
+		if (sys==null) throw new IllegalArgumentException("NetSystem object expected but was NULL!");
 		if (!PetriNet.STRUCTURAL_CHECKS.isFreeChoice(sys)) throw new IllegalArgumentException("Net must be free choice!");
 		if (!PetriNet.STRUCTURAL_CHECKS.isWorkflowNet(sys)) throw new IllegalArgumentException("Net must be a WF-net!");
-		if (dga.isAcyclic(sys)) throw new IllegalArgumentException("Net must be acyclic!");
-		
-		this.sys = sys;
-		this.initialBranchingProcess = new Cut(this.sys);
-		this.totalOrderTs = new ArrayList<Transition>(this.sys.getTransitions());
-		
-		BranchingProcessSetup setup = new BranchingProcessSetup();
-		setup.ADEQUATE_ORDER = new UnfoldingAdequateOrder();
+		if (!dga.isAcyclic(sys)) throw new IllegalArgumentException("Net must be acyclic!");
+
+		this.earlyExit = earlyExit;
+
+		CompletePrefixUnfoldingSetup setup = new CompletePrefixUnfoldingSetup();
+		setup.ADEQUATE_ORDER = AdequateOrderType.UNFOLDING;
 		setup.MAX_BOUND		 = Integer.MAX_VALUE;
 		setup.MAX_EVENTS	 = Integer.MAX_VALUE;
-		this.setup = setup;
-		
-		this.construct();
+
+		this.setNetSystem(sys);
+		if (this.initialise(setup)) this.construct();
 	}
 
-	*//**
-	 * Get locally unsafe conditions
-	 * @return set of locally unsafe conditions
-	 *//*
+	@Override
+	public boolean appendEvent(Event event) {
+		if (!super.appendEvent(event)) return false;
+
+		if (this.earlyExit && this.witness==null) {
+			this.witness = this.getUnsafeWitness(event);
+			if (this.witness==null && this.isDeadMarking(event.getLocalConfiguration().getCut()))
+				this.witness = new HashSet<Event>(event.getLocalConfiguration());
+
+			if (this.witness!=null) this.maxEvents = this.events.size(); // stop construction
+		}
+
+		return true;
+	}
+
+	/**
+	 * Get configuration that contains a given event and makes one of its postconditions concurrent with another condition of the same place.
+	 *
+	 * @return Configuration; <tt>null</tt> if no postcondition of the event is locally unsafe.
+	 */
+	private Set<Event> getUnsafeWitness(Event e) {
+		for (Condition c : e.getPostConditions()) {
+			BitSet cs = (BitSet) this.p2cs.get(c.getPlace()).clone();
+			cs.and(this.co.get(c.getIndex()));
+			if (cs.isEmpty()) continue;
+
+			Set<Event> result = new HashSet<Event>(e.getLocalConfiguration());
+			Event f = this.i2c.get(cs.nextSetBit(0)).getPreEvent();
+			if (f!=null) result.addAll(f.getLocalConfiguration());
+			return result;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Check if the marking of a cut enables no transition and differs from the final marking of the workflow net.
+	 */
+	private boolean isDeadMarking(ICut<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking> cut) {
+		Set<Place> ps = new HashSet<Place>();
+		for (Condition c : cut) ps.add(c.getPlace());
+
+		for (Place p : ps)
+			for (Transition t : this.sys.getPostset(p))
+				if (ps.containsAll(this.sys.getPreset(t))) return false;
+
+		return !(cut.size()==1 && this.sys.getPostset(cut.iterator().next().getPlace()).isEmpty());
+	}
+
+	/**
+	 * Get locally unsafe conditions, i.e., conditions that are concurrent with another condition of the same place.
+	 *
+	 * @return Set of locally unsafe conditions (of the constructed prefix if construction stopped at a witness of unsoundness).
+	 */
 	public Set<Condition> getLocallyUnsafeConditions() {
 		if (this.unsafe == null) {
 			this.unsafe = new HashSet<Condition>();
-			
-			for (Condition c1 : this.getConditions()) {
-				for (Condition c2 : this.getConditions()) {
-					if (c1.equals(c2)) continue;
-					
-					if (this.areConcurrent(c1,c2) && c1.getPlace().equals(c2.getPlace()))
-						this.unsafe.add(c1);
-				}
+
+			for (Condition c : this.getConditions()) {
+				BitSet cs = (BitSet) this.p2cs.get(c.getPlace()).clone();
+				cs.and(this.co.get(c.getIndex()));
+				if (!cs.isEmpty()) this.unsafe.add(c);
 			}
-			
 		}
-		
+
 		return this.unsafe;
 	}
-	
-	*//**
-	 * Get local deadlock conditions
-	 * @return set of local deadlock conditions
-	 *//*
+
+	/**
+	 * Get local deadlock conditions.
+	 *
+	 * @return Set of local deadlock conditions; the set is empty if construction stopped at a witness of unsoundness.
+	 */
+	@SuppressWarnings({"rawtypes","unchecked"})
 	public Set<Condition> getLocalDeadlockConditions() {
 		if (this.deadlock == null) {
-			this.deadlock = new HashSet<Condition>();			
-			OccurrenceNet BP = this.getOccurrenceNet();
-			
-			for (Place p : BP.getPlaces()) {
-				if (BP.getPostset(p).isEmpty() && !this.sys.getPostset(BP.getCondition(p).getPlace()).isEmpty()) {
-					this.deadlock.add(BP.getCondition(p));
-				}
+			// conditions are not BPNodes; ordering relations of the branching process are defined on all nodes
+			IOrderingRelationsDescriptor relations = this;
+
+			this.deadlock = new HashSet<Condition>();
+			if (!this.isComplete()) return this.deadlock;
+
+			Map<Condition,Set<Event>> postEvents = new HashMap<Condition,Set<Event>>();
+			for (Condition c : this.getConditions()) postEvents.put(c, new HashSet<Event>());
+			for (Event e : this.getEvents())
+				for (Condition c : e.getPreConditions())
+					postEvents.get(c).add(e);
+
+			Set<Condition> sinks = new HashSet<Condition>();
+			for (Condition c : this.getConditions()) {
+				if (!postEvents.get(c).isEmpty()) continue;
+
+				sinks.add(c);
+				if (!this.sys.getPostset(c.getPlace()).isEmpty())
+					this.deadlock.add(c);
 			}
-						
-			for (Place p : BP.getPlaces()) {
-				for (Transition t : BP.getPostset(p)){					
-					for (Place p1 : BP.getPreset(t)) {
-						if (p.equals(p1)) continue;
-						
-						for (Place p2 : BP.getSinkPlaces()) {
-							if (BP.getOrderingRelation(p,p2)==OrderingRelationType.CONFLICT && BP.getOrderingRelation(p1,p2)==OrderingRelationType.CONCURRENT) {
-								this.deadlock.add(BP.getCondition(p));
-							}
+
+			for (Condition c : this.getConditions()) {
+				for (Event e : postEvents.get(c)) {
+					for (Condition c1 : e.getPreConditions()) {
+						if (c.equals(c1)) continue;
+
+						for (Condition c2 : sinks) {
+							if (relations.areInConflict(c,c2) && relations.areConcurrent(c1,c2))
+								this.deadlock.add(c);
 						}
 					}
 				}
 			}
 		}
-		
+
 		return this.deadlock;
 	}
-	
-	*//**
-	 * Check if the net is sound
-	 * @return true if originative net is sound; otherwise false
-	 *//*
+
+	/**
+	 * Get a configuration that witnesses unsoundness of the originative net system.
+	 *
+	 * @return Configuration that leads to a marking with a locally unsafe or a local deadlock condition; <tt>null</tt> if the net system is sound.
+	 */
+	public Set<Event> getWitness() {
+		if (this.witness==null) { // in early-exit mode, only local deadlocks in markings of non-local configurations remain
+			if (!this.getLocallyUnsafeConditions().isEmpty())
+				this.witness = this.getUnsafeWitness(this.getLocallyUnsafeConditions().iterator().next().getPreEvent());
+			else if (!this.getLocalDeadlockConditions().isEmpty()) {
+				Event e = this.getLocalDeadlockConditions().iterator().next().getPreEvent();
+				this.witness = e==null ? new HashSet<Event>() : new HashSet<Event>(e.getLocalConfiguration());
+			}
+		}
+
+		return this.witness;
+	}
+
+	/**
+	 * Check if the net is sound.
+	 *
+	 * @return <tt>true</tt> if originative net is sound; otherwise <tt>false</tt>.
+	 */
 	public boolean isSound() {
-		return this.getLocallyUnsafeConditions().size()==0 && this.getLocalDeadlockConditions().size()==0;
-	}*/
+		return this.getWitness()==null;
+	}
 }
@@ -1,5 +1,7 @@
 package org.jbpt.petri.unfolding.order;
 
+import java.util.Map;
+
 import org.jbpt.petri.IFlow;
 import org.jbpt.petri.IMarking;
 import org.jbpt.petri.INode;
@@ -8,6 +10,7 @@ import org.jbpt.petri.ITransition;
 import org.jbpt.petri.unfolding.IBPNode;
 import org.jbpt.petri.unfolding.ICondition;
 import org.jbpt.petri.unfolding.IEvent;
+import org.jbpt.petri.unfolding.ILocalConfiguration;
 
 
 /**
@@ -21,4 +24,48 @@ public abstract class AdequateOrder<BPN extends IBPNode<N>, C extends ICondition
 	public boolean isTotal() {
 		return false;
 	}
+	
+	/**
+	 * Get key that consists of the size of a local configuration followed by its quasi Parikh vector,
+	 * i.e., positions of transitions of its events in the total order of transitions in ascending order.
+	 * 
+	 * @param lc A local configuration.
+	 * @param totalOrder Positions of transitions in the total order of transitions.
+	 * @return Key of the local configuration.
+	 */
+	protected int[] getParikhKey(ILocalConfiguration<BPN,C,E,F,N,P,T,M> lc, Map<T,Integer> totalOrder) {
+		int[] parikh = lc.getParikhVector();
+		int[] key = new int[lc.size()+1];
+		key[0] = lc.size();
+		int i = 1;
+		for (int p = 0; p < parikh.length; p++)
+			for (int j = 0; j < parikh[p]; j++)
+				key[i++] = p;
+		
+		return key;
+	}
+	
+	/**
+	 * Lexicographically compare quasi Parikh vectors of two local configurations, i.e., 
+	 * positions of transitions of their events in the total order of transitions in ascending order.
+	 * The comparison is performed on Parikh vectors of the local configurations.
+	 * 
+	 * @param lc1 A local configuration.
+	 * @param lc2 A local configuration.
+	 * @return -1,0,1 if the quasi Parikh vector of 'lc1' is smaller, equal, or larger than the quasi Parikh vector of 'lc2', respectively.
+	 */
+	protected int compareQuasiParikhVectors(ILocalConfiguration<BPN,C,E,F,N,P,T,M> lc1, ILocalConfiguration<BPN,C,E,F,N,P,T,M> lc2) {
+		int[] parikh1 = lc1.getParikhVector();
+		int[] parikh2 = lc2.getParikhVector();
+		
+		// at the first difference, the vector with more occurrences of the transition is smaller unless the other vector ends there
+		int prefix = 0;
+		for (int p = 0; p < parikh1.length; p++) {
+			if (parikh1[p] > parikh2[p]) return prefix+parikh2[p]==lc2.size() ? 1 : -1;
+			if (parikh1[p] < parikh2[p]) return prefix+parikh1[p]==lc1.size() ? -1 : 1;
+			prefix += parikh1[p];
+		}
+		
+		return 0;
+	}
 }
@@ -10,5 +10,6 @@ public enum AdequateOrderType {
 	MCMILLAN,
 	ESPARZA_FOR_SAFE_SYSTEMS,
 	ESPARZA_FOR_ARBITRARY_SYSTEMS,
-	UNDEFINED
+	UNDEFINED,
+	ESPARZA_CANONICAL
 }
@@ -0,0 +1,63 @@
+package org.jbpt.petri.unfolding.order;
+
+import java.util.Map;
+
+import org.jbpt.petri.IFlow;
+import org.jbpt.petri.IMarking;
+import org.jbpt.petri.INode;
+import org.jbpt.petri.IPlace;
+import org.jbpt.petri.ITransition;
+import org.jbpt.petri.unfolding.IBPNode;
+import org.jbpt.petri.unfolding.ICondition;
+import org.jbpt.petri.unfolding.IEvent;
+import org.jbpt.petri.unfolding.ILocalConfiguration;
+
+
+/**
+ * Esparza adequate order for 1-safe systems (a total order) that compares precomputed keys of local configurations.<br/><br/>
+ *
+ * Local configurations are compared by their sizes, then by their quasi Parikh vectors, and then by the quasi Parikh vectors of
+ * the sets of their Foata normal forms, where the first set that differs decides. The canonical key of a local configuration encodes 
+ * all three comparisons, see {@link ILocalConfiguration#getCanonicalKey()}. The key is computed once and kept by the local configuration, 
+ * and comparisons of local configurations are lexicographic comparisons of their keys.<br/><br/>
+ *
+ * Javier Esparza, Stefan Roemer, Walter Vogler: An Improvement of McMillan's Unfolding Algorithm. Formal Methods in System Design (FMSD) 20(3):285-310 (2002)
+ */
+public class CanonicalEsparzaAdequateOrder<BPN extends IBPNode<N>, C extends ICondition<BPN,C,E,F,N,P,T,M>, E extends IEvent<BPN,C,E,F,N,P,T,M>, F extends IFlow<N>, N extends INode, P extends IPlace, T extends ITransition, M extends IMarking<F,N,P,T>>
+	extends AdequateOrder<BPN,C,E,F,N,P,T,M>
+	implements IKeyedAdequateOrder<BPN,C,E,F,N,P,T,M> {
+
+	@Override
+	public boolean isSmaller(ILocalConfiguration<BPN,C,E,F,N,P,T,M> lc1, ILocalConfiguration<BPN,C,E,F,N,P,T,M> lc2) {
+		return compareKeys(lc1.getCanonicalKey(), lc2.getCanonicalKey()) < 0;
+	}
+
+	@Override
+	public boolean isTotal() {
+		return true;
+	}
+
+	/**
+	 * Keys decide the order, i.e., local configurations with equal keys are equal w.r.t. the order.
+	 * Canonical keys refer to the total order of transitions of the unfolding of the local configuration.
+	 */
+	@Override
+	public int[] getKey(ILocalConfiguration<BPN,C,E,F,N,P,T,M> lc, Map<T,Integer> totalOrder) {
+		return lc.getCanonicalKey();
+	}
+
+	/**
+	 * Lexicographically compare two keys; a key that is a proper prefix of another key is smaller.
+	 *
+	 * @return -1,0,1 if 'key1' is smaller, equal, or larger than 'key2', respectively.
+	 */
+	protected static int compareKeys(int[] key1, int[] key2) {
+		int n = Math.min(key1.length, key2.length);
+		for (int i = 0; i < n; i++) {
+			if (key1[i] < key2[i]) return -1;
+			if (key1[i] > key2[i]) return 1;
+		}
+
+		return key1.length < key2.length ? -1 : (key1.length > key2.length ? 1 : 0);
+	}
+}
@@ -1,6 +1,6 @@
 package org.jbpt.petri.unfolding.order;
 
-import java.util.List;
+import java.util.Map;
 
 import org.jbpt.petri.IFlow;
 import org.jbpt.petri.IMarking;
@@ -22,23 +22,20 @@ import org.jbpt.petri.unfolding.ILocalConfiguration;
  * @author Artem Polyvyanyy
  */
 public class EsparzaAdequateOrderForArbitrarySystems<BPN extends IBPNode<N>, C extends ICondition<BPN,C,E,F,N,P,T,M>, E extends IEvent<BPN,C,E,F,N,P,T,M>, F extends IFlow<N>, N extends INode, P extends IPlace, T extends ITransition, M extends IMarking<F,N,P,T>> 
-	extends AdequateOrder<BPN,C,E,F,N,P,T,M> {
+	extends AdequateOrder<BPN,C,E,F,N,P,T,M>
+	implements IKeyedAdequateOrder<BPN,C,E,F,N,P,T,M> {
 
 	@Override
 	public boolean isSmaller(ILocalConfiguration<BPN,C,E,F,N,P,T,M> lc1, ILocalConfiguration<BPN,C,E,F,N,P,T,M> lc2) {
 		if (lc1.size() < lc2.size()) return true;
-		else if (lc1.size() == lc2.size()) {
-			List<T> pvec1 = lc1.getQuasiParikhVector();
-			List<T> pvec2 = lc2.getQuasiParikhVector();
-			
-			for (int i = 0; i<pvec1.size(); i++) {
-				Integer comp = lc1.compareTransitions(pvec1.get(i), pvec2.get(i));
-				if (comp<0) return true;
-				if (comp!=0) return false;
-			}
-			return false;
-		}
+		else if (lc1.size() == lc2.size())
+			return this.compareQuasiParikhVectors(lc1, lc2) < 0;
 		
 		return false;
 	}
+
+	@Override
+	public int[] getKey(ILocalConfiguration<BPN,C,E,F,N,P,T,M> lc, Map<T,Integer> totalOrder) {
+		return this.getParikhKey(lc, totalOrder);
+	}
 }
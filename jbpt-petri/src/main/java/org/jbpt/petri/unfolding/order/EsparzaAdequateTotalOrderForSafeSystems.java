@@ -1,6 +1,7 @@
 package org.jbpt.petri.unfolding.order;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.jbpt.petri.IFlow;
@@ -22,7 +23,8 @@ import org.jbpt.petri.unfolding.ILocalConfiguration;
  * @author Artem Polyvyanyy
  */
 public class EsparzaAdequateTotalOrderForSafeSystems<BPN extends IBPNode<N>, C extends ICondition<BPN,C,E,F,N,P,T,M>, E extends IEvent<BPN,C,E,F,N,P,T,M>, F extends IFlow<N>, N extends INode, P extends IPlace, T extends ITransition, M extends IMarking<F,N,P,T>>
-	extends AdequateOrder<BPN,C,E,F,N,P,T,M> {
+	extends AdequateOrder<BPN,C,E,F,N,P,T,M>
+	implements IKeyedAdequateOrder<BPN,C,E,F,N,P,T,M> {
 
 	@Override
 	public boolean isSmaller(ILocalConfiguration<BPN,C,E,F,N,P,T,M> lc1, ILocalConfiguration<BPN,C,E,F,N,P,T,M> lc2) {
@@ -88,23 +90,17 @@ public class EsparzaAdequateTotalOrderForSafeSystems<BPN extends IBPNode<N>, C e
 		return 1;
 	}
 
-	/**
-	 * Lexicographically compare two quasi Parikh vectors.
-	 * 
-	 * @param lc A local configuration (gives a link to the total order of transitions).
-	 * @param pvec1 A list of transitions.
-	 * @param pvec2 A list of transitions.
-	 * @return -1,0,1 if 'pvec1' is smaller, equal, or larger than 'pvec2', respectively.
-	 */
-	private int compareQuasiParikhVectors(ILocalConfiguration<BPN,C,E,F,N,P,T,M> lc1, ILocalConfiguration<BPN,C,E,F,N,P,T,M> lc2) {
-		List<T> pvec1 = lc1.getQuasiParikhVector();
-		List<T> pvec2 = lc2.getQuasiParikhVector();
-		
-		return this.compareQuasiParikhVectors(lc1, pvec1, pvec2);
-	}
-	
 	@Override
 	public boolean isTotal() {
 		return true;
 	}
+
+	/**
+	 * Keys compare sizes and quasi Parikh vectors of local configurations; 
+	 * local configurations with equal keys are compared by their Foata normal forms.
+	 */
+	@Override
+	public int[] getKey(ILocalConfiguration<BPN,C,E,F,N,P,T,M> lc, Map<T,Integer> totalOrder) {
+		return this.getParikhKey(lc, totalOrder);
+	}
 }
@@ -0,0 +1,34 @@
+package org.jbpt.petri.unfolding.order;
+
+import java.util.Map;
+
+import org.jbpt.petri.IFlow;
+import org.jbpt.petri.IMarking;
+import org.jbpt.petri.INode;
+import org.jbpt.petri.IPlace;
+import org.jbpt.petri.ITransition;
+import org.jbpt.petri.unfolding.IBPNode;
+import org.jbpt.petri.unfolding.ICondition;
+import org.jbpt.petri.unfolding.IEvent;
+import org.jbpt.petri.unfolding.ILocalConfiguration;
+
+/**
+ * Interface to an adequate order that can (in most cases) be decided by comparing keys of local configurations.<br/><br/>
+ *
+ * Keys are compared lexicographically; a key that is a proper prefix of another key is smaller.
+ * If the key of 'lc1' is smaller than the key of 'lc2', then 'lc1' must be smaller than 'lc2' w.r.t. the order.
+ * Local configurations with equal keys are compared via {@link #isSmaller(ILocalConfiguration, ILocalConfiguration)} if the order is total;
+ * otherwise, they must be incomparable.
+ */
+public interface IKeyedAdequateOrder<BPN extends IBPNode<N>, C extends ICondition<BPN,C,E,F,N,P,T,M>, E extends IEvent<BPN,C,E,F,N,P,T,M>, F extends IFlow<N>, N extends INode, P extends IPlace, T extends ITransition, M extends IMarking<F,N,P,T>>
+	extends IAdequateOrder<BPN,C,E,F,N,P,T,M> {
+
+	/**
+	 * Get key of a local configuration.
+	 *
+	 * @param lc A local configuration.
+	 * @param totalOrder Positions of transitions in the total order of transitions used to construct the unfolding.
+	 * @return Key of the local configuration.
+	 */
+	public int[] getKey(ILocalConfiguration<BPN,C,E,F,N,P,T,M> lc, Map<T,Integer> totalOrder);
+}
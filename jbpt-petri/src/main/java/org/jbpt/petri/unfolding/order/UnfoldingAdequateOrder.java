@@ -1,5 +1,7 @@
 package org.jbpt.petri.unfolding.order;
 
+import java.util.Map;
+
 import org.jbpt.petri.IFlow;
 import org.jbpt.petri.IMarking;
 import org.jbpt.petri.INode;
@@ -16,10 +18,16 @@ import org.jbpt.petri.unfolding.ILocalConfiguration;
  * @author Artem Polyvyanyy
  */
 public class UnfoldingAdequateOrder<BPN extends IBPNode<N>, C extends ICondition<BPN,C,E,F,N,P,T,M>, E extends IEvent<BPN,C,E,F,N,P,T,M>, F extends IFlow<N>, N extends INode, P extends IPlace, T extends ITransition, M extends IMarking<F,N,P,T>>
-	extends AdequateOrder<BPN,C,E,F,N,P,T,M> {
+	extends AdequateOrder<BPN,C,E,F,N,P,T,M>
+	implements IKeyedAdequateOrder<BPN,C,E,F,N,P,T,M> {
 
 	@Override
 	public boolean isSmaller(ILocalConfiguration<BPN,C,E,F,N,P,T,M> lc1, ILocalConfiguration<BPN,C,E,F,N,P,T,M> lc2) {
 		return false;
 	}
+
+	@Override
+	public int[] getKey(ILocalConfiguration<BPN,C,E,F,N,P,T,M> lc, Map<T,Integer> totalOrder) {
+		return new int[0];
+	}
 }
@@ -69,16 +69,21 @@ public class AbstractBaselineRepresentativeUntangling<BPN extends IBPNode<N>, C
 			while (!PE.isEmpty()) {
 				ini.append(PE.iterator().next());
 			}
-			this.significantRunCounter++;
+			this.countSignificantRun();
 			this.runs.add(ini);
 			return;
 		}
 		
 		// perform complex stuff
 		queue.add(ini);
-		this.significantRunCounter++;
+		this.countSignificantRun();
 		
 		while (!queue.isEmpty()) {
+			if (this.checkCancelled()) {
+				this.runs.addAll(queue);		// keep runs that are not yet extended
+				break;
+			}
+			
 			IRun<F,N,P,T,M> run = queue.poll();
 			
 			// safeness check (extra)
@@ -102,7 +107,7 @@ public class AbstractBaselineRepresentativeUntangling<BPN extends IBPNode<N>, C
 					
 					if (this.isSignificant(freshRun)) {
 						queue.add(freshRun);
-						this.significantRunCounter++;
+						this.countSignificantRun();
 						allExtensionsInsignificant = false;
 					}
 				}
@@ -131,16 +136,21 @@ public class AbstractBaselineRepresentativeUntangling<BPN extends IBPNode<N>, C
 			while (!PE.isEmpty()) {
 				ini.append(PE.iterator().next());
 			}
-			this.significantRunCounter++;
+			this.countSignificantRun();
 			this.runs.add(ini);
 			return;
 		}
 		
 		// perform complex stuff
 		queue.add(ini);
-		this.significantRunCounter++;
+		this.countSignificantRun();
 		
 		while (!queue.isEmpty()) {
+			if (this.checkCancelled()) {
+				this.runs.addAll(queue);		// keep runs that are not yet extended
+				break;
+			}
+			
 			IUntanglingRun<F,N,P,T,M> run = queue.poll();
 			
 			// safeness check (extra)
@@ -164,7 +174,7 @@ public class AbstractBaselineRepresentativeUntangling<BPN extends IBPNode<N>, C
 					
 					if (freshRun.isSignificant()) {
 						queue.add(freshRun);
-						this.significantRunCounter++;
+						this.countSignificantRun();
 						allExtensionsInsignificant = false;
 					}
 				}
@@ -198,7 +208,7 @@ public class AbstractBaselineRepresentativeUntangling<BPN extends IBPNode<N>, C
 			while (!PE.isEmpty()) {
 				ini.append(PE.iterator().next());
 			}
-			this.significantRunCounter++;
+			this.countSignificantRun();
 			this.runs.add(ini);
 			return;
 		}
@@ -210,9 +220,14 @@ public class AbstractBaselineRepresentativeUntangling<BPN extends IBPNode<N>, C
 		}
 
 		queue.add(this.torRoot);
-		this.significantRunCounter++;
+		this.countSignificantRun();
 		
 		while (!queue.isEmpty()) {
+			if (this.checkCancelled()) {
+				this.torLeaves.addAll(queue);	// keep runs that are not yet extended
+				break;
+			}
+			
 			TreeStep<F,N,P,T,M> curr = queue.poll();
 			
 			Set<TreeStep<F,N,P,T,M>> PE = curr.getPossibleExtensions();
@@ -232,7 +247,7 @@ public class AbstractBaselineRepresentativeUntangling<BPN extends IBPNode<N>, C
 						allExtensionsInsignificant = false;
 						
 						queue.add(ext);
-						this.significantRunCounter++;
+						this.countSignificantRun();
 					}
 				}
 				
@@ -16,6 +16,7 @@ import org.jbpt.petri.IRun;
 import org.jbpt.petri.IStep;
 import org.jbpt.petri.ITransition;
 import org.jbpt.petri.Run;
+import org.jbpt.petri.monitoring.IAnalysisListener;
 import org.jbpt.petri.unfolding.IBPNode;
 import org.jbpt.petri.unfolding.ICondition;
 import org.jbpt.petri.unfolding.IEvent;
@@ -49,6 +50,8 @@ public abstract class AbstractRepresentativeUntangling<BPN extends IBPNode<N>, C
 	
 	protected boolean cyclic = false;
 	
+	protected boolean cancelled = false; // construction of runs was stopped by the cancellation token of the setup
+	
 	public AbstractRepresentativeUntangling(INetSystem<F,N,P,T,M> sys) {
 		this(sys, new UntanglingSetup());
 	}
@@ -70,7 +73,9 @@ public abstract class AbstractRepresentativeUntangling<BPN extends IBPNode<N>, C
 		this.constructRuns(this.sys);
 		long stop = System.nanoTime();
 		this.time = stop - start;
+		if (this.setup.LISTENER!=null) this.setup.LISTENER.phaseFinished(this, IAnalysisListener.RUNS_CONSTRUCTION, this.time);
 		
+		start = System.nanoTime();
 		if (this.setup.SIGNIFICANCE_CHECK == SignificanceCheckType.TREE_OF_RUNS) {
 			for (TreeStep<F,N,P,T,M> step : this.torLeaves) {
 				IRun<F,N,P,T,M> run = this.constructRun(step);
@@ -79,6 +84,38 @@ public abstract class AbstractRepresentativeUntangling<BPN extends IBPNode<N>, C
 		}
 		
 		this.constructProcesses();
+		if (this.setup.LISTENER!=null) this.setup.LISTENER.phaseFinished(this, IAnalysisListener.PROCESSES_CONSTRUCTION, System.nanoTime()-start);
+	}
+	
+	/**
+	 * Check if construction of runs must stop because the cancellation token of the setup was cancelled or its deadline has passed.
+	 * 
+	 * @return <tt>true</tt> if construction must stop; otherwise <tt>false</tt>.
+	 */
+	protected boolean checkCancelled() {
+		if (!this.cancelled && this.setup.CANCELLATION!=null && this.setup.CANCELLATION.isCancelled())
+			this.cancelled = true;
+		
+		return this.cancelled;
+	}
+	
+	/**
+	 * Check if construction of this untangling was stopped by the cancellation token of the setup ({@link UntanglingSetup#CANCELLATION}).
+	 * Runs (and processes) of a cancelled untangling are the maximal significant runs found before cancellation and 
+	 * significant runs that were not yet extended; hence, the untangling is not necessarily representative.
+	 * 
+	 * @return <tt>true</tt> if construction was cancelled; otherwise <tt>false</tt>.
+	 */
+	public boolean isCancelled() {
+		return this.cancelled;
+	}
+	
+	/**
+	 * Count a visited run and report it to the listener of this untangling.
+	 */
+	protected void countSignificantRun() {
+		this.significantRunCounter++;
+		if (this.setup.LISTENER!=null) this.setup.LISTENER.counterIncremented(this, IAnalysisListener.SIGNIFICANT_RUNS, 1);
 	}
 	
 	public Set<IRun<F,N,P,T,M>> getMaximalSignificantRuns() {
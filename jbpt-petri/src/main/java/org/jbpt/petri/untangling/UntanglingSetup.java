@@ -1,5 +1,8 @@
 package org.jbpt.petri.untangling;
 
+import org.jbpt.petri.monitoring.CancellationToken;
+import org.jbpt.petri.monitoring.IAnalysisListener;
+
 /**
  * Untangling setup.
  * 
@@ -21,4 +24,15 @@ public class UntanglingSetup {
 	 * Algorithm for checking significance property of a run.
 	 */
 	public SignificanceCheckType SIGNIFICANCE_CHECK = SignificanceCheckType.EXHAUSTIVE;
+	
+	/**
+	 * Report progress of the untangling to LISTENER: visited runs and time spent constructing runs and processes; <tt>null</tt> means no reporting.
+	 */
+	public IAnalysisListener LISTENER = null;
+	
+	/**
+	 * Stop constructing runs once CANCELLATION is cancelled or its deadline has passed; the untangling is then constructed from the runs 
+	 * visited so far and is flagged as cancelled. <tt>null</tt> means that construction cannot be cancelled.
+	 */
+	public CancellationToken CANCELLATION = null;
 }
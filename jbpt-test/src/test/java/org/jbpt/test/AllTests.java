@@ -9,8 +9,30 @@ import org.jbpt.test.bp.CBPCreatorIdempotenceTest;
 import org.jbpt.test.bp.RelSetAlgebraTest;
 import org.jbpt.test.bp.RelSetComputationTest;
 import org.jbpt.test.bp.RelSetLogCreatorTest;
+import org.jbpt.test.graph.DirectedGraphTest;
+import org.jbpt.test.graph.TransitiveClosureTest;
+import org.jbpt.test.petri.AnalysisMetricsTest;
+import org.jbpt.test.petri.CancellationTest;
+import org.jbpt.test.petri.CompactAutomatonTest;
+import org.jbpt.test.petri.CompiledNetSystemTest;
+import org.jbpt.test.petri.CoverabilityGraphTest;
+import org.jbpt.test.petri.EnabledTransitionsTest;
+import org.jbpt.test.petri.LocalSoundnessCheckerTest;
+import org.jbpt.test.petri.PackedMarkingTest;
+import org.jbpt.test.petri.ParallelStateSpaceTest;
+import org.jbpt.test.petri.PetriNetNodesTest;
+import org.jbpt.test.petri.ProjectedStateSpaceTest;
 import org.jbpt.test.petri.StateSpaceTest;
+import org.jbpt.test.petri.StateStoreTest;
+import org.jbpt.test.petri.StubbornSetsTest;
+import org.jbpt.test.petri.SymbolicStateSpaceTest;
+import org.jbpt.test.petri.unfolding.CanonicalEsparzaAdequateOrderTest;
+import org.jbpt.test.petri.unfolding.LocalConfigurationTest;
+import org.jbpt.test.petri.unfolding.PossibleExtensionsTest;
+import org.jbpt.test.petri.unfolding.UnfoldingCheckpointTest;
 import org.jbpt.test.petri.unfolding.ProperCompletePrefixUnfoldingTest;
+import org.jbpt.test.petri.unfolding.OrderingRelationsMatrixTest;
+import org.jbpt.test.petri.unfolding.SoundUnfoldingTest;
 import org.jbpt.test.tree.BCTreeExtensiveTest;
 import org.jbpt.test.tree.BCTreeTest;
 import org.jbpt.test.tree.RPSTExtensiveTest;
@@ -36,6 +58,11 @@ public class AllTests {
 		suite.addTestSuite(RelSetLogCreatorTest.class);
 		// Behavioral Profile tests [END]
 		
+		// Tests of graph algorithms [BEGIN]
+		suite.addTestSuite(DirectedGraphTest.class);
+		suite.addTestSuite(TransitiveClosureTest.class);
+		// Tests of graph algorithms [END]
+		
 		// Tests of jBPT trees [BEGIN]
 		suite.addTestSuite(BCTreeExtensiveTest.class);
 		suite.addTestSuite(BCTreeTest.class);
@@ -48,10 +75,30 @@ public class AllTests {
 		
 		// Tests of unfolding [BEGIN]		
 		suite.addTestSuite(ProperCompletePrefixUnfoldingTest.class);
+		suite.addTestSuite(PossibleExtensionsTest.class);
+		suite.addTestSuite(CanonicalEsparzaAdequateOrderTest.class);
+		suite.addTestSuite(UnfoldingCheckpointTest.class);
+		suite.addTestSuite(LocalConfigurationTest.class);
+		suite.addTestSuite(SoundUnfoldingTest.class);
+		suite.addTestSuite(OrderingRelationsMatrixTest.class);
 		// Tests of unfolding [END]
 		
 		// Tests of Petri nets [BEGIN]
 		suite.addTestSuite(StateSpaceTest.class);
+		suite.addTestSuite(CompactAutomatonTest.class);
+		suite.addTestSuite(StubbornSetsTest.class);
+		suite.addTestSuite(StateStoreTest.class);
+		suite.addTestSuite(SymbolicStateSpaceTest.class);
+		suite.addTestSuite(CoverabilityGraphTest.class);
+		suite.addTestSuite(CompiledNetSystemTest.class);
+		suite.addTestSuite(PackedMarkingTest.class);
+		suite.addTestSuite(EnabledTransitionsTest.class);
+		suite.addTestSuite(PetriNetNodesTest.class);
+		suite.addTestSuite(ParallelStateSpaceTest.class);
+		suite.addTestSuite(ProjectedStateSpaceTest.class);
+		suite.addTestSuite(LocalSoundnessCheckerTest.class);
+		suite.addTestSuite(AnalysisMetricsTest.class);
+		suite.addTestSuite(CancellationTest.class);
 		// Tests of Petri nets [END]
 		
 		return suite;
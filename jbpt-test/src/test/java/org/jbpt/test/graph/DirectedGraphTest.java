@@ -1,5 +1,6 @@
 package org.jbpt.test.graph;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
@@ -108,4 +109,70 @@ public class DirectedGraphTest extends TestCase {
 		//assertEquals(1,dga.getInputVertices(g).size());
 		
 	}
+	
+	public void testIncomingAndOutgoingEdges() {
+		DirectedGraph g = new DirectedGraph();
+		Vertex v1 = new Vertex("V1");
+		Vertex v2 = new Vertex("V2");
+		Vertex v3 = new Vertex("V3");
+		
+		DirectedEdge e1 = g.addEdge(v1, v2);
+		DirectedEdge e2 = g.addEdge(v1, v3);
+		DirectedEdge e3 = g.addEdge(v3, v2);
+		
+		assertEquals(2, g.getOutgoingEdgesView(v1).size());
+		assertEquals(0, g.getIncomingEdgesView(v1).size());
+		assertTrue(g.getIncomingEdgesView(v2).contains(e1));
+		assertTrue(g.getIncomingEdgesView(v2).contains(e3));
+		assertTrue(g.getIncomingEdgesView(v3).contains(e2));
+		assertTrue(g.getOutgoingEdgesView(v3).contains(e3));
+		assertEquals(1, g.getEdgesWithSourceAndTarget(v1, v3).size());
+		
+		try {
+			g.getOutgoingEdgesView(v1).clear();
+			fail();
+		} catch (UnsupportedOperationException e) {}
+		
+		// copies can be used to modify the graph
+		for (DirectedEdge e : g.getOutgoingEdges(v1))
+			g.removeEdge(e);
+		
+		assertTrue(g.getOutgoingEdgesView(v1).isEmpty());
+		assertTrue(g.getIncomingEdgesView(v3).isEmpty());
+		assertEquals(1, g.getIncomingEdgesView(v2).size());
+		
+		e3.setTarget(v1);
+		assertTrue(g.getIncomingEdgesView(v1).contains(e3));
+		assertFalse(g.getIncomingEdgesView(v2).contains(e3));
+		assertTrue(g.getOutgoingEdgesView(v3).contains(e3));
+		assertEquals(v3, g.getFirstDirectPredecessor(v1));
+		
+		g.removeVertex(v3);
+		assertTrue(g.getIncomingEdgesView(v1).isEmpty());
+		assertTrue(g.getOutgoingEdgesView(v3).isEmpty());
+	}
+	
+	public void testViewsAfterEdgeRemoval() {
+		DirectedGraph g = new DirectedGraph();
+		Vertex v1 = new Vertex("V1");
+		Vertex v2 = new Vertex("V2");
+		
+		DirectedEdge e1 = g.addEdge(v1, v2);
+		Collection<DirectedEdge> in = g.getIncomingEdgesView(v2);
+		Collection<DirectedEdge> out = g.getOutgoingEdgesView(v1);
+		assertEquals(1, in.size());
+		
+		g.removeEdge(e1);
+		assertTrue(in.isEmpty());
+		assertTrue(out.isEmpty());
+		assertFalse(in.contains(e1));
+		assertNull(g.getFirstIncomingEdge(v2));
+		
+		// views taken before the removal see edges added afterwards
+		DirectedEdge e2 = g.addEdge(v1, v2);
+		assertEquals(1, in.size());
+		assertTrue(in.contains(e2));
+		assertTrue(out.contains(e2));
+		assertEquals(e2, in.iterator().next());
+	}
 }
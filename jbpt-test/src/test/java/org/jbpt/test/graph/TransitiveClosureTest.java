@@ -0,0 +1,108 @@
+package org.jbpt.test.graph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.jbpt.algo.graph.ReflexiveTransitiveClosure;
+import org.jbpt.algo.graph.TransitiveClosure;
+import org.jbpt.graph.DirectedEdge;
+import org.jbpt.graph.DirectedGraph;
+import org.jbpt.hypergraph.abs.Vertex;
+
+public class TransitiveClosureTest extends TestCase {
+
+	public void testHasPath() {
+		DirectedGraph dg = new DirectedGraph();
+
+		Vertex a = new Vertex("a");
+		Vertex b = new Vertex("b");
+		Vertex c = new Vertex("c");
+		Vertex d = new Vertex("d");
+		Vertex e = new Vertex("e");
+		Vertex f = new Vertex("f");
+		Vertex g = new Vertex("g");
+		Vertex h = new Vertex("h");
+		Vertex i = new Vertex("i");
+
+		dg.addEdge(a,b);
+		dg.addEdge(b,c);
+		dg.addEdge(c,d);
+		dg.addEdge(d,c);
+		dg.addEdge(e,a);
+		dg.addEdge(b,e);
+		dg.addEdge(b,f);
+		dg.addEdge(c,g);
+		dg.addEdge(d,h);
+		dg.addEdge(e,f);
+		dg.addEdge(f,g);
+		dg.addEdge(g,f);
+		dg.addEdge(g,h);
+		dg.addEdge(h,h);
+		dg.addVertex(i);
+
+		TransitiveClosure<DirectedEdge,Vertex> tc = new TransitiveClosure<DirectedEdge,Vertex>(dg);
+		assertTrue(tc.hasPath(a,h));
+		assertTrue(tc.hasPath(e,b));
+		assertTrue(tc.hasPath(g,f));
+		assertFalse(tc.hasPath(h,g));
+		assertFalse(tc.hasPath(f,c));
+		assertFalse(tc.hasPath(a,i));
+		assertFalse(tc.hasPath(i,i));
+		assertFalse(tc.hasPath(a,new Vertex("x")));
+
+		assertTrue(tc.isInLoop(a));
+		assertTrue(tc.isInLoop(d));
+		assertTrue(tc.isInLoop(h));
+		assertFalse(tc.isInLoop(i));
+
+		ReflexiveTransitiveClosure<DirectedEdge,Vertex> rtc = new ReflexiveTransitiveClosure<DirectedEdge,Vertex>(dg);
+		assertTrue(rtc.hasPath(i,i));
+		assertTrue(rtc.hasPath(h,h));
+		assertFalse(rtc.hasPath(h,g));
+	}
+
+	public void testRandomGraphs() {
+		Random random = new Random(4711);
+
+		for (int run = 0; run < 20; run++) {
+			DirectedGraph dg = new DirectedGraph();
+			List<Vertex> vs = new ArrayList<Vertex>();
+			for (int k = 0; k < 150; k++) {
+				Vertex v = new Vertex(Integer.toString(k));
+				dg.addVertex(v);
+				vs.add(v);
+			}
+			for (int k = 0; k < 60 + run * 10; k++)
+				dg.addEdge(vs.get(random.nextInt(vs.size())), vs.get(random.nextInt(vs.size())));
+
+			TransitiveClosure<DirectedEdge,Vertex> tc = new TransitiveClosure<DirectedEdge,Vertex>(dg);
+			ReflexiveTransitiveClosure<DirectedEdge,Vertex> rtc = new ReflexiveTransitiveClosure<DirectedEdge,Vertex>(dg);
+			for (Vertex v1 : vs) {
+				Set<Vertex> reachable = this.reachable(dg,v1);
+				for (Vertex v2 : vs) {
+					assertEquals(reachable.contains(v2), tc.hasPath(v1,v2));
+					assertEquals(v1==v2 || reachable.contains(v2), rtc.hasPath(v1,v2));
+				}
+				assertEquals(reachable.contains(v1), tc.isInLoop(v1));
+			}
+		}
+	}
+
+	private Set<Vertex> reachable(DirectedGraph dg, Vertex v) {
+		Set<Vertex> result = new HashSet<Vertex>();
+		Deque<Vertex> toVisit = new ArrayDeque<Vertex>(dg.getDirectSuccessors(v));
+		while (!toVisit.isEmpty()) {
+			Vertex w = toVisit.pop();
+			if (result.add(w))
+				toVisit.addAll(dg.getDirectSuccessors(w));
+		}
+		return result;
+	}
+}
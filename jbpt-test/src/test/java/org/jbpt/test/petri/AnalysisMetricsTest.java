@@ -0,0 +1,168 @@
+package org.jbpt.test.petri;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+import junit.framework.TestCase;
+
+import org.jbpt.petri.Flow;
+import org.jbpt.petri.Marking;
+import org.jbpt.petri.NetSystem;
+import org.jbpt.petri.Node;
+import org.jbpt.petri.Place;
+import org.jbpt.petri.Transition;
+import org.jbpt.petri.behavior.CoverabilityGraph;
+import org.jbpt.petri.behavior.SimpleStateSpace;
+import org.jbpt.petri.monitoring.AnalysisMetrics;
+import org.jbpt.petri.monitoring.IAnalysisListener;
+import org.jbpt.petri.unfolding.CompletePrefixUnfolding;
+import org.jbpt.petri.unfolding.CompletePrefixUnfoldingSetup;
+import org.jbpt.petri.untangling.BaselineRepresentativeUntangling;
+import org.jbpt.petri.untangling.UntanglingSetup;
+
+public class AnalysisMetricsTest extends TestCase {
+
+	/**
+	 * Net with two concurrent branches; every branch chooses between two transitions and may loop.
+	 */
+	private NetSystem createNet() {
+		NetSystem net = new NetSystem();
+		Place i = new Place("i");
+		Place o = new Place("o");
+		Transition fork = new Transition("fork");
+		Transition join = new Transition("join");
+		net.addFlow(i, fork);
+		net.addFlow(join, o);
+		for (int k = 0; k < 2; k++) {
+			Place p1 = new Place("p" + k + "1");
+			Place p2 = new Place("p" + k + "2");
+			Transition a = new Transition("a" + k);
+			Transition b = new Transition("b" + k);
+			Transition c = new Transition("c" + k);
+			net.addFlow(fork, p1);
+			net.addFlow(p1, a);
+			net.addFlow(p1, b);
+			net.addFlow(a, p2);
+			net.addFlow(b, p2);
+			net.addFlow(p2, c);
+			net.addFlow(c, p1);
+			net.addFlow(p2, join);
+		}
+		net.putTokens(i, 1);
+		return net;
+	}
+
+	/**
+	 * Net with a choice inside a loop.
+	 */
+	private NetSystem createLoop() {
+		NetSystem net = new NetSystem();
+		Place i = new Place("i");
+		Place p = new Place("p");
+		Place o = new Place("o");
+		Transition a = new Transition("a");
+		Transition b = new Transition("b");
+		Transition c = new Transition("c");
+		Transition d = new Transition("d");
+		net.addFlow(i, a);
+		net.addFlow(a, p);
+		net.addFlow(p, b);
+		net.addFlow(p, c);
+		net.addFlow(b, i);
+		net.addFlow(c, i);
+		net.addFlow(p, d);
+		net.addFlow(d, o);
+		net.putTokens(i, 1);
+		return net;
+	}
+
+	public void testUnfolding() {
+		AnalysisMetrics metrics = new AnalysisMetrics();
+		CompletePrefixUnfoldingSetup setup = new CompletePrefixUnfoldingSetup();
+		setup.LISTENER = metrics;
+		CompletePrefixUnfolding cpu = new CompletePrefixUnfolding(this.createNet(), setup);
+
+		assertEquals(cpu.getEvents().size(), metrics.getValue(IAnalysisListener.EVENTS));
+		assertEquals(cpu.getCutoffEvents().size(), metrics.getValue(IAnalysisListener.CUTOFF_EVENTS));
+		assertEquals(0, metrics.getValue(IAnalysisListener.POSSIBLE_EXTENSIONS));
+		assertTrue(metrics.getValue(IAnalysisListener.COSET_ENUMERATIONS) > 0);
+		assertEquals(cpu.getEvents().size(), metrics.getValue(IAnalysisListener.APPEND_EVENT + "Count"));
+		assertEquals(cpu.getEvents().size() - cpu.getCutoffEvents().size(), metrics.getValue(IAnalysisListener.POSSIBLE_EXTENSIONS_UPDATE + "Count"));
+		assertEquals(1, metrics.getValue(IAnalysisListener.CONSTRUCTION + "Count"));
+		assertTrue(metrics.getValue(IAnalysisListener.CONSTRUCTION + "Nanos") > 0);
+
+		// a budget of events leaves possible extensions pending
+		metrics.reset();
+		setup.MAX_EVENTS = 3;
+		cpu = new CompletePrefixUnfolding(this.createNet(), setup);
+		assertEquals(3, metrics.getValue(IAnalysisListener.EVENTS));
+		assertTrue(metrics.getValue(IAnalysisListener.POSSIBLE_EXTENSIONS) > 0);
+
+		// no listener, no reporting
+		metrics.reset();
+		setup.LISTENER = null;
+		new CompletePrefixUnfolding(this.createNet(), setup);
+		assertTrue(metrics.getValues().isEmpty());
+	}
+
+	public void testUntanglingAndStateSpace() {
+		AnalysisMetrics metrics = new AnalysisMetrics();
+		UntanglingSetup setup = new UntanglingSetup();
+		setup.LISTENER = metrics;
+		BaselineRepresentativeUntangling untangling = new BaselineRepresentativeUntangling(this.createLoop(), setup);
+		assertTrue(untangling.getNumberOfSignificantRuns() > 0);
+		assertEquals(untangling.getNumberOfSignificantRuns(), metrics.getValue(IAnalysisListener.SIGNIFICANT_RUNS));
+		assertEquals(1, metrics.getValue(IAnalysisListener.RUNS_CONSTRUCTION + "Count"));
+		assertEquals(1, metrics.getValue(IAnalysisListener.PROCESSES_CONSTRUCTION + "Count"));
+
+		metrics.reset();
+		SimpleStateSpace<Flow,Node,Place,Transition,Marking> space = new SimpleStateSpace<Flow,Node,Place,Transition,Marking>(this.createNet());
+		space.setListener(metrics);
+		space.create();
+		assertEquals(space.getNumberOfMarkings(), metrics.getValue(IAnalysisListener.MARKINGS));
+		assertTrue(metrics.getValue(IAnalysisListener.STATE_TRANSITIONS) >= space.getNumberOfMarkings() - 1);
+		assertEquals(1, metrics.getValue(IAnalysisListener.CONSTRUCTION + "Count"));
+
+		// markings are a gauge, the coverability graph reports its current number of nodes
+		metrics.reset();
+		CoverabilityGraph<Flow,Node,Place,Transition,Marking> graph = new CoverabilityGraph<Flow,Node,Place,Transition,Marking>(this.createNet());
+		graph.setListener(metrics);
+		graph.create();
+		assertEquals(graph.getNumberOfNodes(), metrics.getValue(IAnalysisListener.MARKINGS));
+	}
+
+	public void testJMX() throws JMException {
+		AnalysisMetrics metrics = new AnalysisMetrics();
+		String name = "org.jbpt:type=AnalysisMetrics,name=" + this.getName();
+		metrics.register(name);
+		try {
+			CompletePrefixUnfoldingSetup setup = new CompletePrefixUnfoldingSetup();
+			setup.LISTENER = metrics;
+			CompletePrefixUnfolding cpu = new CompletePrefixUnfolding(this.createNet(), setup);
+
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = new ObjectName(name);
+			assertEquals(Long.valueOf(cpu.getEvents().size()), server.getAttribute(objectName, IAnalysisListener.EVENTS));
+			assertEquals(metrics.getValues().size(), server.getMBeanInfo(objectName).getAttributes().length);
+			assertEquals(1, server.getMBeanInfo(objectName).getOperations().length);
+			assertEquals("reset", server.getMBeanInfo(objectName).getOperations()[0].getName());
+
+			server.invoke(objectName, "reset", null, null);
+			assertEquals(0, metrics.getValue(IAnalysisListener.EVENTS));
+
+			try {
+				server.invoke(objectName, "stop", null, null);
+				fail();
+			} catch (ReflectionException e) {
+				assertTrue(e.getTargetException() instanceof NoSuchMethodException);
+			}
+		} finally {
+			metrics.unregister();
+		}
+		assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(name)));
+	}
+}
@@ -0,0 +1,177 @@
+package org.jbpt.test.petri;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.jbpt.bp.CausalBehaviouralProfile;
+import org.jbpt.bp.construct.CBPCreatorUnfolding;
+import org.jbpt.petri.Flow;
+import org.jbpt.petri.Marking;
+import org.jbpt.petri.NetSystem;
+import org.jbpt.petri.Node;
+import org.jbpt.petri.Place;
+import org.jbpt.petri.Transition;
+import org.jbpt.petri.behavior.SimpleStateSpace;
+import org.jbpt.petri.monitoring.CancellationToken;
+import org.jbpt.petri.monitoring.IAnalysisListener;
+import org.jbpt.petri.unfolding.CompletePrefixUnfolding;
+import org.jbpt.petri.unfolding.CompletePrefixUnfoldingSetup;
+import org.jbpt.petri.untangling.BaselineRepresentativeUntangling;
+import org.jbpt.petri.untangling.UntanglingSetup;
+
+public class CancellationTest extends TestCase {
+
+	/**
+	 * Net with concurrent branches; every branch chooses between two transitions and may loop.
+	 */
+	private NetSystem createNet(int branches) {
+		NetSystem net = new NetSystem();
+		Place i = new Place("i");
+		Place o = new Place("o");
+		Transition fork = new Transition("fork");
+		Transition join = new Transition("join");
+		net.addFlow(i, fork);
+		net.addFlow(join, o);
+		for (int k = 0; k < branches; k++) {
+			Place p1 = new Place("p" + k + "1");
+			Place p2 = new Place("p" + k + "2");
+			Transition a = new Transition("a" + k);
+			Transition b = new Transition("b" + k);
+			Transition c = new Transition("c" + k);
+			net.addFlow(fork, p1);
+			net.addFlow(p1, a);
+			net.addFlow(p1, b);
+			net.addFlow(a, p2);
+			net.addFlow(b, p2);
+			net.addFlow(p2, c);
+			net.addFlow(c, p1);
+			net.addFlow(p2, join);
+		}
+		net.putTokens(i, 1);
+		return net;
+	}
+
+	/**
+	 * Listener that cancels a token once a counter or a gauge reaches a limit.
+	 */
+	private static class Canceller implements IAnalysisListener {
+		private final CancellationToken token;
+		private final String name;
+		private final long limit;
+		private long value = 0;
+
+		Canceller(CancellationToken token, String name, long limit) {
+			this.token = token;
+			this.name = name;
+			this.limit = limit;
+		}
+
+		public void phaseFinished(Object source, String phase, long nanos) {}
+
+		public void counterIncremented(Object source, String counter, long delta) {
+			if (counter.equals(this.name)) this.update(this.value + delta);
+		}
+
+		public void gaugeUpdated(Object source, String gauge, long value) {
+			if (gauge.equals(this.name)) this.update(value);
+		}
+
+		private void update(long value) {
+			this.value = value;
+			if (this.value >= this.limit) this.token.cancel();
+		}
+	}
+
+	public void testToken() {
+		CancellationToken token = new CancellationToken();
+		assertFalse(token.isCancelled());
+		assertEquals(Long.MAX_VALUE, token.getRemainingTime(TimeUnit.MILLISECONDS));
+		token.cancel();
+		assertTrue(token.isCancelled());
+
+		assertTrue(new CancellationToken(0, TimeUnit.MILLISECONDS).isCancelled());
+		token = new CancellationToken(1, TimeUnit.HOURS);
+		assertFalse(token.isCancelled());
+		assertTrue(token.getRemainingTime(TimeUnit.MINUTES) > 58);
+	}
+
+	public void testUnfolding() {
+		NetSystem net = this.createNet(3);
+		CompletePrefixUnfolding full = new CompletePrefixUnfolding(net);
+		assertFalse(full.isCancelled());
+		assertTrue(full.isComplete());
+
+		// cancel after five appended events
+		CompletePrefixUnfoldingSetup setup = new CompletePrefixUnfoldingSetup();
+		setup.CANCELLATION = new CancellationToken();
+		setup.LISTENER = new Canceller(setup.CANCELLATION, IAnalysisListener.EVENTS, 5);
+		CompletePrefixUnfolding cpu = new CompletePrefixUnfolding(net, setup);
+		assertTrue(cpu.isCancelled());
+		assertFalse(cpu.isComplete());
+		assertEquals(5, cpu.getEvents().size());
+
+		// a cancelled unfolding can be continued with a fresh token
+		setup.CANCELLATION = null;
+		cpu.resume(Integer.MAX_VALUE);
+		assertFalse(cpu.isCancelled());
+		assertTrue(cpu.isComplete());
+		assertEquals(full.getEvents().size(), cpu.getEvents().size());
+		assertEquals(full.getCutoffEvents().size(), cpu.getCutoffEvents().size());
+
+		// deadline that has passed
+		setup = new CompletePrefixUnfoldingSetup();
+		setup.CANCELLATION = new CancellationToken(0, TimeUnit.MILLISECONDS);
+		cpu = new CompletePrefixUnfolding(net, setup);
+		assertTrue(cpu.isCancelled());
+		assertEquals(0, cpu.getEvents().size());
+	}
+
+	public void testUntangling() {
+		// the untangling of the net does not finish in reasonable time
+		UntanglingSetup setup = new UntanglingSetup();
+		setup.CANCELLATION = new CancellationToken(200, TimeUnit.MILLISECONDS);
+		BaselineRepresentativeUntangling untangling = new BaselineRepresentativeUntangling(this.createNet(3), setup);
+		assertTrue(untangling.isCancelled());
+		assertFalse(untangling.getMaximalSignificantRuns().isEmpty());
+		assertEquals(untangling.getMaximalSignificantRuns().size(), untangling.getProcesses().size());
+	}
+
+	public void testStateSpace() {
+		NetSystem net = this.createNet(3);
+		SimpleStateSpace<Flow,Node,Place,Transition,Marking> space = new SimpleStateSpace<Flow,Node,Place,Transition,Marking>(net);
+		space.create();
+		assertFalse(space.isCancelled());
+		int markings = space.getNumberOfMarkings();
+
+		// cancel after five discovered markings
+		CancellationToken token = new CancellationToken();
+		space = new SimpleStateSpace<Flow,Node,Place,Transition,Marking>(net);
+		space.setCancellationToken(token);
+		space.setListener(new Canceller(token, IAnalysisListener.MARKINGS, 5));
+		space.create();
+		assertTrue(space.isCancelled());
+		assertEquals(5, space.getNumberOfMarkings());
+		assertTrue(space.getNumberOfMarkings() < markings);
+	}
+
+	public void testCausalBehaviouralProfile() {
+		NetSystem net = this.createNet(1);
+		CausalBehaviouralProfile<NetSystem,Node> profile = CBPCreatorUnfolding.getInstance().deriveCausalBehaviouralProfile(net);
+		assertTrue(profile.isComplete());
+		profile = CBPCreatorUnfolding.getInstance().deriveCausalBehaviouralProfile(net, new ArrayList<Node>(net.getTransitions()), new CancellationToken());
+		assertTrue(profile.isComplete());
+
+		CancellationToken token = new CancellationToken();
+		token.cancel();
+		profile = CBPCreatorUnfolding.getInstance().deriveCausalBehaviouralProfile(net, new ArrayList<Node>(net.getTransitions()), token);
+		assertFalse(profile.isComplete());
+
+		// the derivation of the profile of the net does not finish in reasonable time
+		net = this.createNet(3);
+		token = new CancellationToken(200, TimeUnit.MILLISECONDS);
+		profile = CBPCreatorUnfolding.getInstance().deriveCausalBehaviouralProfile(net, new ArrayList<Node>(net.getTransitions()), token);
+		assertFalse(profile.isComplete());
+	}
+}
@@ -0,0 +1,141 @@
+package org.jbpt.test.petri;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.jbpt.automaton.AbstractCompactAutomaton;
+import org.jbpt.automaton.AbstractState;
+import org.jbpt.automaton.AbstractStateTransition;
+import org.jbpt.automaton.Automaton;
+import org.jbpt.automaton.CompactAutomaton;
+import org.jbpt.automaton.State;
+import org.jbpt.automaton.StateTransition;
+import org.jbpt.petri.Flow;
+import org.jbpt.petri.Marking;
+import org.jbpt.petri.NetSystem;
+import org.jbpt.petri.Node;
+import org.jbpt.petri.Place;
+import org.jbpt.petri.Transition;
+import org.jbpt.petri.io.PNMLSerializer;
+
+public class CompactAutomatonTest extends TestCase {
+
+	/**
+	 * Compare a compact automaton to an automaton of the same net system.
+	 */
+	private void assertSameAutomaton(Automaton expected, CompactAutomaton actual) {
+		assertEquals(expected.isComplete(), actual.isComplete());
+		assertEquals(expected.getStates().size(), actual.getNumberOfStates());
+		assertEquals(expected.getStateTransitions().size(), actual.getNumberOfStateTransitions());
+
+		for (State s : expected.getStates()) {
+			assertTrue(actual.isReachable(s.getMarking()));
+			assertEquals(s.getMarking(), actual.getMarking(actual.getStateIndex(s.getMarking())));
+		}
+
+		// materialized graph
+		Set<Marking> markings = new HashSet<Marking>();
+		for (State s : expected.getStates()) markings.add(s.getMarking());
+		Set<Marking> compactMarkings = new HashSet<Marking>();
+		for (State s : actual.getStates()) compactMarkings.add(s.getMarking());
+		assertEquals(markings, compactMarkings);
+		assertEquals(expected.getStateTransitions().size(), actual.getStateTransitions().size());
+		assertEquals(expected.getStartState().getMarking(), actual.getStartState().getMarking());
+		assertEquals(actual.getStates().size(), actual.getVertices().size());
+		for (StateTransition st : actual.getStateTransitions())
+			assertTrue(actual.getNetSystem().getEnabledTransitionsAtMarking(st.getSource().getMarking()).contains(st.getTransition()));
+
+		// reachability between markings
+		List<State> states = new ArrayList<State>(expected.getStates());
+		for (int i = 0; i < Math.min(10, states.size()); i++) {
+			Marking m1 = states.get(i).getMarking();
+			Marking m2 = states.get(states.size()-1-i).getMarking();
+			assertEquals(expected.isReachable(m1, m2), actual.isReachable(m1, m2));
+			// the compact automaton accepts the empty sequence of transitions
+			assertTrue(actual.isReachable(m1, m1));
+		}
+	}
+
+	public void testSimpleAutomaton() {
+		PNMLSerializer ser = new PNMLSerializer();
+		NetSystem netSystem = ser.parse("src/test/resources/models/petri_net_pnml/simp.pnml");
+
+		CompactAutomaton automaton = new CompactAutomaton(netSystem);
+		assertTrue(automaton.isComplete());
+		assertEquals(121, automaton.getNumberOfStates());
+		assertEquals(1, automaton.getBitsPerPlace());
+		assertTrue(automaton.toDOT().contains("state120->marking120"));
+
+		this.assertSameAutomaton(new Automaton(netSystem), automaton);
+
+		Marking m = (Marking) netSystem.getMarking().clone();
+		m.put(netSystem.getPlaces().iterator().next(), 5);
+		assertFalse(automaton.isReachable(m));
+	}
+
+	public void testZeroSteps() {
+		NetSystem net = new NetSystem();
+		Place p = new Place("p");
+		Place q = new Place("q");
+		Transition t = new Transition("t");
+		net.addFlow(p, t);
+		net.addFlow(t, q);
+		net.putTokens(p, 1);
+
+		Automaton expected = new Automaton(net);
+		CompactAutomaton automaton = new CompactAutomaton(net);
+		Marking m = new Marking(net);
+		m.put(q, 1);
+
+		// every reachable marking is reachable from itself in the compact automaton, also a marking that enables no transition;
+		// the automaton requires a cycle
+		assertTrue(automaton.isReachable(m, m));
+		assertFalse(expected.isReachable(m, m));
+		assertTrue(automaton.isReachable(net.getMarking(), m));
+		assertFalse(automaton.isReachable(m, net.getMarking()));
+		assertFalse(expected.isReachable(m, net.getMarking()));
+
+		// states of automata with the generic state type get materialized as well
+		AbstractCompactAutomaton<AbstractStateTransition<AbstractState<Flow,Node,Place,Transition,Marking>,Flow,Node,Place,Transition,Marking>,AbstractState<Flow,Node,Place,Transition,Marking>,Flow,Node,Place,Transition,Marking> generic =
+				new AbstractCompactAutomaton<AbstractStateTransition<AbstractState<Flow,Node,Place,Transition,Marking>,Flow,Node,Place,Transition,Marking>,AbstractState<Flow,Node,Place,Transition,Marking>,Flow,Node,Place,Transition,Marking>(net);
+		assertEquals(2, generic.getStates().size());
+		assertEquals(net.getMarking(), generic.getStartState().getMarking());
+		assertEquals(1, generic.getStateTransitions().size());
+	}
+
+	public void testUnboundedAutomaton() {
+		// t produces tokens in q, u consumes them
+		NetSystem net = new NetSystem();
+		Place p = new Place("p");
+		Place q = new Place("q");
+		Transition t = new Transition("t");
+		Transition u = new Transition("u");
+		net.addFlow(p, t);
+		net.addFlow(t, p);
+		net.addFlow(t, q);
+		net.addFlow(q, u);
+		net.putTokens(p, 1);
+
+		CompactAutomaton automaton = new CompactAutomaton(net, 50);
+		assertFalse(automaton.isComplete());
+		assertEquals(50, automaton.getNumberOfStates());
+		assertEquals(8, automaton.getBitsPerPlace());
+		this.assertSameAutomaton(new Automaton(net, 50), automaton);
+
+		Marking m = new Marking(net);
+		m.put(p, 1);
+		m.put(q, 40);
+		assertTrue(automaton.isReachable(m));
+		assertTrue(automaton.isReachable(m, net.getMarking()));
+
+		automaton.construct(net, 0);
+		assertEquals(0, automaton.getNumberOfStates());
+		assertNull(automaton.getStartState());
+		assertTrue(automaton.getVertices().isEmpty());
+		assertFalse(automaton.isReachable(net.getMarking()));
+	}
+}
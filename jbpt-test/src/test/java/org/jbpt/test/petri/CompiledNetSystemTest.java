@@ -0,0 +1,95 @@
+package org.jbpt.test.petri;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.jbpt.petri.CompiledNetSystem;
+import org.jbpt.petri.Flow;
+import org.jbpt.petri.Marking;
+import org.jbpt.petri.NetSystem;
+import org.jbpt.petri.Node;
+import org.jbpt.petri.Place;
+import org.jbpt.petri.Transition;
+import org.jbpt.petri.io.PNMLSerializer;
+
+public class CompiledNetSystemTest extends TestCase {
+
+	public void testFiring() {
+		NetSystem net = new NetSystem();
+		Place p1 = new Place("1");
+		Place p2 = new Place("2");
+		Place p3 = new Place("3");
+		Transition a = new Transition("a");
+		Transition b = new Transition("b");
+		net.addFlow(p1,a);
+		net.addFlow(a,p2);
+		net.addFlow(a,p3);
+		net.addFlow(p2,b);
+		net.addFlow(p3,b);
+		net.addFlow(b,p1);
+		net.putTokens(p1,1);
+
+		CompiledNetSystem<Flow,Node,Place,Transition,Marking> cns = new CompiledNetSystem<Flow,Node,Place,Transition,Marking>(net);
+		assertEquals(3, cns.getNumberOfPlaces());
+		assertEquals(2, cns.getNumberOfTransitions());
+		assertEquals(2, cns.getPostsetSize(cns.getTransitionIndex(a)));
+		assertEquals(2, cns.getPresetSize(cns.getTransitionIndex(b)));
+
+		int[] m = cns.getInitialMarking();
+		assertTrue(cns.isEnabled(m,cns.getTransitionIndex(a)));
+		assertFalse(cns.isEnabled(m,cns.getTransitionIndex(b)));
+		assertFalse(cns.fire(m,cns.getTransitionIndex(b)));
+		assertTrue(cns.fire(m,cns.getTransitionIndex(a)));
+		assertEquals(0, m[cns.getPlaceIndex(p1)]);
+		assertEquals(1, m[cns.getPlaceIndex(p2)]);
+		assertEquals(1, m[cns.getPlaceIndex(p3)]);
+
+		Marking marking = cns.toMarking(m);
+		assertTrue(marking.isMarked(p2));
+		assertTrue(marking.isMarked(p3));
+		assertTrue(Arrays.equals(m, cns.toTokenVector(marking)));
+
+		// the view is a snapshot
+		assertEquals(1, (int) net.getTokens(p1));
+	}
+
+	public void testReachableMarkings() throws IOException {
+		PNMLSerializer ser = new PNMLSerializer();
+		NetSystem net = ser.parse("src/test/resources/models/petri_net_pnml/simp.pnml");
+		CompiledNetSystem<Flow,Node,Place,Transition,Marking> cns = new CompiledNetSystem<Flow,Node,Place,Transition,Marking>(net);
+
+		int[] enabled = new int[cns.getNumberOfTransitions()];
+		int count = cns.getEnabledTransitions(cns.getInitialMarking(), enabled);
+		assertEquals(net.getEnabledTransitions().size(), count);
+
+		Set<List<Integer>> visited = new HashSet<List<Integer>>();
+		Deque<int[]> toVisit = new ArrayDeque<int[]>();
+		toVisit.push(cns.getInitialMarking());
+		visited.add(asList(cns.getInitialMarking()));
+		while (!toVisit.isEmpty()) {
+			int[] m = toVisit.pop();
+			count = cns.getEnabledTransitions(m, enabled);
+			for (int i=0; i<count; i++) {
+				int[] mm = m.clone();
+				cns.fire(mm, enabled[i]);
+				if (visited.add(asList(mm)))
+					toVisit.push(mm);
+			}
+		}
+
+		assertEquals(121, visited.size());
+	}
+
+	private List<Integer> asList(int[] marking) {
+		Integer[] result = new Integer[marking.length];
+		for (int i=0; i<marking.length; i++) result[i] = marking[i];
+		return Arrays.asList(result);
+	}
+}
@@ -0,0 +1,218 @@
+package org.jbpt.test.petri;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.jbpt.automaton.CompactAutomaton;
+import org.jbpt.automaton.State;
+import org.jbpt.automaton.StateTransition;
+import org.jbpt.petri.Flow;
+import org.jbpt.petri.Marking;
+import org.jbpt.petri.NetSystem;
+import org.jbpt.petri.Node;
+import org.jbpt.petri.Place;
+import org.jbpt.petri.Transition;
+import org.jbpt.petri.behavior.CoverabilityGraph;
+import org.jbpt.petri.behavior.OmegaMarking;
+import org.jbpt.petri.io.PNMLSerializer;
+
+public class CoverabilityGraphTest extends TestCase {
+
+	private CoverabilityGraph<Flow,Node,Place,Transition,Marking> createGraph(NetSystem net) {
+		CoverabilityGraph<Flow,Node,Place,Transition,Marking> graph = new CoverabilityGraph<Flow,Node,Place,Transition,Marking>(net);
+		graph.create();
+		assertTrue(graph.isComplete());
+		return graph;
+	}
+
+	/**
+	 * Check that markings of the minimal coverability set do not cover each other.
+	 */
+	private void assertMinimal(CoverabilityGraph<Flow,Node,Place,Transition,Marking> graph, NetSystem net) {
+		for (OmegaMarking<Place> m1 : graph.getMarkings())
+			for (OmegaMarking<Place> m2 : graph.getMarkings()) {
+				if (m1.equals(m2)) continue;
+				boolean covers = true;
+				for (Place p : net.getPlaces()) covers &= m1.get(p) >= m2.get(p);
+				assertFalse(covers);
+			}
+	}
+
+	/**
+	 * Check that an omega marking puts the same number of tokens on every place as a marking.
+	 */
+	private boolean isSame(OmegaMarking<Place> m1, Marking m2, NetSystem net) {
+		for (Place p : net.getPlaces())
+			if (m1.get(p) != m2.get(p)) return false;
+
+		return true;
+	}
+
+	/**
+	 * Check that every marking of a (partial) reachability graph is coverable.
+	 */
+	private void assertCoverable(CoverabilityGraph<Flow,Node,Place,Transition,Marking> graph, CompactAutomaton automaton) {
+		for (State s : automaton.getStates())
+			assertTrue(graph.isCoverable(s.getMarking()));
+	}
+
+	public void testBounded() {
+		PNMLSerializer ser = new PNMLSerializer();
+		NetSystem net = ser.parse("src/test/resources/models/petri_net_pnml/simp.pnml");
+		CoverabilityGraph<Flow,Node,Place,Transition,Marking> graph = this.createGraph(net);
+		CompactAutomaton automaton = new CompactAutomaton(net);
+
+		assertTrue(graph.isBounded());
+		assertTrue(graph.getUnboundedPlaces().isEmpty());
+		this.assertMinimal(graph, net);
+		this.assertCoverable(graph, automaton);
+
+		// markings of the minimal coverability set of a bounded net system are reachable
+		Set<Marking> reachable = new HashSet<Marking>();
+		for (State s : automaton.getStates()) reachable.add(s.getMarking());
+		for (OmegaMarking<Place> m : graph.getMarkings()) {
+			boolean found = false;
+			for (Marking r : reachable) found |= this.isSame(m, r, net);
+			assertTrue(found);
+		}
+		assertTrue(graph.getNumberOfNodes() <= automaton.getNumberOfStates());
+
+		for (Place p : net.getPlaces()) {
+			int bound = 0;
+			for (Marking m : reachable) bound = Math.max(bound, m.get(p));
+			assertEquals(bound, graph.getBound(p));
+		}
+
+		Set<Transition> dead = new HashSet<Transition>(net.getTransitions());
+		for (StateTransition st : automaton.getStateTransitions()) dead.remove(st.getTransition());
+		assertEquals(dead, graph.getDeadTransitions());
+	}
+
+	public void testUnbounded() {
+		// producer that puts tokens on a buffer, and a consumer of the buffer
+		NetSystem net = new NetSystem();
+		Place p = new Place("p");
+		Place buffer = new Place("buffer");
+		Place q = new Place("q");
+		Place r = new Place("r");
+		Place s = new Place("s");
+		Transition produce = new Transition("produce");
+		Transition consume = new Transition("consume");
+		Transition stop = new Transition("stop");
+		Transition never = new Transition("never");
+		net.addFlow(p, produce);
+		net.addFlow(produce, p);
+		net.addFlow(produce, buffer);
+		net.addFlow(buffer, consume);
+		net.addFlow(q, consume);
+		net.addFlow(consume, q);
+		net.addFlow(p, stop);
+		net.addFlow(stop, r);
+		net.addFlow(s, never);
+		net.addFlow(never, q);
+		net.putTokens(p, 1);
+		net.putTokens(q, 1);
+
+		CoverabilityGraph<Flow,Node,Place,Transition,Marking> graph = this.createGraph(net);
+		assertFalse(graph.isBounded());
+		assertEquals(1, graph.getUnboundedPlaces().size());
+		assertTrue(graph.getUnboundedPlaces().contains(buffer));
+		assertEquals(CoverabilityGraph.OMEGA, graph.getBound(buffer));
+		for (OmegaMarking<Place> m : graph.getMarkings()) {
+			assertTrue(m.isOmega(buffer));
+			assertFalse(m.isOmega(p));
+		}
+		assertEquals(1, graph.getBound(p));
+		assertEquals(1, graph.getBound(r));
+		assertEquals(0, graph.getBound(s));
+		assertEquals(2, graph.getMarkings().size());
+		this.assertMinimal(graph, net);
+		this.assertCoverable(graph, new CompactAutomaton(net, 1000));
+
+		Set<Transition> dead = new HashSet<Transition>();
+		dead.add(never);
+		assertEquals(dead, graph.getDeadTransitions());
+
+		Marking m = new Marking(net);
+		m.put(buffer, 1000);
+		m.put(r, 1);
+		assertTrue(graph.isCoverable(m));
+		m.put(p, 1);
+		assertFalse(graph.isCoverable(m));
+
+		for (OmegaMarking<Place> marking : graph.getMarkings()) {
+			Map<Transition,OmegaMarking<Place>> successors = graph.getSuccessors(marking);
+			if (marking.get(p) > 0) {
+				assertEquals(3, successors.size());
+				assertEquals(marking, successors.get(produce));
+			}
+			else
+				assertEquals(1, successors.size());
+		}
+	}
+
+	/**
+	 * Net where a loop of n transitions moves a token around and every round adds a token to a counter,
+	 * and a second counter grows only after the first one, i.e., acceleration is needed repeatedly.
+	 */
+	public void testNestedGrowth() {
+		int n = 6;
+		NetSystem net = new NetSystem();
+		Place c1 = new Place("c1");
+		Place c2 = new Place("c2");
+		Place first = new Place("l0");
+		Place last = first;
+		for (int k = 1; k < n; k++) {
+			Place next = new Place("l" + k);
+			Transition t = new Transition("t" + k);
+			net.addFlow(last, t);
+			net.addFlow(t, next);
+			last = next;
+		}
+		Transition round = new Transition("round");
+		net.addFlow(last, round);
+		net.addFlow(round, first);
+		net.addFlow(round, c1);
+		Transition convert = new Transition("convert");
+		net.addFlow(c1, convert);
+		net.addFlow(convert, c2);
+		Transition drain = new Transition("drain");
+		net.addFlow(c2, drain);
+		net.putTokens(first, 1);
+
+		CoverabilityGraph<Flow,Node,Place,Transition,Marking> graph = this.createGraph(net);
+		assertFalse(graph.isBounded());
+		assertEquals(2, graph.getUnboundedPlaces().size());
+		assertTrue(graph.getUnboundedPlaces().contains(c1));
+		assertTrue(graph.getUnboundedPlaces().contains(c2));
+		assertEquals(n, graph.getMarkings().size());
+		assertTrue(graph.getDeadTransitions().isEmpty());
+		this.assertMinimal(graph, net);
+		this.assertCoverable(graph, new CompactAutomaton(net, 2000));
+	}
+
+	public void testIncomplete() {
+		NetSystem net = new NetSystem();
+		Place p = new Place("p");
+		Transition t = new Transition("t");
+		net.addFlow(p, t);
+		net.putTokens(p, 1);
+
+		CoverabilityGraph<Flow,Node,Place,Transition,Marking> graph = new CoverabilityGraph<Flow,Node,Place,Transition,Marking>(net);
+		assertFalse(graph.isComplete());
+		try {
+			graph.isBounded();
+			fail();
+		}
+		catch (IllegalStateException e) {
+		}
+
+		graph.create();
+		assertTrue(graph.isBounded());
+		assertEquals(1, graph.getMarkings().size());
+		assertTrue(this.isSame(graph.getMarkings().iterator().next(), net.getMarking(), net));
+	}
+}
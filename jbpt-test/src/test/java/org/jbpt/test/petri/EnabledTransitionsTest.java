@@ -0,0 +1,136 @@
+package org.jbpt.test.petri;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.jbpt.petri.Marking;
+import org.jbpt.petri.NetSystem;
+import org.jbpt.petri.Place;
+import org.jbpt.petri.Transition;
+import org.jbpt.petri.io.PNMLSerializer;
+
+public class EnabledTransitionsTest extends TestCase {
+	
+	public void testSimulation() throws IOException {
+		PNMLSerializer ser = new PNMLSerializer();
+		NetSystem net = ser.parse("src/test/resources/models/petri_net_pnml/simp.pnml");
+		Random random = new Random(0);
+		
+		for (int i=0; i<200; i++) {
+			Set<Transition> enabled = net.getEnabledTransitions();
+			assertEquals(this.getEnabledTransitions(net), enabled);
+			if (enabled.isEmpty()) {
+				net.loadNaturalMarking();
+				continue;
+			}
+			
+			List<Transition> ts = new ArrayList<Transition>(enabled);
+			Transition t = ts.get(random.nextInt(ts.size()));
+			assertTrue(net.isEnabled(t));
+			assertTrue(net.fire(t));
+		}
+	}
+	
+	public void testUpdates() {
+		NetSystem net = new NetSystem();
+		Place p1 = new Place("1");
+		Place p2 = new Place("2");
+		Transition a = new Transition("a");
+		Transition b = new Transition("b");
+		net.addFlow(p1,a);
+		net.addFlow(a,p2);
+		net.addFlow(p2,b);
+		net.putTokens(p1,1);
+		
+		assertEquals(1, net.getEnabledTransitions().size());
+		assertTrue(net.isEnabled(a));
+		assertFalse(net.fire(b));
+		
+		// direct update of the marking
+		net.getMarking().put(p2,1);
+		assertTrue(net.isEnabled(b));
+		
+		// update of the structure
+		Place p3 = new Place("3");
+		net.addFlow(p3,b);
+		assertFalse(net.isEnabled(b));
+		net.putTokens(p3,1);
+		assertTrue(net.isEnabled(b));
+		
+		Transition c = new Transition("c");
+		net.addTransition(c);
+		assertTrue(net.isEnabled(c));
+		net.removeTransition(c);
+		assertFalse(net.isEnabled(c));
+		
+		net.removePlace(p1);
+		assertTrue(net.isEnabled(a));
+		assertEquals(this.getEnabledTransitions(net), net.getEnabledTransitions());
+	}
+	
+	public void testLoadMarking() {
+		NetSystem net = new NetSystem();
+		Place p1 = new Place("1");
+		Place p2 = new Place("2");
+		Transition a = new Transition("a");
+		Transition b = new Transition("b");
+		net.addFlow(p1,a);
+		net.addFlow(a,p2);
+		net.addFlow(p2,b);
+		net.addFlow(b,p1);
+		net.putTokens(p1,1);
+		
+		Marking m = new Marking(net);
+		m.put(p1,1);
+		assertTrue(net.fire(a));
+		assertTrue(net.isEnabled(b));
+		assertFalse(net.isEnabled(a));
+		
+		net.loadMarking(m);
+		assertTrue(net.isEnabled(a));
+		assertFalse(net.isEnabled(b));
+		assertEquals(this.getEnabledTransitions(net), net.getEnabledTransitions());
+	}
+	
+	public void testLastFired() {
+		NetSystem net = new NetSystem();
+		Place p1 = new Place("1");
+		Place p2 = new Place("2");
+		Place p3 = new Place("3");
+		Transition a = new Transition("a");
+		Transition b = new Transition("b");
+		Transition c = new Transition("c");
+		net.addFlow(p1,a);
+		net.addFlow(a,p2);
+		net.addFlow(p2,b);
+		net.addFlow(p1,c);
+		net.addFlow(c,p3);
+		net.putTokens(p1,1);
+		
+		Set<Transition> enabled = net.getEnabledTransitions();
+		assertTrue(net.fire(a));
+		
+		Set<Transition> expected = new HashSet<Transition>();
+		expected.add(b);
+		assertEquals(expected, net.getEnabledTransitions(enabled, a));
+		
+		// only the given transitions and the neighbourhood of the fired transition are considered
+		assertEquals(expected, net.getEnabledTransitions(new HashSet<Transition>(), a));
+		assertEquals(new HashSet<Transition>(), net.getEnabledTransitions(new HashSet<Transition>(), c));
+	}
+	
+	private Set<Transition> getEnabledTransitions(NetSystem net) {
+		Set<Transition> result = new HashSet<Transition>();
+		for (Transition t : net.getTransitions())
+			if (net.getMarkedPlaces().containsAll(net.getPreset(t)))
+				result.add(t);
+		
+		return result;
+	}
+}
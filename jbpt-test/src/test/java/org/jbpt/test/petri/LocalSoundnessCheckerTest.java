@@ -0,0 +1,154 @@
+package org.jbpt.test.petri;
+
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.jbpt.petri.NetSystem;
+import org.jbpt.petri.Place;
+import org.jbpt.petri.Transition;
+import org.jbpt.petri.behavior.LocalSoundnessChecker;
+import org.jbpt.petri.behavior.LolaSoundnessCheckerResult;
+
+public class LocalSoundnessCheckerTest extends TestCase {
+
+	private NetSystem net;
+	private Place p1, p2, p3, p4, p5, p6;
+	private Transition t1, t2, t3, t4;
+
+	@Override
+	protected void setUp() {
+		net = new NetSystem();
+		p1 = new Place("p1");
+		p2 = new Place("p2");
+		p3 = new Place("p3");
+		p4 = new Place("p4");
+		p5 = new Place("p5");
+		p6 = new Place("p6");
+		t1 = new Transition("t1");
+		t2 = new Transition("t2");
+		t3 = new Transition("t3");
+		t4 = new Transition("t4");
+		net.addFlow(p1, t1);
+		net.addFlow(t1, p2);
+		net.addFlow(t1, p3);
+		net.addFlow(p2, t2);
+		net.addFlow(p3, t3);
+		net.addFlow(t2, p4);
+		net.addFlow(t3, p5);
+		net.addFlow(p4, t4);
+		net.addFlow(p5, t4);
+		net.addFlow(t4, p6);
+		net.putTokens(p1,1);
+	}
+
+	public void testSound() {
+		LolaSoundnessCheckerResult result = LocalSoundnessChecker.analyzeSoundness(net);
+		assertTrue(result.isBounded());
+		assertTrue(result.hasQuasiLiveness());
+		assertTrue(result.hasLiveness());
+		assertTrue(result.isRelaxedSound());
+		assertTrue(result.isWeakSound());
+		assertTrue(result.isClassicalSound());
+		assertTrue(result.getDeadTransitions().isEmpty());
+		assertTrue(result.getUncoveredTransitions().isEmpty());
+		assertEquals(1, (int) net.getTokens(p1));
+	}
+
+	public void testDeadlock() {
+		// t1 becomes an XOR-split that is joined by an AND-join
+		net.removeFlow(net.getDirectedEdge(t1, p3));
+		Transition t5 = new Transition("t5");
+		net.addFlow(p1, t5);
+		net.addFlow(t5, p3);
+
+		LolaSoundnessCheckerResult result = LocalSoundnessChecker.analyzeSoundness(net);
+		assertTrue(result.isBounded());
+		assertFalse(result.isWeakSound());
+		assertFalse(result.isClassicalSound());
+		assertFalse(result.isRelaxedSound());
+		assertEquals(Arrays.asList(t4), result.getDeadTransitions());
+		assertTrue(result.getUncoveredTransitions().containsAll(Arrays.asList(t1, t2, t3, t4, t5)));
+	}
+
+	public void testImproperCompletion() {
+		// t2 or t3 may complete the net while the other branch still has a token
+		Transition t5 = new Transition("t5");
+		net.addFlow(p4, t5);
+		net.addFlow(t5, p6);
+
+		LolaSoundnessCheckerResult result = LocalSoundnessChecker.analyzeSoundness(net);
+		assertTrue(result.isBounded());
+		assertTrue(result.hasQuasiLiveness());
+		assertFalse(result.isRelaxedSound());
+		assertEquals(Arrays.asList(t5), result.getUncoveredTransitions());
+		assertFalse(result.isWeakSound());
+		assertFalse(result.isClassicalSound());
+	}
+
+	public void testUnbounded() {
+		Place p7 = new Place("p7");
+		Transition t5 = new Transition("t5");
+		net.addFlow(p2, t5);
+		net.addFlow(t5, p2);
+		net.addFlow(t5, p7);
+		net.addFlow(p7, t4);
+
+		LolaSoundnessCheckerResult result = LocalSoundnessChecker.analyzeSoundness(net);
+		assertFalse(result.isBounded());
+		assertFalse(result.isClassicalSound());
+		assertEquals(Arrays.asList(p7), result.getUnboundedPlaces());
+	}
+
+	public void testSourceTransition() {
+		// t5 is always enabled and produces tokens at p3
+		Transition t5 = new Transition("t5");
+		net.addFlow(t5, p3);
+
+		LolaSoundnessCheckerResult result = LocalSoundnessChecker.analyzeSoundness(net);
+		assertFalse(result.isBounded());
+		assertFalse(result.isClassicalSound());
+		assertEquals(Arrays.asList(p3), result.getUnboundedPlaces());
+	}
+
+	public void testSNet() {
+		// every transition has one input and one output place, hence the net system is bounded for any initial marking
+		NetSystem sNet = new NetSystem();
+		Place i = new Place("i");
+		Place p = new Place("p");
+		Place o = new Place("o");
+		Transition a = new Transition("a");
+		Transition b = new Transition("b");
+		Transition c = new Transition("c");
+		sNet.addFlow(i, a);
+		sNet.addFlow(a, p);
+		sNet.addFlow(p, b);
+		sNet.addFlow(b, p);
+		sNet.addFlow(p, c);
+		sNet.addFlow(c, o);
+		sNet.putTokens(i, 1);
+
+		LolaSoundnessCheckerResult result = LocalSoundnessChecker.analyzeSoundness(sNet);
+		assertTrue(result.isBounded());
+		assertTrue(result.isClassicalSound());
+
+		sNet.putTokens(i, 2);
+		result = LocalSoundnessChecker.analyzeSoundness(sNet);
+		assertTrue(result.isBounded());
+		assertTrue(result.getUnboundedPlaces().isEmpty());
+		assertFalse(result.isWeakSound());
+		assertFalse(result.isClassicalSound());
+	}
+
+	public void testBatch() throws Exception {
+		NetSystem unsound = (NetSystem) net.clone();
+		unsound.putTokens(unsound.getSourcePlaces().iterator().next(), 2);
+
+		List<LolaSoundnessCheckerResult> results = LocalSoundnessChecker.analyzeSoundness(Arrays.asList(net, unsound, net), 2);
+		assertEquals(3, results.size());
+		assertTrue(results.get(0).isClassicalSound());
+		assertFalse(results.get(1).isClassicalSound());
+		assertTrue(results.get(2).isClassicalSound());
+	}
+}
@@ -0,0 +1,140 @@
+package org.jbpt.test.petri;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.jbpt.petri.Flow;
+import org.jbpt.petri.IMarking;
+import org.jbpt.petri.Marking;
+import org.jbpt.petri.NetSystem;
+import org.jbpt.petri.Node;
+import org.jbpt.petri.Place;
+import org.jbpt.petri.SafeMarking;
+import org.jbpt.petri.TokenVectorMarking;
+import org.jbpt.petri.Transition;
+import org.jbpt.petri.io.PNMLSerializer;
+
+public class PackedMarkingTest extends TestCase {
+	
+	public void testTokenVectorMarking() {
+		NetSystem net = new NetSystem();
+		Place p1 = new Place("1");
+		Place p2 = new Place("2");
+		Transition a = new Transition("a");
+		net.addFlow(p1,a);
+		net.addFlow(a,p2);
+		
+		TokenVectorMarking m = new TokenVectorMarking(net);
+		assertTrue(m.isEmpty());
+		assertEquals(0, (int) m.put(p1,2));
+		assertEquals(2, (int) m.get(p1));
+		assertEquals(1, m.size());
+		assertFalse(m.isSafe());
+		
+		Marking n = new Marking(net);
+		n.put(p1,2);
+		assertEquals(n, m);
+		assertEquals(m, n);
+		assertEquals(n.hashCode(), m.hashCode());
+		
+		IMarking<Flow,Node,Place,Transition> c = m.clone();
+		assertTrue(m.fire(a));
+		assertEquals(1, (int) m.get(p1));
+		assertEquals(1, (int) m.get(p2));
+		assertEquals(2, (int) c.get(p1));
+		assertFalse(m.equals(c));
+		assertEquals(2, m.toMultiSet().size());
+		
+		assertTrue(m.fire(a));
+		assertFalse(m.fire(a));
+		assertEquals(1, m.size());
+		assertEquals(2, (int) m.remove(p2));
+		assertNull(m.remove(p2));
+		assertTrue(m.isEmpty());
+		assertEquals(c.createMarking(net).hashCode(), m.hashCode());
+		
+		// places added after the marking was created
+		Place p3 = new Place("3");
+		net.addFlow(a,p3);
+		m.put(p1,1);
+		assertTrue(m.fire(a));
+		assertEquals(1, (int) m.get(p3));
+		
+		try {
+			m.put(new Place("4"),1);
+			fail();
+		} catch (IllegalArgumentException e) {}
+	}
+	
+	public void testSafeMarking() {
+		NetSystem net = new NetSystem();
+		Place p1 = new Place("1");
+		Place p2 = new Place("2");
+		Transition a = new Transition("a");
+		net.addFlow(p1,a);
+		net.addFlow(a,p2);
+		
+		SafeMarking m = new SafeMarking(net);
+		m.put(p1,1);
+		m.put(p2,1);
+		try {
+			m.fire(a);
+			fail();
+		} catch (IllegalArgumentException e) {}
+		assertTrue(m.isMarked(p1));
+		assertTrue(m.isMarked(p2));
+		
+		m.remove(p2);
+		assertTrue(m.fire(a));
+		assertFalse(m.isMarked(p1));
+		assertTrue(m.isMarked(p2));
+		assertTrue(m.isSafe());
+		
+		try {
+			m.put(p1,2);
+			fail();
+		} catch (IllegalArgumentException e) {}
+	}
+	
+	public void testReachableMarkings() throws IOException {
+		PNMLSerializer ser = new PNMLSerializer();
+		NetSystem net = ser.parse("src/test/resources/models/petri_net_pnml/simp.pnml");
+		
+		Marking m = new Marking(net);
+		m.putAll(net.getMarking());
+		TokenVectorMarking tm = new TokenVectorMarking(net);
+		tm.putAll(net.getMarking());
+		SafeMarking sm = new SafeMarking(net);
+		sm.putAll(net.getMarking());
+		
+		Set<IMarking<Flow,Node,Place,Transition>> ms = this.explore(net, m);
+		Set<IMarking<Flow,Node,Place,Transition>> tms = this.explore(net, tm);
+		Set<IMarking<Flow,Node,Place,Transition>> sms = this.explore(net, sm);
+		
+		assertEquals(121, ms.size());
+		assertEquals(ms, tms);
+		assertEquals(ms, sms);
+	}
+	
+	private Set<IMarking<Flow,Node,Place,Transition>> explore(NetSystem net, IMarking<Flow,Node,Place,Transition> initial) {
+		Set<IMarking<Flow,Node,Place,Transition>> visited = new HashSet<IMarking<Flow,Node,Place,Transition>>();
+		Deque<IMarking<Flow,Node,Place,Transition>> toVisit = new ArrayDeque<IMarking<Flow,Node,Place,Transition>>();
+		visited.add(initial);
+		toVisit.push(initial);
+		while (!toVisit.isEmpty()) {
+			IMarking<Flow,Node,Place,Transition> m = toVisit.pop();
+			for (Transition t : net.getTransitions()) {
+				IMarking<Flow,Node,Place,Transition> mm = m.clone();
+				if (mm.fire(t) && visited.add(mm))
+					toVisit.push(mm);
+			}
+		}
+		
+		return visited;
+	}
+}
@@ -0,0 +1,152 @@
+package org.jbpt.test.petri;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.jbpt.petri.Flow;
+import org.jbpt.petri.Marking;
+import org.jbpt.petri.NetSystem;
+import org.jbpt.petri.Node;
+import org.jbpt.petri.Place;
+import org.jbpt.petri.Transition;
+import org.jbpt.petri.behavior.ParallelStateSpace;
+import org.jbpt.petri.behavior.ProjectedStateSpace;
+import org.jbpt.petri.behavior.SimpleStateSpace;
+import org.jbpt.petri.io.PNMLSerializer;
+import org.jbpt.petri.structure.PetriNetProjector;
+
+public class ParallelStateSpaceTest extends TestCase {
+
+	public void testParallelStateSpace() {
+		PNMLSerializer ser = new PNMLSerializer();
+		NetSystem netSystem = ser.parse("src/test/resources/models/petri_net_pnml/simp.pnml");
+		Marking initial = (Marking) netSystem.getMarking().clone();
+
+		ParallelStateSpace<Flow, Node, Place, Transition, Marking> space = new ParallelStateSpace<Flow, Node, Place, Transition, Marking>(netSystem, 4);
+
+		space.createUpToNumberOfMarkings(0);
+		assertEquals(1, space.getNumberOfMarkings());
+
+		space.createUpToNumberOfMarkings(10);
+		assertEquals(10, space.getNumberOfMarkings());
+
+		space.create();
+		assertEquals(121, space.getNumberOfMarkings());
+		assertEquals(initial, netSystem.getMarking());
+
+		SimpleStateSpace<Flow, Node, Place, Transition, Marking> simple = new SimpleStateSpace<Flow, Node, Place, Transition, Marking>(netSystem);
+		simple.create();
+		assertEquals(simple.getNumberOfMarkings(), space.getNumberOfMarkings());
+
+		Map<Marking, Map<Transition, Marking>> transitions = space.getStateTransitions();
+		int count = 0;
+		for (Map<Transition, Marking> steps : transitions.values()) count += steps.size();
+		assertEquals(count, space.getNumberOfStateTransitions());
+		assertTrue(space.getMarkings().containsAll(transitions.keySet()));
+		assertTrue(space.getMarkings().contains(initial));
+
+		// every enabled transition leads to a discovered marking
+		for (Marking m : space.getMarkings()) {
+			netSystem.loadMarking(m);
+			assertEquals(netSystem.getEnabledTransitions().size(), transitions.containsKey(m) ? transitions.get(m).size() : 0);
+			for (Transition t : netSystem.getEnabledTransitions()) {
+				netSystem.loadMarking(m);
+				netSystem.fire(t);
+				assertEquals(netSystem.getMarking(), transitions.get(m).get(t));
+			}
+		}
+		netSystem.loadMarking(initial);
+	}
+
+	public void testParallelStateSpaceReducedNet() {
+		PNMLSerializer ser = new PNMLSerializer();
+		NetSystem netSystem = ser.parse("src/test/resources/models/petri_net_pnml/simp.pnml");
+
+		PetriNetProjector<Flow, Node, Place, Transition> projector = new PetriNetProjector<Flow, Node, Place, Transition>();
+		projector.reducePetriNetBasedOnProjectionSet(netSystem, netSystem.getObservableTransitions());
+
+		ParallelStateSpace<Flow, Node, Place, Transition, Marking> space = new ParallelStateSpace<Flow, Node, Place, Transition, Marking>(netSystem);
+		space.create();
+		assertEquals(18, space.getNumberOfMarkings());
+		assertTrue(space.toDOT().startsWith("digraph G {"));
+	}
+
+
+	/**
+	 * Compute steps over a projection set by a sequential search over pairs of markings and last fired transitions of the projection set.
+	 */
+	private Map<Transition,Set<Transition>> getSteps(NetSystem net, Set<Transition> projectionSet) {
+		Map<Transition,Set<Transition>> result = new HashMap<Transition,Set<Transition>>();
+		for (Transition t : projectionSet) result.put(t, new HashSet<Transition>());
+
+		Marking initial = (Marking) net.getMarking().clone();
+		Set<List<Object>> visited = new HashSet<List<Object>>();
+		List<List<Object>> queue = new ArrayList<List<Object>>();
+		List<Object> start = new ArrayList<Object>();
+		start.add(null);
+		start.add(initial);
+		queue.add(start);
+		visited.add(start);
+		for (int i = 0; i < queue.size(); i++) {
+			Transition context = (Transition) queue.get(i).get(0);
+			Marking m = (Marking) queue.get(i).get(1);
+			net.loadMarking(m);
+			for (Transition t : new ArrayList<Transition>(net.getEnabledTransitions())) {
+				net.loadMarking(m);
+				net.fire(t);
+				Transition next = context;
+				if (projectionSet.contains(t)) {
+					if (context != null && projectionSet.contains(context)) result.get(context).add(t);
+					next = t;
+				}
+				else if (context == null) next = t;
+
+				List<Object> state = new ArrayList<Object>();
+				state.add(next);
+				state.add(net.getMarking().clone());
+				if (visited.add(state)) queue.add(state);
+			}
+		}
+		net.loadMarking(initial);
+
+		return result;
+	}
+
+	public void testProjectedStateSpace() {
+		PNMLSerializer ser = new PNMLSerializer();
+		NetSystem netSystem = ser.parse("src/test/resources/models/petri_net_pnml/simp.pnml");
+		Set<Transition> projectionSet = netSystem.getObservableTransitions();
+		Marking initial = (Marking) netSystem.getMarking().clone();
+		Map<Transition,Set<Transition>> steps = this.getSteps(netSystem, projectionSet);
+
+		ProjectedStateSpace<Flow, Node, Place, Transition, Marking> projected = new ProjectedStateSpace<Flow, Node, Place, Transition, Marking>(netSystem, projectionSet);
+		projected.create();
+		assertEquals(initial, netSystem.getMarking());
+		for (Transition t1 : projectionSet)
+			for (Transition t2 : projectionSet)
+				assertEquals(steps.get(t1).contains(t2), projected.isStep(t1, t2));
+
+		for (int parallelism = 1; parallelism <= 4; parallelism *= 2) {
+			ParallelStateSpace<Flow, Node, Place, Transition, Marking> space = new ParallelStateSpace<Flow, Node, Place, Transition, Marking>(netSystem, parallelism);
+			space.setProjectionSet(projectionSet);
+			space.create();
+			assertEquals(121, space.getNumberOfMarkings());
+			assertEquals(steps, space.getSteps());
+			for (Transition t1 : projectionSet)
+				for (Transition t2 : projectionSet)
+					assertEquals(steps.get(t1).contains(t2), space.isStep(t1, t2));
+
+			space.setPartialOrderReduction(true);
+			space.create();
+			assertTrue(space.getNumberOfMarkings() <= 121);
+			assertEquals(steps, space.getSteps());
+		}
+		assertEquals(initial, netSystem.getMarking());
+	}
+}
@@ -0,0 +1,71 @@
+package org.jbpt.test.petri;
+
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.jbpt.petri.Flow;
+import org.jbpt.petri.PetriNet;
+import org.jbpt.petri.Place;
+import org.jbpt.petri.Transition;
+
+public class PetriNetNodesTest extends TestCase {
+	
+	public void testNodeIndexes() {
+		PetriNet net = new PetriNet();
+		Place p1 = new Place("1");
+		Place p2 = new Place("2");
+		Transition a = new Transition("a");
+		Transition t = new Transition("t","");
+		
+		// nodes added via flows
+		net.addFlow(p1,a);
+		Flow f = net.addFlow(a,p2);
+		net.addTransition(t);
+		
+		assertEquals(2, net.getPlaces().size());
+		assertEquals(2, net.getTransitions().size());
+		assertTrue(net.getPlaces().contains(p1));
+		assertTrue(net.getTransitions().contains(t));
+		assertEquals(1, net.getSilentTransitions().size());
+		assertEquals(1, net.getObservableTransitions().size());
+		
+		t.setLabel("t");
+		assertEquals(0, net.getSilentTransitions().size());
+		
+		// copies can be changed, views are read-only
+		net.getPlaces().clear();
+		assertEquals(2, net.getPlaces().size());
+		try {
+			net.getPlacesView().clear();
+			fail();
+		} catch (UnsupportedOperationException e) {}
+		
+		// copies do not reflect later changes, views do
+		Set<Transition> ts = net.getTransitions();
+		Set<Transition> view = net.getTransitionsView();
+		net.addTransition(new Transition("b"));
+		assertEquals(2, ts.size());
+		assertEquals(3, view.size());
+		
+		// the net can be changed while iterating over a copy
+		for (Transition u : net.getTransitions())
+			net.addFlow(u, new Place());
+		assertEquals(5, net.getPlaces().size());
+		
+		net.removeFlow(f);
+		assertTrue(net.getPlaces().contains(p2));
+		
+		net.removeTransition(a);
+		assertEquals(net.getNodes().size(), net.getPlaces().size() + net.getTransitions().size());
+		assertFalse(net.getTransitions().contains(a));
+		assertFalse(view.contains(a));
+		
+		net.removePlace(p1);
+		assertEquals(4, net.getPlaces().size());
+		
+		PetriNet clone = (PetriNet) net.clone();
+		assertEquals(4, clone.getPlaces().size());
+		assertEquals(2, clone.getTransitions().size());
+	}
+}
@@ -0,0 +1,166 @@
+package org.jbpt.test.petri;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.jbpt.automaton.CompactAutomaton;
+import org.jbpt.automaton.store.HeapIntArray;
+import org.jbpt.automaton.store.IIntArray;
+import org.jbpt.automaton.store.MappedIntArray;
+import org.jbpt.automaton.store.StateStore;
+import org.jbpt.petri.Flow;
+import org.jbpt.petri.Marking;
+import org.jbpt.petri.NetSystem;
+import org.jbpt.petri.Node;
+import org.jbpt.petri.Place;
+import org.jbpt.petri.Transition;
+import org.jbpt.petri.behavior.SimpleStateSpace;
+import org.jbpt.petri.io.PNMLSerializer;
+import org.jbpt.petri.monitoring.CancellationToken;
+
+public class StateStoreTest extends TestCase {
+
+	protected static final File DIRECTORY = new File("target/statestore");
+
+	private void assertArray(IIntArray array) throws IOException {
+		array.ensureCapacity(10);
+		assertTrue(array.size() >= 10);
+		for (int i = 0; i < 10; i++) array.set(i, i+1);
+
+		// grow beyond a single page
+		long size = (1L << 26) + 5;
+		array.ensureCapacity(size);
+		assertTrue(array.size() >= size);
+		for (int i = 0; i < 10; i++) assertEquals(i+1, array.get(i));
+		assertEquals(0, array.get(size-1));
+		array.set(size-1, -7);
+		assertEquals(-7, array.get(size-1));
+		array.close();
+	}
+
+	public void testArrays() throws IOException {
+		this.assertArray(new HeapIntArray(0));
+
+		DIRECTORY.mkdirs();
+		File file = new File(DIRECTORY, "array.bin");
+		this.assertArray(new MappedIntArray(file, 0));
+		assertFalse(file.exists());
+	}
+
+	private void assertStore(StateStore store) throws IOException {
+		int places = 37;
+		Random random = new Random(1);
+		int[][] markings = new int[500][];
+		for (int i = 0; i < markings.length; i++) {
+			// tokens grow, so that the number of bits per place has to grow
+			int max = i < 100 ? 1 : (i < 200 ? 3 : (i < 300 ? 200 : Integer.MAX_VALUE));
+			markings[i] = new int[places];
+			for (int p = 0; p < places; p++) markings[i][p] = random.nextInt(max) + (max==1 ? random.nextInt(2) : 0);
+			if (store.indexOf(markings[i]) >= 0) {
+				markings[i] = null;
+				continue;
+			}
+			assertEquals(store.getNumberOfStates(), store.addState(markings[i]));
+		}
+		assertEquals(32, store.getBitsPerPlace());
+
+		int[] marking = new int[places];
+		for (int i = 0, s = 0; i < markings.length; i++) {
+			if (markings[i] == null) continue;
+			assertEquals(s, store.indexOf(markings[i]));
+			store.getMarking(s, marking);
+			assertTrue(Arrays.equals(markings[i], marking));
+			s++;
+		}
+		marking[0] = -1;
+		assertEquals(-1, store.indexOf(marking));
+
+		// rows of state transitions, state 1 has none
+		store.expand(0);
+		store.addTransition(3, 1);
+		store.addTransition(4, 2);
+		store.expand(2);
+		store.addTransition(5, 0);
+		assertEquals(3, store.getNumberOfTransitions());
+		assertEquals(0, store.getFirstTransition(0));
+		assertEquals(2, store.getEndTransition(0));
+		assertEquals(store.getFirstTransition(1), store.getEndTransition(1));
+		assertEquals(2, store.getFirstTransition(2));
+		assertEquals(3, store.getEndTransition(2));
+		assertEquals(5, store.getTransition(2));
+		assertEquals(0, store.getTarget(2));
+		assertEquals(store.getFirstTransition(3), store.getEndTransition(3));
+		try {
+			store.expand(1);
+			fail();
+		}
+		catch (IllegalArgumentException e) {}
+
+		store.close();
+	}
+
+	public void testStore() throws IOException {
+		this.assertStore(new StateStore(37));
+
+		StateStore store = new StateStore(37, DIRECTORY);
+		assertTrue(store.isMapped());
+		this.assertStore(store);
+		assertEquals(0, DIRECTORY.list().length);
+
+		// arrays grow in place on rehashing and repacking, one file per array
+		store = new StateStore(3, DIRECTORY);
+		assertEquals(6, DIRECTORY.list().length);
+		for (int i = 0; i < 1000; i++) store.addState(new int[] {i, i % 7, 1});
+		assertEquals(6, DIRECTORY.list().length);
+		for (int i = 0; i < 1000; i++) assertEquals(i, store.indexOf(new int[] {i, i % 7, 1}));
+		store.close();
+		assertEquals(0, DIRECTORY.list().length);
+	}
+
+	public void testDiskBackedStateSpace() {
+		PNMLSerializer ser = new PNMLSerializer();
+		NetSystem netSystem = ser.parse("src/test/resources/models/petri_net_pnml/simp.pnml");
+
+		CompactAutomaton heap = new CompactAutomaton(netSystem);
+		CompactAutomaton disk = new CompactAutomaton(netSystem, Integer.MAX_VALUE, false, DIRECTORY);
+		assertTrue(DIRECTORY.list().length > 0);
+		assertEquals(121, disk.getNumberOfStates());
+		assertEquals(heap.getNumberOfStateTransitions(), disk.getNumberOfStateTransitions());
+		assertEquals(heap.toDOT(), disk.toDOT());
+		for (int s = 0; s < heap.getNumberOfStates(); s++) {
+			assertEquals(s, disk.getStateIndex(heap.getMarking(s)));
+			assertEquals(heap.isDead(s), disk.isDead(s));
+		}
+		disk.close();
+		assertEquals(0, DIRECTORY.list().length);
+
+		SimpleStateSpace<Flow,Node,Place,Transition,Marking> space = new SimpleStateSpace<Flow,Node,Place,Transition,Marking>(netSystem);
+		space.create();
+		SimpleStateSpace<Flow,Node,Place,Transition,Marking> diskSpace = new SimpleStateSpace<Flow,Node,Place,Transition,Marking>(netSystem);
+		diskSpace.setStorageDirectory(DIRECTORY);
+		diskSpace.createUpToNumberOfMarkings(10);
+		assertEquals(10, diskSpace.getNumberOfMarkings());
+		diskSpace.create();
+		assertEquals(121, diskSpace.getNumberOfMarkings());
+		assertEquals(space.getDeadMarkings(), diskSpace.getDeadMarkings());
+		diskSpace.clear();
+		assertEquals(0, DIRECTORY.list().length);
+
+		CancellationToken token = new CancellationToken();
+		token.cancel();
+		diskSpace.setCancellationToken(token);
+		diskSpace.create();
+		assertTrue(diskSpace.isCancelled());
+		assertEquals(1, diskSpace.getNumberOfMarkings());
+		diskSpace.setCancellationToken(null);
+		diskSpace.create();
+		assertFalse(diskSpace.isCancelled());
+		assertEquals(121, diskSpace.getNumberOfMarkings());
+		diskSpace.clear();
+		assertEquals(0, DIRECTORY.list().length);
+	}
+}
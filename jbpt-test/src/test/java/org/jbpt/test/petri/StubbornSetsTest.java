@@ -0,0 +1,247 @@
+package org.jbpt.test.petri;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.jbpt.automaton.AbstractAutomaton;
+import org.jbpt.automaton.Automaton;
+import org.jbpt.automaton.CompactAutomaton;
+import org.jbpt.automaton.State;
+import org.jbpt.petri.Flow;
+import org.jbpt.petri.Marking;
+import org.jbpt.petri.NetSystem;
+import org.jbpt.petri.Node;
+import org.jbpt.petri.Place;
+import org.jbpt.petri.Transition;
+import org.jbpt.petri.behavior.ParallelStateSpace;
+import org.jbpt.petri.behavior.ProjectedStateSpace;
+import org.jbpt.petri.behavior.SimpleStateSpace;
+import org.jbpt.petri.behavior.StubbornSets;
+import org.jbpt.petri.io.PNMLSerializer;
+
+public class StubbornSetsTest extends TestCase {
+
+	/**
+	 * Net with an AND-split into sequences of two transitions that get joined.
+	 */
+	private NetSystem createAndSplit(int branches) {
+		NetSystem net = new NetSystem();
+		Place i = new Place("i");
+		Place o = new Place("o");
+		Transition fork = new Transition("fork");
+		Transition join = new Transition("join");
+		net.addFlow(i, fork);
+		net.addFlow(join, o);
+		for (int k = 0; k < branches; k++) {
+			Place p = new Place("p" + k);
+			Place q = new Place("q" + k);
+			Place r = new Place("r" + k);
+			Transition a = new Transition("a" + k);
+			Transition b = new Transition("b" + k);
+			net.addFlow(fork, p);
+			net.addFlow(p, a);
+			net.addFlow(a, q);
+			net.addFlow(q, b);
+			net.addFlow(b, r);
+			net.addFlow(r, join);
+		}
+		net.putTokens(i, 1);
+		return net;
+	}
+
+	/**
+	 * Two processes that acquire two locks in opposite order, and independent sequences of two transitions.
+	 */
+	private NetSystem createLocks(int sequences) {
+		NetSystem net = new NetSystem();
+		Place l1 = new Place("l1");
+		Place l2 = new Place("l2");
+		for (int k = 1; k <= 2; k++) {
+			Place s = new Place("s" + k);
+			Place m = new Place("m" + k);
+			Place e = new Place("e" + k);
+			Place f = new Place("f" + k);
+			Transition a = new Transition("a" + k);
+			Transition b = new Transition("b" + k);
+			Transition c = new Transition("c" + k);
+			net.addFlow(s, a);
+			net.addFlow(k==1 ? l1 : l2, a);
+			net.addFlow(a, m);
+			net.addFlow(m, b);
+			net.addFlow(k==1 ? l2 : l1, b);
+			net.addFlow(b, e);
+			net.addFlow(e, c);
+			net.addFlow(c, f);
+			net.addFlow(c, l1);
+			net.addFlow(c, l2);
+			net.putTokens(s, 1);
+		}
+		for (int k = 0; k < sequences; k++) {
+			Place p = new Place("p" + k);
+			Place q = new Place("q" + k);
+			Place r = new Place("r" + k);
+			Transition x = new Transition("x" + k);
+			Transition y = new Transition("y" + k);
+			net.addFlow(p, x);
+			net.addFlow(x, q);
+			net.addFlow(q, y);
+			net.addFlow(y, r);
+			net.putTokens(p, 1);
+		}
+		net.putTokens(l1, 1);
+		net.putTokens(l2, 1);
+		return net;
+	}
+
+	/**
+	 * Net with concurrent branches; every branch chooses between two transitions and may loop.
+	 */
+	private NetSystem createLoops(int branches) {
+		NetSystem net = new NetSystem();
+		Place i = new Place("i");
+		Place o = new Place("o");
+		Transition fork = new Transition("fork");
+		Transition join = new Transition("join");
+		net.addFlow(i, fork);
+		net.addFlow(join, o);
+		for (int k = 0; k < branches; k++) {
+			Place p1 = new Place("p" + k + "1");
+			Place p2 = new Place("p" + k + "2");
+			Transition a = new Transition("a" + k);
+			Transition b = new Transition("b" + k);
+			Transition c = new Transition("c" + k);
+			net.addFlow(fork, p1);
+			net.addFlow(p1, a);
+			net.addFlow(p1, b);
+			net.addFlow(a, p2);
+			net.addFlow(b, p2);
+			net.addFlow(p2, c);
+			net.addFlow(c, p1);
+			net.addFlow(p2, join);
+		}
+		net.putTokens(i, 1);
+		return net;
+	}
+
+	private SimpleStateSpace<Flow,Node,Place,Transition,Marking> createStateSpace(NetSystem net, boolean reduction) {
+		SimpleStateSpace<Flow,Node,Place,Transition,Marking> space = new SimpleStateSpace<Flow,Node,Place,Transition,Marking>(net);
+		space.setPartialOrderReduction(reduction);
+		space.create();
+		return space;
+	}
+
+	private Set<Marking> getDeadMarkings(AbstractAutomaton<?,State,Flow,Node,Place,Transition,Marking> automaton) {
+		Set<Marking> result = new HashSet<Marking>();
+		for (State s : automaton.getStates())
+			if (automaton.getOutgoingEdges(s).isEmpty()) result.add(s.getMarking());
+		return result;
+	}
+
+	/**
+	 * Check that reduced state spaces and automata have the same dead markings as the full ones.
+	 */
+	private void assertSameDeadlocks(NetSystem net, int maxReduced) {
+		SimpleStateSpace<Flow,Node,Place,Transition,Marking> full = this.createStateSpace(net, false);
+		SimpleStateSpace<Flow,Node,Place,Transition,Marking> reduced = this.createStateSpace(net, true);
+		assertTrue(reduced.isPartialOrderReduction());
+		assertTrue(reduced.getNumberOfMarkings() <= maxReduced);
+		assertEquals(full.getDeadMarkings(), reduced.getDeadMarkings());
+
+		Automaton automaton = new Automaton(net, Integer.MAX_VALUE, true);
+		assertTrue(automaton.isPartialOrderReduction());
+		assertTrue(automaton.getStates().size() <= maxReduced);
+		assertEquals(full.getDeadMarkings(), this.getDeadMarkings(automaton));
+
+		CompactAutomaton compact = new CompactAutomaton(net, Integer.MAX_VALUE, true);
+		assertEquals(automaton.getStates().size(), compact.getNumberOfStates());
+		assertEquals(full.getDeadMarkings(), this.getDeadMarkings(compact));
+
+		ParallelStateSpace<Flow,Node,Place,Transition,Marking> parallel = this.createParallelStateSpace(net, new HashSet<Transition>());
+		assertTrue(parallel.getNumberOfMarkings() <= maxReduced);
+		Set<Marking> dead = parallel.getMarkings();
+		dead.removeAll(parallel.getStateTransitions().keySet());
+		assertEquals(full.getDeadMarkings(), dead);
+	}
+
+	private ParallelStateSpace<Flow,Node,Place,Transition,Marking> createParallelStateSpace(NetSystem net, Set<Transition> projectionSet) {
+		ParallelStateSpace<Flow,Node,Place,Transition,Marking> space = new ParallelStateSpace<Flow,Node,Place,Transition,Marking>(net, 4);
+		space.setProjectionSet(projectionSet);
+		space.setPartialOrderReduction(true);
+		space.create();
+		return space;
+	}
+
+	public void testStubbornSets() {
+		NetSystem net = this.createAndSplit(3);
+		StubbornSets<Flow,Node,Place,Transition,Marking> stubbornSets = new StubbornSets<Flow,Node,Place,Transition,Marking>(net);
+		assertEquals(net.getEnabledTransitions(), stubbornSets.getStubbornSet(net.getMarking()));
+
+		// after the AND-split, a single transition of one branch suffices
+		for (Transition t : net.getEnabledTransitions()) net.fire(t);
+		assertEquals(3, net.getEnabledTransitions().size());
+		assertEquals(1, stubbornSets.getStubbornSet(net.getMarking()).size());
+
+		// all visible transitions are in a set that contains an enabled visible transition
+		Set<Transition> visible = new HashSet<Transition>();
+		for (Transition t : net.getTransitions())
+			if (t.getLabel().startsWith("a")) visible.add(t);
+		stubbornSets = new StubbornSets<Flow,Node,Place,Transition,Marking>(net, visible);
+		assertEquals(net.getEnabledTransitions(), stubbornSets.getStubbornSet(net.getMarking()));
+
+		net.loadMarking(new Marking(net));
+		assertTrue(stubbornSets.getStubbornSet(net.getMarking()).isEmpty());
+	}
+
+	public void testDeadlocks() {
+		NetSystem net = this.createAndSplit(8);
+		assertEquals(6563, this.createStateSpace(net, false).getNumberOfMarkings());
+		this.assertSameDeadlocks(net, 2*8+3);
+
+		net = this.createLocks(6);
+		assertEquals(2, this.createStateSpace(net, false).getDeadMarkings().size());
+		this.assertSameDeadlocks(net, 100);
+
+		this.assertSameDeadlocks(this.createLoops(5), 1000);
+	}
+
+	/**
+	 * Check that the reduced projected state space has the same steps as the full one.
+	 */
+	private void assertSameSteps(NetSystem net, Set<Transition> projectionSet) {
+		ProjectedStateSpace<Flow,Node,Place,Transition,Marking> full = new ProjectedStateSpace<Flow,Node,Place,Transition,Marking>(net, projectionSet);
+		full.create();
+		ProjectedStateSpace<Flow,Node,Place,Transition,Marking> reduced = new ProjectedStateSpace<Flow,Node,Place,Transition,Marking>(net, projectionSet);
+		reduced.setPartialOrderReduction(true);
+		reduced.create();
+		assertTrue(reduced.getNumberOfMarkings() <= full.getNumberOfMarkings());
+
+		ParallelStateSpace<Flow,Node,Place,Transition,Marking> parallel = this.createParallelStateSpace(net, projectionSet);
+		assertTrue(parallel.getNumberOfMarkings() <= full.getNumberOfMarkings());
+
+		for (Transition t1 : projectionSet)
+			for (Transition t2 : projectionSet) {
+				assertEquals(t1 + " " + t2, full.isStep(t1,t2), reduced.isStep(t1,t2));
+				assertEquals(t1 + " " + t2, full.isStep(t1,t2), parallel.isStep(t1,t2));
+			}
+	}
+
+	public void testProjectedSteps() {
+		NetSystem net = this.createLoops(4);
+		Set<Transition> projectionSet = new HashSet<Transition>();
+		for (Transition t : net.getTransitions())
+			if (t.getLabel().equals("a0") || t.getLabel().equals("c0") || t.getLabel().equals("b1") || t.getLabel().equals("join")) projectionSet.add(t);
+		this.assertSameSteps(net, projectionSet);
+
+		net = this.createAndSplit(6);
+		projectionSet = new HashSet<Transition>();
+		for (Transition t : net.getTransitions())
+			if (t.getLabel().equals("a0") || t.getLabel().equals("b0") || t.getLabel().equals("join")) projectionSet.add(t);
+		this.assertSameSteps(net, projectionSet);
+
+		PNMLSerializer ser = new PNMLSerializer();
+		net = ser.parse("src/test/resources/models/petri_net_pnml/simp.pnml");
+		this.assertSameSteps(net, net.getObservableTransitions());
+	}
+}
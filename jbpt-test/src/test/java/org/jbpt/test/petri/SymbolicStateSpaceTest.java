@@ -0,0 +1,213 @@
+package org.jbpt.test.petri;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.jbpt.automaton.CompactAutomaton;
+import org.jbpt.automaton.State;
+import org.jbpt.automaton.StateTransition;
+import org.jbpt.petri.Flow;
+import org.jbpt.petri.Marking;
+import org.jbpt.petri.NetSystem;
+import org.jbpt.petri.Node;
+import org.jbpt.petri.Place;
+import org.jbpt.petri.Transition;
+import org.jbpt.petri.behavior.SimpleStateSpace;
+import org.jbpt.petri.behavior.SymbolicStateSpace;
+import org.jbpt.petri.io.PNMLSerializer;
+import org.jbpt.petri.monitoring.CancellationToken;
+
+public class SymbolicStateSpaceTest extends TestCase {
+
+	/**
+	 * Net with an AND-split into sequences of two transitions that get joined.
+	 */
+	private NetSystem createAndSplit(int branches) {
+		NetSystem net = new NetSystem();
+		Place i = new Place("i");
+		Place o = new Place("o");
+		Transition fork = new Transition("fork");
+		Transition join = new Transition("join");
+		net.addFlow(i, fork);
+		net.addFlow(join, o);
+		for (int k = 0; k < branches; k++) {
+			Place p = new Place("p" + k);
+			Place q = new Place("q" + k);
+			Place r = new Place("r" + k);
+			Transition a = new Transition("a" + k);
+			Transition b = new Transition("b" + k);
+			net.addFlow(fork, p);
+			net.addFlow(p, a);
+			net.addFlow(a, q);
+			net.addFlow(q, b);
+			net.addFlow(b, r);
+			net.addFlow(r, join);
+		}
+		net.putTokens(i, 1);
+		return net;
+	}
+
+	/**
+	 * Two processes that acquire two locks in opposite order.
+	 */
+	private NetSystem createLocks() {
+		NetSystem net = new NetSystem();
+		Place l1 = new Place("l1");
+		Place l2 = new Place("l2");
+		for (int k = 1; k <= 2; k++) {
+			Place s = new Place("s" + k);
+			Place m = new Place("m" + k);
+			Place e = new Place("e" + k);
+			Place f = new Place("f" + k);
+			Transition a = new Transition("a" + k);
+			Transition b = new Transition("b" + k);
+			Transition c = new Transition("c" + k);
+			Transition d = new Transition("d" + k);
+			net.addFlow(s, a);
+			net.addFlow(k==1 ? l1 : l2, a);
+			net.addFlow(a, m);
+			net.addFlow(m, b);
+			net.addFlow(k==1 ? l2 : l1, b);
+			net.addFlow(b, e);
+			net.addFlow(e, c);
+			net.addFlow(c, f);
+			net.addFlow(c, l1);
+			net.addFlow(c, l2);
+			// never enabled: e and f are never marked together
+			net.addFlow(e, d);
+			net.addFlow(f, d);
+			net.putTokens(s, 1);
+		}
+		net.putTokens(l1, 1);
+		net.putTokens(l2, 1);
+		return net;
+	}
+
+	private SymbolicStateSpace<Flow,Node,Place,Transition,Marking> createSymbolicStateSpace(NetSystem net) {
+		SymbolicStateSpace<Flow,Node,Place,Transition,Marking> space = new SymbolicStateSpace<Flow,Node,Place,Transition,Marking>(net);
+		space.create();
+		assertTrue(space.isSafe());
+		assertTrue(space.isComplete());
+		return space;
+	}
+
+	/**
+	 * Check that the symbolic state space agrees with the explicit one.
+	 */
+	private void assertSameBehavior(NetSystem net) {
+		SymbolicStateSpace<Flow,Node,Place,Transition,Marking> symbolic = this.createSymbolicStateSpace(net);
+		CompactAutomaton automaton = new CompactAutomaton(net);
+		assertEquals(BigInteger.valueOf(automaton.getNumberOfStates()), symbolic.getNumberOfMarkings());
+
+		Set<Marking> markings = new HashSet<Marking>();
+		for (State s : automaton.getStates()) {
+			markings.add(s.getMarking());
+			assertTrue(symbolic.isReachable(s.getMarking()));
+		}
+		assertEquals(markings, symbolic.getMarkings());
+
+		SimpleStateSpace<Flow,Node,Place,Transition,Marking> explicit = new SimpleStateSpace<Flow,Node,Place,Transition,Marking>(net);
+		explicit.create();
+		assertEquals(explicit.getDeadMarkings(), symbolic.getDeadlocks());
+		assertEquals(BigInteger.valueOf(explicit.getDeadMarkings().size()), symbolic.getNumberOfDeadlocks());
+
+		Set<Transition> dead = new HashSet<Transition>(net.getTransitions());
+		for (StateTransition st : automaton.getStateTransitions()) dead.remove(st.getTransition());
+		assertEquals(dead, symbolic.getDeadTransitions());
+	}
+
+	public void testSimp() {
+		PNMLSerializer ser = new PNMLSerializer();
+		NetSystem net = ser.parse("src/test/resources/models/petri_net_pnml/simp.pnml");
+		this.assertSameBehavior(net);
+	}
+
+	public void testLocks() {
+		NetSystem net = this.createLocks();
+		this.assertSameBehavior(net);
+
+		SymbolicStateSpace<Flow,Node,Place,Transition,Marking> space = this.createSymbolicStateSpace(net);
+		assertEquals(2, space.getDeadTransitions().size());
+		assertEquals(BigInteger.valueOf(2), space.getNumberOfDeadlocks());
+	}
+
+	public void testAndSplit() {
+		this.assertSameBehavior(this.createAndSplit(4));
+
+		// 3^30+2 markings, far beyond explicit construction
+		NetSystem net = this.createAndSplit(30);
+		SymbolicStateSpace<Flow,Node,Place,Transition,Marking> space = this.createSymbolicStateSpace(net);
+		assertEquals(BigInteger.valueOf(3).pow(30).add(BigInteger.valueOf(2)), space.getNumberOfMarkings());
+		assertTrue(space.getDeadTransitions().isEmpty());
+		assertEquals(BigInteger.ONE, space.getNumberOfDeadlocks());
+		assertTrue(space.isReachable(net.getMarking()));
+		assertTrue(space.getBDD().getNumberOfNodes() < 100000);
+
+		Set<Marking> deadlocks = space.getDeadlocks();
+		assertEquals(1, deadlocks.size());
+		Marking deadlock = deadlocks.iterator().next();
+		assertEquals(1, deadlock.toMultiSet().size());
+		assertEquals("o", deadlock.toMultiSet().iterator().next().getLabel());
+	}
+
+	public void testCancel() {
+		CancellationToken token = new CancellationToken();
+		token.cancel();
+
+		SymbolicStateSpace<Flow,Node,Place,Transition,Marking> space = new SymbolicStateSpace<Flow,Node,Place,Transition,Marking>(this.createAndSplit(4));
+		space.setCancellationToken(token);
+		space.create();
+		assertTrue(space.isSafe());
+		assertFalse(space.isComplete());
+		try {
+			space.getDeadTransitions();
+			fail();
+		}
+		catch (IllegalStateException e) {
+		}
+		try {
+			space.isReachable(new Marking());
+			fail();
+		}
+		catch (IllegalStateException e) {
+		}
+
+		space.setCancellationToken(null);
+		space.create();
+		assertTrue(space.isComplete());
+		assertEquals(BigInteger.valueOf(3).pow(4).add(BigInteger.valueOf(2)), space.getNumberOfMarkings());
+	}
+
+	public void testUnsafe() {
+		NetSystem net = new NetSystem();
+		Place p = new Place("p");
+		Place q = new Place("q");
+		Transition t = new Transition("t");
+		net.addFlow(p, t);
+		net.addFlow(t, p);
+		net.addFlow(t, q);
+		net.putTokens(p, 1);
+
+		SymbolicStateSpace<Flow,Node,Place,Transition,Marking> space = new SymbolicStateSpace<Flow,Node,Place,Transition,Marking>(net);
+		space.create();
+		assertFalse(space.isSafe());
+		assertFalse(space.isComplete());
+		try {
+			space.getNumberOfMarkings();
+			fail();
+		}
+		catch (IllegalStateException e) {
+		}
+
+		net.putTokens(p, 2);
+		try {
+			new SymbolicStateSpace<Flow,Node,Place,Transition,Marking>(net);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package org.jbpt.test.petri.unfolding;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jbpt.petri.Flow;
+import org.jbpt.petri.Marking;
+import org.jbpt.petri.NetSystem;
+import org.jbpt.petri.Node;
+import org.jbpt.petri.Place;
+import org.jbpt.petri.Transition;
+import org.jbpt.petri.unfolding.BPNode;
+import org.jbpt.petri.unfolding.CompletePrefixUnfolding;
+import org.jbpt.petri.unfolding.CompletePrefixUnfoldingSetup;
+import org.jbpt.petri.unfolding.Condition;
+import org.jbpt.petri.unfolding.Event;
+import org.jbpt.petri.unfolding.ILocalConfiguration;
+import org.jbpt.petri.unfolding.order.AdequateOrderType;
+import org.jbpt.petri.unfolding.order.CanonicalEsparzaAdequateOrder;
+import org.jbpt.petri.unfolding.order.EsparzaAdequateTotalOrderForSafeSystems;
+import org.jbpt.petri.unfolding.order.IAdequateOrder;
+import org.jbpt.pm.ProcessModel;
+import org.jbpt.pm.io.JSON2Process;
+import org.jbpt.pm.structure.ProcessModel2NetSystem;
+import org.jbpt.throwable.SerializationException;
+
+/**
+ * Benchmark of the Esparza order for safe systems and its canonical version; not part of the test suite.<br/><br/>
+ *
+ * Unfolds process models with both orders and compares all pairs of local configurations of equal size of the resulting prefixes
+ * with both orders. Times in nanoseconds and the numbers of pairs found smaller are written per model as comma separated values;
+ * the latter also keep the timed comparisons from being eliminated as dead code.<br/><br/>
+ *
+ * Arguments: output file (default: target/adequate_orders.csv), number of models to unfold (default: 100).
+ */
+public final class AdequateOrderBenchmark {
+
+	protected static final String MODELS_DIR = "src/test/resources/models/process_json/allmodels";
+
+	private static final AdequateOrderType[] ORDERS = new AdequateOrderType[] {AdequateOrderType.ESPARZA_FOR_SAFE_SYSTEMS, AdequateOrderType.ESPARZA_CANONICAL};
+
+	private AdequateOrderBenchmark() {}
+
+	public static void main(String[] args) throws IOException {
+		File output = new File(args.length > 0 ? args[0] : "target/adequate_orders.csv");
+		int models = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+		String[] names = new File(MODELS_DIR).list();
+		Arrays.sort(names);
+		List<String> ns = new ArrayList<String>();
+		List<NetSystem> nets = new ArrayList<NetSystem>();
+		for (String name : names) {
+			if (nets.size() == models) break;
+			if (!name.endsWith(".json")) continue;
+			try {
+				nets.add(ProcessModel2NetSystem.transform(loadProcess(MODELS_DIR + File.separator + name)));
+				ns.add(name);
+			}
+			catch (Exception e) {
+				continue;
+			}
+		}
+
+		// warm up
+		for (NetSystem sys : nets)
+			for (AdequateOrderType order : ORDERS)
+				unfold(sys, order);
+
+		BufferedWriter csv = new BufferedWriter(new FileWriter(output));
+		try {
+			csv.write("model,events,cutoffs,esparza,canonical,esparza_comparisons,canonical_comparisons,esparza_smaller,canonical_smaller\n");
+			for (int i = 0; i < nets.size(); i++) {
+				long[] time = new long[ORDERS.length];
+				CompletePrefixUnfolding cpu = null;
+				for (int k = 0; k < ORDERS.length; k++) {
+					long start = System.nanoTime();
+					cpu = unfold(nets.get(i), ORDERS[k]);
+					time[k] = System.nanoTime() - start;
+				}
+
+				long[] esparza = compare(cpu, new EsparzaAdequateTotalOrderForSafeSystems<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking>());
+				long[] canonical = compare(cpu, new CanonicalEsparzaAdequateOrder<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking>());
+
+				csv.write(ns.get(i)+","+cpu.getEvents().size()+","+cpu.getCutoffEvents().size()+","+time[0]+","+time[1]+","+esparza[0]+","+canonical[0]+","+esparza[1]+","+canonical[1]+"\n");
+			}
+		}
+		finally {
+			csv.close();
+		}
+	}
+
+	/**
+	 * Compare all pairs of local configurations of equal size of a prefix.
+	 *
+	 * @return Time in nanoseconds and number of pairs in which the first local configuration is smaller than the second one.
+	 */
+	private static long[] compare(CompletePrefixUnfolding cpu, IAdequateOrder<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking> order) {
+		List<ILocalConfiguration<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking>> lcs = new ArrayList<ILocalConfiguration<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking>>();
+		for (Event e : cpu.getEvents()) lcs.add(e.getLocalConfiguration());
+
+		long smaller = 0;
+		long start = System.nanoTime();
+		for (ILocalConfiguration<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking> lc1 : lcs)
+			for (ILocalConfiguration<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking> lc2 : lcs)
+				if (lc1.size()==lc2.size() && order.isSmaller(lc1, lc2)) smaller++;
+
+		return new long[] {System.nanoTime() - start, smaller};
+	}
+
+	private static CompletePrefixUnfolding unfold(NetSystem sys, AdequateOrderType order) {
+		CompletePrefixUnfoldingSetup setup = new CompletePrefixUnfoldingSetup();
+		setup.ADEQUATE_ORDER = order;
+		setup.MAX_EVENTS = 300;
+		return new CompletePrefixUnfolding(sys, setup);
+	}
+
+	private static ProcessModel loadProcess(String filename) throws SerializationException, IOException {
+		String line;
+		StringBuilder sb = new StringBuilder();
+		BufferedReader reader = new BufferedReader(new FileReader(filename));
+		while ((line = reader.readLine()) != null) {
+			sb.append(line);
+		}
+		reader.close();
+		return JSON2Process.convert(sb.toString());
+	}
+}
@@ -0,0 +1,147 @@
+package org.jbpt.test.petri.unfolding;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.jbpt.petri.Flow;
+import org.jbpt.petri.Marking;
+import org.jbpt.petri.NetSystem;
+import org.jbpt.petri.Node;
+import org.jbpt.petri.Place;
+import org.jbpt.petri.Transition;
+import org.jbpt.petri.unfolding.BPNode;
+import org.jbpt.petri.unfolding.CompletePrefixUnfolding;
+import org.jbpt.petri.unfolding.CompletePrefixUnfoldingSetup;
+import org.jbpt.petri.unfolding.Condition;
+import org.jbpt.petri.unfolding.Event;
+import org.jbpt.petri.unfolding.ILocalConfiguration;
+import org.jbpt.petri.unfolding.order.AdequateOrderType;
+import org.jbpt.petri.unfolding.order.CanonicalEsparzaAdequateOrder;
+
+public class CanonicalEsparzaAdequateOrderTest extends TestCase {
+
+	/**
+	 * Net with concurrent branches; every branch chooses between two transitions and may loop.
+	 *
+	 * @param branches Number of branches.
+	 * @param joined <tt>true</tt> to join the branches by a transition.
+	 */
+	private NetSystem createNet(int branches, boolean joined) {
+		NetSystem net = new NetSystem();
+		Place i = new Place("i");
+		Transition fork = new Transition("fork");
+		net.addFlow(i, fork);
+		Transition join = new Transition("join");
+		if (joined) net.addFlow(join, new Place("o"));
+		for (int k = 0; k < branches; k++) {
+			Place p1 = new Place("p" + k + "1");
+			Place p2 = new Place("p" + k + "2");
+			Transition a = new Transition("a" + k);
+			Transition b = new Transition("b" + k);
+			Transition c = new Transition("c" + k);
+			net.addFlow(fork, p1);
+			net.addFlow(p1, a);
+			net.addFlow(p1, b);
+			net.addFlow(a, p2);
+			net.addFlow(b, p2);
+			net.addFlow(p2, c);
+			net.addFlow(c, p1);
+			if (joined) net.addFlow(p2, join);
+		}
+		net.putTokens(i, 1);
+		return net;
+	}
+
+	/**
+	 * Net with an AND-split into sequences of two transitions that get joined.
+	 */
+	private NetSystem createAndSplit(int branches) {
+		NetSystem net = new NetSystem();
+		Place i = new Place("i");
+		Place o = new Place("o");
+		Transition fork = new Transition("fork");
+		Transition join = new Transition("join");
+		net.addFlow(i, fork);
+		net.addFlow(join, o);
+		for (int k = 0; k < branches; k++) {
+			Place p = new Place("p" + k);
+			Place q = new Place("q" + k);
+			Place r = new Place("r" + k);
+			Transition a = new Transition("a" + k);
+			Transition b = new Transition("b" + k);
+			net.addFlow(fork, p);
+			net.addFlow(p, a);
+			net.addFlow(a, q);
+			net.addFlow(q, b);
+			net.addFlow(b, r);
+			net.addFlow(r, join);
+		}
+		net.putTokens(i, 1);
+		return net;
+	}
+
+	public void testKeys() {
+		CompletePrefixUnfoldingSetup setup = new CompletePrefixUnfoldingSetup();
+		setup.ADEQUATE_ORDER = AdequateOrderType.ESPARZA_CANONICAL;
+		CompletePrefixUnfolding cpu = new CompletePrefixUnfolding(this.createNet(3, true), setup);
+		assertTrue(cpu.getCutoffEvents().size() > 0);
+
+		CanonicalEsparzaAdequateOrder<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking> order = new CanonicalEsparzaAdequateOrder<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking>();
+		Set<String> keys = new HashSet<String>();
+		for (Event e : cpu.getEvents()) {
+			ILocalConfiguration<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking> lc = e.getLocalConfiguration();
+			int[] key = order.getKey(lc, null);
+
+			// size, quasi Parikh vector, and sets of the Foata normal form each followed by 0
+			assertSame(key, order.getKey(lc, null));
+			assertEquals(1 + 2*lc.size() + lc.getFoataDepth(), key.length);
+			assertEquals(lc.size(), key[0]);
+			assertEquals(0, key[key.length-1]);
+			for (int i = 0; i < lc.size(); i++)
+				assertEquals(lc.getQuasiParikhVector().get(i), cpu.getTotalOrderOfTransitions().get(key[i+1]));
+
+			// the order is total on local configurations of a safe system
+			assertTrue(keys.add(Arrays.toString(key)));
+			assertFalse(order.isSmaller(lc, lc));
+		}
+
+		for (Event e1 : cpu.getEvents()) {
+			for (Event e2 : cpu.getEvents()) {
+				if (e1.equals(e2)) continue;
+				ILocalConfiguration<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking> lc1 = e1.getLocalConfiguration();
+				ILocalConfiguration<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking> lc2 = e2.getLocalConfiguration();
+				assertTrue(order.isSmaller(lc1, lc2) != order.isSmaller(lc2, lc1));
+				if (lc1.size() < lc2.size()) assertTrue(order.isSmaller(lc1, lc2));
+			}
+		}
+
+		// cutoff events correspond to smaller events
+		for (Event e : cpu.getCutoffEvents())
+			assertTrue(order.isSmaller(cpu.getCorrespondingEvent(e).getLocalConfiguration(), e.getLocalConfiguration()));
+	}
+
+	/**
+	 * Both orders are total, hence the Esparza order for safe systems and its canonical version yield prefixes of the same size.
+	 */
+	public void testSamePrefixes() {
+		List<NetSystem> nets = Arrays.asList(this.createNet(3, true), this.createNet(2, false), this.createAndSplit(4));
+		for (NetSystem net : nets) {
+			CompletePrefixUnfolding esparza = this.unfold(net, AdequateOrderType.ESPARZA_FOR_SAFE_SYSTEMS);
+			CompletePrefixUnfolding canonical = this.unfold(net, AdequateOrderType.ESPARZA_CANONICAL);
+			assertTrue(canonical.isComplete());
+			assertEquals(esparza.getEvents().size(), canonical.getEvents().size());
+			assertEquals(esparza.getCutoffEvents().size(), canonical.getCutoffEvents().size());
+		}
+	}
+
+	private CompletePrefixUnfolding unfold(NetSystem sys, AdequateOrderType order) {
+		CompletePrefixUnfoldingSetup setup = new CompletePrefixUnfoldingSetup();
+		setup.ADEQUATE_ORDER = order;
+		setup.MAX_EVENTS = 300;
+		return new CompletePrefixUnfolding(sys, setup);
+	}
+}
@@ -0,0 +1,101 @@
+package org.jbpt.test.petri.unfolding;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.jbpt.petri.NetSystem;
+import org.jbpt.petri.Place;
+import org.jbpt.petri.Transition;
+import org.jbpt.petri.unfolding.CompletePrefixUnfolding;
+import org.jbpt.petri.unfolding.Condition;
+import org.jbpt.petri.unfolding.Event;
+import org.jbpt.petri.unfolding.ILocalConfiguration;
+
+public class LocalConfigurationTest extends TestCase {
+
+	public void testLocalConfigurations() {
+		// two concurrent branches with choices and loops, synchronized by a shared transition
+		NetSystem net = new NetSystem();
+		Place i = new Place("i");
+		Transition fork = new Transition("fork");
+		Transition sync = new Transition("sync");
+		net.addFlow(i, fork);
+		for (int k = 0; k < 2; k++) {
+			Place p1 = new Place("p" + k + "1");
+			Place p2 = new Place("p" + k + "2");
+			Transition a = new Transition("a" + k);
+			Transition b = new Transition("b" + k);
+			net.addFlow(fork, p1);
+			net.addFlow(p1, a);
+			net.addFlow(p1, b);
+			net.addFlow(a, p2);
+			net.addFlow(b, p2);
+			net.addFlow(p2, sync);
+			net.addFlow(sync, p1);
+		}
+		net.putTokens(i, 1);
+
+		CompletePrefixUnfolding cpu = new CompletePrefixUnfolding(net);
+		assertTrue(cpu.getEvents().size() > 5);
+		List<Transition> ts = cpu.getTotalOrderOfTransitions();
+
+		for (Event e : cpu.getEvents()) {
+			ILocalConfiguration<?,?,Event,?,?,?,Transition,?> lc = e.getLocalConfiguration();
+
+			// events of the local configuration are the event and its causal predecessors
+			Set<Event> expected = this.getCausalPast(e);
+			assertEquals(expected, new HashSet<Event>(lc));
+			assertEquals(expected.size(), lc.size());
+			for (Event f : cpu.getEvents())
+				assertEquals(expected.contains(f), lc.contains(f));
+
+			// Parikh vector and quasi Parikh vector
+			int[] parikh = new int[ts.size()];
+			for (Event f : expected) parikh[ts.indexOf(f.getTransition())]++;
+			for (int k = 0; k < ts.size(); k++)
+				assertEquals(parikh[k], lc.getParikhVector()[k]);
+			List<Transition> vec = lc.getQuasiParikhVector();
+			assertEquals(expected.size(), vec.size());
+			for (int k = 1; k < vec.size(); k++)
+				assertTrue(ts.indexOf(vec.get(k-1)) <= ts.indexOf(vec.get(k)));
+
+			// Foata normal form repeatedly extracts causally minimal events
+			List<Set<Event>> foata = new ArrayList<Set<Event>>();
+			Collection<Event> rest = new HashSet<Event>(expected);
+			while (!rest.isEmpty()) {
+				Set<Event> min = new HashSet<Event>();
+				for (Event f : rest) {
+					boolean minimal = true;
+					for (Event g : rest)
+						if (g != f && this.getCausalPast(f).contains(g)) minimal = false;
+					if (minimal) min.add(f);
+				}
+				foata.add(min);
+				rest.removeAll(min);
+			}
+			assertEquals(foata, lc.getFoataNormalForm());
+			assertEquals(foata.size(), lc.getFoataDepth());
+		}
+	}
+
+	/**
+	 * @return The given event and all events that produce conditions it causally depends on.
+	 */
+	private Set<Event> getCausalPast(Event e) {
+		Set<Event> result = new HashSet<Event>();
+		List<Event> toVisit = new ArrayList<Event>();
+		toVisit.add(e);
+		while (!toVisit.isEmpty()) {
+			Event f = toVisit.remove(toVisit.size()-1);
+			if (!result.add(f)) continue;
+			for (Condition c : f.getPreConditions())
+				if (c.getPreEvent() != null) toVisit.add(c.getPreEvent());
+		}
+		return result;
+	}
+}
@@ -0,0 +1,186 @@
+package org.jbpt.test.petri.unfolding;
+
+import junit.framework.TestCase;
+
+import org.jbpt.petri.Flow;
+import org.jbpt.petri.Marking;
+import org.jbpt.petri.NetSystem;
+import org.jbpt.petri.Node;
+import org.jbpt.petri.Place;
+import org.jbpt.petri.Transition;
+import org.jbpt.petri.unfolding.BPNode;
+import org.jbpt.petri.unfolding.CompletePrefixUnfolding;
+import org.jbpt.petri.unfolding.Condition;
+import org.jbpt.petri.unfolding.Event;
+import org.jbpt.petri.unfolding.IBranchingProcess;
+import org.jbpt.petri.unfolding.OrderingRelationType;
+import org.jbpt.petri.unfolding.OrderingRelationsGraph;
+import org.jbpt.petri.unfolding.OrderingRelationsMatrix;
+import org.jbpt.petri.unfolding.ProperCompletePrefixUnfolding;
+
+public class OrderingRelationsMatrixTest extends TestCase {
+
+	/**
+	 * Net with concurrent branches that are forked by a silent transition; every branch chooses between two transitions and may loop.
+	 * Branches are joined if requested.
+	 */
+	private NetSystem createNet(int branches, boolean joined) {
+		NetSystem net = new NetSystem();
+		Place i = new Place("i");
+		Place o = new Place("o");
+		Transition fork = new Transition("fork","");
+		Transition join = new Transition("join");
+		net.addFlow(i, fork);
+		if (joined) net.addFlow(join, o);
+		for (int k = 0; k < branches; k++) {
+			Place p1 = new Place("p" + k + "1");
+			Place p2 = new Place("p" + k + "2");
+			Transition a = new Transition("a" + k);
+			Transition b = new Transition("b" + k);
+			Transition c = new Transition("c" + k);
+			net.addFlow(fork, p1);
+			net.addFlow(p1, a);
+			net.addFlow(p1, b);
+			net.addFlow(a, p2);
+			net.addFlow(b, p2);
+			net.addFlow(p2, c);
+			net.addFlow(c, p1);
+			if (joined) net.addFlow(p2, join);
+		}
+		net.putTokens(i, 1);
+		return net;
+	}
+
+	/**
+	 * Net with a choice inside a loop.
+	 */
+	private NetSystem createLoop() {
+		NetSystem net = new NetSystem();
+		Place i = new Place("i");
+		Place p = new Place("p");
+		Place o = new Place("o");
+		Transition a = new Transition("a");
+		Transition b = new Transition("b");
+		Transition c = new Transition("c");
+		Transition d = new Transition("d");
+		net.addFlow(i, a);
+		net.addFlow(a, p);
+		net.addFlow(p, b);
+		net.addFlow(p, c);
+		net.addFlow(b, i);
+		net.addFlow(c, i);
+		net.addFlow(p, d);
+		net.addFlow(d, o);
+		net.putTokens(i, 1);
+		return net;
+	}
+
+	/**
+	 * Compare relations of all pairs of events to the relations of the ordering relations graph.
+	 */
+	private void assertSameRelations(IBranchingProcess<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking> bp, OrderingRelationsMatrix matrix) {
+		OrderingRelationsGraph graph = new OrderingRelationsGraph(bp);
+
+		int visible = 0;
+		for (Event e1 : bp.getEvents()) {
+			if (e1.getTransition().isSilent()) {
+				assertFalse(matrix.getEvents().contains(e1));
+				continue;
+			}
+			assertTrue(matrix.getEvents().contains(e1));
+			visible++;
+
+			for (Event e2 : bp.getEvents()) {
+				assertEquals(e1 + " " + e2, graph.getOrderingRelation(e1,e2), matrix.getOrderingRelation(e1,e2));
+				assertEquals(graph.areCausal(e1,e2), matrix.areCausal(e1,e2));
+				assertEquals(graph.areInverseCausal(e1,e2), matrix.areInverseCausal(e1,e2));
+				assertEquals(graph.areConcurrent(e1,e2), matrix.areConcurrent(e1,e2));
+				assertEquals(graph.areInConflict(e1,e2), matrix.areInConflict(e1,e2));
+			}
+		}
+		assertEquals(visible, matrix.getEvents().size());
+	}
+
+	public void testAcyclic() {
+		// a choice in one of two concurrent branches
+		NetSystem net = new NetSystem();
+		Place i = new Place("i");
+		Place p1 = new Place("p1");
+		Place p2 = new Place("p2");
+		Place q1 = new Place("q1");
+		Place q2 = new Place("q2");
+		Place o = new Place("o");
+		Transition fork = new Transition("fork","");
+		Transition a = new Transition("a");
+		Transition b = new Transition("b");
+		Transition c = new Transition("c");
+		Transition join = new Transition("join");
+		net.addFlow(i, fork);
+		net.addFlow(fork, p1);
+		net.addFlow(fork, p2);
+		net.addFlow(p1, a);
+		net.addFlow(p1, b);
+		net.addFlow(p2, c);
+		net.addFlow(a, q1);
+		net.addFlow(b, q1);
+		net.addFlow(c, q2);
+		net.addFlow(q1, join);
+		net.addFlow(q2, join);
+		net.addFlow(join, o);
+		net.putTokens(i, 1);
+
+		CompletePrefixUnfolding cpu = new CompletePrefixUnfolding(net);
+		OrderingRelationsMatrix matrix = new OrderingRelationsMatrix(cpu);
+		this.assertSameRelations(cpu, matrix);
+
+		Event ea = null, eb = null, ec = null;
+		for (Event e : cpu.getEvents()) {
+			if (e.getTransition().equals(a)) ea = e;
+			if (e.getTransition().equals(b)) eb = e;
+			if (e.getTransition().equals(c)) ec = e;
+		}
+		assertTrue(matrix.areInConflict(ea,eb));
+		assertTrue(matrix.areConcurrent(ea,ec));
+		for (Event e : cpu.getEvents()) {
+			if (e.getTransition().equals(join)) {
+				assertTrue(matrix.areCausal(ec,e));
+				assertTrue(matrix.areInverseCausal(e,ec));
+			}
+			if (e.getTransition().equals(fork))
+				assertTrue(matrix.areConcurrent(e,ea));
+		}
+	}
+
+	public void testLoops() {
+		NetSystem net = this.createLoop();
+		ProperCompletePrefixUnfolding pcpu = new ProperCompletePrefixUnfolding(net);
+		assertTrue(pcpu.getCutoffEvents().size() > 0);
+		this.assertSameRelations(pcpu, new OrderingRelationsMatrix(pcpu));
+
+		Event a = null, d = null;
+		for (Event e : pcpu.getEvents()) {
+			if (e.getTransition().getLabel().equals("a") && e.getPreConditions().iterator().next().getPreEvent()==null) a = e;
+			if (e.getTransition().getLabel().equals("d")) d = e;
+		}
+		OrderingRelationsMatrix matrix = new OrderingRelationsMatrix(pcpu);
+		assertEquals(OrderingRelationType.CAUSAL, matrix.getOrderingRelation(a,d));
+		assertEquals(OrderingRelationType.INVERSE_CAUSAL, matrix.getOrderingRelation(d,a));
+		assertEquals(OrderingRelationType.CONCURRENT, matrix.getOrderingRelation(a,a));
+
+		CompletePrefixUnfolding cpu = new CompletePrefixUnfolding(this.createNet(2,true));
+		this.assertSameRelations(cpu, new OrderingRelationsMatrix(cpu));
+	}
+
+	public void testParallelFill() {
+		CompletePrefixUnfolding cpu = new CompletePrefixUnfolding(this.createNet(80,false));
+		OrderingRelationsMatrix sequential = new OrderingRelationsMatrix(cpu);
+		OrderingRelationsMatrix parallel = new OrderingRelationsMatrix(cpu, 4);
+		assertEquals(4, parallel.getParallelism());
+
+		for (Event e1 : cpu.getEvents())
+			for (Event e2 : cpu.getEvents())
+				assertEquals(sequential.getOrderingRelation(e1,e2), parallel.getOrderingRelation(e1,e2));
+
+		this.assertSameRelations(cpu, parallel);
+	}
+}
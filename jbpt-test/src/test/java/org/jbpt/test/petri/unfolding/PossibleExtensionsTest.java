@@ -0,0 +1,202 @@
+package org.jbpt.test.petri.unfolding;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.jbpt.petri.Flow;
+import org.jbpt.petri.Marking;
+import org.jbpt.petri.NetSystem;
+import org.jbpt.petri.Node;
+import org.jbpt.petri.Place;
+import org.jbpt.petri.Transition;
+import org.jbpt.petri.unfolding.AbstractHeapPossibleExtensions;
+import org.jbpt.petri.unfolding.BPNode;
+import org.jbpt.petri.unfolding.CompletePrefixUnfolding;
+import org.jbpt.petri.unfolding.CompletePrefixUnfoldingSetup;
+import org.jbpt.petri.unfolding.Condition;
+import org.jbpt.petri.unfolding.Event;
+import org.jbpt.petri.unfolding.ILocalConfiguration;
+import org.jbpt.petri.unfolding.order.AdequateOrder;
+import org.jbpt.petri.unfolding.order.AdequateOrderType;
+import org.jbpt.petri.unfolding.order.IAdequateOrder;
+import org.jbpt.petri.unfolding.order.McMillanAdequateOrder;
+
+public class PossibleExtensionsTest extends TestCase {
+
+	/**
+	 * Net with three concurrent branches that are forked and joined; every branch contains two transitions.
+	 */
+	private NetSystem createNet() {
+		NetSystem net = new NetSystem();
+		Place i = new Place("i");
+		Place o = new Place("o");
+		Transition fork = new Transition("fork");
+		Transition join = new Transition("join");
+		net.addFlow(i, fork);
+		net.addFlow(join, o);
+		for (int k = 0; k < 3; k++) {
+			Place p1 = new Place("p" + k + "1");
+			Place p2 = new Place("p" + k + "2");
+			Place p3 = new Place("p" + k + "3");
+			Transition t1 = new Transition("t" + k + "1");
+			Transition t2 = new Transition("t" + k + "2");
+			net.addFlow(fork, p1);
+			net.addFlow(p1, t1);
+			net.addFlow(t1, p2);
+			net.addFlow(p2, t2);
+			net.addFlow(t2, p3);
+			net.addFlow(p3, join);
+		}
+		net.putTokens(i, 1);
+		return net;
+	}
+
+	public void testConcurrentExtensions() {
+		for (AdequateOrderType type : AdequateOrderType.values()) {
+			CompletePrefixUnfoldingSetup setup = new CompletePrefixUnfoldingSetup();
+			setup.ADEQUATE_ORDER = type;
+			CompletePrefixUnfolding cpu = new CompletePrefixUnfolding(this.createNet(), setup);
+
+			// possible extensions with local configurations of the same size must not get lost
+			assertEquals(type.toString(), 8, cpu.getEvents().size());
+			assertEquals(type.toString(), 11, cpu.getConditions().size());
+		}
+	}
+
+	public void testMinimalExtensions() {
+		NetSystem net = this.createNet();
+		CompletePrefixUnfolding cpu = new CompletePrefixUnfolding(net);
+
+		// McMillan's order with keys, and the same order without keys
+		IAdequateOrder<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking> keyed = new McMillanAdequateOrder<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking>();
+		IAdequateOrder<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking> plain = new AdequateOrder<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking>() {
+			@Override
+			public boolean isSmaller(ILocalConfiguration<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking> lc1, ILocalConfiguration<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking> lc2) {
+				return lc1.size() < lc2.size();
+			}
+		};
+
+		for (IAdequateOrder<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking> order : new IAdequateOrder[] {keyed, plain}) {
+			AbstractHeapPossibleExtensions<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking> pe = new AbstractHeapPossibleExtensions<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking>(order, cpu.getTotalOrderOfTransitions());
+			for (Event e : cpu.getEvents())
+				assertTrue(pe.add(e));
+			assertFalse(pe.add(cpu.getEvents().iterator().next()));
+			assertEquals(8, pe.size());
+
+			// remove one event that is not minimal
+			Event last = null;
+			for (Event e : cpu.getEvents())
+				if (e.getTransition().getName().equals("join")) last = e;
+			assertTrue(pe.remove(last));
+			assertFalse(pe.contains(last));
+
+			int size = 0;
+			while (!pe.isEmpty()) {
+				Event e = pe.getMinimal();
+				assertTrue(e.getLocalConfiguration().size() >= size);
+				size = e.getLocalConfiguration().size();
+				assertTrue(pe.remove(e));
+			}
+			assertEquals(3, size);
+		}
+	}
+
+	public void testDominatedMinimalExtensions() {
+		NetSystem net = this.createNet();
+		CompletePrefixUnfolding cpu = new CompletePrefixUnfolding(net);
+
+		IAdequateOrder<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking> plain = new AdequateOrder<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking>() {
+			@Override
+			public boolean isSmaller(ILocalConfiguration<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking> lc1, ILocalConfiguration<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking> lc2) {
+				return lc1.size() < lc2.size();
+			}
+		};
+		AbstractHeapPossibleExtensions<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking> pe = new AbstractHeapPossibleExtensions<BPNode,Condition,Event,Flow,Node,Place,Transition,Marking>(plain, cpu.getTotalOrderOfTransitions());
+
+		// insert larger possible extensions first, so that every insertion dominates minimal possible extensions inserted before
+		List<Event> events = new ArrayList<Event>(cpu.getEvents());
+		Collections.sort(events, new Comparator<Event>() {
+			@Override
+			public int compare(Event e1, Event e2) {
+				return e2.getLocalConfiguration().size() - e1.getLocalConfiguration().size();
+			}
+		});
+		for (Event e : events) {
+			assertTrue(pe.add(e));
+			assertEquals(e.getLocalConfiguration().size(), pe.getMinimal().getLocalConfiguration().size());
+		}
+
+		// the possible extensions that got dominated are retrieved once their dominators are removed
+		int size = 0;
+		while (!pe.isEmpty()) {
+			Event e = pe.getMinimal();
+			assertTrue(e.getLocalConfiguration().size() >= size);
+			size = e.getLocalConfiguration().size();
+			assertTrue(pe.remove(e));
+		}
+		assertEquals(8, size);
+	}
+
+	public void testParallelComputation() {
+		// four concurrent branches, every branch chooses between two transitions and may loop
+		NetSystem net = new NetSystem();
+		Place i = new Place("i");
+		Transition fork = new Transition("fork");
+		net.addFlow(i, fork);
+		for (int k = 0; k < 4; k++) {
+			Place p1 = new Place("p" + k + "1");
+			Place p2 = new Place("p" + k + "2");
+			Transition a = new Transition("a" + k);
+			Transition b = new Transition("b" + k);
+			Transition c = new Transition("c" + k);
+			net.addFlow(fork, p1);
+			net.addFlow(p1, a);
+			net.addFlow(p1, b);
+			net.addFlow(a, p2);
+			net.addFlow(b, p2);
+			net.addFlow(p2, c);
+			net.addFlow(c, p1);
+		}
+		net.putTokens(i, 1);
+
+		for (AdequateOrderType type : AdequateOrderType.values()) {
+			CompletePrefixUnfoldingSetup setup = new CompletePrefixUnfoldingSetup();
+			setup.ADEQUATE_ORDER = type;
+			setup.MAX_EVENTS = 500;
+			CompletePrefixUnfolding sequential = new CompletePrefixUnfolding(net, setup);
+
+			setup.PARALLELISM = 4;
+			CompletePrefixUnfolding parallel = new CompletePrefixUnfolding(net, setup);
+
+			assertTrue(type.toString(), sequential.getEvents().size() > 10);
+			this.assertSameEvents(type.toString(), sequential, parallel);
+		}
+	}
+
+	/**
+	 * Check that two prefixes have appended events of the same transitions with the same preconditions in the same order, 
+	 * and that they agree on cutoff events.
+	 */
+	private void assertSameEvents(String message, CompletePrefixUnfolding expected, CompletePrefixUnfolding actual) {
+		List<Event> es1 = expected.getLog();
+		List<Event> es2 = actual.getLog();
+		assertEquals(message, es1.size(), es2.size());
+		for (int k = 0; k < es1.size(); k++) {
+			assertEquals(message, es1.get(k).getTransition(), es2.get(k).getTransition());
+			assertEquals(message, this.getIndexes(es1.get(k).getPreConditions()), this.getIndexes(es2.get(k).getPreConditions()));
+			assertEquals(message, expected.isCutoffEvent(es1.get(k)), actual.isCutoffEvent(es2.get(k)));
+		}
+	}
+
+	private Set<Integer> getIndexes(Set<Condition> cs) {
+		Set<Integer> result = new HashSet<Integer>();
+		for (Condition c : cs) result.add(c.getIndex());
+		return result;
+	}
+}
@@ -1,7 +1,16 @@
 package org.jbpt.test.petri.unfolding;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import junit.framework.TestCase;
 
+import org.jbpt.petri.NetSystem;
+import org.jbpt.petri.Place;
+import org.jbpt.petri.Transition;
+import org.jbpt.petri.unfolding.Event;
+import org.jbpt.petri.unfolding.SoundUnfolding;
+
 
 public class SoundUnfoldingTest extends TestCase {
 	
@@ -69,4 +78,117 @@ public class SoundUnfoldingTest extends TestCase {
 		System.out.println(unf.getLocallyUnsafeConditions());
 		System.out.println(unf.getLocalDeadlockConditions());
 	}*/
+	
+	/**
+	 * Workflow net with n concurrent branches that are split by transition 'and'.
+	 * Branches are joined by transition 'join' if synchronized, otherwise they are merged in place 'm' (unsafe).
+	 */
+	private NetSystem createNet(int n, boolean joined) {
+		NetSystem net = new NetSystem();
+		Place i = new Place("i");
+		Place m = new Place("m");
+		Place o = new Place("o");
+		Transition and = new Transition("and");
+		Transition join = new Transition("join");
+		net.addFlow(i, and);
+		for (int k = 0; k < n; k++) {
+			Place p1 = new Place("p" + k + "1");
+			Place p2 = new Place("p" + k + "2");
+			Transition a = new Transition("a" + k);
+			Transition b = new Transition("b" + k);
+			net.addFlow(and, p1);
+			net.addFlow(p1, a);
+			net.addFlow(p1, b);
+			net.addFlow(a, p2);
+			net.addFlow(b, p2);
+			if (joined)
+				net.addFlow(p2, join);
+			else {
+				Transition c = new Transition("c" + k);
+				net.addFlow(p2, c);
+				net.addFlow(c, m);
+			}
+		}
+		if (joined) net.addFlow(join, o);
+		else {
+			net.addFlow(m, join);
+			net.addFlow(join, o);
+		}
+		net.putTokens(i, 1);
+		return net;
+	}
+	
+	public void testSound() {
+		NetSystem net = this.createNet(3, true);
+		for (boolean earlyExit : new boolean[] {false, true}) {
+			SoundUnfolding unf = new SoundUnfolding(net, earlyExit);
+			assertTrue(unf.isComplete());
+			assertTrue(unf.isSound());
+			assertNull(unf.getWitness());
+			assertTrue(unf.getLocallyUnsafeConditions().isEmpty());
+			assertTrue(unf.getLocalDeadlockConditions().isEmpty());
+		}
+	}
+	
+	public void testUnsafe() {
+		NetSystem net = this.createNet(3, false);
+		SoundUnfolding full = new SoundUnfolding(net);
+		assertTrue(full.isComplete());
+		assertFalse(full.isSound());
+		assertFalse(full.getLocallyUnsafeConditions().isEmpty());
+		
+		SoundUnfolding unf = new SoundUnfolding(net, true);
+		assertFalse(unf.isComplete());
+		assertFalse(unf.isSound());
+		assertTrue(unf.getEvents().size() < full.getEvents().size());
+		
+		// witness is a configuration that puts two tokens in place 'm'
+		Set<Event> witness = unf.getWitness();
+		Set<String> ts = new HashSet<String>();
+		for (Event e : witness) {
+			assertTrue(witness.containsAll(e.getLocalConfiguration()));
+			ts.add(e.getTransition().getName());
+		}
+		int cs = 0;
+		for (String t : ts) if (t.startsWith("c")) cs++;
+		assertEquals(2, cs);
+	}
+	
+	public void testDeadlock() {
+		// choice between 'x1' and 'x2' followed by synchronization of their outputs
+		NetSystem net = new NetSystem();
+		Place i = new Place("i");
+		Place p1 = new Place("p1");
+		Place p2 = new Place("p2");
+		Place o = new Place("o");
+		Transition x1 = new Transition("x1");
+		Transition x2 = new Transition("x2");
+		Transition join = new Transition("join");
+		net.addFlow(i, x1);
+		net.addFlow(i, x2);
+		net.addFlow(x1, p1);
+		net.addFlow(x2, p2);
+		net.addFlow(p1, join);
+		net.addFlow(p2, join);
+		net.addFlow(join, o);
+		net.putTokens(i, 1);
+		
+		SoundUnfolding full = new SoundUnfolding(net);
+		assertFalse(full.isSound());
+		assertEquals(2, full.getLocalDeadlockConditions().size());
+		
+		SoundUnfolding unf = new SoundUnfolding(net, true);
+		assertFalse(unf.isSound());
+		assertEquals(1, unf.getEvents().size());
+		assertEquals(unf.getEvents(), unf.getWitness());
+	}
+	
+	public void testStructuralRestrictions() {
+		NetSystem net = this.createNet(1, true);
+		net.addFlow(net.getTransitions().iterator().next(), net.getSourcePlaces().iterator().next());
+		try {
+			new SoundUnfolding(net);
+			fail();
+		} catch (IllegalArgumentException e) {}
+	}
 }
@@ -0,0 +1,284 @@
+package org.jbpt.test.petri.unfolding;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.jbpt.petri.NetSystem;
+import org.jbpt.petri.Place;
+import org.jbpt.petri.Transition;
+import org.jbpt.petri.unfolding.CompletePrefixUnfolding;
+import org.jbpt.petri.unfolding.CompletePrefixUnfoldingSetup;
+import org.jbpt.petri.unfolding.Condition;
+import org.jbpt.petri.unfolding.Event;
+import org.jbpt.petri.unfolding.IBPNode;
+import org.jbpt.petri.unfolding.IBranchingProcess;
+import org.jbpt.petri.unfolding.OrderingRelationType;
+import org.jbpt.petri.unfolding.order.AdequateOrderType;
+
+public class UnfoldingCheckpointTest extends TestCase {
+
+	/**
+	 * Net with concurrent branches; every branch chooses between two transitions and may loop.
+	 *
+	 * @param branches Number of branches.
+	 * @param joined <tt>true</tt> to join the branches by a transition.
+	 */
+	private NetSystem createNet(int branches, boolean joined) {
+		NetSystem net = new NetSystem();
+		Place i = new Place("i");
+		Transition fork = new Transition("fork");
+		net.addFlow(i, fork);
+		Transition join = new Transition("join");
+		if (joined) net.addFlow(join, new Place("o"));
+		for (int k = 0; k < branches; k++) {
+			Place p1 = new Place("p" + k + "1");
+			Place p2 = new Place("p" + k + "2");
+			Transition a = new Transition("a" + k);
+			Transition b = new Transition("b" + k);
+			Transition c = new Transition("c" + k);
+			net.addFlow(fork, p1);
+			net.addFlow(p1, a);
+			net.addFlow(p1, b);
+			net.addFlow(a, p2);
+			net.addFlow(b, p2);
+			net.addFlow(p2, c);
+			net.addFlow(c, p1);
+			if (joined) net.addFlow(p2, join);
+		}
+		net.putTokens(i, 1);
+		return net;
+	}
+
+	public void testResume() {
+		NetSystem net = this.createNet(3, false);
+
+		for (AdequateOrderType type : AdequateOrderType.values()) {
+			CompletePrefixUnfoldingSetup setup = new CompletePrefixUnfoldingSetup();
+			setup.ADEQUATE_ORDER = type;
+			setup.MAX_EVENTS = 300;
+			CompletePrefixUnfolding full = new CompletePrefixUnfolding(net, setup);
+
+			setup.MAX_EVENTS = 4;
+			CompletePrefixUnfolding cpu = new CompletePrefixUnfolding(net, setup);
+			assertFalse(type.toString(), cpu.isComplete());
+			assertEquals(type.toString(), 4, cpu.getEvents().size());
+
+			cpu.resume(8);
+			assertEquals(type.toString(), 8, cpu.getEvents().size());
+			cpu.resume(300);
+			assertEquals(type.toString(), full.isComplete(), cpu.isComplete());
+			this.assertSameEvents(type.toString(), full, cpu);
+		}
+	}
+
+	public void testCheckpoint() throws IOException {
+		NetSystem net = this.createNet(3, false);
+
+		for (AdequateOrderType type : AdequateOrderType.values()) {
+			CompletePrefixUnfoldingSetup setup = new CompletePrefixUnfoldingSetup();
+			setup.ADEQUATE_ORDER = type;
+			setup.MAX_EVENTS = 6;
+			CompletePrefixUnfolding cpu = new CompletePrefixUnfolding(net, setup);
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			cpu.checkpoint(out);
+			CompletePrefixUnfolding restored = new CompletePrefixUnfolding(net, setup, new ByteArrayInputStream(out.toByteArray()));
+			this.assertSameEvents(type.toString(), cpu, restored);
+			assertEquals(type.toString(), cpu.getConditions().size(), restored.getConditions().size());
+			assertFalse(type.toString(), restored.isComplete());
+
+			cpu.resume(300);
+			restored.resume(300);
+			this.assertSameEvents(type.toString(), cpu, restored);
+		}
+
+		// checkpoints fit the adequate order of the setup only
+		CompletePrefixUnfoldingSetup setup = new CompletePrefixUnfoldingSetup();
+		setup.MAX_EVENTS = 6;
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new CompletePrefixUnfolding(net, setup).checkpoint(out);
+		setup.ADEQUATE_ORDER = AdequateOrderType.MCMILLAN;
+		try {
+			new CompletePrefixUnfolding(net, setup, new ByteArrayInputStream(out.toByteArray()));
+			fail();
+		} catch (IOException e) {}
+	}
+
+	public void testPersistence() throws IOException {
+		NetSystem net = this.createNet(3, false);
+		CompletePrefixUnfolding cpu = new CompletePrefixUnfolding(net);
+		assertTrue(cpu.isComplete());
+
+		File file = File.createTempFile("prefix", ".bin");
+		try {
+			FileOutputStream out = new FileOutputStream(file);
+			try {
+				cpu.checkpoint(out);
+			} finally {
+				out.close();
+			}
+
+			CompletePrefixUnfolding restored = new CompletePrefixUnfolding(net, new CompletePrefixUnfoldingSetup(), file);
+			assertTrue(restored.isComplete());
+			this.assertSameEvents("", cpu, restored);
+
+			// corresponding events and concurrency of conditions are restored
+			List<Event> es = restored.getLog();
+			for (Event e : cpu.getCutoffEvents())
+				assertEquals(cpu.getCorrespondingEvent(e).getIndex(), restored.getCorrespondingEvent(es.get(e.getIndex())).getIndex());
+			for (Condition c1 : cpu.getConditions())
+				for (Condition c2 : cpu.getConditions())
+					assertEquals(cpu.areMutuallyConcurrent(Arrays.asList(c1, c2)),
+							restored.areMutuallyConcurrent(Arrays.asList(this.getCondition(restored, c1.getIndex()), this.getCondition(restored, c2.getIndex()))));
+
+			// causality and conflict of events are indexed on request
+			for (Event e1 : cpu.getLog())
+				for (Event e2 : cpu.getLog())
+					assertEquals(this.getOrderingRelation(cpu, e1, e2), this.getOrderingRelation(restored, es.get(e1.getIndex()), es.get(e2.getIndex())));
+		} finally {
+			file.delete();
+		}
+
+		// data that is not a checkpoint is rejected
+		try {
+			new CompletePrefixUnfolding(net, new CompletePrefixUnfoldingSetup(), new ByteArrayInputStream(new byte[] {1, 2, 3}));
+			fail();
+		} catch (IOException e) {}
+	}
+
+	public void testTruncatedCheckpoint() throws IOException {
+		NetSystem net = this.createNet(2, true);
+		CompletePrefixUnfolding cpu = new CompletePrefixUnfolding(net);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		cpu.checkpoint(out);
+		byte[] bytes = out.toByteArray();
+
+		for (int length = 0; length < bytes.length; length++) {
+			try {
+				new CompletePrefixUnfolding(net, new CompletePrefixUnfoldingSetup(), new ByteArrayInputStream(Arrays.copyOf(bytes, length)));
+				fail("Checkpoint truncated to " + length + " bytes was restored.");
+			} catch (IOException e) {}
+		}
+	}
+
+	public void testCorrespondingEvents() throws IOException {
+		NetSystem net = this.createNet(2, true);
+		CompletePrefixUnfolding cpu = new CompletePrefixUnfolding(net);
+		assertFalse(cpu.getCutoffEvents().isEmpty());
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		cpu.checkpoint(out);
+
+		// stored corresponding events are restored
+		CompletePrefixUnfolding restored = new CompletePrefixUnfolding(net, new CompletePrefixUnfoldingSetup(), new ByteArrayInputStream(out.toByteArray()));
+		List<Event> es = restored.getLog();
+		for (Event e : cpu.getCutoffEvents()) {
+			Event corr = restored.getCorrespondingEvent(es.get(e.getIndex()));
+			assertEquals(cpu.getCorrespondingEvent(e).getIndex(), corr.getIndex());
+			assertEquals(es.get(e.getIndex()).getLocalConfiguration().getMarking(), corr.getLocalConfiguration().getMarking());
+		}
+
+		// restored unfoldings can be checkpointed before resuming construction
+		ByteArrayOutputStream again = new ByteArrayOutputStream();
+		restored.checkpoint(again);
+		assertTrue(Arrays.equals(out.toByteArray(), again.toByteArray()));
+
+		// corresponding events must precede their cutoff events
+		Event cutoff = cpu.getCutoffEvents().iterator().next();
+		try {
+			new CompletePrefixUnfolding(net, new CompletePrefixUnfoldingSetup(), new ByteArrayInputStream(this.setCorrespondingEvent(out.toByteArray(), cutoff.getIndex(), cutoff.getIndex())));
+			fail();
+		} catch (IOException e) {}
+	}
+
+	/**
+	 * Copy a checkpoint and replace the corresponding event of the event at the given position.
+	 */
+	private byte[] setCorrespondingEvent(byte[] checkpoint, int event, int corr) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(checkpoint));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+
+		this.copy(in, out, 2);
+		int ids = this.copy(in, out, 1);
+		for (int i = 0; i < ids; i++)
+			out.write(this.readFully(in, this.copy(in, out, 1)));
+		int places = this.copy(in, out, 1);
+		this.copy(in, out, 1);
+		this.copy(in, out, places);
+		for (int i = 0; i < places; i++)
+			this.copy(in, out, 2 * this.copy(in, out, 1));
+		int events = this.copy(in, out, 1);
+		for (int i = 0; i < events; i++) {
+			this.copy(in, out, 1);
+			this.copy(in, out, this.copy(in, out, 1));
+			this.copy(in, out, this.copy(in, out, 1));
+			int c = in.readInt();
+			out.writeInt(i == event ? corr : c);
+		}
+		out.write(this.readFully(in, in.available()));
+
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Copy the given number of integers and return the last one.
+	 */
+	private int copy(DataInputStream in, DataOutputStream out, int count) throws IOException {
+		int result = 0;
+		for (int i = 0; i < count; i++) {
+			result = in.readInt();
+			out.writeInt(result);
+		}
+		return result;
+	}
+
+	private byte[] readFully(DataInputStream in, int length) throws IOException {
+		byte[] result = new byte[length];
+		in.readFully(result);
+		return result;
+	}
+
+	@SuppressWarnings({"rawtypes", "unchecked"})
+	private OrderingRelationType getOrderingRelation(IBranchingProcess bp, Event e1, Event e2) {
+		return bp.getOrderingRelation((IBPNode) e1, (IBPNode) e2);
+	}
+
+	/**
+	 * Check that two prefixes have appended events of the same transitions with the same preconditions in the same order, 
+	 * and that they agree on cutoff events.
+	 */
+	private void assertSameEvents(String message, CompletePrefixUnfolding expected, CompletePrefixUnfolding actual) {
+		List<Event> es1 = expected.getLog();
+		List<Event> es2 = actual.getLog();
+		assertEquals(message, es1.size(), es2.size());
+		for (int k = 0; k < es1.size(); k++) {
+			assertEquals(message, es1.get(k).getTransition(), es2.get(k).getTransition());
+			assertEquals(message, this.getIndexes(es1.get(k).getPreConditions()), this.getIndexes(es2.get(k).getPreConditions()));
+			assertEquals(message, expected.isCutoffEvent(es1.get(k)), actual.isCutoffEvent(es2.get(k)));
+		}
+	}
+
+	private Set<Integer> getIndexes(Set<Condition> cs) {
+		Set<Integer> result = new HashSet<Integer>();
+		for (Condition c : cs) result.add(c.getIndex());
+		return result;
+	}
+
+	private Condition getCondition(CompletePrefixUnfolding cpu, int index) {
+		for (Condition c : cpu.getConditions())
+			if (c.getIndex() == index) return c;
+		return null;
+	}
+}